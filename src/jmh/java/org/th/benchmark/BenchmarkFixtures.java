@@ -0,0 +1,69 @@
+package org.th.benchmark;
+
+import org.th.entity.City;
+import org.th.entity.District;
+import org.th.entity.enums.PricePreference;
+import org.th.entity.shops.Shop;
+import org.th.entity.shops.ShopPhoto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic in-memory shops shared by the benchmark suites
+ */
+public final class BenchmarkFixtures {
+
+    public static final double BANGKOK_LAT = 13.7563;
+    public static final double BANGKOK_LON = 100.5018;
+
+    private BenchmarkFixtures() {
+    }
+
+    public static List<Shop> shops(int count) {
+        Random random = new Random(42);
+        City city = City.builder().id(1L).nameEn("Bangkok").nameMm("ဘန်ကောက်").slug("bangkok").build();
+        District district = District.builder().id(1L).city(city).nameEn("Pathum Wan").nameMm("ပထွမ်ဝမ်")
+                .slug("pathum-wan").build();
+
+        List<Shop> shops = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Shop shop = new Shop();
+            shop.setId((long) i + 1);
+            shop.setName("Shop " + i);
+            shop.setNameMm("ဆိုင် " + i);
+            shop.setNameEn("Shop " + i);
+            shop.setSlug("shop-" + i);
+            shop.setCategory(i % 3 == 0 ? "Food" : i % 3 == 1 ? "Cafe" : "Bakery");
+            shop.setSubCategory("Noodle");
+            shop.setAddress(i + " Rama I Rd");
+            shop.setLatitude(BigDecimal.valueOf(BANGKOK_LAT + (random.nextDouble() - 0.5) / 10));
+            shop.setLongitude(BigDecimal.valueOf(BANGKOK_LON + (random.nextDouble() - 0.5) / 10));
+            shop.setRatingAvg(BigDecimal.valueOf(3 + random.nextInt(20) / 10.0));
+            shop.setRatingCount(random.nextInt(200));
+            shop.setTrendingScore(random.nextDouble() * 100);
+            shop.setViewCount(random.nextInt(500));
+            shop.setIsHalal(random.nextBoolean());
+            shop.setIsVegetarian(random.nextBoolean());
+            shop.setHasDelivery(random.nextBoolean());
+            shop.setPricePreference(PricePreference.values()[i % PricePreference.values().length]);
+            shop.setCreatedAt(LocalDateTime.now().minusDays(random.nextInt(120)));
+            shop.setDistrict(district);
+
+            for (int p = 0; p < 3; p++) {
+                ShopPhoto photo = new ShopPhoto();
+                photo.setId((long) i * 10 + p);
+                photo.setShop(shop);
+                photo.setUrl("https://cdn.example.com/shops/" + i + "/" + p + ".jpg");
+                photo.setThumbnailUrl("https://cdn.example.com/shops/" + i + "/" + p + "_thumb.jpg");
+                photo.setIsPrimary(p == 0);
+                shop.getPhotos().add(photo);
+            }
+            shops.add(shop);
+        }
+        return shops;
+    }
+}
@@ -0,0 +1,140 @@
+package org.th.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.th.benchmark.BenchmarkFixtures;
+import org.th.dto.ApiResponse;
+import org.th.dto.feed.FeedMetadataDTO;
+import org.th.dto.feed.FeedSectionDTO;
+import org.th.dto.feed.PersonalizedFeedDTO;
+import org.th.dto.feed.ShopFeedItemDTO;
+import org.th.entity.shops.Shop;
+import org.th.repository.OperatingHourRepository;
+import org.th.repository.ShopRepository;
+import org.th.repository.ShopReviewRepository;
+import org.th.repository.UserActivityRepository;
+import org.th.service.MenuCategoryService;
+import org.th.service.ShopService;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialization cost of the hot mobile payloads per response format
+ * "json+gzip" is what server.compression does for a JSON response today.
+ * Payload sizes are printed once per trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseFormatBenchmark {
+
+    @Param({ "feed", "nearby", "detail" })
+    public String payload;
+
+    @Param({ "json", "json+gzip", "cbor", "smile" })
+    public String format;
+
+    private Object body;
+    private ObjectMapper mapper;
+    private boolean gzip;
+
+    @Setup
+    public void setup() throws IOException {
+        OperatingHourRepository operatingHourRepository = Mockito.mock(OperatingHourRepository.class,
+                Mockito.withSettings().stubOnly());
+        Mockito.when(operatingHourRepository.findByShopId(Mockito.anyLong())).thenReturn(Collections.emptyList());
+        ShopService shopService = new ShopService(
+                Mockito.mock(ShopRepository.class),
+                Mockito.mock(MenuCategoryService.class),
+                Mockito.mock(ShopReviewRepository.class),
+                Mockito.mock(UserActivityRepository.class),
+                operatingHourRepository);
+        List<Shop> shops = BenchmarkFixtures.shops(40);
+
+        body = switch (payload) {
+            case "feed" -> ApiResponse.success(feed(shops));
+            case "nearby" -> ApiResponse.success(shops.stream()
+                    .map(s -> shopService.convertToListDTO(s, BenchmarkFixtures.BANGKOK_LAT,
+                            BenchmarkFixtures.BANGKOK_LON))
+                    .toList());
+            default -> ApiResponse.success(shopService.convertToDetailDTO(shops.get(0), Collections.emptyList(),
+                    BenchmarkFixtures.BANGKOK_LAT, BenchmarkFixtures.BANGKOK_LON));
+        };
+        JsonFactory factory = switch (format) {
+            case "cbor" -> new CBORFactory();
+            case "smile" -> new SmileFactory();
+            default -> new JsonFactory();
+        };
+        mapper = BinaryFormatConfig.binaryMapper(Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS), factory);
+        gzip = format.equals("json+gzip");
+
+        System.out.printf("%n%s as %s: %d bytes%n", payload, format, encode().length);
+    }
+
+    @Benchmark
+    public void serialize(Blackhole blackhole) throws IOException {
+        blackhole.consume(encode());
+    }
+
+    private byte[] encode() throws IOException {
+        if (!gzip) {
+            return mapper.writeValueAsBytes(body);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream zip = new GZIPOutputStream(out)) {
+            mapper.writeValue(zip, body);
+        }
+        return out.toByteArray();
+    }
+
+    private static PersonalizedFeedDTO feed(List<Shop> shops) {
+        return PersonalizedFeedDTO.builder()
+                .forYouNow(section(shops.subList(0, 10)))
+                .trendingNearby(section(shops.subList(10, 20)))
+                .basedOnFavorites(section(shops.subList(20, 30)))
+                .newShops(section(shops.subList(30, 40)))
+                .metadata(FeedMetadataDTO.builder()
+                        .generatedAt(LocalDateTime.now())
+                        .locationUsed(true)
+                        .userLatitude(BenchmarkFixtures.BANGKOK_LAT)
+                        .userLongitude(BenchmarkFixtures.BANGKOK_LON)
+                        .radiusKm(5.0)
+                        .build())
+                .build();
+    }
+
+    private static FeedSectionDTO section(List<Shop> sectionShops) {
+        List<ShopFeedItemDTO> items = sectionShops.stream()
+                .map(s -> ShopFeedItemDTO.builder()
+                        .id(s.getId())
+                        .name(s.getName())
+                        .nameMm(s.getNameMm())
+                        .category(s.getCategory())
+                        .ratingAvg(s.getRatingAvg())
+                        .ratingCount(s.getRatingCount())
+                        .latitude(s.getLatitude())
+                        .longitude(s.getLongitude())
+                        .distanceKm(1.2)
+                        .trendingScore(s.getTrendingScore())
+                        .build())
+                .toList();
+        return FeedSectionDTO.builder().title("Section").shops(items).totalCount(items.size()).build();
+    }
+}
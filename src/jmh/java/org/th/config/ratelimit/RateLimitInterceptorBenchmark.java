@@ -0,0 +1,43 @@
+package org.th.config.ratelimit;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of the rate-limit interceptor (bucket lookup + consume)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateLimitInterceptorBenchmark {
+
+    private RateLimitInterceptor interceptor;
+    private HandlerMethod handler;
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setup() throws Exception {
+        interceptor = new RateLimitInterceptor();
+        handler = new HandlerMethod(new Endpoint(), Endpoint.class.getMethod("handle"));
+        request = new MockHttpServletRequest("GET", "/api/mobile/shops");
+        request.setRemoteAddr("10.0.0.1");
+    }
+
+    @Benchmark
+    public boolean preHandle() throws Exception {
+        return interceptor.preHandle(request, new MockHttpServletResponse(), handler);
+    }
+
+    public static class Endpoint {
+        @RateLimit(capacity = 1_000_000_000L, refillTokens = 1_000_000_000L, refillDuration = 1, refillUnit = TimeUnit.SECONDS)
+        public void handle() {
+        }
+    }
+}
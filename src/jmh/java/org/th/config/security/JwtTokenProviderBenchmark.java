@@ -0,0 +1,45 @@
+package org.th.config.security;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.th.entity.User;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token parse/validate cost per authenticated request
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtTokenProviderBenchmark {
+
+    private JwtTokenProvider tokenProvider;
+    private String token;
+
+    @Setup
+    public void setup() {
+        tokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "jwtSecret", "benchmark-secret-benchmark-secret-benchmark-secret");
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpiration", 86_400_000L);
+        tokenProvider.init();
+
+        User user = new User();
+        user.setUsername("bench");
+        token = tokenProvider.generateToken(new UsernamePasswordAuthenticationToken(user, null));
+    }
+
+    @Benchmark
+    public String getUsernameIfValid() {
+        return tokenProvider.getUsernameIfValid(token);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return tokenProvider.validateToken(token);
+    }
+}
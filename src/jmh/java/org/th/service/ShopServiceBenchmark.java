@@ -0,0 +1,78 @@
+package org.th.service;
+
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.th.benchmark.BenchmarkFixtures;
+import org.th.entity.shops.Shop;
+import org.th.repository.OperatingHourRepository;
+import org.th.repository.ShopRepository;
+import org.th.repository.ShopReviewRepository;
+import org.th.repository.UserActivityRepository;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Geo math and DTO mapping in ShopService
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShopServiceBenchmark {
+
+    private ShopService shopService;
+    private List<Shop> shops;
+    private Shop shop;
+
+    @Setup
+    public void setup() {
+        // stubOnly: do not record invocations, otherwise the mock grows for the whole run
+        OperatingHourRepository operatingHourRepository = Mockito.mock(OperatingHourRepository.class,
+                Mockito.withSettings().stubOnly());
+        Mockito.when(operatingHourRepository.findByShopId(Mockito.anyLong())).thenReturn(Collections.emptyList());
+        shopService = new ShopService(
+                Mockito.mock(ShopRepository.class),
+                Mockito.mock(MenuCategoryService.class),
+                Mockito.mock(ShopReviewRepository.class),
+                Mockito.mock(UserActivityRepository.class),
+                operatingHourRepository);
+        shops = BenchmarkFixtures.shops(100);
+        shop = shops.get(0);
+    }
+
+    @Benchmark
+    public double calculateDistance() {
+        return ShopService.calculateDistance(BenchmarkFixtures.BANGKOK_LAT, BenchmarkFixtures.BANGKOK_LON,
+                13.7469, 100.5349);
+    }
+
+    @Benchmark
+    public double[] calculateBoundingBox() {
+        return ShopService.calculateBoundingBox(BenchmarkFixtures.BANGKOK_LAT, BenchmarkFixtures.BANGKOK_LON, 5.0);
+    }
+
+    @Benchmark
+    public Object convertToListDTO() {
+        return shopService.convertToListDTO(shop, BenchmarkFixtures.BANGKOK_LAT, BenchmarkFixtures.BANGKOK_LON);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void convertToListDTOPage(Blackhole blackhole) {
+        for (Shop s : shops) {
+            blackhole.consume(shopService.convertToListDTO(s, BenchmarkFixtures.BANGKOK_LAT,
+                    BenchmarkFixtures.BANGKOK_LON));
+        }
+    }
+
+    @Benchmark
+    public Object convertToDetailDTO() {
+        return shopService.convertToDetailDTO(shop, Collections.emptyList(), BenchmarkFixtures.BANGKOK_LAT,
+                BenchmarkFixtures.BANGKOK_LON);
+    }
+}
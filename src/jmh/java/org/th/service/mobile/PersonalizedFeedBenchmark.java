@@ -0,0 +1,114 @@
+package org.th.service.mobile;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.th.benchmark.BenchmarkFixtures;
+import org.th.dto.feed.FeedMetadataDTO;
+import org.th.dto.feed.FeedSectionDTO;
+import org.th.dto.feed.PersonalizedFeedDTO;
+import org.th.dto.feed.ShopFeedItemDTO;
+import org.th.entity.User;
+import org.th.entity.enums.FeedSectionType;
+import org.th.entity.enums.TimeContext;
+import org.th.entity.enums.UserSegment;
+import org.th.entity.shops.Shop;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Feed scoring helpers and Jackson serialization of a full feed payload
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PersonalizedFeedBenchmark {
+
+    private PersonalizedFeedService feedService;
+    private List<Shop> shops;
+    private Shop shop;
+    private User user;
+    private PersonalizedFeedDTO feed;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setup() {
+        // Helpers under test do not touch any collaborator
+        feedService = new PersonalizedFeedService(null, null, null, null, null, null, null, null, null, null, null);
+        shops = BenchmarkFixtures.shops(40);
+        shop = shops.get(0);
+
+        user = new User();
+        user.setUsername("bench");
+        user.setIsVegetarian(true);
+        user.setIsHalal(false);
+
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        feed = PersonalizedFeedDTO.builder()
+                .forYouNow(section(FeedSectionType.values()[0], shops.subList(0, 10)))
+                .trendingNearby(section(FeedSectionType.values()[0], shops.subList(10, 20)))
+                .basedOnFavorites(section(FeedSectionType.values()[0], shops.subList(20, 30)))
+                .newShops(section(FeedSectionType.values()[0], shops.subList(30, 40)))
+                .metadata(FeedMetadataDTO.builder()
+                        .generatedAt(LocalDateTime.now())
+                        .userSegment(UserSegment.values()[0])
+                        .timeContext(TimeContext.values()[0])
+                        .locationUsed(true)
+                        .userLatitude(BenchmarkFixtures.BANGKOK_LAT)
+                        .userLongitude(BenchmarkFixtures.BANGKOK_LON)
+                        .radiusKm(5.0)
+                        .build())
+                .build();
+    }
+
+    private FeedSectionDTO section(FeedSectionType type, List<Shop> sectionShops) {
+        List<ShopFeedItemDTO> items = sectionShops.stream()
+                .map(s -> ShopFeedItemDTO.builder()
+                        .id(s.getId())
+                        .name(s.getName())
+                        .nameMm(s.getNameMm())
+                        .category(s.getCategory())
+                        .ratingAvg(s.getRatingAvg())
+                        .ratingCount(s.getRatingCount())
+                        .latitude(s.getLatitude())
+                        .longitude(s.getLongitude())
+                        .distanceKm(1.2)
+                        .badges(feedService.calculateShopBadges(s))
+                        .relevanceScore(feedService.calculateRelevanceScore(s))
+                        .trendingScore(s.getTrendingScore())
+                        .build())
+                .collect(Collectors.toList());
+        return FeedSectionDTO.builder().title("Section").sectionType(type).shops(items).totalCount(items.size())
+                .build();
+    }
+
+    @Benchmark
+    public Object calculateShopBadges() {
+        return feedService.calculateShopBadges(shop);
+    }
+
+    @Benchmark
+    public Double calculateRelevanceScore() {
+        return feedService.calculateRelevanceScore(shop);
+    }
+
+    @Benchmark
+    public List<Shop> applyDietarySafetyNet() {
+        return feedService.applyDietarySafetyNet(shops, user);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void serializeFeed(Blackhole blackhole) throws Exception {
+        blackhole.consume(objectMapper.writeValueAsBytes(feed));
+    }
+}
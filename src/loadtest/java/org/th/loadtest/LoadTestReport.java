@@ -0,0 +1,83 @@
+package org.th.loadtest;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-scenario latency histograms, status counts and DB statement counts
+ */
+public class LoadTestReport {
+
+    private final Map<String, ConcurrentHistogram> latencies = new ConcurrentHashMap<>();
+    private final Map<String, Map<Integer, LongAdder>> statuses = new ConcurrentHashMap<>();
+
+    public void record(String scenario, long micros, int status) {
+        latencies.computeIfAbsent(scenario, k -> new ConcurrentHistogram(60_000_000L, 3)).recordValue(
+                Math.min(micros, 60_000_000L));
+        statuses.computeIfAbsent(scenario, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(status, k -> new LongAdder()).increment();
+    }
+
+    public void reset() {
+        latencies.clear();
+        statuses.clear();
+    }
+
+    public Map<String, Object> summarize(List<TrafficMix.Scenario> scenarios, double seconds,
+            MeterRegistry meterRegistry) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (TrafficMix.Scenario scenario : scenarios) {
+            Histogram histogram = latencies.get(scenario.name());
+            if (histogram == null) {
+                continue;
+            }
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("endpoint", scenario.endpoint());
+            row.put("requests", histogram.getTotalCount());
+            row.put("throughputRps", round(histogram.getTotalCount() / seconds));
+            row.put("p50Ms", round(histogram.getValueAtPercentile(50) / 1000.0));
+            row.put("p95Ms", round(histogram.getValueAtPercentile(95) / 1000.0));
+            row.put("p99Ms", round(histogram.getValueAtPercentile(99) / 1000.0));
+            row.put("maxMs", round(histogram.getMaxValue() / 1000.0));
+            Map<String, Long> statusCounts = new LinkedHashMap<>();
+            statuses.getOrDefault(scenario.name(), Map.of())
+                    .forEach((status, count) -> statusCounts.put(String.valueOf(status), count.sum()));
+            row.put("statuses", statusCounts);
+
+            DistributionSummary queries = meterRegistry.find("endpoint.queries")
+                    .tag("endpoint", scenario.endpoint())
+                    .summary();
+            if (queries != null) {
+                row.put("dbStatementsMean", round(queries.mean()));
+                row.put("dbStatementsMax", round(queries.max()));
+            }
+            result.put(scenario.name(), row);
+        }
+        return result;
+    }
+
+    public static String toTable(Map<String, Object> summary) {
+        StringBuilder sb = new StringBuilder(String.format("%n%-10s %9s %9s %9s %9s %9s %9s %9s%n",
+                "scenario", "requests", "rps", "p50 ms", "p95 ms", "p99 ms", "max ms", "stmts"));
+        summary.forEach((name, value) -> {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> row = (Map<String, Object>) value;
+            sb.append(String.format("%-10s %9s %9s %9s %9s %9s %9s %9s%n", name, row.get("requests"),
+                    row.get("throughputRps"), row.get("p50Ms"), row.get("p95Ms"), row.get("p99Ms"),
+                    row.get("maxMs"), row.getOrDefault("dbStatementsMean", "-")));
+        });
+        return sb.toString();
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+}
@@ -0,0 +1,121 @@
+package org.th.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Seeds a Bangkok-like dataset with set-based SQL (generate_series), so even
+ * 100k shops / 10M activities load in minutes and are identical between runs.
+ * Runs after Hibernate has created the schema.
+ */
+@Slf4j
+public class LoadTestSeeder {
+
+    private static final String[] CATEGORIES = { "Food", "Cafe", "Bakery", "Bar", "Dessert", "Street Food" };
+    private static final String[] DISTRICTS = { "Pathum Wan", "Watthana", "Bang Rak", "Khlong Toei", "Phra Nakhon",
+            "Sathon", "Chatuchak", "Ratchathewi", "Huai Khwang", "Din Daeng", "Phaya Thai", "Dusit" };
+
+    private final JdbcTemplate jdbc;
+
+    public LoadTestSeeder(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    public void seed(LoadTestSettings settings) {
+        long start = System.currentTimeMillis();
+        jdbc.execute("SELECT setseed(0.42)");
+        jdbc.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+
+        jdbc.update("INSERT INTO cities (id, name_en, name_mm, slug, active) VALUES (1, 'Bangkok', 'ဘန်ကောက်', 'bangkok', true)");
+        for (int i = 0; i < DISTRICTS.length; i++) {
+            jdbc.update("""
+                    INSERT INTO districts (id, city_id, name_en, name_mm, slug, latitude, longitude, active)
+                    VALUES (?, 1, ?, ?, ?, ?, ?, true)""",
+                    i + 1, DISTRICTS[i], DISTRICTS[i], DISTRICTS[i].toLowerCase().replace(' ', '-'),
+                    13.70 + i * 0.01, 100.48 + i * 0.01);
+        }
+
+        String categoryArray = "ARRAY['" + String.join("','", CATEGORIES) + "']";
+        jdbc.update("""
+                INSERT INTO shops (id, name, name_mm, name_en, slug, category, sub_category, latitude, longitude, address,
+                                   has_delivery, has_parking, has_wifi, rating_avg, rating_count, trending_score,
+                                   view_count, is_active, is_verified, is_halal, is_vegetarian, price_preference,
+                                   district_id, created_at, updated_at)
+                SELECT g, 'Shop ' || g, 'ဆိုင် ' || g, 'Shop ' || g, 'shop-' || g,
+                       (%s)[1 + (g %% %d)], 'General',
+                       13.65 + random() * 0.20, 100.40 + random() * 0.25, g || ' Sukhumvit Rd',
+                       random() < 0.5, random() < 0.3, random() < 0.6,
+                       round((2.5 + random() * 2.5)::numeric, 2), (random() * 300)::int, random() * 100,
+                       (random() * 2000)::int, true, random() < 0.7, random() < 0.2, random() < 0.15,
+                       (ARRAY['LOW','MEDIUM','HIGH'])[1 + (g %% 3)],
+                       1 + (g %% %d), now() - (random() * interval '365 days'), now()
+                FROM generate_series(1, %d) g""".formatted(categoryArray, CATEGORIES.length, DISTRICTS.length,
+                settings.shops()));
+
+        jdbc.update("""
+                INSERT INTO shop_photos (shop_id, url, thumbnail_url, photo_type, is_primary, display_order, uploaded_at)
+                SELECT s, 'https://cdn.example.com/shops/' || s || '/' || p || '.jpg',
+                       'https://cdn.example.com/shops/' || s || '/' || p || '_thumb.jpg',
+                       CASE WHEN p = 0 THEN 'cover' ELSE 'gallery' END, p = 0, p, now()
+                FROM generate_series(1, %d) s, generate_series(0, 2) p""".formatted(settings.shops()));
+
+        jdbc.update("""
+                INSERT INTO operating_hours (shop_id, day_of_week, opening_time, closing_time, is_closed)
+                SELECT s, d, time '08:00' + ((s %% 4) * interval '1 hour'), time '21:00', d = (s %% 7)
+                FROM generate_series(1, %d) s, generate_series(0, 6) d""".formatted(settings.shops()));
+
+        jdbc.update("""
+                INSERT INTO menu_categories (id, shop_id, name, name_mm, name_en, display_order, is_active, created_at)
+                SELECT (s - 1) * 3 + c, s, 'Menu ' || c, 'မီနူး ' || c, 'Menu ' || c, c, true, now()
+                FROM generate_series(1, %d) s, generate_series(1, 3) c""".formatted(settings.shops()));
+
+        jdbc.update("""
+                INSERT INTO menu_items (shop_id, category_id, name, name_mm, name_en, price, currency, is_available,
+                                        is_popular, is_vegetarian, is_spicy, display_order, created_at)
+                SELECT s, (s - 1) * 3 + c, 'Dish ' || i, 'ဟင်း ' || i, 'Dish ' || i, 40 + (random() * 300)::int, 'THB',
+                       true, random() < 0.2, random() < 0.2, random() < 0.3, i, now()
+                FROM generate_series(1, %d) s, generate_series(1, 3) c, generate_series(1, 4) i""".formatted(
+                settings.shops()));
+
+        jdbc.update("""
+                INSERT INTO users (id, username, email, password, full_name, role, created_at, updated_at, is_active,
+                                   is_vegetarian, is_halal)
+                SELECT g, 'load_user_' || g, 'load_user_' || g || '@example.com', '{noop}unused', 'Load User ' || g,
+                       'USER', now() - interval '90 days', now(), true, random() < 0.1, random() < 0.1
+                FROM generate_series(1, %d) g""".formatted(settings.users()));
+
+        jdbc.update("""
+                INSERT INTO user_favorites (user_id, shop_id, created_at)
+                SELECT DISTINCT u, 1 + (random() * (%d - 1))::int, now()
+                FROM generate_series(1, %d) u, generate_series(1, 5) f
+                ON CONFLICT DO NOTHING""".formatted(settings.shops(), settings.users()));
+
+        // Activities in chunks to keep each statement's WAL/undo bounded
+        long chunk = 1_000_000;
+        for (long offset = 0; offset < settings.activities(); offset += chunk) {
+            long to = Math.min(settings.activities(), offset + chunk);
+            jdbc.update("""
+                    INSERT INTO user_activities (user_id, shop_id, device_id, activity_type, search_query, category,
+                                                 target_id, latitude, longitude, created_at)
+                    SELECT CASE WHEN g %% 3 = 0 THEN 1 + (g %% %d) END,
+                           CASE WHEN g %% 4 < 2 THEN 1 + (g %% %d) END,
+                           'device-' || (g %% %d),
+                           (ARRAY['VIEW_SHOP','SEARCH_QUERY','VIEW_CATEGORY','VIEW_NEARBY'])[1 + (g %% 4)],
+                           CASE WHEN g %% 4 = 1 THEN 'noodle ' || (g %% 50) END,
+                           CASE WHEN g %% 4 = 2 THEN (%s)[1 + (g %% %d)] END,
+                           CASE WHEN g %% 4 < 2 THEN 1 + (g %% %d) END,
+                           13.65 + random() * 0.2, 100.40 + random() * 0.25,
+                           now() - (random() * interval '30 days')
+                    FROM generate_series(%d, %d) g""".formatted(settings.users(), settings.shops(),
+                    settings.devices(), categoryArray, CATEGORIES.length, settings.shops(), offset + 1, to));
+        }
+
+        for (String table : new String[] { "shops", "menu_categories", "users" }) {
+            jdbc.execute("SELECT setval(pg_get_serial_sequence('" + table + "', 'id'), (SELECT max(id) FROM " + table
+                    + "))");
+        }
+        jdbc.execute("ANALYZE");
+        log.info("Seeded {} shops, {} users, {} activities in {} ms", settings.shops(), settings.users(),
+                settings.activities(), System.currentTimeMillis() - start);
+    }
+}
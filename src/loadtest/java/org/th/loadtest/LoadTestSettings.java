@@ -0,0 +1,25 @@
+package org.th.loadtest;
+
+/**
+ * Scale and traffic parameters, read from system properties (-Dloadtest.shops=100000 ...)
+ */
+public record LoadTestSettings(
+        int shops,
+        int users,
+        long activities,
+        int devices,
+        int concurrency,
+        int warmupSeconds,
+        int durationSeconds) {
+
+    public static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Integer.getInteger("loadtest.shops", 10_000),
+                Integer.getInteger("loadtest.users", 2_000),
+                Long.getLong("loadtest.activities", 1_000_000L),
+                Integer.getInteger("loadtest.devices", 20_000),
+                Integer.getInteger("loadtest.concurrency", 32),
+                Integer.getInteger("loadtest.warmupSeconds", 15),
+                Integer.getInteger("loadtest.durationSeconds", 60));
+    }
+}
@@ -0,0 +1,142 @@
+package org.th.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.th.config.DatabaseSeeder;
+import org.th.config.security.JwtTokenProvider;
+import org.th.entity.User;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end load test: boots the app against a seeded Postgres container and
+ * replays the {@link TrafficMix} with a closed pool of virtual users.
+ *
+ * Run: mvn -Ploadtest verify -Dloadtest.shops=100000 -Dloadtest.activities=10000000
+ * Report: stdout table and target/loadtest-report.json
+ */
+@Slf4j
+@Testcontainers
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "jwt.secret=loadtest-secret-loadtest-secret-loadtest-secret-0123456789",
+        "supabase.key=unused",
+        "spring.jpa.hibernate.ddl-auto=update",
+        "app.logging.endpoint.sample-rate=0",
+        "spring.datasource.hikari.maximum-pool-size=30"
+})
+class MobileTrafficLoadIT {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withCommand("postgres", "-c", "max_connections=200", "-c", "shared_buffers=512MB");
+
+    // The Excel reset seeder would wipe the generated dataset on startup
+    @MockBean
+    private DatabaseSeeder databaseSeeder;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void replayMobileTrafficMix() throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        new LoadTestSeeder(jdbcTemplate).seed(settings);
+
+        List<String> tokens = new ArrayList<>();
+        for (int i = 1; i <= Math.min(settings.users(), 500); i++) {
+            User user = new User();
+            user.setUsername("load_user_" + i);
+            tokens.add(jwtTokenProvider.generateToken(new UsernamePasswordAuthenticationToken(user, null)));
+        }
+
+        TrafficMix mix = new TrafficMix(settings.shops());
+        LoadTestReport report = new LoadTestReport();
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+        drive(client, mix, report, tokens, settings, settings.warmupSeconds());
+        report.reset();
+        meterRegistry.find("endpoint.queries").meters().forEach(meterRegistry::remove);
+        drive(client, mix, report, tokens, settings, settings.durationSeconds());
+
+        Map<String, Object> summary = report.summarize(mix.scenarios(), settings.durationSeconds(), meterRegistry);
+        log.info("Load test ({} shops, {} activities, {} VUs, {} s):{}", settings.shops(), settings.activities(),
+                settings.concurrency(), settings.durationSeconds(), LoadTestReport.toTable(summary));
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(new File("target/loadtest-report.json"),
+                Map.of("settings", settings, "results", summary));
+    }
+
+    private void drive(HttpClient client, TrafficMix mix, LoadTestReport report, List<String> tokens,
+            LoadTestSettings settings, int seconds) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        try (ExecutorService users = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int vu = 0; vu < settings.concurrency(); vu++) {
+                users.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        send(client, mix.next(), report, tokens, settings);
+                    }
+                });
+            }
+        }
+    }
+
+    private void send(HttpClient client, TrafficMix.Request request, LoadTestReport report, List<String> tokens,
+            LoadTestSettings settings) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int device = random.nextInt(settings.devices());
+        // Each simulated device gets its own address so per-IP rate limits behave like production
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://localhost:" + port + request.path()))
+                .timeout(Duration.ofSeconds(30))
+                .header("X-Device-ID", "device-" + device)
+                .header("X-Forwarded-For", "10." + (device >> 16 & 255) + "." + (device >> 8 & 255) + "." + (device & 255));
+        if (request.scenario().authenticated()) {
+            builder.header("Authorization", "Bearer " + tokens.get(random.nextInt(tokens.size())));
+        }
+        builder.method(request.scenario().method(), HttpRequest.BodyPublishers.noBody());
+
+        long start = System.nanoTime();
+        int status;
+        try {
+            status = client.send(builder.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (Exception e) {
+            status = -1;
+        }
+        report.record(request.scenario().name(), (System.nanoTime() - start) / 1000, status);
+    }
+}
@@ -0,0 +1,76 @@
+package org.th.loadtest;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Weighted mix of mobile requests, modelled on a typical app session:
+ * feed and nearby dominate, detail/menu follow, tracking and favorites trail.
+ */
+public class TrafficMix {
+
+    private static final String[] QUERIES = { "noodle", "Shop 12", "cafe", "Bakery", "Shop 7", "tea", "ဆိုင်" };
+
+    /**
+     * One request kind; {@code endpoint} matches the server-side mapping used in metrics
+     */
+    public record Scenario(String name, String method, String endpoint, int weight, boolean authenticated) {
+    }
+
+    public record Request(Scenario scenario, String path) {
+    }
+
+    private final List<Scenario> scenarios = List.of(
+            new Scenario("feed", "GET", "GET /api/mobile/feed/personalized", 20, true),
+            new Scenario("nearby", "GET", "GET /api/mobile/shops/nearby", 20, false),
+            new Scenario("search", "GET", "GET /api/mobile/shops/search", 15, false),
+            new Scenario("detail", "GET", "GET /api/mobile/shops/{id}", 20, false),
+            new Scenario("menu", "GET", "GET /api/mobile/shops/{id}/menu", 10, false),
+            new Scenario("favorites", "GET", "GET /api/mobile/user/favorites", 5, true),
+            new Scenario("track", "POST", "POST /api/mobile/shops/{id}/track", 10, false));
+
+    private final int totalWeight = scenarios.stream().mapToInt(Scenario::weight).sum();
+    private final int shops;
+
+    public TrafficMix(int shops) {
+        this.shops = shops;
+    }
+
+    public List<Scenario> scenarios() {
+        return scenarios;
+    }
+
+    public Request next() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int pick = random.nextInt(totalWeight);
+        Scenario scenario = scenarios.get(0);
+        for (Scenario s : scenarios) {
+            pick -= s.weight();
+            if (pick < 0) {
+                scenario = s;
+                break;
+            }
+        }
+
+        double lat = 13.65 + random.nextDouble() * 0.2;
+        double lon = 100.40 + random.nextDouble() * 0.25;
+        String location = "lat=" + lat + "&lon=" + lon;
+        // Skew towards popular shops, like real traffic
+        long shopId = 1 + (long) (shops * Math.pow(random.nextDouble(), 3));
+
+        String path = switch (scenario.name()) {
+            case "feed" -> "/api/mobile/feed/personalized?latitude=" + lat + "&longitude=" + lon;
+            case "nearby" -> "/api/mobile/shops/nearby?" + location + "&radius=3";
+            case "search" -> "/api/mobile/shops/search?q="
+                    + java.net.URLEncoder.encode(QUERIES[random.nextInt(QUERIES.length)],
+                            java.nio.charset.StandardCharsets.UTF_8)
+                    + "&" + location;
+            case "detail" -> "/api/mobile/shops/" + shopId + "?" + location;
+            case "menu" -> "/api/mobile/shops/" + shopId + "/menu";
+            case "favorites" -> "/api/mobile/user/favorites?" + location;
+            case "track" -> "/api/mobile/shops/" + shopId + "/track?action=DIRECTIONS&" + location;
+            default -> throw new IllegalStateException(scenario.name());
+        };
+        return new Request(scenario, path);
+    }
+}
@@ -1,5 +1,6 @@
 package org.th.aspect;
 
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import org.aspectj.lang.ProceedingJoinPoint;
@@ -7,7 +8,9 @@ import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
 import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.th.config.metrics.EndpointMetrics;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
@@ -15,12 +18,27 @@ import jakarta.servlet.http.HttpServletRequest;
 import java.lang.reflect.Parameter;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 @Aspect
 @Component
+@RequiredArgsConstructor
 @Slf4j
 public class LoggingAspect {
 
+    private static final long VERY_SLOW_THRESHOLD_MS = 1000;
+
+    private final EndpointMetrics endpointMetrics;
+
+    /** Requests slower than this are always logged with parameters */
+    @Value("${app.logging.endpoint.slow-threshold-ms:300}")
+    private long slowThresholdMs;
+
+    /** Fraction of fast requests logged with parameters (0 disables) */
+    @Value("${app.logging.endpoint.sample-rate:0.01}")
+    private double sampleRate;
+
     /**
      * Pointcut that matches all web REST endpoints.
      */
@@ -49,73 +67,44 @@ public class LoggingAspect {
     }
 
     /**
-     * Advice that logs when a method is entered and exited, calculating execution
-     * time.
+     * Advice that records execution time per handler into a Micrometer timer
+     * (exposed with percentiles via /actuator/latency). Parameters are only
+     * formatted for sampled or slow requests, so the common path allocates
+     * nothing beyond the timer sample.
      *
      * @param joinPoint join point for advice
      * @return result
-     * @throws Throwable throws IllegalArgumentException
+     * @throws Throwable rethrows whatever the handler throws
      */
     @Around("controllerPackagePointcut() && springBeanPointcut()")
     public Object logAround(ProceedingJoinPoint joinPoint) throws Throwable {
-        long start = System.currentTimeMillis();
-
-        // Get HTTP request details if available (for controllers)
-        String httpInfo = getHttpRequestInfo();
-
-        // Get parameter names and values
-        String paramsInfo = getParametersInfo(joinPoint);
-
-        // Log method entry with HTTP info and parameters
-        if (httpInfo != null) {
-            log.info("Start: {}.{}() {} - Params: {}",
-                    joinPoint.getSignature().getDeclaringTypeName(),
-                    joinPoint.getSignature().getName(),
-                    httpInfo,
-                    paramsInfo);
-        } else {
-            log.info("Start: {}.{}() - Params: {}",
-                    joinPoint.getSignature().getDeclaringTypeName(),
-                    joinPoint.getSignature().getName(),
-                    paramsInfo);
-        }
-
+        long start = System.nanoTime();
+        boolean failed = false;
         try {
-            Object result = joinPoint.proceed();
-
-            long executionTime = System.currentTimeMillis() - start;
-            double executionTimeSeconds = executionTime / 1000.0;
-
-            // Determine performance indicator
-            String performanceIndicator = "";
-            if (executionTime > 1000) {
-                performanceIndicator = " - ⚠️ VERY SLOW - NEEDS OPTIMIZATION";
-                log.warn("Finished: {}.{}() - Execution Time: {} ms ({} s){}",
-                        joinPoint.getSignature().getDeclaringTypeName(),
-                        joinPoint.getSignature().getName(),
-                        executionTime,
-                        String.format("%.2f", executionTimeSeconds),
-                        performanceIndicator);
-            } else if (executionTime > 300) {
-                performanceIndicator = " - ⚠️ SLOW - Consider optimization";
-                log.info("Finished: {}.{}() - Execution Time: {} ms ({} s){}",
-                        joinPoint.getSignature().getDeclaringTypeName(),
-                        joinPoint.getSignature().getName(),
-                        executionTime,
-                        String.format("%.2f", executionTimeSeconds),
-                        performanceIndicator);
-            } else {
-                log.info("Finished: {}.{}() - Execution Time: {} ms ({} s)",
-                        joinPoint.getSignature().getDeclaringTypeName(),
-                        joinPoint.getSignature().getName(),
-                        executionTime,
-                        String.format("%.2f", executionTimeSeconds));
-            }
-
-            return result;
-        } catch (IllegalArgumentException e) {
-            // Re-throw to be handled by GlobalExceptionHandler
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            failed = true;
             throw e;
+        } finally {
+            long elapsedNanos = System.nanoTime() - start;
+            MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+            endpointMetrics.record(signature.getMethod(), elapsedNanos);
+
+            long executionTime = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+            if (executionTime > VERY_SLOW_THRESHOLD_MS) {
+                log.warn("Finished: {}.{}() {} - Params: {} - Execution Time: {} ms - ⚠️ VERY SLOW - NEEDS OPTIMIZATION",
+                        signature.getDeclaringTypeName(), signature.getName(),
+                        getHttpRequestInfo(), getParametersInfo(joinPoint), executionTime);
+            } else if (executionTime > slowThresholdMs) {
+                log.info("Finished: {}.{}() {} - Params: {} - Execution Time: {} ms - ⚠️ SLOW - Consider optimization",
+                        signature.getDeclaringTypeName(), signature.getName(),
+                        getHttpRequestInfo(), getParametersInfo(joinPoint), executionTime);
+            } else if (failed || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate)) {
+                log.info("Finished: {}.{}() {} - Params: {} - Execution Time: {} ms{}",
+                        signature.getDeclaringTypeName(), signature.getName(),
+                        getHttpRequestInfo(), getParametersInfo(joinPoint), executionTime,
+                        failed ? " - FAILED" : " (sampled)");
+            }
         }
     }
 
@@ -128,12 +117,12 @@ public class LoggingAspect {
                     .getRequestAttributes();
             if (attributes != null) {
                 HttpServletRequest request = attributes.getRequest();
-                return String.format("[%s %s]", request.getMethod(), request.getRequestURI());
+                return "[" + request.getMethod() + " " + request.getRequestURI() + "]";
             }
         } catch (Exception e) {
             // Not in a web request context
         }
-        return null;
+        return "";
     }
 
     /**
@@ -1,13 +1,17 @@
 package org.th.config;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.task.support.TaskExecutorAdapter;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
 
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
@@ -20,6 +24,64 @@ public class AsyncConfig {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setVirtualThreads(true); // Use virtual threads for better performance
         executor.setThreadNamePrefix("io-tracking-");
+        // Carry the caller's security context so tracking can reuse the resolved principal
+        executor.setTaskDecorator(DelegatingSecurityContextRunnable::new);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    // For long-running maintenance jobs (backfills, bucket walks), kept off the single tracking thread
+    @Bean(name = "backgroundExecutor")
+    public ThreadPoolTaskExecutor backgroundExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setVirtualThreads(true);
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(20);
+        executor.setThreadNamePrefix("background-");
+        executor.initialize();
+        return executor;
+    }
+
+    // For storage GC runs; one at a time, so a bucket walk never holds a scheduler or background thread
+    @Bean(name = "storageGcExecutor")
+    public ThreadPoolTaskExecutor storageGcExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setVirtualThreads(true);
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix("storage-gc-");
+        executor.initialize();
+        return executor;
+    }
+
+    // For menu document rebuilds; one drain at a time, queued changes share its next pass
+    @Bean(name = "menuDocumentExecutor")
+    public ThreadPoolTaskExecutor menuDocumentExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setVirtualThreads(true);
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix("menu-document-");
+        executor.initialize();
+        return executor;
+    }
+
+    // For photo downloads and variant uploads; separate so a backfill never waits on its own pool
+    @Bean(name = "imageIoExecutor")
+    public ThreadPoolTaskExecutor imageIoExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setVirtualThreads(true);
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(200);
+        executor.setThreadNamePrefix("image-io-");
+        // A full queue slows the submitter down instead of dropping photos
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
         executor.setWaitForTasksToCompleteOnShutdown(true);
         executor.setAwaitTerminationSeconds(30);
         executor.initialize();
@@ -28,7 +90,7 @@ public class AsyncConfig {
 
     // For CPU-bound tasks (platform threads)
     @Bean(name = "cpuExecutor")
-    public ThreadPoolTaskExecutor cpuExecutor() {
+    public ThreadPoolTaskExecutor cpuExecutor(MeterRegistry meterRegistry) {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         // NO virtual threads!
         int processors = Runtime.getRuntime().availableProcessors();
@@ -36,8 +98,15 @@ public class AsyncConfig {
         executor.setMaxPoolSize(processors);
         executor.setQueueCapacity(100);
         executor.setThreadNamePrefix("cpu-tracking-");
-        executor.setRejectedExecutionHandler(
-                new ThreadPoolExecutor.CallerRunsPolicy());
+        // Count saturation before falling back to running on the caller thread
+        Counter rejected = Counter.builder("executor.rejected")
+                .tag("name", "cpuExecutor")
+                .register(meterRegistry);
+        RejectedExecutionHandler callerRuns = new ThreadPoolExecutor.CallerRunsPolicy();
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            rejected.increment();
+            callerRuns.rejectedExecution(task, pool);
+        });
         executor.setWaitForTasksToCompleteOnShutdown(true);
         executor.setAwaitTerminationSeconds(30);
         executor.initialize();
@@ -60,6 +60,9 @@ public class CacheConfig {
                 // Categories List - cache for 1 hour
                 buildCache("categories", 100, 1, TimeUnit.HOURS),
 
+                // Serialized + gzipped bodies of hot responses, keyed by version ETag (stale keys age out)
+                buildCache("responseBodies", 500, 1, TimeUnit.HOURS),
+
                 // Recommendations - cache for 5 minutes (per user/device)
                 buildCache("recommendations", 1000, 5, TimeUnit.MINUTES)));
 
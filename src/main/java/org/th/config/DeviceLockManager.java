@@ -1,57 +1,112 @@
 package org.th.config;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 /**
- * Manages per-device locks to prevent race conditions
- * Each device gets its own lock, allowing parallel processing of different devices
+ * Striped per-device locks to prevent race conditions
+ * Devices hash onto a fixed power-of-two pool of locks, so memory stays constant
+ * no matter how many devices are seen. Two devices may share a stripe (and
+ * serialize), but a single device always maps to the same lock.
  */
 @Component
 @Slf4j
 public class DeviceLockManager {
 
-    private final ConcurrentHashMap<String, ReentrantLock> locks = new ConcurrentHashMap<>();
+    private final ReentrantLock[] stripes;
+    private final int mask;
+    private final Timer waitTimer;
+
+    // Beyond this the pool stops paying for itself; a larger setting is a typo, not a tuning choice
+    static final int MAX_STRIPES = 1 << 16;
+
+    public DeviceLockManager(
+            @Value("${app.device-locks.stripes:256}") int requestedStripes,
+            MeterRegistry meterRegistry) {
+        int size = toPowerOfTwo(requestedStripes);
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+
+        this.waitTimer = Timer.builder("device.lock.wait")
+                .description("Time spent waiting to acquire a device lock")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("device.lock.queue", this, DeviceLockManager::getQueueLength)
+                .description("Threads currently waiting on device locks")
+                .register(meterRegistry);
+        Gauge.builder("device.lock.stripes", this, DeviceLockManager::getLockCount)
+                .register(meterRegistry);
+
+        log.info("Device lock pool initialized with {} stripes", size);
+    }
 
     /**
-     * Get or create a lock for the specified device
+     * Get the lock guarding the specified device
      * @param deviceId unique device identifier
-     * @return ReentrantLock for this device
+     * @return ReentrantLock for this device's stripe
      */
     public ReentrantLock getLock(String deviceId) {
-        return locks.computeIfAbsent(deviceId, k -> {
-            log.info("🔧 Creating new lock for device: {}", deviceId);
-            return new ReentrantLock();
-        });
+        return stripes[indexFor(deviceId)];
     }
 
     /**
-     * Get total number of device locks currently tracked
+     * Run an action while holding the device's lock, recording the wait time
+     */
+    public <T> T withLock(String deviceId, Supplier<T> action) {
+        ReentrantLock lock = getLock(deviceId);
+        long start = System.nanoTime();
+        lock.lock();
+        try {
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get total number of lock stripes (constant)
      * Useful for monitoring/debugging
      */
     public int getLockCount() {
-        return locks.size();
+        return stripes.length;
     }
 
     /**
-     * Remove lock for a device (optional cleanup)
-     * Call this when a device is permanently deleted
+     * Estimate of threads currently waiting on any stripe
      */
-    public void removeLock(String deviceId) {
-        ReentrantLock removed = locks.remove(deviceId);
-        if (removed != null) {
-            log.debug("🗑️ Removed lock for device: {}", deviceId);
+    public int getQueueLength() {
+        int total = 0;
+        for (ReentrantLock lock : stripes) {
+            total += lock.getQueueLength();
         }
+        return total;
     }
 
-    /**
-     * Clear all locks (use with caution, mainly for testing)
-     */
-    public void clearAllLocks() {
-        locks.clear();
-        log.warn("⚠️ All device locks cleared");
+    int indexFor(String deviceId) {
+        int h = deviceId == null ? 0 : deviceId.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private static int toPowerOfTwo(int n) {
+        if (n > MAX_STRIPES) {
+            throw new IllegalStateException(
+                    "app.device-locks.stripes must be at most " + MAX_STRIPES + ", was " + n);
+        }
+        if (n <= 1) {
+            return 1;
+        }
+        return Integer.highestOneBit(n - 1) << 1;
     }
-}
\ No newline at end of file
+}
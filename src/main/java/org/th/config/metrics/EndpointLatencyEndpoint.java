@@ -0,0 +1,24 @@
+package org.th.config.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint (/actuator/latency) listing p50/p95/p99 and last-minute throughput per handler
+ */
+@Component
+@Endpoint(id = "latency")
+@RequiredArgsConstructor
+public class EndpointLatencyEndpoint {
+
+    private final EndpointMetrics endpointMetrics;
+
+    @ReadOperation
+    public Map<String, Map<String, Object>> latency() {
+        return endpointMetrics.snapshot();
+    }
+}
@@ -0,0 +1,126 @@
+package org.th.config.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-handler latency timers recorded by the controller logging aspect.
+ * Timers are cached by handler method so the hot path is a single map lookup.
+ */
+@Component
+@RequiredArgsConstructor
+public class EndpointMetrics {
+
+    public static final String METRIC_NAME = "endpoint.latency";
+    private static final int RATE_WINDOW_SECONDS = 60;
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Method, HandlerTimer> timers = new ConcurrentHashMap<>();
+
+    public void record(Method handler, long elapsedNanos) {
+        HandlerTimer handlerTimer = timers.computeIfAbsent(handler, this::register);
+        handlerTimer.timer().record(elapsedNanos, TimeUnit.NANOSECONDS);
+        handlerTimer.rate().record(nowSeconds());
+    }
+
+    /**
+     * Latency percentiles (ms) and throughput over the last minute per handler, sorted by handler name
+     */
+    public Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> result = new TreeMap<>();
+        long now = nowSeconds();
+        for (HandlerTimer handlerTimer : timers.values()) {
+            HistogramSnapshot snapshot = handlerTimer.timer().takeSnapshot();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("count", snapshot.count());
+            for (ValueAtPercentile p : snapshot.percentileValues()) {
+                stats.put("p" + Math.round(p.percentile() * 100), round(p.value(TimeUnit.MILLISECONDS)));
+            }
+            stats.put("mean", round(snapshot.mean(TimeUnit.MILLISECONDS)));
+            stats.put("max", round(snapshot.max(TimeUnit.MILLISECONDS)));
+            stats.put("requestsPerSecond", round(handlerTimer.rate().perSecond(now)));
+            result.put(handlerTimer.handler(), stats);
+        }
+        return result;
+    }
+
+    private HandlerTimer register(Method method) {
+        String handler = method.getDeclaringClass().getSimpleName() + "." + method.getName();
+        Timer timer = Timer.builder(METRIC_NAME)
+                .description("Controller handler execution time")
+                .tag("handler", handler)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .distributionStatisticExpiry(Duration.ofMinutes(5))
+                .register(meterRegistry);
+        return new HandlerTimer(handler, timer, new RateWindow(RATE_WINDOW_SECONDS));
+    }
+
+    private static long nowSeconds() {
+        return TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+
+    private record HandlerTimer(String handler, Timer timer, RateWindow rate) {
+    }
+
+    /**
+     * Request counts in one-second buckets over a rolling window
+     * A bucket is reused once its second falls out of the window; racing writers
+     * at a bucket rollover can lose a few counts, which a rate display tolerates.
+     */
+    static final class RateWindow {
+
+        private final int seconds;
+        private final AtomicLongArray stamps;
+        private final AtomicLongArray counts;
+
+        RateWindow(int seconds) {
+            this.seconds = seconds;
+            // One bucket more than the window, for the second still filling
+            this.stamps = new AtomicLongArray(seconds + 1);
+            this.counts = new AtomicLongArray(seconds + 1);
+            for (int i = 0; i < stamps.length(); i++) {
+                stamps.set(i, Long.MIN_VALUE);
+            }
+        }
+
+        void record(long second) {
+            int slot = (int) Math.floorMod(second, (long) stamps.length());
+            long stamp = stamps.get(slot);
+            if (stamp != second && stamps.compareAndSet(slot, stamp, second)) {
+                counts.set(slot, 0);
+            }
+            counts.incrementAndGet(slot);
+        }
+
+        /**
+         * Mean rate over the complete seconds in the window (the current second is still filling)
+         */
+        double perSecond(long now) {
+            long total = 0;
+            for (int i = 0; i < stamps.length(); i++) {
+                long age = now - stamps.get(i);
+                if (age >= 1 && age <= seconds) {
+                    total += counts.get(i);
+                }
+            }
+            return (double) total / seconds;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.th.config.metrics;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.th.config.security.PrincipalCache;
+import org.th.service.mobile.RecommendationProfileStore;
+
+/**
+ * Metrics wiring on top of Spring Boot's auto-configuration.
+ * Boot already binds the CacheManager caches (Caffeine stats), the Hikari pool
+ * and the ThreadPoolTaskExecutor beans; this adds @Timed support for business
+ * jobs and caches that live outside the CacheManager.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public SmartInitializingSingleton principalCacheMetrics(MeterRegistry meterRegistry,
+            PrincipalCache principalCache) {
+        return () -> CaffeineCacheMetrics.monitor(meterRegistry, principalCache.getNativeCache(), "principals");
+    }
+
+    @Bean
+    public SmartInitializingSingleton recommendationProfileMetrics(MeterRegistry meterRegistry,
+            RecommendationProfileStore profileStore) {
+        return () -> CaffeineCacheMetrics.monitor(meterRegistry, profileStore.getNativeCache(),
+                "recommendationProfiles");
+    }
+}
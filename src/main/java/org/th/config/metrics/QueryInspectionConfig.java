@@ -0,0 +1,53 @@
+package org.th.config.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the DataSource with datasource-proxy to count statements per request,
+ * log slow statements and flag N+1 suspects.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.query-inspection.enabled", havingValue = "true", matchIfMissing = true)
+public class QueryInspectionConfig {
+
+    @Bean
+    public static BeanPostProcessor queryInspectionDataSourcePostProcessor(Environment environment) {
+        long slowThresholdMs = environment.getProperty("app.query-inspection.slow-threshold-ms", Long.class, 200L);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create(beanName, dataSource)
+                            .listener(new QueryInspector(slowThresholdMs))
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public QueryStatsRegistry queryStatsRegistry(MeterRegistry meterRegistry, Environment environment) {
+        int threshold = environment.getProperty("app.query-inspection.n-plus-one-threshold", Integer.class, 5);
+        return new QueryStatsRegistry(meterRegistry, threshold);
+    }
+
+    @Bean
+    public FilterRegistrationBean<QueryBudgetFilter> queryBudgetFilter(QueryStatsRegistry queryStatsRegistry) {
+        FilterRegistrationBean<QueryBudgetFilter> registration = new FilterRegistrationBean<>(
+                new QueryBudgetFilter(queryStatsRegistry));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
@@ -0,0 +1,47 @@
+package org.th.config.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.slf4j.MDC;
+
+import java.util.List;
+
+/**
+ * datasource-proxy listener that attributes every statement to the current
+ * request and logs slow ones with the originating endpoint.
+ */
+@Slf4j
+public class QueryInspector implements QueryExecutionListener {
+
+    private final long slowThresholdMs;
+
+    public QueryInspector(long slowThresholdMs) {
+        this.slowThresholdMs = slowThresholdMs;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        // Timing is provided by datasource-proxy in afterQuery
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        long elapsed = execInfo.getElapsedTime();
+        QueryStats stats = QueryStats.current();
+        if (stats != null) {
+            for (QueryInfo queryInfo : queryInfoList) {
+                stats.record(queryInfo.getQuery(), elapsed);
+            }
+        }
+
+        if (elapsed >= slowThresholdMs) {
+            String endpoint = MDC.get(QueryBudgetFilter.MDC_ENDPOINT);
+            for (QueryInfo queryInfo : queryInfoList) {
+                log.warn("Slow query ({} ms) on {}: {}", elapsed, endpoint != null ? endpoint : "background",
+                        queryInfo.getQuery());
+            }
+        }
+    }
+}
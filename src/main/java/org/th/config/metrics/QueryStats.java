@@ -0,0 +1,50 @@
+package org.th.config.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Statements executed on the current request thread.
+ * Bound by {@link QueryBudgetFilter} and filled by {@link QueryInspector}.
+ */
+public class QueryStats {
+
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+
+    private final Map<String, Integer> executionsBySql = new HashMap<>();
+    private int count;
+    private long elapsedMillis;
+
+    static QueryStats begin() {
+        QueryStats stats = new QueryStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    /** Stats of the current request, or null outside a tracked request */
+    public static QueryStats current() {
+        return CURRENT.get();
+    }
+
+    void record(String sql, long millis) {
+        count++;
+        elapsedMillis += millis;
+        executionsBySql.merge(sql, 1, Integer::sum);
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public Map<String, Integer> getExecutionsBySql() {
+        return executionsBySql;
+    }
+}
@@ -0,0 +1,62 @@
+package org.th.config.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-endpoint query-count histograms and N+1 detection.
+ * Also remembers the statement count of the latest request per endpoint so
+ * tests can assert query budgets.
+ */
+@Slf4j
+public class QueryStatsRegistry {
+
+    private final MeterRegistry meterRegistry;
+    private final int nPlusOneThreshold;
+    private final Map<String, DistributionSummary> summaries = new ConcurrentHashMap<>();
+    private final Map<String, Integer> lastCounts = new ConcurrentHashMap<>();
+
+    public QueryStatsRegistry(MeterRegistry meterRegistry, int nPlusOneThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.nPlusOneThreshold = nPlusOneThreshold;
+    }
+
+    void record(String endpoint, QueryStats stats) {
+        lastCounts.put(endpoint, stats.getCount());
+        if (stats.getCount() == 0) {
+            return;
+        }
+
+        summaries.computeIfAbsent(endpoint, this::register).record(stats.getCount());
+
+        for (Map.Entry<String, Integer> entry : stats.getExecutionsBySql().entrySet()) {
+            if (entry.getValue() >= nPlusOneThreshold) {
+                meterRegistry.counter("endpoint.queries.nplusone", "endpoint", endpoint).increment();
+                log.warn("Possible N+1 on {}: {} executions of {}", endpoint, entry.getValue(), entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Statement count of the most recent request to the endpoint ("GET /api/x/{id}"), or -1 if none
+     */
+    public int getLastQueryCount(String endpoint) {
+        return lastCounts.getOrDefault(endpoint, -1);
+    }
+
+    public void reset() {
+        lastCounts.clear();
+    }
+
+    private DistributionSummary register(String endpoint) {
+        return DistributionSummary.builder("endpoint.queries")
+                .description("JDBC statements executed per request")
+                .tag("endpoint", endpoint)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,63 @@
+package org.th.config.security;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import org.th.entity.User;
+import org.th.repository.UserRepository;
+
+/**
+ * Resolves the current user from the security context, falling back to the
+ * {@link PrincipalCache}. The principal set by {@link JwtAuthenticationFilter}
+ * is reused for the rest of the request, so downstream services do not query
+ * the users table again. Returned users are shared snapshots: load a fresh
+ * entity from {@link UserRepository} before mutating it.
+ */
+@Component
+@RequiredArgsConstructor
+public class CurrentUserResolver {
+
+    private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
+
+    /**
+     * Get the authenticated user of the current request, or null for guests
+     */
+    public User getCurrentUser() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated() || "anonymousUser".equals(auth.getPrincipal())) {
+            return null;
+        }
+        if (auth.getPrincipal() instanceof User user) {
+            return user;
+        }
+        return resolve(auth.getName());
+    }
+
+    /**
+     * Get a user by username, reusing the request principal when it matches
+     */
+    public User resolve(String username) {
+        if (username == null) {
+            return null;
+        }
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.getPrincipal() instanceof User user && username.equals(user.getUsername())) {
+            return user;
+        }
+        return principalCache.get(username, name -> userRepository.findByUsername(name).orElse(null));
+    }
+
+    /**
+     * Load the principal for a token subject (used by the JWT filter)
+     */
+    public User loadPrincipal(String username) {
+        User user = principalCache.get(username, name -> userRepository.findByUsername(name).orElse(null));
+        if (user == null) {
+            throw new UsernameNotFoundException("User not found with username: " + username);
+        }
+        return user;
+    }
+}
@@ -10,7 +10,6 @@ import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
@@ -26,7 +25,9 @@ import java.util.UUID;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider jwtTokenProvider;
-    private final UserDetailsService userDetailsService;
+    private final CurrentUserResolver currentUserResolver;
+
+    private static final String SERVER_ID = resolveServerId();
 
     @Override
     protected void doFilterInternal(
@@ -58,21 +59,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             MDC.put("clientIp", clientIp);
 
             // Capture Server ID (Hostname/Container ID)
-            String serverId = System.getenv("HOSTNAME");
-            if (serverId == null) {
-                try {
-                    serverId = java.net.InetAddress.getLocalHost().getHostName();
-                } catch (Exception e) {
-                    serverId = "unknown";
-                }
-            }
-            MDC.put("serverId", serverId);
+            MDC.put("serverId", SERVER_ID);
 
             String jwt = getJwtFromRequest(request);
+            String username = StringUtils.hasText(jwt) ? jwtTokenProvider.getUsernameIfValid(jwt) : null;
 
-            if (StringUtils.hasText(jwt) && jwtTokenProvider.validateToken(jwt)) {
-                String username = jwtTokenProvider.getUsernameFromToken(jwt);
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            if (username != null) {
+                // Served from the principal cache; downstream services reuse this principal
+                UserDetails userDetails = currentUserResolver.loadPrincipal(username);
 
                 // Add userId to MDC for logging
                 MDC.put("userId", username);
@@ -97,6 +91,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
     }
 
+    private static String resolveServerId() {
+        String serverId = System.getenv("HOSTNAME");
+        if (serverId == null) {
+            try {
+                serverId = java.net.InetAddress.getLocalHost().getHostName();
+            } catch (Exception e) {
+                serverId = "unknown";
+            }
+        }
+        return serverId;
+    }
+
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
 
@@ -0,0 +1,72 @@
+package org.th.config.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.th.entity.User;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Short-lived cache of authenticated user snapshots keyed by username.
+ * Entries are evicted whenever the underlying user row changes (see
+ * {@link UserCacheInvalidationListener}); the TTL bounds staleness across
+ * instances. Cached users are detached and shared between requests, so they
+ * must be treated as read-only.
+ */
+@Component
+@Slf4j
+public class PrincipalCache {
+
+    private final Cache<String, User> cache;
+
+    public PrincipalCache(
+            @Value("${app.security.principal-cache.ttl-seconds:60}") long ttlSeconds,
+            @Value("${app.security.principal-cache.max-size:10000}") long maxSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Get the cached user or load it. A null result from the loader is not cached.
+     */
+    public User get(String username, Function<String, User> loader) {
+        return cache.get(username, loader);
+    }
+
+    /**
+     * Evict a user now and, if a transaction is running, again after it commits
+     * so a concurrent reload cannot re-cache the pre-commit row.
+     */
+    public void evict(String username) {
+        if (username == null) {
+            return;
+        }
+        cache.invalidate(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(username);
+                }
+            });
+        }
+        log.debug("Evicted cached principal: {}", username);
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    public Cache<String, User> getNativeCache() {
+        return cache;
+    }
+}
@@ -54,7 +54,9 @@ public class SecurityConfig {
                                 "/swagger-ui.html",
                                 "/swagger-ui/**",
                                 "/v3/api-docs/**",
-                                "/actuator/**", // Health checks
+                                "/actuator/health",
+                                "/actuator/health/**", // Health checks (probes)
+                                "/actuator/info",
                                 "/v3/api-docs",
                                 "/api-docs/**",
                                 "/api-docs/swagger-config",
@@ -92,12 +94,15 @@ public class SecurityConfig {
                         .requestMatchers("/api/mobile/user/**").authenticated()
                         .requestMatchers("/api/mobile/user/favorites/**").authenticated()
                         .requestMatchers("/api/mobile/cart/**").authenticated()
+                        .requestMatchers("/api/mobile/uploads/**").authenticated()
 
                         // Maps endpoints - Public but tracked
                         .requestMatchers("/api/maps/**").permitAll()
 
                         // Admin endpoints
                         .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                        // Metrics, Prometheus and latency expose internals: admins (or a scraper with an admin token)
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         // .requestMatchers("/api/admin/**").permitAll()
 
                         // All other endpoints require authentication
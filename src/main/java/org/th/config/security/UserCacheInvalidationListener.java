@@ -0,0 +1,23 @@
+package org.th.config.security;
+
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.th.entity.User;
+
+/**
+ * JPA listener that drops cached principals when a user is updated or deleted.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserCacheInvalidationListener {
+
+    private final PrincipalCache principalCache;
+
+    @PostUpdate
+    @PostRemove
+    public void onUserChanged(User user) {
+        principalCache.evict(user.getUsername());
+    }
+}
@@ -10,6 +10,8 @@ import org.springframework.web.bind.annotation.*;
 import org.th.dto.ApiResponse;
 import org.th.dto.analytics.*;
 import org.th.entity.enums.FeedSectionType;
+import org.th.entity.enums.SketchDimension;
+import org.th.service.admin.ActivitySketchService;
 import org.th.service.admin.AnalyticsService;
 import org.th.service.mobile.FeedInteractionService;
 import org.th.service.SessionService;
@@ -108,6 +110,51 @@ public class AnalyticsController {
         return ResponseEntity.ok(ApiResponse.success("Location stats retrieved", stats));
     }
 
+    @GetMapping("/uniques")
+    @Operation(summary = "Unique devices", description = "Estimated unique devices for a shop, district, category or feature over a date range (HyperLogLog, ~1.6% standard error)")
+    public ResponseEntity<ApiResponse<UniqueVisitorsDTO>> getUniqueVisitors(
+            @RequestParam(defaultValue = "ALL") SketchDimension dimension,
+            @RequestParam(defaultValue = ActivitySketchService.ALL_KEY) String key,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end) {
+
+        LocalDate startDate = start != null ? start : LocalDate.now().minusDays(30);
+        LocalDate endDate = end != null ? end : LocalDate.now();
+
+        UniqueVisitorsDTO uniques = analyticsService.getUniqueVisitors(dimension, key, startDate, endDate);
+        return ResponseEntity.ok(ApiResponse.success("Unique devices retrieved", uniques));
+    }
+
+    @GetMapping("/uniques/daily")
+    @Operation(summary = "Daily unique devices", description = "Estimated unique devices per day for a shop, district, category or feature")
+    public ResponseEntity<ApiResponse<List<UniqueVisitorsDTO>>> getDailyUniqueVisitors(
+            @RequestParam(defaultValue = "ALL") SketchDimension dimension,
+            @RequestParam(defaultValue = ActivitySketchService.ALL_KEY) String key,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end) {
+
+        LocalDate startDate = start != null ? start : LocalDate.now().minusDays(30);
+        LocalDate endDate = end != null ? end : LocalDate.now();
+
+        List<UniqueVisitorsDTO> daily = analyticsService.getDailyUniqueVisitors(dimension, key, startDate, endDate);
+        return ResponseEntity.ok(ApiResponse.success("Daily unique devices retrieved", daily));
+    }
+
+    @GetMapping("/uniques/top")
+    @Operation(summary = "Top by unique devices", description = "Most active shops, districts, categories or features with estimated unique devices")
+    public ResponseEntity<ApiResponse<List<UniqueVisitorsDTO>>> getTopUniqueVisitors(
+            @RequestParam SketchDimension dimension,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate end) {
+
+        LocalDate startDate = start != null ? start : LocalDate.now().minusDays(30);
+        LocalDate endDate = end != null ? end : LocalDate.now();
+
+        List<UniqueVisitorsDTO> top = analyticsService.getTopUniqueVisitors(dimension, startDate, endDate, limit);
+        return ResponseEntity.ok(ApiResponse.success("Top unique devices retrieved", top));
+    }
+
     // ========== NEW: Session Analytics Endpoints ==========
 
     @GetMapping("/sessions")
@@ -5,9 +5,14 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.th.dto.ApiResponse;
+import org.th.service.ImageVariantService;
+import org.th.service.StorageGcService;
+import org.th.service.StorageGcService.GcReport;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
@@ -22,6 +27,9 @@ import java.util.Map;
 @Tag(name = "System", description = "System monitoring and diagnostics")
 public class SystemController {
 
+    private final ImageVariantService imageVariantService;
+    private final StorageGcService storageGcService;
+
     @PersistenceContext
     private EntityManager entityManager;
 
@@ -53,4 +61,40 @@ public class SystemController {
 
         return ResponseEntity.ok(ApiResponse.success("DB Latency Check Completed", metrics));
     }
+
+    /**
+     * Generate thumbnail/medium/full variants for photos that have none
+     * Runs in the background; progress and totals are logged.
+     */
+    @PostMapping("/photos/variants/backfill")
+    @Operation(summary = "Backfill photo variants", description = "Generate resized variants for existing photos in the background")
+    public ResponseEntity<ApiResponse<Void>> backfillPhotoVariants(
+            @RequestParam(defaultValue = "32") int batchSize) {
+        imageVariantService.backfill(Math.max(1, Math.min(batchSize, 200)));
+        return ResponseEntity.accepted().body(ApiResponse.success("Photo variant backfill started", null));
+    }
+
+    /**
+     * Delete stored objects no row references (older than the grace period)
+     * Runs in the background; a dry run only reports what would be deleted.
+     */
+    @PostMapping("/storage/gc")
+    @Operation(summary = "Collect orphaned objects", description = "Find (and unless dryRun, delete) stored files no longer referenced by any row")
+    public ResponseEntity<ApiResponse<Void>> collectStorageGarbage(
+            @RequestParam(defaultValue = "true") boolean dryRun) {
+        storageGcService.collectAsync(dryRun);
+        return ResponseEntity.accepted().body(ApiResponse.success(
+                dryRun ? "Storage GC dry run started" : "Storage GC started", null));
+    }
+
+    /**
+     * Report of the last storage GC run
+     */
+    @GetMapping("/storage/gc")
+    @Operation(summary = "Last storage GC report", description = "Counts and a sample of orphaned paths from the most recent run")
+    public ResponseEntity<ApiResponse<GcReport>> getStorageGcReport() {
+        GcReport report = storageGcService.getLastReport();
+        return ResponseEntity.ok(ApiResponse.success(
+                report != null ? "Last storage GC report" : "No storage GC has run since startup", report));
+    }
 }
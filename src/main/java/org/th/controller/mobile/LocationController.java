@@ -1,30 +1,110 @@
 package org.th.controller.mobile;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.th.entity.City;
 import org.th.entity.District;
+import org.th.service.CatalogVersions;
 import org.th.service.CityService;
 import org.th.service.DistrictService;
+import org.th.service.PrecompressedResponseCache;
+import org.th.service.mobile.CityBundleService;
+import org.th.util.HttpCaching;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
 import java.util.List;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/mobile/locations")
 @RequiredArgsConstructor
 public class LocationController {
 
+    // Locations change a few times a year
+    private static final CacheControl LOCATIONS_CACHE = CacheControl.maxAge(Duration.ofDays(1)).cachePublic();
+    // Bundles are rebuilt every few hours; revalidation is a cheap ETag check
+    private static final CacheControl BUNDLE_CACHE = CacheControl.maxAge(Duration.ofHours(1)).cachePublic();
+
     private final CityService cityService;
     private final DistrictService districtService;
+    private final CatalogVersions catalogVersions;
+    private final CityBundleService cityBundleService;
+    private final PrecompressedResponseCache precompressedResponseCache;
 
     @GetMapping("/cities")
-    public ResponseEntity<List<City>> getCities() {
-        return ResponseEntity.ok(cityService.getAllActiveCities());
+    public ResponseEntity<?> getCities(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        String etag = catalogVersions.etag("cities", catalogVersions.version(CatalogVersions.Scope.LOCATIONS, null));
+        if (HttpCaching.matches(ifNoneMatch, etag)) {
+            return HttpCaching.notModified(etag, LOCATIONS_CACHE);
+        }
+        Supplier<List<City>> body = cityService::getAllActiveCities;
+        ResponseEntity<byte[]> cached = precompressedResponseCache.json(etag, LOCATIONS_CACHE, accept, acceptEncoding,
+                body);
+        return cached != null ? cached : ResponseEntity.ok().eTag(etag).cacheControl(LOCATIONS_CACHE).body(body.get());
     }
 
     @GetMapping("/cities/{cityId}/districts")
-    public ResponseEntity<List<District>> getDistrictsByCity(@PathVariable Long cityId) {
-        return ResponseEntity.ok(districtService.getDistrictsByCity(cityId));
+    public ResponseEntity<?> getDistrictsByCity(
+            @PathVariable Long cityId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        String etag = catalogVersions.etag("districts", cityId,
+                catalogVersions.version(CatalogVersions.Scope.LOCATIONS, null));
+        if (HttpCaching.matches(ifNoneMatch, etag)) {
+            return HttpCaching.notModified(etag, LOCATIONS_CACHE);
+        }
+        Supplier<List<District>> body = () -> districtService.getDistrictsByCity(cityId);
+        ResponseEntity<byte[]> cached = precompressedResponseCache.json(etag, LOCATIONS_CACHE, accept, acceptEncoding,
+                body);
+        return cached != null ? cached : ResponseEntity.ok().eTag(etag).cacheControl(LOCATIONS_CACHE).body(body.get());
+    }
+
+    @GetMapping("/bundles")
+    public ResponseEntity<List<CityBundleService.Bundle>> getBundles() {
+        return ResponseEntity.ok().cacheControl(BUNDLE_CACHE).body(cityBundleService.list());
+    }
+
+    /**
+     * A city's offline catalogue bundle (gzip, see CityBundleCodec); supports Range and If-Range
+     * so an interrupted download resumes where it stopped
+     */
+    @GetMapping("/cities/{cityId}/bundle")
+    public ResponseEntity<Resource> getCityBundle(
+            @PathVariable Long cityId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange) throws IOException {
+        CityBundleService.Bundle bundle = cityBundleService.get(cityId).orElse(null);
+        if (bundle == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (HttpCaching.matches(ifNoneMatch, bundle.etag())) {
+            return HttpCaching.notModified(bundle.etag(), BUNDLE_CACHE);
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(bundle.etag())
+                .lastModified(bundle.builtAt())
+                .cacheControl(BUNDLE_CACHE)
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"city-" + cityId + ".bin.gz\"");
+        if (!HttpCaching.rangeApplies(ifRange, bundle.etag())) {
+            // Spring serves Range for file resources but ignores If-Range; a stream resource is always sent whole
+            return response.contentLength(bundle.size())
+                    .body(new InputStreamResource(Files.newInputStream(bundle.path())));
+        }
+        return response.body(new FileSystemResource(bundle.path()));
     }
 }
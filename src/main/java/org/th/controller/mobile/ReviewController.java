@@ -5,18 +5,25 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.th.dto.ApiResponse;
 import org.th.dto.CreateReviewRequest;
+import org.th.dto.CursorPage;
 import org.th.dto.OwnerResponseRequest;
 import org.th.dto.ReviewSummaryDTO;
 import org.th.entity.User;
+import org.th.entity.enums.ReviewSort;
+import org.th.service.CatalogVersions;
 import org.th.service.mobile.ReviewService;
 import org.th.config.ratelimit.RateLimit;
 import org.th.config.ratelimit.RateLimit.Tier;
+import org.th.util.HttpCaching;
 
+import java.time.Duration;
 import java.util.List;
 
 @RestController
@@ -27,20 +34,35 @@ public class ReviewController {
 
     private final ReviewService reviewService;
     private final org.th.service.MenuItemReviewService menuItemReviewService;
+    private final CatalogVersions catalogVersions;
+
+    private static final int MAX_PAGE_SIZE = 50;
+    private static final CacheControl REVIEWS_CACHE = CacheControl.maxAge(Duration.ofMinutes(1)).cachePublic();
 
     /**
-     * Get reviews for a shop
+     * Get reviews for a shop, one page at a time
+     * Every page of a shop shares one version, so any review change revalidates them all.
      */
     @GetMapping("/shop/{shopId}")
     @RateLimit(tier = Tier.PUBLIC)
-    @Operation(summary = "Get shop reviews", description = "Get all reviews for a specific shop")
-    public ResponseEntity<ApiResponse<List<ReviewSummaryDTO>>> getShopReviews(
+    @Operation(summary = "Get shop reviews", description = "Get a page of reviews for a specific shop; pass nextCursor back to get the next page")
+    public ResponseEntity<ApiResponse<CursorPage<ReviewSummaryDTO>>> getShopReviews(
             @Parameter(description = "Shop ID") @PathVariable Long shopId,
-            @Parameter(description = "Show only visible reviews") @RequestParam(defaultValue = "true") boolean onlyVisible) {
-
-        List<ReviewSummaryDTO> reviews = reviewService.getShopReviews(shopId, onlyVisible);
-        return ResponseEntity.ok(ApiResponse.success(
-                "Found " + reviews.size() + " reviews", reviews));
+            @Parameter(description = "Show only visible reviews") @RequestParam(defaultValue = "true") boolean onlyVisible,
+            @Parameter(description = "Sort order") @RequestParam(defaultValue = "NEWEST") ReviewSort sort,
+            @Parameter(description = "Cursor from the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (max 50)") @RequestParam(defaultValue = "20") int size,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        String etag = catalogVersions.etag("reviews", shopId,
+                catalogVersions.version(CatalogVersions.Scope.SHOP_REVIEWS, shopId));
+        if (HttpCaching.matches(ifNoneMatch, etag)) {
+            return HttpCaching.notModified(etag, REVIEWS_CACHE);
+        }
+        CursorPage<ReviewSummaryDTO> reviews = reviewService.getShopReviews(
+                shopId, onlyVisible, sort, cursor, Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVIEWS_CACHE).body(ApiResponse.success(
+                "Found " + reviews.getItems().size() + " reviews", reviews));
     }
 
     /**
@@ -224,15 +246,19 @@ public class ReviewController {
     }
 
     /**
-     * Get reviews for a menu item
+     * Get reviews for a menu item, one page at a time
      */
     @GetMapping("/menu/{itemId}")
     @RateLimit(tier = Tier.PUBLIC)
-    @Operation(summary = "Get dish reviews", description = "Get reviews for a specific menu item")
-    public ResponseEntity<ApiResponse<List<org.th.dto.MenuItemReviewDTO>>> getDishReviews(
-            @Parameter(description = "Menu Item ID") @PathVariable Long itemId) {
+    @Operation(summary = "Get dish reviews", description = "Get a page of reviews for a specific menu item; HELPFUL sorts as NEWEST")
+    public ResponseEntity<ApiResponse<CursorPage<org.th.dto.MenuItemReviewDTO>>> getDishReviews(
+            @Parameter(description = "Menu Item ID") @PathVariable Long itemId,
+            @Parameter(description = "Sort order") @RequestParam(defaultValue = "NEWEST") ReviewSort sort,
+            @Parameter(description = "Cursor from the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (max 50)") @RequestParam(defaultValue = "20") int size) {
 
-        List<org.th.dto.MenuItemReviewDTO> reviews = menuItemReviewService.getReviews(itemId);
+        CursorPage<org.th.dto.MenuItemReviewDTO> reviews = menuItemReviewService.getReviews(
+                itemId, sort, cursor, Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
         return ResponseEntity.ok(ApiResponse.success("Dish reviews retrieved", reviews));
     }
 
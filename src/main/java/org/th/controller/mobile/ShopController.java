@@ -4,6 +4,10 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.th.dto.mobile.SearchResponseDTO;
@@ -11,6 +15,8 @@ import org.th.dto.ApiResponse;
 import org.th.dto.ShopDetailDTO;
 import org.th.dto.ShopListDTO;
 import org.th.entity.shops.Shop;
+import org.th.service.CatalogVersions;
+import org.th.service.CatalogVersions.Scope;
 import org.th.service.ShopService;
 import org.th.service.mobile.TrendingService;
 import org.th.service.mobile.RecommendationService;
@@ -18,10 +24,13 @@ import org.th.service.UserActivityService;
 import org.th.entity.enums.ActivityType;
 import org.th.config.ratelimit.RateLimit;
 import org.th.config.ratelimit.RateLimit.Tier;
+import org.th.util.HttpCaching;
 import jakarta.servlet.http.HttpServletRequest;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @RestController
@@ -30,11 +39,24 @@ import java.util.stream.Collectors;
 @Tag(name = "Shops", description = "Shop discovery and search APIs")
 public class ShopController {
 
+        // Detail views are always revalidated so every open is still counted; a 304 is cheap
+        private static final CacheControl DETAIL_CACHE = CacheControl.noCache().cachePublic();
+        private static final CacheControl MENU_CACHE = CacheControl.maxAge(Duration.ofMinutes(5)).cachePublic();
+        private static final CacheControl CATEGORIES_CACHE = CacheControl.maxAge(Duration.ofHours(1)).cachePublic();
+        // Matches the server-side trendingShops TTL
+        private static final CacheControl TRENDING_CACHE = CacheControl.maxAge(Duration.ofMinutes(5)).cachePublic();
+
         private final ShopService shopService;
         private final UserActivityService userActivityService;
         private final TrendingService trendingService;
         private final RecommendationService recommendationService;
-        private final org.th.service.MenuCategoryService menuCategoryService;
+        private final org.th.service.OpeningHoursIndex openingHoursIndex;
+        private final org.th.service.ShopAttributeIndex shopAttributeIndex;
+        private final org.th.service.mobile.PopularSearchService popularSearchService;
+        private final org.th.service.MenuDocumentService menuDocumentService;
+        private final CatalogVersions catalogVersions;
+        private final org.th.service.mobile.CatalogSyncService catalogSyncService;
+        private final org.th.service.PrecompressedResponseCache precompressedResponseCache;
 
         /**
          * Get nearby shops based on user location
@@ -46,6 +68,9 @@ public class ShopController {
                         @Parameter(description = "User's latitude") @RequestParam Double lat,
                         @Parameter(description = "User's longitude") @RequestParam Double lon,
                         @Parameter(description = "Search radius in km") @RequestParam(defaultValue = "5.0") Double radius,
+                        @Parameter(description = "Only shops open right now") @RequestParam(defaultValue = "false") boolean openNow,
+                        @Parameter(description = "Only shops open at this local time (ISO, e.g. 2025-01-31T19:30)") @RequestParam(required = false) @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE_TIME) java.time.LocalDateTime openAt,
+                        @org.springdoc.core.annotations.ParameterObject org.th.dto.ShopFilter filter,
                         HttpServletRequest request) {
 
                 // Log activity
@@ -54,10 +79,13 @@ public class ShopController {
                                 null, null, null, lat, lon,
                                 "radius=" + radius, request);
 
-                List<Shop> shops = shopService.getNearbyShops(lat, lon, radius);
+                org.th.service.ShopAttributeIndex.Candidates candidates = shopAttributeIndex.candidates(filter);
+                List<Shop> shops = filterOpen(shopService.getNearbyShops(lat, lon, radius), openNow, openAt).stream()
+                                .filter(s -> candidates.test(s.getId()))
+                                .collect(Collectors.toList());
 
                 List<ShopListDTO> shopDTOs = shops.stream()
-                                .map(s -> shopService.convertToListDTO(s, lat, lon))
+                                .map(s -> withOpenNow(shopService.convertToListDTO(s, lat, lon)))
                                 .collect(Collectors.toList());
 
                 return ResponseEntity.ok(ApiResponse.success(
@@ -67,6 +95,7 @@ public class ShopController {
 
         /**
          * Get shop details by ID
+         * A matching If-None-Match gets 304 without loading the shop.
          */
         @GetMapping("/{id}")
         @RateLimit(tier = Tier.IO_INTENSIVE)
@@ -75,8 +104,22 @@ public class ShopController {
                         @Parameter(description = "Shop ID") @PathVariable Long id,
                         @Parameter(description = "User's latitude") @RequestParam Double lat,
                         @Parameter(description = "User's longitude") @RequestParam Double lon,
+                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
                         HttpServletRequest request) {
 
+                // Versions are read before loading, so a concurrent change can only cost a re-download
+                String etag = shopEtag(id);
+                if (HttpCaching.matches(ifNoneMatch, etag)) {
+                        userActivityService.logActivity(
+                                        ActivityType.VIEW_SHOP,
+                                        String.valueOf(id),
+                                        id,
+                                        null,
+                                        null, null,
+                                        "source=id", request);
+                        return HttpCaching.notModified(etag, DETAIL_CACHE);
+                }
+
                 Optional<ShopDetailDTO> shopDetailOpt = shopService.getShopDetailsById(id, lat, lon);
 
                 if (shopDetailOpt.isEmpty()) {
@@ -94,24 +137,46 @@ public class ShopController {
                                 null, null,
                                 "source=id", request);
 
-                return ResponseEntity.ok(ApiResponse.success("Shop details found", shop));
+                return ResponseEntity.ok().eTag(etag).cacheControl(DETAIL_CACHE)
+                                .body(ApiResponse.success("Shop details found", shop));
         }
 
         /**
          * Get shop menu
+         * Served from the shop's pre-serialized menu document, gzipped when the client accepts it;
+         * a matching If-None-Match gets 304 with no body.
          */
-        @GetMapping("/{id}/menu")
+        @GetMapping(value = "/{id}/menu", produces = MediaType.APPLICATION_JSON_VALUE)
         @RateLimit(tier = Tier.IO_INTENSIVE)
         @Operation(summary = "Get shop menu", description = "Get full menu for a shop")
-        public ResponseEntity<ApiResponse<List<org.th.dto.MenuCategoryDTO>>> getShopMenu(
-                        @Parameter(description = "Shop ID") @PathVariable Long id) {
-
-                List<org.th.dto.MenuCategoryDTO> menu = menuCategoryService.getMenuCategoriesByShopId(id);
-                return ResponseEntity.ok(ApiResponse.success("Shop menu retrieved", menu));
+        public ResponseEntity<byte[]> getShopMenu(
+                        @Parameter(description = "Shop ID") @PathVariable Long id,
+                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+
+                org.th.service.MenuDocumentService.MenuDocument menu = menuDocumentService.get(id);
+                boolean gzip = menu.gzip() != null && HttpCaching.acceptsGzip(acceptEncoding);
+                if (menu.matches(ifNoneMatch)) {
+                        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                                        .eTag(menu.etag(gzip))
+                                        .cacheControl(MENU_CACHE)
+                                        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                                        .build();
+                }
+                ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                                .eTag(menu.etag(gzip))
+                                .cacheControl(MENU_CACHE)
+                                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                                .contentType(MediaType.APPLICATION_JSON);
+                if (gzip) {
+                        response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+                }
+                return response.body(menu.body(gzip));
         }
 
         /**
          * Get shop details by slug
+         * Revalidation costs one slug-to-id lookup.
          */
         @GetMapping("/slug/{slug}")
         @RateLimit(tier = Tier.IO_INTENSIVE)
@@ -120,8 +185,25 @@ public class ShopController {
                         @Parameter(description = "Shop Slug") @PathVariable String slug,
                         @Parameter(description = "User's latitude") @RequestParam Double lat,
                         @Parameter(description = "User's longitude") @RequestParam Double lon,
+                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
                         HttpServletRequest request) {
 
+                Optional<Long> shopId = shopService.findShopIdBySlug(slug);
+                if (shopId.isEmpty()) {
+                        return ResponseEntity.status(404).body(ApiResponse.error("Shop not found"));
+                }
+                String etag = shopEtag(shopId.get());
+                if (HttpCaching.matches(ifNoneMatch, etag)) {
+                        userActivityService.logActivity(
+                                        ActivityType.VIEW_SHOP,
+                                        slug,
+                                        shopId.get(),
+                                        null,
+                                        null, null,
+                                        "source=slug", request);
+                        return HttpCaching.notModified(etag, DETAIL_CACHE);
+                }
+
                 ShopDetailDTO shop = shopService.getShopDetailsBySlug(slug, lat, lon);
 
                 if (shop == null) {
@@ -137,7 +219,8 @@ public class ShopController {
                                 null, null,
                                 "source=slug", request);
 
-                return ResponseEntity.ok(ApiResponse.success("Shop details found", shop));
+                return ResponseEntity.ok().eTag(etag).cacheControl(DETAIL_CACHE)
+                                .body(ApiResponse.success("Shop details found", shop));
         }
 
         /**
@@ -146,9 +229,45 @@ public class ShopController {
         @GetMapping("/categories")
         @RateLimit(tier = Tier.PUBLIC)
         @Operation(summary = "Get all categories", description = "Get list of all available shop categories")
-        public ResponseEntity<ApiResponse<List<String>>> getAllCategories() {
-                List<String> categories = shopService.getAllCategories();
-                return ResponseEntity.ok(ApiResponse.success("Categories retrieved", categories));
+        public ResponseEntity<?> getAllCategories(
+                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                        @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+                String etag = catalogVersions.etag("categories", catalogVersions.version(Scope.CATEGORIES, null));
+                if (HttpCaching.matches(ifNoneMatch, etag)) {
+                        return HttpCaching.notModified(etag, CATEGORIES_CACHE);
+                }
+                Supplier<ApiResponse<List<String>>> body = () -> ApiResponse.success("Categories retrieved",
+                                shopService.getAllCategories());
+                ResponseEntity<byte[]> cached = precompressedResponseCache.json(etag, CATEGORIES_CACHE, accept,
+                                acceptEncoding, body);
+                return cached != null ? cached
+                                : ResponseEntity.ok().eTag(etag).cacheControl(CATEGORIES_CACHE).body(body.get());
+        }
+
+        /**
+         * Most searched queries right now (sliding window, in memory)
+         */
+        @GetMapping("/search/popular")
+        @RateLimit(tier = Tier.PUBLIC)
+        @Operation(summary = "Popular searches", description = "Most searched queries in the last hour")
+        public ResponseEntity<ApiResponse<List<org.th.dto.mobile.PopularSearchDTO>>> getPopularSearches(
+                        @Parameter(description = "Maximum number of queries") @RequestParam(defaultValue = "10") int limit) {
+                List<org.th.dto.mobile.PopularSearchDTO> popular = popularSearchService.popular(Math.min(limit, 50));
+                return ResponseEntity.ok(ApiResponse.success("Popular searches retrieved", popular));
+        }
+
+        /**
+         * Typeahead completions ranked by recent query volume
+         */
+        @GetMapping("/search/suggest")
+        @RateLimit(tier = Tier.PUBLIC)
+        @Operation(summary = "Search suggestions", description = "Complete a partial query from recent popular searches")
+        public ResponseEntity<ApiResponse<List<org.th.dto.mobile.PopularSearchDTO>>> suggestSearches(
+                        @Parameter(description = "Partial query") @RequestParam String q,
+                        @Parameter(description = "Maximum number of suggestions") @RequestParam(defaultValue = "8") int limit) {
+                List<org.th.dto.mobile.PopularSearchDTO> suggestions = popularSearchService.suggest(q, Math.min(limit, 20));
+                return ResponseEntity.ok(ApiResponse.success("Search suggestions retrieved", suggestions));
         }
 
         /**
@@ -161,6 +280,9 @@ public class ShopController {
                         @Parameter(description = "Search keyword") @RequestParam String q,
                         @Parameter(description = "User's latitude") @RequestParam Double lat,
                         @Parameter(description = "User's longitude") @RequestParam Double lon,
+                        @Parameter(description = "Only shops open right now") @RequestParam(defaultValue = "false") boolean openNow,
+                        @Parameter(description = "Only shops open at this local time (ISO, e.g. 2025-01-31T19:30)") @RequestParam(required = false) @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE_TIME) java.time.LocalDateTime openAt,
+                        @org.springdoc.core.annotations.ParameterObject org.th.dto.ShopFilter filter,
                         HttpServletRequest request) {
 
                 // Log activity
@@ -168,9 +290,19 @@ public class ShopController {
                                 ActivityType.SEARCH_QUERY,
                                 q, null, null, lat, lon,
                                 "type=universal", request);
+                popularSearchService.record(q, request.getHeader("X-Device-ID"));
 
                 // Perform combined search
                 SearchResponseDTO results = shopService.searchCombined(q);
+                if (results.getShops() != null) {
+                        java.time.LocalDateTime at = openAt != null ? openAt : (openNow ? openingHoursIndex.now() : null);
+                        org.th.service.ShopAttributeIndex.Candidates candidates = shopAttributeIndex.candidates(filter);
+                        results.setShops(results.getShops().stream()
+                                        .filter(dto -> candidates.test(dto.getId()))
+                                        .filter(dto -> at == null || openingHoursIndex.isOpenAt(dto.getId(), at))
+                                        .map(this::withOpenNow)
+                                        .collect(Collectors.toList()));
+                }
 
                 // If location provided, calculate distances for shops
                 if (lat != null && lon != null && results.getShops() != null) {
@@ -200,25 +332,61 @@ public class ShopController {
                                 results));
         }
 
+        /**
+         * Catalogue changes since the last sync
+         * Shops changed since the watermark (with photos, hours and menu) and IDs of shops removed since;
+         * page with the returned watermark while hasMore is set.
+         */
+        @GetMapping("/sync")
+        @RateLimit(tier = Tier.IO_INTENSIVE)
+        @Operation(summary = "Sync catalogue", description = "Get shops changed and removed since a watermark from a previous sync; omit it for a full first sync")
+        public ResponseEntity<ApiResponse<org.th.dto.mobile.CatalogSyncDTO>> syncCatalog(
+                        @Parameter(description = "Watermark from the previous sync") @RequestParam(required = false) String since,
+                        @Parameter(description = "Maximum changed shops per page (max 200)") @RequestParam(defaultValue = "100") int limit) {
+                org.th.dto.mobile.CatalogSyncDTO changes = catalogSyncService.changesSince(since, limit);
+                return ResponseEntity.ok(ApiResponse.success(changes.isResetRequired()
+                                ? "Full resync required"
+                                : "Catalogue changes retrieved", changes));
+        }
+
+        /**
+         * Without a location the body depends only on which shops trend, so it is served precompressed
+         */
         @GetMapping("/trending")
         @RateLimit(tier = RateLimit.Tier.PUBLIC)
-        @Operation(summary = "Get trending shops", description = "Get top 10 trending shops based on recent activity")
-        public ResponseEntity<ApiResponse<List<ShopListDTO>>> getTrendingShops(
-                        @Parameter(description = "User's latitude") @RequestParam Double lat,
-                        @Parameter(description = "User's longitude") @RequestParam Double lon,
+        @Operation(summary = "Get trending shops", description = "Get top 10 trending shops based on recent activity, optionally within a district or city and/or a category")
+        public ResponseEntity<?> getTrendingShops(
+                        @Parameter(description = "User's latitude") @RequestParam(required = false) Double lat,
+                        @Parameter(description = "User's longitude") @RequestParam(required = false) Double lon,
+                        @Parameter(description = "Limit to a district") @RequestParam(required = false) Long districtId,
+                        @Parameter(description = "Limit to a city (ignored when districtId is set)") @RequestParam(required = false) Long cityId,
+                        @Parameter(description = "Limit to a category") @RequestParam(required = false) String category,
+                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                        @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
                         HttpServletRequest request) {
 
-                // Optional: Log viewing trending page
-                userActivityService.logActivity(
-                                ActivityType.VIEW_CATEGORY, // Using VIEW_CATEGORY as proxy for "Browsing List"
-                                null, null, "Trending", lat, lon,
-                                null, request);
+                logTrendingView(lat, lon, request);
 
-                List<Shop> trendingShops = trendingService.getTopTrendingShops();
-                List<ShopListDTO> dtos = trendingShops.stream()
-                                .map(s -> shopService.convertToListDTO(s, lat, lon))
-                                .collect(Collectors.toList());
-                return ResponseEntity.ok(ApiResponse.success("Trending shops retrieved", dtos));
+                // Usually a cache hit; the tag covers exactly the shops (and their versions) being served
+                List<Shop> trendingShops = trendingService.getTrendingShops(districtId, cityId, category);
+                List<Object> parts = new java.util.ArrayList<>();
+                parts.add("trending");
+                parts.add(catalogVersions.version(Scope.LOCATIONS, null));
+                for (Shop shop : trendingShops) {
+                        parts.add(shop.getId());
+                        parts.add(catalogVersions.version(Scope.SHOP, shop.getId()));
+                }
+                String etag = catalogVersions.etag(parts.toArray());
+                if (HttpCaching.matches(ifNoneMatch, etag)) {
+                        return HttpCaching.notModified(etag, TRENDING_CACHE);
+                }
+                Supplier<ApiResponse<List<ShopListDTO>>> body = () -> trendingResponse(trendingShops, lat, lon);
+                ResponseEntity<byte[]> cached = lat == null && lon == null
+                                ? precompressedResponseCache.json(etag, TRENDING_CACHE, accept, acceptEncoding, body)
+                                : null;
+                return cached != null ? cached
+                                : ResponseEntity.ok().eTag(etag).cacheControl(TRENDING_CACHE).body(body.get());
         }
 
         @GetMapping("/foryou")
@@ -244,13 +412,19 @@ public class ShopController {
 
                 // If neither user nor deviceId, fallback to trending
                 if (username == null && deviceId == null) {
-                        return getTrendingShops(lat, lon, request); // call overload
+                        // Trending's body only: its public caching headers must not stick to this personalized URL
+                        logTrendingView(lat, lon, request);
+                        return ResponseEntity.ok(
+                                        trendingResponse(trendingService.getTrendingShops(null, null, null), lat, lon));
                 }
 
                 List<Shop> recommendations = recommendationService.getRecommendedShops(username, deviceId);
 
                 if (recommendations.isEmpty()) {
-                        return getTrendingShops(lat, lon, request); // Fallback if no specific recommendations
+                        // Fallback if no specific recommendations
+                        logTrendingView(lat, lon, request);
+                        return ResponseEntity.ok(
+                                        trendingResponse(trendingService.getTrendingShops(null, null, null), lat, lon));
                 }
 
                 List<ShopListDTO> dtos = recommendations.stream()
@@ -309,4 +483,47 @@ public class ShopController {
                                 "Retrieved shops page " + page,
                                 dtoSlice));
         }
+
+        /**
+         * Keep only shops open at {@code openAt}, or right now when {@code openNow} is set
+         */
+        private List<Shop> filterOpen(List<Shop> shops, boolean openNow, java.time.LocalDateTime openAt) {
+                java.time.LocalDateTime at = openAt != null ? openAt : (openNow ? openingHoursIndex.now() : null);
+                if (at == null) {
+                        return shops;
+                }
+                return shops.stream()
+                                .filter(s -> openingHoursIndex.isOpenAt(s.getId(), at))
+                                .collect(Collectors.toList());
+        }
+
+        private ShopListDTO withOpenNow(ShopListDTO dto) {
+                if (dto != null) {
+                        dto.setOpenNow(openingHoursIndex.isOpenNow(dto.getId()));
+                }
+                return dto;
+        }
+
+        private void logTrendingView(Double lat, Double lon, HttpServletRequest request) {
+                // Optional: Log viewing trending page
+                userActivityService.logActivity(
+                                ActivityType.VIEW_CATEGORY, // Using VIEW_CATEGORY as proxy for "Browsing List"
+                                null, null, "Trending", lat, lon,
+                                null, request);
+        }
+
+        private ApiResponse<List<ShopListDTO>> trendingResponse(List<Shop> shops, Double lat, Double lon) {
+                List<ShopListDTO> dtos = shops.stream()
+                                .map(s -> shopService.convertToListDTO(s, lat, lon))
+                                .collect(Collectors.toList());
+                return ApiResponse.success("Trending shops retrieved", dtos);
+        }
+
+        /**
+         * Validator of a shop detail: the shop's own version plus the district and city names it embeds
+         */
+        private String shopEtag(Long shopId) {
+                return catalogVersions.etag("shop", shopId, catalogVersions.version(Scope.SHOP, shopId),
+                                catalogVersions.version(Scope.LOCATIONS, null));
+        }
 }
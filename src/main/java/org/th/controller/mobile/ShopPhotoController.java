@@ -14,6 +14,7 @@ import org.th.entity.shops.ShopPhoto;
 import org.th.exception.ResourceNotFoundException;
 import org.th.exception.SupabaseStorageException;
 import org.th.repository.ShopRepository;
+import org.th.service.ImageVariantService;
 import org.th.service.SupabaseStorageService;
 import org.th.service.ShopService;
 
@@ -39,6 +40,9 @@ public class ShopPhotoController {
     @Autowired
     private ShopService shopService;
 
+    @Autowired
+    private ImageVariantService imageVariantService;
+
     /**
      * Upload a photo for a shop
      */
@@ -63,7 +67,7 @@ public class ShopPhotoController {
             ShopPhoto shopPhoto = new ShopPhoto();
             shopPhoto.setShop(shop);
             shopPhoto.setUrl(imageUrl);
-            shopPhoto.setThumbnailUrl(imageUrl); // Use same URL for now
+            shopPhoto.setThumbnailUrl(imageUrl); // Replaced by the thumbnail variant once generated
             shopPhoto.setPhotoType(photoType);
             shopPhoto.setCaption(caption);
             shopPhoto.setIsPrimary(isPrimary);
@@ -77,12 +81,15 @@ public class ShopPhotoController {
             // Add to shop and save
             shop.getPhotos().add(shopPhoto);
             shopRepository.save(shop);
+            imageVariantService.generateAfterCommit(imageUrl);
 
             // Convert to DTO
             ShopPhotoDTO photoDTO = ShopPhotoDTO.builder()
                     .id(shopPhoto.getId())
                     .url(shopPhoto.getUrl())
                     .thumbnailUrl(shopPhoto.getThumbnailUrl())
+                    .mediumUrl(shopPhoto.getMediumUrl())
+                    .fullUrl(shopPhoto.getFullUrl())
                     .photoType(shopPhoto.getPhotoType())
                     .caption(shopPhoto.getCaption())
                     .isPrimary(shopPhoto.getIsPrimary())
@@ -123,6 +130,8 @@ public class ShopPhotoController {
                             .id(photo.getId())
                             .url(photo.getUrl())
                             .thumbnailUrl(photo.getThumbnailUrl())
+                            .mediumUrl(photo.getMediumUrl())
+                            .fullUrl(photo.getFullUrl())
                             .photoType(photo.getPhotoType())
                             .caption(photo.getCaption())
                             .captionMm(photo.getCaptionMm())
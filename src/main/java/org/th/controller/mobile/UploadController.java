@@ -0,0 +1,55 @@
+package org.th.controller.mobile;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import org.th.config.ratelimit.RateLimit;
+import org.th.config.ratelimit.RateLimit.Tier;
+import org.th.dto.ApiResponse;
+import org.th.dto.ConfirmUploadRequest;
+import org.th.dto.PhotoDTO;
+import org.th.dto.UploadTicketDTO;
+import org.th.dto.UploadTicketRequest;
+import org.th.entity.User;
+import org.th.service.UploadTicketService;
+
+@RestController
+@RequestMapping("/api/mobile/uploads")
+@RequiredArgsConstructor
+@Tag(name = "Uploads", description = "Client-direct photo upload APIs")
+public class UploadController {
+
+    private final UploadTicketService uploadTicketService;
+
+    /**
+     * Get a signed URL to upload a photo to directly
+     */
+    @PostMapping("/tickets")
+    @RateLimit(tier = Tier.WRITE)
+    @Operation(summary = "Request upload ticket", description = "Authorize a photo upload and get a signed URL to PUT the file to; confirm the ticket once the upload finishes")
+    public ResponseEntity<ApiResponse<UploadTicketDTO>> requestTicket(
+            @Valid @RequestBody UploadTicketRequest request,
+            @AuthenticationPrincipal User user) {
+
+        UploadTicketDTO ticket = uploadTicketService.issue(request, user);
+        return ResponseEntity.ok(ApiResponse.success("Upload ticket issued", ticket));
+    }
+
+    /**
+     * Attach an uploaded photo to its shop, review or menu item
+     */
+    @PostMapping("/confirm")
+    @RateLimit(tier = Tier.WRITE)
+    @Operation(summary = "Confirm upload", description = "Verify the uploaded file and attach it to the ticket's target")
+    public ResponseEntity<ApiResponse<PhotoDTO>> confirmUpload(
+            @Valid @RequestBody ConfirmUploadRequest request,
+            @AuthenticationPrincipal User user) {
+
+        PhotoDTO photo = uploadTicketService.confirm(request, user);
+        return ResponseEntity.ok(ApiResponse.success("Photo uploaded successfully", photo));
+    }
+}
@@ -19,11 +19,12 @@ import org.th.repository.UserRepository;
 public class UserController {
 
     private final UserRepository userRepository;
+    private final org.th.config.security.CurrentUserResolver currentUserResolver;
 
     @GetMapping("/profile")
     @Operation(summary = "Get user profile", description = "Get current user's profile and taste preferences")
     public ResponseEntity<ApiResponse<UserProfileDTO>> getProfile() {
-        User user = getCurrentUser();
+        User user = currentUserResolver.getCurrentUser();
         if (user == null) {
             return ResponseEntity.status(401).body(ApiResponse.error("Unauthorized"));
         }
@@ -69,6 +70,9 @@ public class UserController {
         return ResponseEntity.ok(ApiResponse.success("Profile updated", request));
     }
 
+    /**
+     * Load a managed copy for updates; the cached principal is shared and read-only
+     */
     private User getCurrentUser() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
 
@@ -4,15 +4,12 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import org.th.dto.ApiResponse;
 import org.th.dto.ShopListDTO;
 import org.th.entity.User;
 import org.th.entity.UserFavorite;
 import org.th.repository.UserFavoriteRepository;
-import org.th.repository.UserRepository;
 import org.th.service.mobile.FavoriteService;
 import org.th.service.ShopService;
 
@@ -26,7 +23,7 @@ import java.util.stream.Collectors;
 public class UserFavoriteController {
 
     private final UserFavoriteRepository userFavoriteRepository;
-    private final UserRepository userRepository;
+    private final org.th.config.security.CurrentUserResolver currentUserResolver;
     private final ShopService shopService;
     private final FavoriteService favoriteService;
 
@@ -100,10 +97,6 @@ public class UserFavoriteController {
     }
 
     private User getCurrentUser() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        if (auth == null || !auth.isAuthenticated() || "anonymousUser".equals(auth.getPrincipal())) {
-            return null;
-        }
-        return userRepository.findByUsername(auth.getName()).orElse(null);
+        return currentUserResolver.getCurrentUser();
     }
 }
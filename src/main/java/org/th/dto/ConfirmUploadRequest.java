@@ -0,0 +1,24 @@
+package org.th.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Request DTO to attach a client-direct upload to its target
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConfirmUploadRequest {
+
+    @NotBlank(message = "Ticket is required")
+    private String ticket;
+
+    @Size(max = 500, message = "Caption cannot exceed 500 characters")
+    private String caption;
+}
@@ -19,6 +19,8 @@ public class PhotoDTO {
     private Long id;
     private String url;
     private String thumbnailUrl;
+    private String mediumUrl;
+    private String fullUrl;
     private String photoType;
     private String caption;
     private String captionMm;
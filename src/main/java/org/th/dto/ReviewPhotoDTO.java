@@ -9,4 +9,6 @@ public class ReviewPhotoDTO {
     private Long id;
     private String url;
     private String thumbnailUrl;
+    private String mediumUrl;
+    private String fullUrl;
 }
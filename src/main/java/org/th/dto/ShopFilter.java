@@ -0,0 +1,57 @@
+package org.th.dto;
+
+import io.swagger.v3.oas.annotations.Parameter;
+import org.th.entity.User;
+import org.th.entity.enums.PricePreference;
+
+/**
+ * Attribute filters for shop lists (bound from query parameters)
+ * Null or false means "don't care"; only true flags constrain the result.
+ */
+public record ShopFilter(
+        @Parameter(description = "Only halal shops") Boolean halal,
+        @Parameter(description = "Only vegetarian shops") Boolean vegetarian,
+        @Parameter(description = "Only shops with delivery") Boolean delivery,
+        @Parameter(description = "Only shops with parking") Boolean parking,
+        @Parameter(description = "Only shops with wifi") Boolean wifi,
+        @Parameter(description = "Only verified shops") Boolean verified,
+        @Parameter(description = "Only shops at this price level") PricePreference price) {
+
+    public static final ShopFilter NONE = new ShopFilter(null, null, null, null, null, null, null);
+
+    /**
+     * Dietary constraints from the user's profile
+     */
+    public static ShopFilter forUser(User user) {
+        if (user == null) {
+            return NONE;
+        }
+        return new ShopFilter(user.getIsHalal(), user.getIsVegetarian(), null, null, null, null, null);
+    }
+
+    public boolean isEmpty() {
+        return !isSet(halal) && !isSet(vegetarian) && !isSet(delivery) && !isSet(parking)
+                && !isSet(wifi) && !isSet(verified) && price == null;
+    }
+
+    /**
+     * Both filters' constraints
+     */
+    public ShopFilter and(ShopFilter other) {
+        if (other == null || other.isEmpty()) {
+            return this;
+        }
+        return new ShopFilter(
+                isSet(halal) || isSet(other.halal),
+                isSet(vegetarian) || isSet(other.vegetarian),
+                isSet(delivery) || isSet(other.delivery),
+                isSet(parking) || isSet(other.parking),
+                isSet(wifi) || isSet(other.wifi),
+                isSet(verified) || isSet(other.verified),
+                price != null ? price : other.price);
+    }
+
+    static boolean isSet(Boolean flag) {
+        return Boolean.TRUE.equals(flag);
+    }
+}
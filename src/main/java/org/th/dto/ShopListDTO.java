@@ -64,4 +64,7 @@ public class ShopListDTO {
     private Integer minEta;
     private Integer maxEta;
     private String estimatedTime; // Formatted "12 - 18 min"
+
+    // Open right now per operating hours (null when not computed for this list)
+    private Boolean openNow;
 }
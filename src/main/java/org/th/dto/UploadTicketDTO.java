@@ -0,0 +1,25 @@
+package org.th.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * A signed upload: PUT the file to uploadUrl with the given content type, then confirm the ticket
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadTicketDTO {
+
+    private String ticket;
+    private String uploadUrl;
+    private String path;
+    private String contentType;
+    private Long maxSize;
+    private Instant expiresAt;
+}
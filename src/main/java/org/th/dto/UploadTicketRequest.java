@@ -0,0 +1,32 @@
+package org.th.dto;
+
+import jakarta.validation.constraints.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.th.entity.enums.UploadTarget;
+
+/**
+ * Request DTO for a signed, client-direct photo upload
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadTicketRequest {
+
+    @NotNull(message = "Target is required")
+    private UploadTarget target;
+
+    // Shop, review or menu item ID, depending on the target
+    @NotNull(message = "Target ID is required")
+    private Long targetId;
+
+    @NotBlank(message = "Content type is required")
+    private String contentType;
+
+    @NotNull(message = "Size is required")
+    @Positive(message = "Size must be positive")
+    private Long size;
+}
@@ -0,0 +1,30 @@
+package org.th.dto.analytics;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.th.entity.enums.SketchDimension;
+
+import java.time.LocalDate;
+
+/**
+ * Estimated unique devices for a dimension value over a date range
+ * Estimates come from HyperLogLog sketches: {@code relativeStandardError} is
+ * one sigma (~1.6%), and the bounds are a ~95% interval (two sigma).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UniqueVisitorsDTO {
+    private SketchDimension dimension;
+    private String key;
+    private LocalDate start;
+    private LocalDate end;
+    private long events;
+    private long uniqueDevices;
+    private double relativeStandardError;
+    private long lowerBound;
+    private long upperBound;
+}
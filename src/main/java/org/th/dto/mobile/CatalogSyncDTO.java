@@ -0,0 +1,26 @@
+package org.th.dto.mobile;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Catalogue changes since a watermark
+ * Pass {@code watermark} back as {@code since}; keep going while {@code hasMore}.
+ * When {@code resetRequired} is set the client must drop its copy and sync without a watermark.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogSyncDTO {
+    private List<SyncShopDTO> shops;
+    // Shops deleted or deactivated since the watermark
+    private List<Long> removedShopIds;
+    private String watermark;
+    private boolean hasMore;
+    private boolean resetRequired;
+}
@@ -0,0 +1,18 @@
+package org.th.dto.mobile;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A search query and its (approximate) volume in the current window
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PopularSearchDTO {
+    private String query;
+    private long count;
+}
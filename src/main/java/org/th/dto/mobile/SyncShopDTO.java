@@ -0,0 +1,32 @@
+package org.th.dto.mobile;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.th.dto.OperatingHourDTO;
+import org.th.dto.ShopListDTO;
+import org.th.dto.ShopPhotoDTO;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Current state of one changed shop; replaces whatever the client holds for it
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncShopDTO {
+    private ShopListDTO shop;
+    private List<ShopPhotoDTO> photos;
+    private List<OperatingHourDTO> operatingHours;
+    // Menu categories with items, as served by GET /api/mobile/shops/{id}/menu, embedded as stored;
+    // null until the shop's menu document is first built (the shop is sent again then)
+    @JsonRawValue
+    private String menu;
+    private long menuVersion;
+    private LocalDateTime updatedAt;
+}
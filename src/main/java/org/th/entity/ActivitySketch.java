@@ -0,0 +1,58 @@
+package org.th.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.th.entity.enums.SketchDimension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One day's HyperLogLog sketch of device IDs for a dimension value
+ * (e.g. shop 42 on 2025-01-31), plus the raw event count
+ */
+@Entity
+@Table(name = "activity_sketches", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_sketch_day_dimension_key", columnNames = { "sketch_day", "dimension",
+                "dimension_key" })
+}, indexes = {
+        @Index(name = "idx_sketch_dimension_day", columnList = "dimension, sketch_day")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivitySketch {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sketch_day", nullable = false)
+    private LocalDate day;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "dimension", nullable = false, length = 20)
+    private SketchDimension dimension;
+
+    @Column(name = "dimension_key", nullable = false, length = 255)
+    private String dimensionKey;
+
+    @Column(name = "events", nullable = false)
+    private long events;
+
+    @Column(name = "sketch", nullable = false)
+    private byte[] sketch;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+}
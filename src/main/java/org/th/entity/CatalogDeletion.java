@@ -0,0 +1,34 @@
+package org.th.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Deletion log for delta sync: a shop that no longer exists
+ * A row without a shop ID records that the whole catalogue was wiped.
+ */
+@Entity
+@Table(name = "catalog_deletions", indexes = {
+        @Index(name = "idx_catalog_deletions_deleted_at", columnList = "deleted_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogDeletion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "shop_id")
+    private Long shopId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+}
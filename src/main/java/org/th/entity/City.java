@@ -7,6 +7,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
+@EntityListeners(org.th.service.CatalogVersionListener.class)
 @Table(name = "cities", indexes = {
         @Index(name = "idx_city_slug", columnList = "slug"),
         @Index(name = "idx_city_active", columnList = "active")
@@ -7,6 +7,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
+@EntityListeners(org.th.service.CatalogVersionListener.class)
 @Table(name = "districts", indexes = {
         @Index(name = "idx_district_city", columnList = "city_id"),
         @Index(name = "idx_district_slug", columnList = "slug"),
@@ -0,0 +1,50 @@
+package org.th.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A shop's whole menu response, serialized once and served as-is
+ * The version goes up only when the content hash changes. A stale row is
+ * still served until the background rebuild replaces it.
+ */
+@Entity
+@Table(name = "shop_menu_documents")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShopMenuDocument {
+
+    @Id
+    @Column(name = "shop_id")
+    private Long shopId;
+
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+
+    @Column(name = "body", nullable = false)
+    private byte[] body;
+
+    // Null when the body is too small to be worth compressing
+    @Column(name = "body_gzip")
+    private byte[] bodyGzip;
+
+    @Column(name = "built_at", nullable = false)
+    private LocalDateTime builtAt;
+
+    // Set in the transaction of the menu change, cleared by the rebuild
+    @Column(name = "stale", nullable = false)
+    private boolean stale;
+
+    @Column(name = "format_version", nullable = false)
+    private int formatVersion;
+}
@@ -18,6 +18,7 @@ import java.util.List;
 
 @Entity
 @Table(name = "users")
+@EntityListeners(org.th.config.security.UserCacheInvalidationListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
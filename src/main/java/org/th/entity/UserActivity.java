@@ -11,6 +11,7 @@ import org.th.entity.shops.Shop;
 import java.time.LocalDateTime;
 
 @Entity
+@EntityListeners(org.th.service.mobile.RecommendationProfileListener.class)
 @Table(name = "user_activities", indexes = {
         @Index(name = "idx_activity_created_at", columnList = "created_at"),
         @Index(name = "idx_activity_type", columnList = "activity_type"),
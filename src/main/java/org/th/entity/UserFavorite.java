@@ -13,6 +13,7 @@ import java.time.LocalDateTime;
  * Entity for tracking user's favorite/bookmarked shops
  */
 @Entity
+@EntityListeners(org.th.service.mobile.RecommendationProfileListener.class)
 @Table(name = "user_favorites", uniqueConstraints = {
         @UniqueConstraint(columnNames = { "user_id", "shop_id" })
 }, indexes = {
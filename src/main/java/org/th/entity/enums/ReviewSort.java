@@ -0,0 +1,11 @@
+package org.th.entity.enums;
+
+/**
+ * Orderings for review listings (ties break on newest first)
+ */
+public enum ReviewSort {
+    NEWEST,
+    HELPFUL,
+    HIGHEST_RATED,
+    LOWEST_RATED
+}
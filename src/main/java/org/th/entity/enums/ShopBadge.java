@@ -35,7 +35,12 @@ public enum ShopBadge {
     /**
      * High number of favorites and reviews
      */
-    CROWD_FAVORITE("လူကြိုက်များ");
+    CROWD_FAVORITE("လူကြိုက်များ"),
+
+    /**
+     * Open at the time of the request (from compiled operating hours)
+     */
+    OPEN_NOW("ယခုဖွင့်ထားသည်");
 
     private final String labelMm;
 }
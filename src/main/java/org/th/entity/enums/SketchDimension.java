@@ -0,0 +1,31 @@
+package org.th.entity.enums;
+
+/**
+ * What a daily unique-device sketch is keyed by
+ */
+public enum SketchDimension {
+    /**
+     * All activity (key "*"): daily active devices
+     */
+    ALL,
+
+    /**
+     * Shop views, keyed by shop ID
+     */
+    SHOP,
+
+    /**
+     * Shop views, keyed by the shop's district ID
+     */
+    DISTRICT,
+
+    /**
+     * Shop and category views, keyed by category
+     */
+    CATEGORY,
+
+    /**
+     * Any activity, keyed by activity type
+     */
+    FEATURE
+}
@@ -0,0 +1,10 @@
+package org.th.entity.enums;
+
+/**
+ * What a client-direct upload will be attached to once confirmed
+ */
+public enum UploadTarget {
+    SHOP_PHOTO,
+    REVIEW_PHOTO,
+    MENU_ITEM_PHOTO
+}
@@ -12,6 +12,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@EntityListeners({ org.th.service.MenuDocumentListener.class, org.th.service.CatalogVersionListener.class })
 @Table(name = "menu_categories")
 @Data
 @NoArgsConstructor
@@ -11,6 +11,7 @@ import org.th.entity.User;
 import java.time.LocalDateTime;
 
 @Entity
+@EntityListeners({ org.th.service.MenuDocumentListener.class, org.th.service.CatalogVersionListener.class })
 @Table(name = "menu_category_photos")
 @Data
 @NoArgsConstructor
@@ -32,6 +33,12 @@ public class MenuCategoryPhoto {
     @Column(name = "thumbnail_url", length = 500)
     private String thumbnailUrl;
 
+    @Column(name = "medium_url", length = 500)
+    private String mediumUrl;
+
+    @Column(name = "full_url", length = 500)
+    private String fullUrl;
+
     @Column(name = "photo_type", length = 50)
     private String photoType = "other";
 
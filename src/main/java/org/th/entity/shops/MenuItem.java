@@ -11,6 +11,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@EntityListeners({ org.th.service.MenuDocumentListener.class, org.th.service.CatalogVersionListener.class })
 @Table(name = "menu_items")
 @Data
 public class MenuItem {
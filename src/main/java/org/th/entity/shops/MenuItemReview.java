@@ -14,7 +14,8 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "menu_item_reviews", indexes = {
         @Index(name = "idx_item_review_item", columnList = "menu_item_id"),
-        @Index(name = "idx_item_review_user", columnList = "user_id")
+        @Index(name = "idx_item_review_user", columnList = "user_id"),
+        @Index(name = "idx_item_review_item_created", columnList = "menu_item_id, created_at DESC, id DESC")
 })
 @Data
 @NoArgsConstructor
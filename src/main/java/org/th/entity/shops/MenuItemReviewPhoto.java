@@ -23,6 +23,12 @@ public class MenuItemReviewPhoto {
     @Column(length = 1000)
     private String thumbnailUrl;
 
+    @Column(length = 1000)
+    private String mediumUrl;
+
+    @Column(length = 1000)
+    private String fullUrl;
+
     @ToString.Exclude
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "menu_item_review_id", nullable = false)
@@ -10,6 +10,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@EntityListeners({ org.th.service.MenuDocumentListener.class, org.th.service.CatalogVersionListener.class })
 @Table(name = "menu_sub_categories", indexes = {
         @Index(name = "idx_menu_subcategory_slug", columnList = "slug"),
         @Index(name = "idx_menu_subcategory_category", columnList = "menu_category_id")
@@ -7,6 +7,8 @@ import lombok.ToString;
 import java.time.LocalTime;
 
 @Entity
+@EntityListeners({ org.th.service.OpeningHoursListener.class, org.th.service.CatalogVersionListener.class,
+        org.th.service.ShopSyncListener.class })
 @Table(name = "operating_hours")
 @Data
 public class OperatingHour {
@@ -11,6 +11,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@EntityListeners(org.th.service.CatalogVersionListener.class)
 @Table(name = "review_comments")
 @Data
 public class ReviewComment {
@@ -8,6 +8,7 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
+@EntityListeners(org.th.service.CatalogVersionListener.class)
 @Table(name = "review_photos")
 @Data
 public class ReviewPhoto {
@@ -27,6 +28,12 @@ public class ReviewPhoto {
     @Column(name = "thumbnail_url", length = 500)
     private String thumbnailUrl;
 
+    @Column(name = "medium_url", length = 500)
+    private String mediumUrl;
+
+    @Column(name = "full_url", length = 500)
+    private String fullUrl;
+
     @CreationTimestamp
     @Column(name = "uploaded_at", updatable = false)
     private LocalDateTime uploadedAt;
@@ -15,6 +15,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@EntityListeners({ org.th.service.ShopAttributeListener.class, org.th.service.CatalogVersionListener.class,
+        org.th.service.ShopSyncListener.class })
 @Table(name = "shops", indexes = {
         @Index(name = "idx_shops_category_active", columnList = "category, is_active"),
         @Index(name = "idx_shops_trending_active", columnList = "trending_score, is_active"),
@@ -13,7 +13,11 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "shop_reviews") // Changed table name for consistency
+@EntityListeners({ org.th.service.mobile.RecommendationProfileListener.class, org.th.service.CatalogVersionListener.class })
+@Table(name = "shop_reviews", indexes = { // Changed table name for consistency
+        @Index(name = "idx_review_shop_created", columnList = "shop_id, created_at DESC, id DESC"),
+        @Index(name = "idx_review_shop_rating", columnList = "shop_id, rating, created_at, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
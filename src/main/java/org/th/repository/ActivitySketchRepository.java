@@ -0,0 +1,57 @@
+package org.th.repository;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.th.entity.ActivitySketch;
+import org.th.entity.enums.SketchDimension;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ActivitySketchRepository extends JpaRepository<ActivitySketch, Long> {
+
+    /**
+     * Lock a day's sketch for a read-merge-write
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ActivitySketch s WHERE s.day = :day AND s.dimension = :dimension " +
+            "AND s.dimensionKey = :key")
+    Optional<ActivitySketch> findForUpdate(
+            @Param("day") LocalDate day,
+            @Param("dimension") SketchDimension dimension,
+            @Param("key") String key);
+
+    List<ActivitySketch> findByDimensionAndDimensionKeyAndDayBetweenOrderByDay(
+            SketchDimension dimension, String dimensionKey, LocalDate start, LocalDate end);
+
+    List<ActivitySketch> findByDimensionAndDimensionKeyInAndDayBetween(
+            SketchDimension dimension, Collection<String> dimensionKeys, LocalDate start, LocalDate end);
+
+    /**
+     * Keys with the most events in a range: key, total events
+     */
+    @Query("SELECT s.dimensionKey, SUM(s.events) FROM ActivitySketch s " +
+            "WHERE s.dimension = :dimension AND s.day BETWEEN :start AND :end " +
+            "GROUP BY s.dimensionKey ORDER BY SUM(s.events) DESC")
+    List<Object[]> findTopKeysByEvents(
+            @Param("dimension") SketchDimension dimension,
+            @Param("start") LocalDate start,
+            @Param("end") LocalDate end,
+            Pageable pageable);
+
+    @Query("SELECT DISTINCT s.day FROM ActivitySketch s WHERE s.day BETWEEN :start AND :end")
+    List<LocalDate> findSketchedDays(@Param("start") LocalDate start, @Param("end") LocalDate end);
+
+    @Modifying
+    @Query("DELETE FROM ActivitySketch s WHERE s.day = :day")
+    int deleteByDay(@Param("day") LocalDate day);
+}
@@ -0,0 +1,35 @@
+package org.th.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.th.entity.CatalogDeletion;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface CatalogDeletionRepository extends JpaRepository<CatalogDeletion, Long> {
+
+    @Query("SELECT DISTINCT d.shopId FROM CatalogDeletion d "
+            + "WHERE d.shopId IS NOT NULL AND d.deletedAt > :after AND d.deletedAt <= :until")
+    List<Long> findShopIdsDeletedBetween(@Param("after") LocalDateTime after, @Param("until") LocalDateTime until);
+
+    /**
+     * Whether the catalogue was wiped after the given time
+     */
+    boolean existsByShopIdIsNullAndDeletedAtAfter(LocalDateTime after);
+
+    /**
+     * Move an entry to the time its transaction committed
+     */
+    @Modifying
+    @Query("UPDATE CatalogDeletion d SET d.deletedAt = :at WHERE d.id = :id")
+    int restamp(@Param("id") Long id, @Param("at") LocalDateTime at);
+
+    @Modifying
+    @Query("DELETE FROM CatalogDeletion d WHERE d.deletedAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,15 @@
+package org.th.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import org.th.entity.shops.MenuItemPhoto;
+
+import java.util.Optional;
+
+@Repository
+public interface MenuItemPhotoRepository extends JpaRepository<MenuItemPhoto, Long> {
+
+    Optional<MenuItemPhoto> findFirstByItemIdAndUrl(Long itemId, String url);
+
+    long countByItemId(Long itemId);
+}
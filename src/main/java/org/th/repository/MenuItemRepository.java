@@ -8,6 +8,14 @@ import java.util.List;
 
 @Repository
 public interface MenuItemRepository extends JpaRepository<MenuItem, Long> {
+
+    /**
+     * Load an item holding a row lock until the transaction ends (serializes photo attaches)
+     */
+    @org.springframework.data.jpa.repository.Lock(jakarta.persistence.LockModeType.PESSIMISTIC_WRITE)
+    @org.springframework.data.jpa.repository.Query("SELECT i FROM MenuItem i WHERE i.id = :id")
+    java.util.Optional<MenuItem> findByIdForUpdate(@org.springframework.data.repository.query.Param("id") Long id);
+
     List<MenuItem> findByCategoryId(Long categoryId);
 
     /**
@@ -1,20 +1,64 @@
 package org.th.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.th.entity.shops.MenuItemReview;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface MenuItemReviewRepository extends JpaRepository<MenuItemReview, Long> {
 
-    List<MenuItemReview> findByMenuItemIdOrderByCreatedAtDesc(Long menuItemId);
-
     @Query("SELECT AVG(r.rating) FROM MenuItemReview r WHERE r.menuItem.id = :menuItemId")
     Double calculateAverageRating(@Param("menuItemId") Long menuItemId);
 
     boolean existsByUserIdAndMenuItemId(Long userId, Long menuItemId);
+
+    // ===== Keyset pages (see ReviewCursor), with the item and reviewer fetched in the same query =====
+
+    @Query("SELECT r FROM MenuItemReview r JOIN FETCH r.menuItem JOIN FETCH r.user " +
+            "WHERE r.menuItem.id = :menuItemId " +
+            "AND (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)) " +
+            "ORDER BY r.createdAt DESC, r.id DESC")
+    List<MenuItemReview> findPageNewest(
+            @Param("menuItemId") Long menuItemId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Pageable pageable);
+
+    @Query("SELECT r FROM MenuItemReview r JOIN FETCH r.menuItem JOIN FETCH r.user " +
+            "WHERE r.menuItem.id = :menuItemId " +
+            "AND (r.rating < :value OR (r.rating = :value AND " +
+            "(r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)))) " +
+            "ORDER BY r.rating DESC, r.createdAt DESC, r.id DESC")
+    List<MenuItemReview> findPageHighestRated(
+            @Param("menuItemId") Long menuItemId,
+            @Param("value") int value,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Pageable pageable);
+
+    @Query("SELECT r FROM MenuItemReview r JOIN FETCH r.menuItem JOIN FETCH r.user " +
+            "WHERE r.menuItem.id = :menuItemId " +
+            "AND (r.rating > :value OR (r.rating = :value AND " +
+            "(r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)))) " +
+            "ORDER BY r.rating ASC, r.createdAt DESC, r.id DESC")
+    List<MenuItemReview> findPageLowestRated(
+            @Param("menuItemId") Long menuItemId,
+            @Param("value") int value,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Pageable pageable);
+
+    /**
+     * Photos for a page of reviews: review id, photo id, url, thumbnail url, medium url, full url
+     */
+    @Query("SELECT p.menuItemReview.id, p.id, p.url, p.thumbnailUrl, p.mediumUrl, p.fullUrl FROM MenuItemReviewPhoto p " +
+            "WHERE p.menuItemReview.id IN :reviewIds ORDER BY p.id")
+    List<Object[]> findPhotoRowsByReviewIdIn(@Param("reviewIds") Collection<Long> reviewIds);
 }
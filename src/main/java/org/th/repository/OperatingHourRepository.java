@@ -1,6 +1,8 @@
 package org.th.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.th.entity.shops.OperatingHour;
 
@@ -9,4 +11,16 @@ import java.util.List;
 @Repository
 public interface OperatingHourRepository extends JpaRepository<OperatingHour, Long> {
     List<OperatingHour> findByShopId(Long shopId);
+
+    /**
+     * (shop id, day of week, opening time, closing time, is closed) for active shops
+     * Used to compile opening-hours bitmaps
+     */
+    @Query("SELECT oh.shop.id, oh.dayOfWeek, oh.openingTime, oh.closingTime, oh.isClosed " +
+            "FROM OperatingHour oh WHERE oh.shop.isActive = true")
+    List<Object[]> findAllScheduleRows();
+
+    @Query("SELECT oh.shop.id, oh.dayOfWeek, oh.openingTime, oh.closingTime, oh.isClosed " +
+            "FROM OperatingHour oh WHERE oh.shop.id IN :shopIds")
+    List<Object[]> findScheduleRowsByShopIdIn(@Param("shopIds") List<Long> shopIds);
 }
@@ -1,9 +1,43 @@
 package org.th.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.th.entity.shops.ReviewComment;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface ReviewCommentRepository extends JpaRepository<ReviewComment, Long> {
+
+    /**
+     * Full comment trees under a set of shop reviews, in one recursive query
+     * Rows: comment id, parent comment id, review id, content, author name, created at
+     */
+    @Query(value = "WITH RECURSIVE tree AS ( " +
+            "SELECT c.id, c.parent_comment_id, c.shop_review_id AS review_id, c.content, c.user_id, c.created_at " +
+            "FROM review_comments c WHERE c.shop_review_id IN (:reviewIds) AND c.parent_comment_id IS NULL " +
+            "UNION ALL " +
+            "SELECT c.id, c.parent_comment_id, t.review_id, c.content, c.user_id, c.created_at " +
+            "FROM review_comments c JOIN tree t ON c.parent_comment_id = t.id) " +
+            "SELECT t.id, t.parent_comment_id, t.review_id, t.content, u.full_name, t.created_at " +
+            "FROM tree t LEFT JOIN users u ON u.id = t.user_id " +
+            "ORDER BY t.created_at, t.id", nativeQuery = true)
+    List<Object[]> findShopReviewCommentTrees(@Param("reviewIds") Collection<Long> reviewIds);
+
+    /**
+     * Full comment trees under a set of menu item reviews (same row shape)
+     */
+    @Query(value = "WITH RECURSIVE tree AS ( " +
+            "SELECT c.id, c.parent_comment_id, c.menu_item_review_id AS review_id, c.content, c.user_id, c.created_at " +
+            "FROM review_comments c WHERE c.menu_item_review_id IN (:reviewIds) AND c.parent_comment_id IS NULL " +
+            "UNION ALL " +
+            "SELECT c.id, c.parent_comment_id, t.review_id, c.content, c.user_id, c.created_at " +
+            "FROM review_comments c JOIN tree t ON c.parent_comment_id = t.id) " +
+            "SELECT t.id, t.parent_comment_id, t.review_id, t.content, u.full_name, t.created_at " +
+            "FROM tree t LEFT JOIN users u ON u.id = t.user_id " +
+            "ORDER BY t.created_at, t.id", nativeQuery = true)
+    List<Object[]> findMenuItemReviewCommentTrees(@Param("reviewIds") Collection<Long> reviewIds);
 }
@@ -1,9 +1,24 @@
 package org.th.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.th.entity.shops.ReviewPhoto;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface ReviewPhotoRepository extends JpaRepository<ReviewPhoto, Long> {
+
+    /**
+     * Photos for a page of shop reviews: review id, photo id, url, thumbnail url, medium url, full url
+     */
+    @Query("SELECT p.shopReview.id, p.id, p.url, p.thumbnailUrl, p.mediumUrl, p.fullUrl FROM ReviewPhoto p " +
+            "WHERE p.shopReview.id IN :reviewIds ORDER BY p.id")
+    List<Object[]> findPhotoRowsByReviewIdIn(@Param("reviewIds") Collection<Long> reviewIds);
+
+    Optional<ReviewPhoto> findFirstByShopReviewIdAndUrl(Long reviewId, String url);
 }
@@ -0,0 +1,27 @@
+package org.th.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.th.entity.ShopMenuDocument;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ShopMenuDocumentRepository extends JpaRepository<ShopMenuDocument, Long> {
+
+    /**
+     * Load a document holding a row lock until the transaction ends (a concurrent markStale waits for the rebuild)
+     */
+    @org.springframework.data.jpa.repository.Lock(jakarta.persistence.LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d FROM ShopMenuDocument d WHERE d.shopId = :shopId")
+    Optional<ShopMenuDocument> findByIdForUpdate(@Param("shopId") Long shopId);
+
+    /**
+     * Shops whose stored document is stale or was written by another serializer format
+     */
+    @Query("SELECT d.shopId FROM ShopMenuDocument d WHERE d.stale = true OR d.formatVersion <> :formatVersion")
+    List<Long> findShopIdsToRebuild(@Param("formatVersion") int formatVersion);
+}
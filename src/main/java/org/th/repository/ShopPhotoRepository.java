@@ -0,0 +1,15 @@
+package org.th.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import org.th.entity.shops.ShopPhoto;
+
+import java.util.Optional;
+
+@Repository
+public interface ShopPhotoRepository extends JpaRepository<ShopPhoto, Long> {
+
+    Optional<ShopPhoto> findFirstByShopIdAndUrl(Long shopId, String url);
+
+    long countByShopId(Long shopId);
+}
@@ -5,6 +5,7 @@ import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -20,6 +21,13 @@ import java.util.Optional;
 @Repository
 public interface ShopRepository extends JpaRepository<Shop, Long> {
 
+        /**
+         * Load a shop holding a row lock until the transaction ends (serializes photo attaches)
+         */
+        @org.springframework.data.jpa.repository.Lock(jakarta.persistence.LockModeType.PESSIMISTIC_WRITE)
+        @Query("SELECT s FROM Shop s WHERE s.id = :id")
+        Optional<Shop> findByIdForUpdate(@Param("id") Long id);
+
         /**
          * Find all distinct shop categories
          */
@@ -155,6 +163,12 @@ public interface ShopRepository extends JpaRepository<Shop, Long> {
          */
         Shop findBySlug(String slug);
 
+        /**
+         * Resolve a slug to a shop id without loading the shop
+         */
+        @Query("SELECT s.id FROM Shop s WHERE s.slug = :slug")
+        Optional<Long> findIdBySlug(@Param("slug") String slug);
+
         /**
          * Search shops by name (supports Myanmar and English)
          * 
@@ -210,11 +224,28 @@ public interface ShopRepository extends JpaRepository<Shop, Long> {
         List<Shop> searchShops(@Param("keyword") String keyword);
 
         /**
-         * Find top 10 shops by trending score in descending order.
+         * Find top 10 active shops by trending score in descending order.
          * 
          * @return List of top 10 trending shops.
          */
-        List<Shop> findTop10ByOrderByTrendingScoreDesc();
+        List<Shop> findTop10ByIsActiveTrueOrderByTrendingScoreDesc();
+
+        /**
+         * (shop id, district id, city id, category, trending score) for every active shop
+         * Used to rebuild trending leaderboards without loading entities
+         */
+        @Query("SELECT s.id, d.id, c.id, s.category, s.trendingScore FROM Shop s " +
+                        "LEFT JOIN s.district d LEFT JOIN d.city c " +
+                        "WHERE s.isActive = true")
+        List<Object[]> findActiveTrendingRows();
+
+        /**
+         * (id, halal, vegetarian, delivery, parking, wifi, verified, price preference) for active shops
+         * Used to build the shop attribute index
+         */
+        @Query("SELECT s.id, s.isHalal, s.isVegetarian, s.hasDelivery, s.hasParking, s.hasWifi, " +
+                        "s.isVerified, s.pricePreference FROM Shop s WHERE s.isActive = true")
+        List<Object[]> findActiveAttributeRows();
 
         /**
          * Find shops by category ordered by rating
@@ -285,7 +316,7 @@ public interface ShopRepository extends JpaRepository<Shop, Long> {
 
         /**
          * Find shops in given categories, excluding specific IDs
-         * Used for recommendations
+         * Used for recommendations (bounded by the pageable)
          */
         @Query("SELECT s.id FROM Shop s WHERE s.isActive = true " +
                         "AND s.category IN :categories " +
@@ -293,7 +324,8 @@ public interface ShopRepository extends JpaRepository<Shop, Long> {
                         "ORDER BY s.trendingScore DESC, s.ratingAvg DESC")
         List<Long> findIdsByCategoryInAndIdNotIn(
                         @Param("categories") List<String> categories,
-                        @Param("excludedIds") List<Long> excludedIds);
+                        @Param("excludedIds") List<Long> excludedIds,
+                        Pageable pageable);
 
         /**
          * Find top shops (Wildcards) NOT in given categories
@@ -305,12 +337,18 @@ public interface ShopRepository extends JpaRepository<Shop, Long> {
                         "ORDER BY s.trendingScore DESC, s.ratingAvg DESC")
         List<Long> findIdsByCategoryNotInAndIdNotIn(
                         @Param("categories") List<String> categories,
-                        @Param("excludedIds") List<Long> excludedIds);
+                        @Param("excludedIds") List<Long> excludedIds,
+                        Pageable pageable);
 
         /**
-         * Find top shops by trending score (fallback for recommendations)
+         * Find top shop IDs by trending score (fallback for recommendations)
          */
-        List<Shop> findTop10ByIsActiveTrueAndIdNotInOrderByTrendingScoreDesc(List<Long> excludedIds);
+        @Query("SELECT s.id FROM Shop s WHERE s.isActive = true " +
+                        "AND s.id NOT IN :excludedIds " +
+                        "ORDER BY s.trendingScore DESC")
+        List<Long> findTrendingIdsByIdNotIn(
+                        @Param("excludedIds") List<Long> excludedIds,
+                        Pageable pageable);
 
         /**
          * Find nearby trending shops within radius
@@ -453,6 +491,66 @@ public interface ShopRepository extends JpaRepository<Shop, Long> {
         @Query("SELECT DISTINCT s FROM Shop s LEFT JOIN FETCH s.photos WHERE s.id IN :ids")
         List<Shop> findByIdInWithPhotos(@Param("ids") List<Long> ids);
 
+        /**
+         * As {@link #findByIdInWithPhotos}, skipping shops deactivated since the IDs were ranked
+         */
+        @Query("SELECT DISTINCT s FROM Shop s LEFT JOIN FETCH s.photos WHERE s.id IN :ids AND s.isActive = true")
+        List<Shop> findActiveByIdInWithPhotos(@Param("ids") List<Long> ids);
+
+        /**
+         * Find shops by IDs with photos, district and city loaded
+         * For lists that are cached and rendered outside a session
+         */
+        @Query("SELECT DISTINCT s FROM Shop s LEFT JOIN FETCH s.photos " +
+                        "LEFT JOIN FETCH s.district d LEFT JOIN FETCH d.city " +
+                        "WHERE s.id IN :ids")
+        List<Shop> findByIdInWithPhotosAndDistrict(@Param("ids") List<Long> ids);
+
+        /**
+         * Shops changed after a sync watermark, oldest first (keyset on updated_at, id)
+         * Rows: id, updatedAt, isActive
+         */
+        @Query("SELECT s.id, s.updatedAt, s.isActive FROM Shop s " +
+                        "WHERE s.updatedAt <= :until AND (s.updatedAt > :after " +
+                        "OR (s.updatedAt = :after AND s.id > :afterId)) " +
+                        "ORDER BY s.updatedAt, s.id")
+        List<Object[]> findChangedSince(@Param("after") LocalDateTime after, @Param("afterId") Long afterId,
+                        @Param("until") LocalDateTime until, Pageable pageable);
+
+        /**
+         * Mark shops changed for delta sync when only their children changed
+         */
+        @Modifying
+        @Query("UPDATE Shop s SET s.updatedAt = :now WHERE s.id IN :ids")
+        int touchUpdatedAt(@Param("ids") java.util.Collection<Long> ids, @Param("now") LocalDateTime now);
+
+        /**
+         * Set a shop's trending score; a bulk update, so updated_at stays put and delta sync does not resend it
+         */
+        @Modifying
+        @Query("UPDATE Shop s SET s.trendingScore = :score WHERE s.id = :id")
+        int updateTrendingScore(@Param("id") Long id, @Param("score") double score);
+
+        /**
+         * Stream a city's active shops in ID order for its offline bundle
+         * Rows: id, name, nameMm, nameEn, slug, category, subCategory, district nameEn, address, addressMm,
+         * latitude, longitude, ratingAvg, ratingCount, logoUrl, coverUrl, primary photo url,
+         * hasDelivery, hasParking, hasWifi, isVerified, isHalal, isVegetarian, pricePreference
+         */
+        @org.springframework.data.jpa.repository.QueryHints({
+                        @jakarta.persistence.QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+                        @jakarta.persistence.QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_READ_ONLY, value = "true") })
+        @Query("SELECT s.id, s.name, s.nameMm, s.nameEn, s.slug, s.category, s.subCategory, d.nameEn, " +
+                        "s.address, s.addressMm, s.latitude, s.longitude, s.ratingAvg, s.ratingCount, " +
+                        "s.logoUrl, s.coverUrl, COALESCE(" +
+                        "(SELECT MIN(p.url) FROM ShopPhoto p WHERE p.shop = s AND p.isPrimary = true), " +
+                        "(SELECT MIN(p.url) FROM ShopPhoto p WHERE p.shop = s)), " +
+                        "s.hasDelivery, s.hasParking, s.hasWifi, s.isVerified, s.isHalal, s.isVegetarian, " +
+                        "s.pricePreference " +
+                        "FROM Shop s JOIN s.district d " +
+                        "WHERE d.city.id = :cityId AND s.isActive = true ORDER BY s.id")
+        java.util.stream.Stream<Object[]> streamBundleRows(@Param("cityId") Long cityId);
+
         /**
          * Fuzzy search for shops using pg_trgm similarity (Shop Name Only)
          * Requires pg_trgm extension: CREATE EXTENSION IF NOT EXISTS pg_trgm;
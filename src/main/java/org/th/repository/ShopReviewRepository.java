@@ -1,5 +1,6 @@
 package org.th.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -13,20 +14,11 @@ import java.util.List;
 public interface ShopReviewRepository extends JpaRepository<ShopReview, Long> {
 
     /**
-     * Find all reviews for a specific shop
-     * 
-     * @param shopId Shop ID
-     * @return List of reviews
+     * Load a review holding a row lock until the transaction ends (serializes photo attaches)
      */
-    List<ShopReview> findByShopIdOrderByCreatedAtDesc(Long shopId);
-
-    /**
-     * Find visible reviews for a shop
-     * 
-     * @param shopId Shop ID
-     * @return List of visible reviews
-     */
-    List<ShopReview> findByShopIdAndIsVisibleTrueOrderByCreatedAtDesc(Long shopId);
+    @org.springframework.data.jpa.repository.Lock(jakarta.persistence.LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM ShopReview r WHERE r.id = :id")
+    java.util.Optional<ShopReview> findByIdForUpdate(@Param("id") Long id);
 
     /**
      * Find top 10 recent visible reviews for a shop
@@ -90,4 +82,70 @@ public interface ShopReviewRepository extends JpaRepository<ShopReview, Long> {
             "WHERE r.createdAt >= :since " +
             "GROUP BY r.shop.id")
     List<Object[]> countReviewsByShopSince(@Param("since") LocalDateTime since);
+
+    /**
+     * (user id, shop id) pairs for reviews at or above a rating
+     * Used to build item-item similarity
+     */
+    @Query("SELECT r.user.id, r.shop.id FROM ShopReview r " +
+            "WHERE r.user IS NOT NULL AND r.rating >= :minRating AND r.shop.isActive = true")
+    List<Object[]> findPositiveUserShopPairs(@Param("minRating") Integer minRating);
+
+    /**
+     * (shop id, category, rating) of a user's reviews, without loading entities
+     */
+    @Query("SELECT s.id, s.category, r.rating FROM ShopReview r JOIN r.shop s WHERE r.user.id = :userId")
+    List<Object[]> findShopIdCategoryAndRatingByUserId(@Param("userId") Long userId);
+
+    // ===== Keyset pages (see ReviewCursor): rows strictly after the cursor, page size from the pageable =====
+
+    @Query("SELECT r FROM ShopReview r WHERE r.shop.id = :shopId " +
+            "AND (:onlyVisible = false OR r.isVisible = true) " +
+            "AND (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)) " +
+            "ORDER BY r.createdAt DESC, r.id DESC")
+    List<ShopReview> findPageNewest(
+            @Param("shopId") Long shopId,
+            @Param("onlyVisible") boolean onlyVisible,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Pageable pageable);
+
+    @Query("SELECT r FROM ShopReview r WHERE r.shop.id = :shopId " +
+            "AND (:onlyVisible = false OR r.isVisible = true) " +
+            "AND (COALESCE(r.helpfulCount, 0) < :value OR (COALESCE(r.helpfulCount, 0) = :value AND " +
+            "(r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)))) " +
+            "ORDER BY COALESCE(r.helpfulCount, 0) DESC, r.createdAt DESC, r.id DESC")
+    List<ShopReview> findPageMostHelpful(
+            @Param("shopId") Long shopId,
+            @Param("onlyVisible") boolean onlyVisible,
+            @Param("value") int value,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Pageable pageable);
+
+    @Query("SELECT r FROM ShopReview r WHERE r.shop.id = :shopId " +
+            "AND (:onlyVisible = false OR r.isVisible = true) " +
+            "AND (r.rating < :value OR (r.rating = :value AND " +
+            "(r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)))) " +
+            "ORDER BY r.rating DESC, r.createdAt DESC, r.id DESC")
+    List<ShopReview> findPageHighestRated(
+            @Param("shopId") Long shopId,
+            @Param("onlyVisible") boolean onlyVisible,
+            @Param("value") int value,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Pageable pageable);
+
+    @Query("SELECT r FROM ShopReview r WHERE r.shop.id = :shopId " +
+            "AND (:onlyVisible = false OR r.isVisible = true) " +
+            "AND (r.rating > :value OR (r.rating = :value AND " +
+            "(r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id)))) " +
+            "ORDER BY r.rating ASC, r.createdAt DESC, r.id DESC")
+    List<ShopReview> findPageLowestRated(
+            @Param("shopId") Long shopId,
+            @Param("onlyVisible") boolean onlyVisible,
+            @Param("value") int value,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id,
+            Pageable pageable);
 }
@@ -5,7 +5,6 @@ import org.springframework.stereotype.Repository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.th.dto.analytics.DailyActivityStatsDTO;
-import org.th.dto.analytics.ShopPopularityDTO;
 import org.th.dto.analytics.LocationStatsDTO;
 import org.th.entity.UserActivity;
 import org.th.entity.enums.ActivityType;
@@ -41,19 +40,6 @@ public interface UserActivityRepository extends JpaRepository<UserActivity, Long
                         @Param("start") LocalDateTime start,
                         @Param("end") LocalDateTime end);
 
-        /**
-         * Get most popular shops by view count
-         */
-        @Query("SELECT new org.th.dto.analytics.ShopPopularityDTO(" +
-                        "a.targetId, a.targetName, COUNT(a), COUNT(DISTINCT a.deviceId)) " +
-                        "FROM UserActivity a " +
-                        "WHERE a.activityType = 'VIEW_SHOP' AND a.createdAt BETWEEN :start AND :end " +
-                        "GROUP BY a.targetId, a.targetName " +
-                        "ORDER BY COUNT(a) DESC")
-        List<ShopPopularityDTO> getMostPopularShops(
-                        @Param("start") LocalDateTime start,
-                        @Param("end") LocalDateTime end);
-
         /**
          * Count usage by activity type
          */
@@ -170,4 +156,44 @@ public interface UserActivityRepository extends JpaRepository<UserActivity, Long
         List<Object[]> countActivitiesByTargetIdSince(
                         @Param("types") List<ActivityType> types,
                         @Param("since") LocalDateTime since);
+
+        /**
+         * Stream shop views since a date as (session id, device id, shop id, created at)
+         * Used to build item-item similarity from browsing sessions
+         */
+        @org.springframework.data.jpa.repository.QueryHints(@jakarta.persistence.QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE, value = "2000"))
+        @Query("SELECT a.sessionId, a.deviceId, a.targetId, a.createdAt FROM UserActivity a " +
+                        "WHERE a.activityType = 'VIEW_SHOP' AND a.targetId IS NOT NULL " +
+                        "AND a.createdAt >= :since")
+        java.util.stream.Stream<Object[]> streamShopViewsSince(@Param("since") LocalDateTime since);
+
+        /**
+         * Activities in a time window for building unique-device sketches:
+         * device id (may be null), activity type, target id, shop category, shop district id, target name
+         */
+        @org.springframework.data.jpa.repository.QueryHints(@jakarta.persistence.QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE, value = "2000"))
+        @Query("SELECT a.deviceId, a.activityType, a.targetId, s.category, d.id, a.targetName FROM UserActivity a " +
+                        "LEFT JOIN a.shop s LEFT JOIN s.district d " +
+                        "WHERE a.createdAt >= :start AND a.createdAt < :end")
+        java.util.stream.Stream<Object[]> streamSketchRows(
+                        @Param("start") LocalDateTime start,
+                        @Param("end") LocalDateTime end);
+
+        /**
+         * Shop names as logged on view activity, for shops that no longer exist: target id, name
+         */
+        @Query("SELECT a.targetId, MAX(a.targetName) FROM UserActivity a " +
+                        "WHERE a.activityType = 'VIEW_SHOP' AND a.targetId IN :shopIds AND a.targetName IS NOT NULL " +
+                        "GROUP BY a.targetId")
+        List<Object[]> findViewedShopNames(@Param("shopIds") java.util.Collection<Long> shopIds);
+
+        /**
+         * Most recently viewed shop IDs for a device (bounded by the pageable)
+         */
+        @Query("SELECT a.targetId FROM UserActivity a " +
+                        "WHERE a.deviceId = :deviceId AND a.activityType = 'VIEW_SHOP' " +
+                        "AND a.targetId IS NOT NULL " +
+                        "ORDER BY a.createdAt DESC")
+        List<Long> findRecentViewedShopIdsByDevice(@Param("deviceId") String deviceId,
+                        org.springframework.data.domain.Pageable pageable);
 }
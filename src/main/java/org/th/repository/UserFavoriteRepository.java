@@ -84,4 +84,17 @@ public interface UserFavoriteRepository extends JpaRepository<UserFavorite, Long
         * Delete a favorite
         */
        void deleteByUserIdAndShopId(Long userId, Long shopId);
-}
\ No newline at end of file
+
+       /**
+        * (user id, shop id) pairs for active shops
+        * Used to build item-item similarity
+        */
+       @Query("SELECT uf.user.id, uf.shop.id FROM UserFavorite uf WHERE uf.shop.isActive = true")
+       List<Object[]> findUserShopPairs();
+
+       /**
+        * (shop id, category) of a user's favorites, without loading entities
+        */
+       @Query("SELECT s.id, s.category FROM UserFavorite uf JOIN uf.shop s WHERE uf.user.id = :userId")
+       List<Object[]> findShopIdAndCategoryByUserId(@Param("userId") Long userId);
+}
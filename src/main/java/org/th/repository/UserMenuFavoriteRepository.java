@@ -46,4 +46,13 @@ public interface UserMenuFavoriteRepository extends JpaRepository<UserMenuFavori
      * Count favorites by user
      */
     long countByUserId(Long userId);
+
+    /**
+     * Distinct (user id, shop id) pairs from dish favorites
+     * Used to build item-item similarity
+     */
+    @Query("SELECT DISTINCT umf.user.id, mi.shop.id FROM UserMenuFavorite umf " +
+            "JOIN umf.menuItem mi " +
+            "WHERE mi.shop.isActive = true")
+    List<Object[]> findUserShopPairs();
 }
@@ -0,0 +1,183 @@
+package org.th.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import jakarta.persistence.PreUpdate;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.th.entity.City;
+import org.th.entity.District;
+import org.th.entity.shops.OperatingHour;
+import org.th.entity.shops.ReviewComment;
+import org.th.entity.shops.ReviewPhoto;
+import org.th.entity.shops.Shop;
+import org.th.entity.shops.ShopPhoto;
+import org.th.entity.shops.ShopReview;
+import org.th.service.CatalogVersions.Key;
+import org.th.service.CatalogVersions.Scope;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * JPA listener that moves catalogue versions once a change commits.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogVersionListener {
+
+    // Resolved lazily: listeners are created with the EntityManagerFactory, before the repositories
+    private final ObjectProvider<CatalogVersions> catalogVersionsProvider;
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactoryProvider;
+
+    // Shop columns that show in neither the shop detail nor the category list (trending has its own cache)
+    private static final Set<String> COUNTER_PROPERTIES = Set.of("trendingScore", "viewCount", "updatedAt");
+
+    @PostPersist
+    @PostRemove
+    public void onCatalogChanged(Object entity) {
+        record(keysOf(entity));
+    }
+
+    @PostUpdate
+    public void onCatalogUpdated(Object entity) {
+        if (!(entity instanceof Shop)) {
+            record(keysOf(entity));
+        }
+    }
+
+    /**
+     * Shop updates are keyed before the update, while Hibernate still holds the loaded state
+     * that tells which columns changed
+     */
+    @PreUpdate
+    public void onShopUpdating(Object entity) {
+        if (entity instanceof Shop shop) {
+            record(keysOfUpdate(shop, changedProperties(shop)));
+        }
+    }
+
+    private void record(Set<Key> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            keys.forEach(this::bump);
+            return;
+        }
+        // One bump per resource per transaction, however many rows an import touches
+        @SuppressWarnings("unchecked")
+        Set<Key> changed = (Set<Key>) TransactionSynchronizationManager.getResource(this);
+        if (changed == null) {
+            Set<Key> pending = new LinkedHashSet<>();
+            changed = pending;
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pending.forEach(CatalogVersionListener.this::bump);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(CatalogVersionListener.this);
+                }
+            });
+        }
+        changed.addAll(keys);
+    }
+
+    private void bump(Key key) {
+        catalogVersionsProvider.getObject().bump(key.scope(), key.id());
+    }
+
+    /**
+     * Names of the shop properties this flush writes, or null when Hibernate cannot tell
+     */
+    private Set<String> changedProperties(Shop shop) {
+        EntityManager entityManager = EntityManagerFactoryUtils.getTransactionalEntityManager(
+                entityManagerFactoryProvider.getObject());
+        if (entityManager == null) {
+            return null;
+        }
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        EntityEntry entry = session.getPersistenceContextInternal().getEntry(shop);
+        if (entry == null || entry.getLoadedState() == null) {
+            return null;
+        }
+        EntityPersister persister = entry.getPersister();
+        int[] dirty = persister.findDirty(persister.getValues(shop), entry.getLoadedState(), shop, session);
+        Set<String> changed = new HashSet<>();
+        if (dirty != null) {
+            for (int property : dirty) {
+                changed.add(persister.getPropertyNames()[property]);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * What a shop update moves: the shop unless only counters changed, the category list only when
+     * a category or the active flag did
+     *
+     * @param changed changed property names, or null to assume every property changed
+     */
+    static Set<Key> keysOfUpdate(Shop shop, Set<String> changed) {
+        Set<Key> keys = new LinkedHashSet<>();
+        if (changed == null || !COUNTER_PROPERTIES.containsAll(changed)) {
+            keys.add(new Key(Scope.SHOP, shop.getId()));
+        }
+        if (changed == null || changed.contains("category") || changed.contains("isActive")) {
+            keys.add(new Key(Scope.CATEGORIES, null));
+        }
+        return keys;
+    }
+
+    private static Set<Key> keysOf(Object entity) {
+        Set<Key> keys = new LinkedHashSet<>();
+        switch (entity) {
+            case Shop shop -> {
+                keys.add(new Key(Scope.SHOP, shop.getId()));
+                keys.add(new Key(Scope.CATEGORIES, null));
+            }
+            case ShopPhoto photo -> addShop(keys, photo.getShop(), false);
+            case OperatingHour hour -> addShop(keys, hour.getShop(), false);
+            case ShopReview review -> addShop(keys, review.getShop(), true);
+            case ReviewPhoto photo -> addShop(keys, photo.getShopReview() != null
+                    ? photo.getShopReview().getShop() : null, true);
+            case ReviewComment comment -> addShop(keys, comment.getShopReview() != null
+                    ? comment.getShopReview().getShop() : null, true);
+            case City city -> keys.add(new Key(Scope.LOCATIONS, null));
+            case District district -> keys.add(new Key(Scope.LOCATIONS, null));
+            default -> {
+                // Menu entities: the shop detail embeds the menu
+                Long shopId = MenuDocumentListener.shopIdOf(entity);
+                if (shopId != null) {
+                    keys.add(new Key(Scope.SHOP, shopId));
+                }
+            }
+        }
+        return keys;
+    }
+
+    private static void addShop(Set<Key> keys, Shop shop, boolean reviews) {
+        if (shop == null) {
+            return;
+        }
+        keys.add(new Key(Scope.SHOP, shop.getId()));
+        if (reviews) {
+            keys.add(new Key(Scope.SHOP_REVIEWS, shop.getId()));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package org.th.service;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.th.util.HyperLogLog;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Change counters for catalogue resources
+ * A counter moves once a change to the resource commits (see
+ * {@link CatalogVersionListener}), so an ETag can be derived from a few
+ * in-memory reads before anything is loaded. Counters start over on restart;
+ * the per-process epoch in every ETag keeps a restarted node from reusing an
+ * old tag for different content.
+ */
+@Component
+public class CatalogVersions {
+
+    /**
+     * What a counter covers, and the caches holding bodies derived from it
+     */
+    public enum Scope {
+        // Shop detail: the shop row, photos, hours, recent reviews and menu
+        SHOP("trendingShops"),
+        // Review pages of a shop
+        SHOP_REVIEWS("shopReviews"),
+        // Distinct shop categories (one counter)
+        CATEGORIES("categories"),
+        // Cities and districts (one counter)
+        LOCATIONS;
+
+        private final List<String> caches;
+
+        Scope(String... caches) {
+            this.caches = List.of(caches);
+        }
+    }
+
+    record Key(Scope scope, Long id) {
+    }
+
+    private volatile String epoch = newEpoch();
+    private final Map<Key, AtomicLong> counters = new ConcurrentHashMap<>();
+    private final CacheManager cacheManager;
+
+    public CatalogVersions(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Current counter of a resource; 0 until its first change since startup
+     *
+     * @param id resource id, or null for the catalogue-wide scopes
+     */
+    public long version(Scope scope, Long id) {
+        AtomicLong counter = counters.get(new Key(scope, id));
+        return counter != null ? counter.get() : 0;
+    }
+
+    /**
+     * Record a committed change
+     * Derived caches are cleared first, so a reader that sees the new version
+     * never pairs it with a body cached before the change.
+     */
+    public void bump(Scope scope, Long id) {
+        clearCaches(scope);
+        counters.computeIfAbsent(new Key(scope, id), key -> new AtomicLong()).incrementAndGet();
+    }
+
+    /**
+     * Invalidate every tag handed out so far, after changes that bypassed the listener (bulk deletes)
+     */
+    public void invalidateAll() {
+        for (Scope scope : Scope.values()) {
+            clearCaches(scope);
+        }
+        epoch = newEpoch();
+    }
+
+    /**
+     * Weak ETag over the given parts (versions, ids); weak because compression changes the bytes
+     */
+    public String etag(Object... parts) {
+        StringBuilder value = new StringBuilder();
+        for (Object part : parts) {
+            value.append(part).append('|');
+        }
+        return "W/\"" + epoch + "-" + Long.toHexString(HyperLogLog.hash64(value.toString())) + "\"";
+    }
+
+    private void clearCaches(Scope scope) {
+        for (String name : scope.caches) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+
+    private static String newEpoch() {
+        return Long.toUnsignedString(System.currentTimeMillis() ^ System.nanoTime(), 36);
+    }
+}
@@ -0,0 +1,268 @@
+package org.th.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.th.util.ImageVariants;
+import org.th.util.ImageVariants.Variant;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates thumbnail, medium and full-size variants for photos
+ * Decoding and encoding run on the bounded cpuExecutor; downloads and uploads
+ * on the bounded image I/O executor. The backfill waits on those jobs from the
+ * background pool, never from a pool its own jobs need. Variants are stored under deterministic keys next to
+ * the original (so re-runs overwrite rather than duplicate) and their URLs are
+ * recorded on every photo row that points at the original. Until then a
+ * photo's thumbnail is the original URL. Only originals in our own bucket are
+ * downloaded, so client-supplied URLs never make the server fetch elsewhere.
+ */
+@Service
+@Slf4j
+public class ImageVariantService {
+
+    private static final int MAX_DOWNLOAD_SIZE = 20 * 1024 * 1024; // 20MB
+
+    // Entities with url / thumbnailUrl / mediumUrl / fullUrl columns
+    private static final List<String> PHOTO_ENTITIES = List.of(
+            "ShopPhoto", "ReviewPhoto", "MenuItemReviewPhoto", "MenuItemPhoto", "MenuCategoryPhoto");
+
+    private final SupabaseStorageService supabaseStorageService;
+    private final OkHttpClient okHttpClient;
+    private final ThreadPoolTaskExecutor cpuExecutor;
+    private final Executor ioExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final MenuDocumentService menuDocumentService;
+    private final CatalogVersions catalogVersions;
+    private final org.th.service.mobile.CatalogSyncService catalogSyncService;
+
+    private final AtomicBoolean backfillRunning = new AtomicBoolean();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ImageVariantService(
+            SupabaseStorageService supabaseStorageService,
+            OkHttpClient okHttpClient,
+            @Qualifier("cpuExecutor") ThreadPoolTaskExecutor cpuExecutor,
+            @Qualifier("imageIoExecutor") Executor ioExecutor,
+            PlatformTransactionManager transactionManager,
+            MenuDocumentService menuDocumentService,
+            CatalogVersions catalogVersions,
+            org.th.service.mobile.CatalogSyncService catalogSyncService) {
+        this.supabaseStorageService = supabaseStorageService;
+        this.okHttpClient = okHttpClient;
+        this.cpuExecutor = cpuExecutor;
+        this.ioExecutor = ioExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.menuDocumentService = menuDocumentService;
+        this.catalogVersions = catalogVersions;
+        this.catalogSyncService = catalogSyncService;
+    }
+
+    /**
+     * Summary of a backfill run
+     */
+    public record BackfillResult(int processed, int failed, int skipped) {
+    }
+
+    /**
+     * Generate variants for a photo URL (downloaded first) once the current transaction commits
+     */
+    public void generateAfterCommit(String url) {
+        if (supabaseStorageService.extractFilePath(url) != null) {
+            afterCommit(() -> generate(url, null));
+        }
+    }
+
+    /**
+     * Generate, store and record the variants of one original
+     *
+     * @param url   public URL of an original in our bucket
+     * @param bytes the original's content, or null to download it from {@code url}
+     * @return whether the variants were recorded
+     */
+    public CompletableFuture<Boolean> generate(String url, byte[] bytes) {
+        String originalPath = supabaseStorageService.extractFilePath(url);
+        if (originalPath == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        CompletableFuture<byte[]> original = bytes != null
+                ? CompletableFuture.completedFuture(bytes)
+                : CompletableFuture.supplyAsync(() -> download(url), ioExecutor);
+        return original
+                .thenApplyAsync(this::encode, cpuExecutor)
+                .thenApplyAsync(variants -> {
+                    store(url, originalPath, variants);
+                    return true;
+                }, ioExecutor)
+                .exceptionally(e -> {
+                    log.warn("Could not generate variants for {}: {}", url, e.getMessage());
+                    return false;
+                });
+    }
+
+    /**
+     * Generate variants for every photo that has none, a page at a time (a page's photos in parallel)
+     */
+    @Async("backgroundExecutor")
+    public CompletableFuture<BackfillResult> backfill(int batchSize) {
+        if (!backfillRunning.compareAndSet(false, true)) {
+            log.info("Photo variant backfill already running");
+            return CompletableFuture.completedFuture(new BackfillResult(0, 0, 0));
+        }
+        long start = System.currentTimeMillis();
+        AtomicInteger processed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicInteger skipped = new AtomicInteger();
+        try {
+            for (String entity : PHOTO_ENTITIES) {
+                long afterId = 0;
+                List<Object[]> page;
+                do {
+                    page = pendingRows(entity, afterId, batchSize);
+                    Set<String> urls = new LinkedHashSet<>();
+                    for (Object[] row : page) {
+                        afterId = (Long) row[0];
+                        String url = (String) row[1];
+                        if (supabaseStorageService.extractFilePath(url) != null) {
+                            urls.add(url);
+                        } else {
+                            skipped.incrementAndGet(); // hosted elsewhere
+                        }
+                    }
+                    List<CompletableFuture<Boolean>> jobs = new ArrayList<>(urls.size());
+                    urls.forEach(url -> jobs.add(generate(url, null)));
+                    for (CompletableFuture<Boolean> job : jobs) {
+                        (job.join() ? processed : failed).incrementAndGet();
+                    }
+                } while (page.size() == batchSize);
+            }
+        } finally {
+            backfillRunning.set(false);
+        }
+        log.info("Photo variant backfill: {} processed, {} failed, {} skipped in {} ms",
+                processed.get(), failed.get(), skipped.get(), System.currentTimeMillis() - start);
+        return CompletableFuture.completedFuture(
+                new BackfillResult(processed.get(), failed.get(), skipped.get()));
+    }
+
+    /**
+     * Rows: id, url
+     */
+    @SuppressWarnings("unchecked")
+    private List<Object[]> pendingRows(String entity, long afterId, int limit) {
+        return transactionTemplate.execute(status -> entityManager
+                .createQuery("SELECT p.id, p.url FROM " + entity + " p "
+                        + "WHERE p.mediumUrl IS NULL AND p.id > :afterId ORDER BY p.id")
+                .setParameter("afterId", afterId)
+                .setMaxResults(limit)
+                .getResultList());
+    }
+
+    private Map<Variant, byte[]> encode(byte[] original) {
+        try {
+            return ImageVariants.generate(original);
+        } catch (IOException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    private void store(String url, String originalPath, Map<Variant, byte[]> variants) {
+        Map<Variant, String> urls = new EnumMap<>(Variant.class);
+        variants.forEach((variant, bytes) -> urls.put(variant, supabaseStorageService.uploadBytes(
+                ImageVariants.variantPath(originalPath, variant), bytes, ImageVariants.CONTENT_TYPE)));
+
+        int updated = transactionTemplate.execute(status -> {
+            int rows = 0;
+            for (String entity : PHOTO_ENTITIES) {
+                rows += entityManager.createQuery("UPDATE " + entity + " p SET p.thumbnailUrl = :thumb, "
+                        + "p.mediumUrl = :medium, p.fullUrl = :full WHERE p.url = :url")
+                        .setParameter("thumb", urls.get(Variant.THUMBNAIL))
+                        .setParameter("medium", urls.get(Variant.MEDIUM))
+                        .setParameter("full", urls.get(Variant.FULL))
+                        .setParameter("url", url)
+                        .executeUpdate();
+            }
+            return rows;
+        });
+        log.debug("Recorded variants of {} on {} photos", url, updated);
+
+        // Bulk updates skip entity listeners, so refresh what shows this photo by hand
+        List<Long> menuShops = shopIds("SELECT p.item.shop.id FROM MenuItemPhoto p WHERE p.url = :url "
+                + "UNION SELECT c.category.shop.id FROM MenuCategoryPhoto c WHERE c.url = :url", url);
+        menuShops.forEach(menuDocumentService::markStale);
+        menuShops.forEach(menuDocumentService::markDirty);
+        menuShops.forEach(shopId -> catalogVersions.bump(CatalogVersions.Scope.SHOP, shopId));
+        List<Long> photoShops = shopIds("SELECT p.shop.id FROM ShopPhoto p WHERE p.url = :url", url);
+        photoShops.forEach(shopId -> catalogVersions.bump(CatalogVersions.Scope.SHOP, shopId));
+        catalogSyncService.touchShops(photoShops);
+        shopIds("SELECT p.shopReview.shop.id FROM ReviewPhoto p WHERE p.url = :url", url).forEach(shopId -> {
+            catalogVersions.bump(CatalogVersions.Scope.SHOP, shopId);
+            catalogVersions.bump(CatalogVersions.Scope.SHOP_REVIEWS, shopId);
+        });
+    }
+
+    private List<Long> shopIds(String query, String url) {
+        return transactionTemplate.execute(status -> entityManager.createQuery(query, Long.class)
+                .setParameter("url", url)
+                .getResultList());
+    }
+
+    private byte[] download(String url) {
+        Request request = new Request.Builder().url(url).get().build();
+        try (Response response = okHttpClient.newCall(request).execute()) {
+            ResponseBody body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                throw new IllegalStateException("Download failed with status " + response.code());
+            }
+            if (body.contentLength() > MAX_DOWNLOAD_SIZE) {
+                throw new IllegalStateException("Original is larger than " + MAX_DOWNLOAD_SIZE + " bytes");
+            }
+            // Content-Length is absent (-1) on chunked responses, so cap what is actually read
+            byte[] bytes = body.byteStream().readNBytes(MAX_DOWNLOAD_SIZE + 1);
+            if (bytes.length > MAX_DOWNLOAD_SIZE) {
+                throw new IllegalStateException("Original is larger than " + MAX_DOWNLOAD_SIZE + " bytes");
+            }
+            return bytes;
+        } catch (IOException e) {
+            throw new IllegalStateException("Download failed: " + e.getMessage(), e);
+        }
+    }
+
+    private static void afterCommit(Runnable task) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    task.run();
+                }
+            });
+        } else {
+            task.run();
+        }
+    }
+}
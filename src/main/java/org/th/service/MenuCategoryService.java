@@ -58,6 +58,8 @@ public class MenuCategoryService {
                         .id(photo.getId())
                         .url(photo.getUrl())
                         .thumbnailUrl(photo.getThumbnailUrl())
+                        .mediumUrl(photo.getMediumUrl())
+                        .fullUrl(photo.getFullUrl())
                         .photoType(photo.getPhotoType())
                         .caption(photo.getCaption())
                         .captionMm(photo.getCaptionMm())
@@ -77,6 +79,8 @@ public class MenuCategoryService {
                                     .id(photo.getId())
                                     .url(photo.getUrl())
                                     .thumbnailUrl(photo.getThumbnailUrl())
+                                    .mediumUrl(photo.getMediumUrl())
+                                    .fullUrl(photo.getFullUrl())
                                     .photoType(photo.getPhotoType())
                                     .caption(photo.getCaption())
                                     .captionMm(photo.getCaptionMm())
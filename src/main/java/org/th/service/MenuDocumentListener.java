@@ -0,0 +1,87 @@
+package org.th.service;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.th.entity.shops.MenuCategory;
+import org.th.entity.shops.MenuCategoryPhoto;
+import org.th.entity.shops.MenuItem;
+import org.th.entity.shops.MenuItemPhoto;
+import org.th.entity.shops.MenuSubCategory;
+import org.th.entity.shops.MenuSubCategoryPhoto;
+import org.th.entity.shops.Shop;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * JPA listener that marks a shop's menu document stale in the transaction of a menu change,
+ * and queues its rebuild once that transaction commits.
+ */
+@Component
+@RequiredArgsConstructor
+public class MenuDocumentListener {
+
+    // Resolved lazily: listeners are created with the EntityManagerFactory, before the repositories
+    private final ObjectProvider<MenuDocumentService> menuDocumentServiceProvider;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onMenuChanged(Object entity) {
+        Long shopId = shopIdOf(entity);
+        if (shopId == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            MenuDocumentService service = menuDocumentServiceProvider.getObject();
+            service.markStale(shopId);
+            service.markDirty(shopId);
+            return;
+        }
+        // One callback per transaction, however many rows an import touches
+        @SuppressWarnings("unchecked")
+        Set<Long> shopIds = (Set<Long>) TransactionSynchronizationManager.getResource(this);
+        if (shopIds == null) {
+            Set<Long> pending = new HashSet<>();
+            shopIds = pending;
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pending.forEach(menuDocumentServiceProvider.getObject()::markDirty);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(MenuDocumentListener.this);
+                }
+            });
+        }
+        if (shopIds.add(shopId)) {
+            // Same transaction as the change, so the flag survives a restart before the rebuild runs
+            menuDocumentServiceProvider.getObject().markStale(shopId);
+        }
+    }
+
+    static Long shopIdOf(Object entity) {
+        Shop shop = switch (entity) {
+            case MenuCategory category -> category.getShop();
+            case MenuItem item -> item.getShop();
+            case MenuSubCategory subCategory -> subCategory.getMenuCategory() != null
+                    ? subCategory.getMenuCategory().getShop() : null;
+            case MenuCategoryPhoto photo -> photo.getCategory() != null ? photo.getCategory().getShop() : null;
+            case MenuItemPhoto photo -> photo.getItem() != null ? photo.getItem().getShop() : null;
+            case MenuSubCategoryPhoto photo -> photo.getMenuSubCategory() != null
+                    && photo.getMenuSubCategory().getMenuCategory() != null
+                    ? photo.getMenuSubCategory().getMenuCategory().getShop() : null;
+            default -> null;
+        };
+        return shop != null ? shop.getId() : null;
+    }
+}
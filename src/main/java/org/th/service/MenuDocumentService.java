@@ -0,0 +1,352 @@
+package org.th.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.th.dto.ApiResponse;
+import org.th.dto.MenuCategoryDTO;
+import org.th.entity.ShopMenuDocument;
+import org.th.repository.ShopMenuDocumentRepository;
+import org.th.repository.ShopRepository;
+import org.th.util.HttpCaching;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.Deflater;
+
+/**
+ * Materialized shop menus
+ * Each shop's menu response is serialized once (and gzipped when large
+ * enough), stored in {@code shop_menu_documents} and kept in the shopMenu
+ * cache, so a read is a cache hit or one row lookup, never a walk over
+ * categories, items and photos. A menu change marks the stored document stale
+ * in its own transaction and the document is rebuilt in the background; until
+ * then the previous version is served. Stale rows, and rows written by an older
+ * serializer format, are picked up again at startup, so a restart between the
+ * change and the rebuild loses nothing. Dirty shops are drained on their own
+ * executor as soon as they are queued; a one-second poll only retries failures.
+ * The version only moves when the
+ * content actually changes, so clients keep a valid ETag across no-op
+ * rebuilds; a new version also moves the shop's updatedAt for delta sync.
+ */
+@Service
+@Slf4j
+public class MenuDocumentService {
+
+    private static final String MESSAGE = "Shop menu retrieved";
+    private static final int GZIP_MIN_BYTES = 1024;
+
+    // Bump when the serialized shape changes (menu DTOs, the ApiResponse envelope, writer settings)
+    static final int FORMAT_VERSION = 1;
+
+    private final MenuCategoryService menuCategoryService;
+    private final ShopRepository shopRepository;
+    private final ShopMenuDocumentRepository documentRepository;
+    private final ObjectWriter writer;
+    private final Cache cache;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final Executor rebuildExecutor;
+
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    // A drain is queued or running; pending means shops arrived since its last pass
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean pending = new AtomicBoolean();
+
+    public MenuDocumentService(
+            MenuCategoryService menuCategoryService,
+            ShopRepository shopRepository,
+            ShopMenuDocumentRepository documentRepository,
+            ObjectMapper objectMapper,
+            CacheManager cacheManager,
+            PlatformTransactionManager transactionManager,
+            JdbcTemplate jdbcTemplate,
+            @Qualifier("menuDocumentExecutor") Executor rebuildExecutor) {
+        this.menuCategoryService = menuCategoryService;
+        this.shopRepository = shopRepository;
+        this.documentRepository = documentRepository;
+        this.writer = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+        this.cache = Objects.requireNonNull(cacheManager.getCache("shopMenu"), "shopMenu cache");
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jdbcTemplate = jdbcTemplate;
+        this.rebuildExecutor = rebuildExecutor;
+    }
+
+    /**
+     * A serialized menu response and its validators
+     *
+     * @param json identity-encoded body
+     * @param gzip gzip-encoded body, or null when the body is small
+     */
+    public record MenuDocument(long version, String etag, byte[] json, byte[] gzip) {
+
+        /**
+         * Strong ETag of the representation; the gzip bytes are a different representation
+         */
+        public String etag(boolean gzipped) {
+            return gzipped ? etag.substring(0, etag.length() - 1) + "-gzip\"" : etag;
+        }
+
+        public byte[] body(boolean gzipped) {
+            return gzipped ? gzip : json;
+        }
+
+        /**
+         * Whether an If-None-Match header names either representation (weak comparison)
+         */
+        public boolean matches(String ifNoneMatch) {
+            return HttpCaching.matches(ifNoneMatch, etag) || HttpCaching.matches(ifNoneMatch, etag(true));
+        }
+    }
+
+    /**
+     * The current menu document for a shop, building it on first request
+     */
+    public MenuDocument get(Long shopId) {
+        MenuDocument cached = cache.get(shopId, MenuDocument.class);
+        if (cached != null) {
+            return cached;
+        }
+        ShopMenuDocument row = documentRepository.findById(shopId).orElse(null);
+        if (row != null && (row.isStale() || row.getFormatVersion() != FORMAT_VERSION)) {
+            // Serve what is stored; the rebuild replaces it shortly
+            markDirty(shopId);
+            return toDocument(row);
+        }
+        MenuDocument document = row != null ? toDocument(row) : rebuild(shopId);
+        if (document.version() > 0) {
+            cache.put(shopId, document);
+        }
+        return document;
+    }
+
+    /**
+     * Stored documents for many shops in one lookup, never building inline
+     * Stale documents are returned and queued for a rebuild; shops without a document
+     * are queued too and missing from the result until it is stored.
+     */
+    public Map<Long, MenuDocument> getStored(Collection<Long> shopIds) {
+        Map<Long, MenuDocument> documents = new HashMap<>();
+        List<Long> misses = new ArrayList<>();
+        for (Long shopId : shopIds) {
+            MenuDocument cached = cache.get(shopId, MenuDocument.class);
+            if (cached != null) {
+                documents.put(shopId, cached);
+            } else {
+                misses.add(shopId);
+            }
+        }
+        if (misses.isEmpty()) {
+            return documents;
+        }
+        for (ShopMenuDocument row : documentRepository.findAllById(misses)) {
+            MenuDocument document = toDocument(row);
+            if (row.isStale() || row.getFormatVersion() != FORMAT_VERSION) {
+                markDirty(row.getShopId());
+            } else {
+                cache.put(row.getShopId(), document);
+            }
+            documents.put(row.getShopId(), document);
+        }
+        misses.stream().filter(shopId -> !documents.containsKey(shopId)).forEach(this::markDirty);
+        return documents;
+    }
+
+    /**
+     * Flag a shop's stored document stale, in the caller's transaction when there is one
+     * Plain JDBC on the transaction's connection: this runs from entity listeners, often
+     * in the middle of a flush, where a JPA query would flush the session again.
+     */
+    public void markStale(Long shopId) {
+        jdbcTemplate.update("UPDATE shop_menu_documents SET stale = TRUE WHERE shop_id = ?", shopId);
+    }
+
+    /**
+     * Rebuild a shop's document in the background (call once a menu change commits)
+     */
+    public void markDirty(Long shopId) {
+        if (shopId != null) {
+            dirty.add(shopId);
+            requestDrain();
+        }
+    }
+
+    /**
+     * Queue the documents a previous run left stale, or that an older serializer format wrote
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void sweepStale() {
+        List<Long> ids = documentRepository.findShopIdsToRebuild(FORMAT_VERSION);
+        if (!ids.isEmpty()) {
+            log.info("Queueing {} stale menu documents for rebuild", ids.size());
+            dirty.addAll(ids);
+            requestDrain();
+        }
+    }
+
+    /**
+     * Retry shops whose rebuild failed; new changes are drained without waiting for this
+     */
+    @Scheduled(initialDelay = 5000, fixedDelay = 1000)
+    public void retryDirty() {
+        if (!dirty.isEmpty()) {
+            requestDrain();
+        }
+    }
+
+    private void requestDrain() {
+        pending.set(true);
+        if (!draining.compareAndSet(false, true)) {
+            return; // the running drain sees pending and makes another pass
+        }
+        try {
+            rebuildExecutor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            draining.set(false);
+            log.warn("Menu document drain rejected, leaving {} shops for the retry poll", dirty.size());
+        }
+    }
+
+    private void drain() {
+        try {
+            while (pending.getAndSet(false)) {
+                rebuildDirty();
+            }
+        } finally {
+            draining.set(false);
+        }
+        // Shops queued between the last pass and the reset above
+        if (pending.get()) {
+            requestDrain();
+        }
+    }
+
+    /**
+     * Rebuild documents for shops whose menus changed; a burst of changes (e.g. an import) costs one rebuild
+     */
+    public void rebuildDirty() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(dirty);
+        dirty.removeAll(ids);
+        for (Long shopId : ids) {
+            try {
+                MenuDocument document = rebuild(shopId);
+                if (document.version() > 0) {
+                    cache.put(shopId, document);
+                } else {
+                    cache.evict(shopId);
+                }
+            } catch (RuntimeException e) {
+                // Keep serving the previous version and retry on the next pass
+                dirty.add(shopId);
+                log.warn("Could not rebuild menu document for shop {}: {}", shopId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Serialize the shop's menu and store it, bumping the version if the content changed
+     * The row stays locked while the menu is read, so a change committing meanwhile
+     * leaves it stale rather than having its flag cleared by this rebuild. Unknown
+     * shops get an unversioned empty menu that is neither stored nor cached.
+     */
+    public MenuDocument rebuild(Long shopId) {
+        if (!shopRepository.existsById(shopId)) {
+            documentRepository.findById(shopId).ifPresent(documentRepository::delete);
+            Serialized empty = serialize(List.of());
+            return document(shopId, 0, empty.hash(), empty.json(), empty.gzip());
+        }
+        long start = System.currentTimeMillis();
+        try {
+            MenuDocument stored = transactionTemplate.execute(status -> {
+                ShopMenuDocument row = documentRepository.findByIdForUpdate(shopId).orElse(null);
+                Serialized built = serialize(menuCategoryService.getMenuCategoriesByShopId(shopId));
+                if (row != null && row.getContentHash().equals(built.hash())) {
+                    if (row.isStale() || row.getFormatVersion() != FORMAT_VERSION) {
+                        row.setStale(false);
+                        row.setFormatVersion(FORMAT_VERSION);
+                        documentRepository.save(row);
+                    }
+                    return toDocument(row);
+                }
+                ShopMenuDocument saved = documentRepository.save(ShopMenuDocument.builder()
+                        .shopId(shopId)
+                        .version(row != null ? row.getVersion() + 1 : 1)
+                        .contentHash(built.hash())
+                        .body(built.json())
+                        .bodyGzip(built.gzip())
+                        .builtAt(LocalDateTime.now())
+                        .formatVersion(FORMAT_VERSION)
+                        .build());
+                // The menu changed (or was first stored, after a sync may have sent the shop without
+                // one), so delta sync has to resend the shop
+                shopRepository.touchUpdatedAt(List.of(shopId), saved.getBuiltAt());
+                return toDocument(saved);
+            });
+            log.debug("Built menu document v{} for shop {} ({} bytes) in {} ms", stored.version(), shopId,
+                    stored.json().length, System.currentTimeMillis() - start);
+            return stored;
+        } catch (DataIntegrityViolationException e) {
+            // Another node stored the first version concurrently
+            return documentRepository.findById(shopId).map(MenuDocumentService::toDocument).orElseThrow(() -> e);
+        }
+    }
+
+    record Serialized(byte[] json, byte[] gzip, String hash) {
+    }
+
+    Serialized serialize(List<MenuCategoryDTO> menu) {
+        byte[] json;
+        try {
+            json = writer.writeValueAsBytes(ApiResponse.success(MESSAGE, menu));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize menu", e);
+        }
+        byte[] gzip = json.length >= GZIP_MIN_BYTES ? HttpCaching.gzip(json, Deflater.DEFAULT_COMPRESSION) : null;
+        return new Serialized(json, gzip, contentHash(json));
+    }
+
+    private static MenuDocument toDocument(ShopMenuDocument row) {
+        return document(row.getShopId(), row.getVersion(), row.getContentHash(), row.getBody(), row.getBodyGzip());
+    }
+
+    private static MenuDocument document(long shopId, long version, String hash, byte[] json, byte[] gzip) {
+        return new MenuDocument(version, "\"" + shopId + "-" + version + "-" + hash.substring(0, 16) + "\"", json, gzip);
+    }
+
+    private static String contentHash(byte[] json) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
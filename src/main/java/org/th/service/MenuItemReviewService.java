@@ -1,16 +1,20 @@
 package org.th.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.th.dto.CursorPage;
 import org.th.dto.MenuItemReviewDTO;
 import org.th.entity.User;
 import org.th.entity.shops.MenuItem;
+import org.th.entity.enums.ReviewSort;
 import org.th.entity.shops.MenuItemReview;
 import org.th.repository.MenuItemRepository;
 import org.th.repository.MenuItemReviewRepository;
 import org.th.repository.ReviewCommentRepository;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -20,6 +24,8 @@ public class MenuItemReviewService {
     private final MenuItemReviewRepository menuItemReviewRepository;
     private final MenuItemRepository menuItemRepository;
     private final ReviewCommentRepository reviewCommentRepository;
+    private final ReviewBatchLoader reviewBatchLoader;
+    private final ImageVariantService imageVariantService;
 
     @Transactional
     public MenuItemReviewDTO addReview(Long menuItemId, org.th.dto.CreateMenuItemReviewRequest request, User user) {
@@ -41,9 +47,10 @@ public class MenuItemReviewService {
             for (String url : request.getPhotoUrls()) {
                 org.th.entity.shops.MenuItemReviewPhoto photo = new org.th.entity.shops.MenuItemReviewPhoto();
                 photo.setUrl(url);
-                photo.setThumbnailUrl(url); // Can optimize later
+                photo.setThumbnailUrl(url); // Replaced by the thumbnail variant once generated
                 photo.setMenuItemReview(review);
                 review.getPhotos().add(photo);
+                imageVariantService.generateAfterCommit(url);
             }
         }
 
@@ -65,11 +72,49 @@ public class MenuItemReviewService {
         return convertToCommentDTO(saved);
     }
 
+    /**
+     * One page of a dish's reviews (keyset pagination); photos and comment trees
+     * are batch-loaded for the whole page. Dish reviews have no helpful count, so
+     * HELPFUL falls back to NEWEST.
+     */
     @Transactional(readOnly = true)
-    public List<MenuItemReviewDTO> getReviews(Long menuItemId) {
-        return menuItemReviewRepository.findByMenuItemIdOrderByCreatedAtDesc(menuItemId).stream()
-                .map(this::convertToDTO)
+    public CursorPage<MenuItemReviewDTO> getReviews(Long menuItemId, ReviewSort sort, String cursor, int size) {
+        ReviewSort effective = sort == ReviewSort.HELPFUL ? ReviewSort.NEWEST : sort;
+        ReviewCursor after = ReviewCursor.decode(cursor, effective);
+        PageRequest page = PageRequest.of(0, size + 1);
+        List<MenuItemReview> reviews = switch (effective) {
+            case NEWEST, HELPFUL -> menuItemReviewRepository.findPageNewest(
+                    menuItemId, after.createdAt(), after.id(), page);
+            case HIGHEST_RATED -> menuItemReviewRepository.findPageHighestRated(
+                    menuItemId, after.sortValue(), after.createdAt(), after.id(), page);
+            case LOWEST_RATED -> menuItemReviewRepository.findPageLowestRated(
+                    menuItemId, after.sortValue(), after.createdAt(), after.id(), page);
+        };
+
+        boolean hasNext = reviews.size() > size;
+        if (hasNext) {
+            reviews = reviews.subList(0, size);
+        }
+        String nextCursor = null;
+        if (hasNext) {
+            MenuItemReview last = reviews.get(reviews.size() - 1);
+            int sortValue = effective == ReviewSort.NEWEST ? 0 : last.getRating();
+            nextCursor = ReviewCursor.after(effective, sortValue, last.getCreatedAt(), last.getId()).encode();
+        }
+
+        List<Long> ids = reviews.stream().map(MenuItemReview::getId).collect(Collectors.toList());
+        Map<Long, List<org.th.dto.ReviewPhotoDTO>> photos = reviewBatchLoader.menuItemReviewPhotos(ids);
+        Map<Long, List<org.th.dto.ReviewCommentDTO>> comments = reviewBatchLoader.menuItemReviewComments(ids);
+        List<MenuItemReviewDTO> items = reviews.stream()
+                .map(r -> toDTO(r, photos.getOrDefault(r.getId(), List.of()),
+                        comments.getOrDefault(r.getId(), List.of())))
                 .collect(Collectors.toList());
+
+        return CursorPage.<MenuItemReviewDTO>builder()
+                .items(items)
+                .nextCursor(nextCursor)
+                .hasNext(hasNext)
+                .build();
     }
 
     private MenuItemReviewDTO convertToDTO(MenuItemReview review) {
@@ -79,6 +124,8 @@ public class MenuItemReviewService {
                         .id(p.getId())
                         .url(p.getUrl())
                         .thumbnailUrl(p.getThumbnailUrl())
+                        .mediumUrl(p.getMediumUrl())
+                        .fullUrl(p.getFullUrl())
                         .build())
                 .collect(Collectors.toList());
 
@@ -88,6 +135,11 @@ public class MenuItemReviewService {
                 .map(this::convertToCommentDTO)
                 .collect(Collectors.toList());
 
+        return toDTO(review, photos, comments);
+    }
+
+    private MenuItemReviewDTO toDTO(MenuItemReview review, List<org.th.dto.ReviewPhotoDTO> photos,
+            List<org.th.dto.ReviewCommentDTO> comments) {
         MenuItemReviewDTO dto = new MenuItemReviewDTO();
         dto.setId(review.getId());
         dto.setMenuItemId(review.getMenuItem().getId());
@@ -0,0 +1,164 @@
+package org.th.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.th.repository.OperatingHourRepository;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory "open now" lookups backed by compiled weekly bitmaps
+ * Each shop's operating hours become 7 x 96 quarter-hour bits (11 longs);
+ * a span that closes at or before it opens runs past midnight into the next
+ * day. Lookups are a single bit test. Hours changes mark the shop dirty and
+ * it is recompiled on the next read; a periodic full rebuild covers bulk imports.
+ */
+@Component
+@Slf4j
+public class OpeningHoursIndex {
+
+    static final int SLOTS_PER_DAY = 96;
+    static final int SLOTS_PER_WEEK = 7 * SLOTS_PER_DAY;
+    private static final int WORDS = (SLOTS_PER_WEEK + 63) / 64;
+
+    private final OperatingHourRepository operatingHourRepository;
+    private final ZoneId zone;
+
+    private final Map<Long, long[]> schedules = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    public OpeningHoursIndex(OperatingHourRepository operatingHourRepository,
+            @Value("${app.opening-hours.time-zone:Asia/Bangkok}") String timeZone) {
+        this.operatingHourRepository = operatingHourRepository;
+        if (timeZone == null || timeZone.isBlank()) {
+            // Shop hours are local wall-clock times; the server zone is not a safe stand-in
+            throw new IllegalStateException("app.opening-hours.time-zone must name the shops' time zone");
+        }
+        this.zone = ZoneId.of(timeZone);
+    }
+
+    /**
+     * Compile every shop's hours; runs at startup and every 30 minutes
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelay = 1800000, fixedDelay = 1800000)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        Map<Long, long[]> compiled = compile(operatingHourRepository.findAllScheduleRows());
+        schedules.keySet().retainAll(compiled.keySet());
+        schedules.putAll(compiled);
+        log.info("Compiled opening hours for {} shops in {} ms", compiled.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Recompile a shop's schedule on the next lookup (call after its hours change)
+     */
+    public void markDirty(Long shopId) {
+        if (shopId != null) {
+            dirty.add(shopId);
+        }
+    }
+
+    public boolean hasSchedule(Long shopId) {
+        refreshDirty();
+        return shopId != null && schedules.containsKey(shopId);
+    }
+
+    public boolean isOpenNow(Long shopId) {
+        return isOpenAt(shopId, now());
+    }
+
+    /**
+     * Current local time in the shops' time zone
+     */
+    public LocalDateTime now() {
+        return LocalDateTime.now(zone);
+    }
+
+    /**
+     * Whether the shop is open at a local date-time; shops without hours count as not open
+     */
+    public boolean isOpenAt(Long shopId, LocalDateTime at) {
+        refreshDirty();
+        long[] bits = shopId != null ? schedules.get(shopId) : null;
+        return bits != null && isSet(bits, slotOf(at));
+    }
+
+    /**
+     * A copy of the shop's weekly bitmap (bit i = quarter-hour i from Sunday 00:00), or null without hours
+     */
+    public long[] weekBitmap(Long shopId) {
+        refreshDirty();
+        long[] bits = shopId != null ? schedules.get(shopId) : null;
+        return bits != null ? bits.clone() : null;
+    }
+
+    public int size() {
+        return schedules.size();
+    }
+
+    private void refreshDirty() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(dirty);
+        dirty.removeAll(ids);
+        Map<Long, long[]> compiled = compile(operatingHourRepository.findScheduleRowsByShopIdIn(ids));
+        ids.forEach(id -> {
+            long[] bits = compiled.get(id);
+            if (bits != null) {
+                schedules.put(id, bits);
+            } else {
+                schedules.remove(id);
+            }
+        });
+    }
+
+    /**
+     * Rows: shop id, day of week (0=Sunday), opening time, closing time, is closed
+     */
+    static Map<Long, long[]> compile(List<Object[]> rows) {
+        Map<Long, long[]> compiled = new HashMap<>();
+        for (Object[] row : rows) {
+            long[] bits = compiled.computeIfAbsent((Long) row[0], k -> new long[WORDS]);
+            Integer day = (Integer) row[1];
+            LocalTime opening = (LocalTime) row[2];
+            LocalTime closing = (LocalTime) row[3];
+            if (day == null || opening == null || closing == null || Boolean.TRUE.equals(row[4])) {
+                continue;
+            }
+            int from = day * SLOTS_PER_DAY + opening.toSecondOfDay() / 900;
+            int to = day * SLOTS_PER_DAY + (closing.toSecondOfDay() + 899) / 900; // exclusive, rounded up
+            if (to <= from) {
+                to += SLOTS_PER_DAY; // overnight (or same open/close = 24h)
+            }
+            for (int slot = from; slot < to; slot++) {
+                int wrapped = slot % SLOTS_PER_WEEK; // Saturday night spills into Sunday
+                bits[wrapped >>> 6] |= 1L << (wrapped & 63);
+            }
+        }
+        return compiled;
+    }
+
+    static int slotOf(LocalDateTime at) {
+        int day = at.getDayOfWeek() == DayOfWeek.SUNDAY ? 0 : at.getDayOfWeek().getValue();
+        return day * SLOTS_PER_DAY + at.toLocalTime().toSecondOfDay() / 900;
+    }
+
+    static boolean isSet(long[] bits, int slot) {
+        return (bits[slot >>> 6] & (1L << (slot & 63))) != 0;
+    }
+}
@@ -0,0 +1,42 @@
+package org.th.service;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.th.entity.shops.OperatingHour;
+
+/**
+ * JPA listener that marks a shop's compiled opening hours stale once a change commits.
+ */
+@Component
+@RequiredArgsConstructor
+public class OpeningHoursListener {
+
+    // Resolved lazily: listeners are created with the EntityManagerFactory, before the repositories
+    private final ObjectProvider<OpeningHoursIndex> openingHoursIndexProvider;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onHoursChanged(OperatingHour hour) {
+        Long shopId = hour.getShop() != null ? hour.getShop().getId() : null;
+        if (shopId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    openingHoursIndexProvider.getObject().markDirty(shopId);
+                }
+            });
+        } else {
+            openingHoursIndexProvider.getObject().markDirty(shopId);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.th.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.th.util.HttpCaching;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
+
+/**
+ * Serialized and gzipped JSON bodies of hot, version-tagged responses
+ * Entries are keyed by the response's version-derived ETag, so a write that
+ * bumps the version (the same paths that evict the service caches) makes the
+ * old entry unreachable; it then ages out. A hit is served as stored bytes,
+ * gzipped when the client accepts it, with no serialization or compression
+ * work. Only JSON is cached: clients that negotiate CBOR or Smile get null and
+ * the caller answers as usual.
+ */
+@Component
+public class PrecompressedResponseCache {
+
+    // Same threshold as server.compression.min-response-size
+    private static final int GZIP_MIN_BYTES = 1024;
+
+    /**
+     * @param gzip gzip-encoded body, or null when the body is small
+     */
+    record Entry(byte[] json, byte[] gzip) {
+    }
+
+    private final ObjectWriter writer;
+    private final Cache cache;
+
+    public PrecompressedResponseCache(ObjectMapper objectMapper, CacheManager cacheManager) {
+        this.writer = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+        this.cache = Objects.requireNonNull(cacheManager.getCache("responseBodies"), "responseBodies cache");
+    }
+
+    /**
+     * A 200 with the cached body for {@code etag}, building it from {@code body} on a miss;
+     * null when the client prefers a non-JSON representation
+     */
+    public ResponseEntity<byte[]> json(String etag, CacheControl cacheControl, String accept, String acceptEncoding,
+            Supplier<?> body) {
+        if (!HttpCaching.prefersJson(accept)) {
+            return null;
+        }
+        Entry entry = cache.get(etag, () -> build(body.get()));
+        boolean gzip = entry.gzip() != null && HttpCaching.acceptsGzip(acceptEncoding);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            // An encoded response is left alone by server.compression
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(gzip ? entry.gzip() : entry.json());
+    }
+
+    Entry build(Object body) {
+        byte[] json;
+        try {
+            json = writer.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize cached response", e);
+        }
+        // Compressed once per version, so the slowest level is worth it
+        byte[] gzip = json.length >= GZIP_MIN_BYTES ? HttpCaching.gzip(json, Deflater.BEST_COMPRESSION) : null;
+        return new Entry(json, gzip);
+    }
+}
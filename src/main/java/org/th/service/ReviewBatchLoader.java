@@ -0,0 +1,106 @@
+package org.th.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.th.dto.ReviewCommentDTO;
+import org.th.dto.ReviewPhotoDTO;
+import org.th.repository.MenuItemReviewRepository;
+import org.th.repository.ReviewCommentRepository;
+import org.th.repository.ReviewPhotoRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads photos and comment trees for a whole page of reviews at once
+ * One query for the photos and one recursive query for every comment thread,
+ * assembled in memory, so a page costs the same however deep the threads go.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReviewBatchLoader {
+
+    private final ReviewPhotoRepository reviewPhotoRepository;
+    private final MenuItemReviewRepository menuItemReviewRepository;
+    private final ReviewCommentRepository reviewCommentRepository;
+
+    public Map<Long, List<ReviewPhotoDTO>> shopReviewPhotos(Collection<Long> reviewIds) {
+        return reviewIds.isEmpty() ? Map.of() : groupPhotos(reviewPhotoRepository.findPhotoRowsByReviewIdIn(reviewIds));
+    }
+
+    public Map<Long, List<ReviewPhotoDTO>> menuItemReviewPhotos(Collection<Long> reviewIds) {
+        return reviewIds.isEmpty() ? Map.of()
+                : groupPhotos(menuItemReviewRepository.findPhotoRowsByReviewIdIn(reviewIds));
+    }
+
+    public Map<Long, List<ReviewCommentDTO>> shopReviewComments(Collection<Long> reviewIds) {
+        return reviewIds.isEmpty() ? Map.of()
+                : assembleTrees(reviewCommentRepository.findShopReviewCommentTrees(reviewIds));
+    }
+
+    public Map<Long, List<ReviewCommentDTO>> menuItemReviewComments(Collection<Long> reviewIds) {
+        return reviewIds.isEmpty() ? Map.of()
+                : assembleTrees(reviewCommentRepository.findMenuItemReviewCommentTrees(reviewIds));
+    }
+
+    /**
+     * Rows: review id, photo id, url, thumbnail url, medium url, full url
+     */
+    static Map<Long, List<ReviewPhotoDTO>> groupPhotos(List<Object[]> rows) {
+        Map<Long, List<ReviewPhotoDTO>> photos = new HashMap<>();
+        for (Object[] row : rows) {
+            photos.computeIfAbsent((Long) row[0], k -> new ArrayList<>()).add(ReviewPhotoDTO.builder()
+                    .id((Long) row[1])
+                    .url((String) row[2])
+                    .thumbnailUrl((String) row[3])
+                    .mediumUrl((String) row[4])
+                    .fullUrl((String) row[5])
+                    .build());
+        }
+        return photos;
+    }
+
+    /**
+     * Rows: comment id, parent comment id, review id, content, author name, created at
+     * Returns each review's top-level comments with replies nested, in row order
+     */
+    static Map<Long, List<ReviewCommentDTO>> assembleTrees(List<Object[]> rows) {
+        Map<Long, ReviewCommentDTO> byId = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            long id = ((Number) row[0]).longValue();
+            byId.put(id, ReviewCommentDTO.builder()
+                    .id(id)
+                    .content((String) row[3])
+                    .userName((String) row[4])
+                    .createdAt(toLocalDateTime(row[5]))
+                    .replies(new ArrayList<>())
+                    .build());
+        }
+
+        // Link in a second pass so a reply never depends on its parent's row coming first
+        Map<Long, List<ReviewCommentDTO>> roots = new HashMap<>();
+        for (Object[] row : rows) {
+            ReviewCommentDTO comment = byId.get(((Number) row[0]).longValue());
+            ReviewCommentDTO parent = row[1] != null ? byId.get(((Number) row[1]).longValue()) : null;
+            if (parent != null) {
+                parent.getReplies().add(comment);
+            } else if (row[1] == null) {
+                roots.computeIfAbsent(((Number) row[2]).longValue(), k -> new ArrayList<>()).add(comment);
+            }
+        }
+        return roots;
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+}
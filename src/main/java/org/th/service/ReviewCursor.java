@@ -0,0 +1,57 @@
+package org.th.service;
+
+import org.th.entity.enums.ReviewSort;
+import org.th.exception.InvalidParameterException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Keyset position in a review listing: the last row's sort value, creation time and ID
+ * Encoded as an opaque URL-safe token; the first page starts past every real row.
+ */
+public record ReviewCursor(ReviewSort sort, int sortValue, LocalDateTime createdAt, long id) {
+
+    private static final LocalDateTime END_OF_TIME = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    public static ReviewCursor first(ReviewSort sort) {
+        int sortValue = sort == ReviewSort.LOWEST_RATED ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        return new ReviewCursor(sort, sortValue, END_OF_TIME, Long.MAX_VALUE);
+    }
+
+    public static ReviewCursor after(ReviewSort sort, Integer sortValue, LocalDateTime createdAt, Long id) {
+        return new ReviewCursor(sort, sortValue != null ? sortValue : 0, createdAt, id);
+    }
+
+    /**
+     * Parse a token from a previous page; null or blank means the first page
+     */
+    public static ReviewCursor decode(String token, ReviewSort sort) {
+        if (token == null || token.isBlank()) {
+            return first(sort);
+        }
+        String[] parts;
+        ReviewCursor cursor;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 4) {
+                throw new InvalidParameterException("cursor", "malformed");
+            }
+            cursor = new ReviewCursor(sort, Integer.parseInt(parts[1]), LocalDateTime.parse(parts[2]),
+                    Long.parseLong(parts[3]));
+        } catch (IllegalArgumentException | java.time.format.DateTimeParseException e) {
+            throw new InvalidParameterException("cursor", "malformed");
+        }
+        // Checked outside the parse so it is reported as is, not as a malformed token
+        if (!parts[0].equals(sort.name())) {
+            throw new InvalidParameterException("cursor", "does not match sort " + sort);
+        }
+        return cursor;
+    }
+
+    public String encode() {
+        String raw = sort.name() + "|" + sortValue + "|" + createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
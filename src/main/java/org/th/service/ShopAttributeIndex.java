@@ -0,0 +1,201 @@
+package org.th.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.th.dto.ShopFilter;
+import org.th.entity.enums.PricePreference;
+import org.th.repository.ShopRepository;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongPredicate;
+
+/**
+ * Bitset index of shop attributes (dietary, amenities, price) over shop ordinals
+ * A filter is answered by AND-ing one bitset per constraint, so callers can
+ * test candidates in O(1) before ranking and limiting, and size SQL over-fetch
+ * from the filter's selectivity. Rebuilt from a projection every 10 minutes
+ * and after shop changes; a change-triggered rebuild runs in the background
+ * while lookups keep using the previous snapshot.
+ */
+@Component
+@Slf4j
+public class ShopAttributeIndex {
+
+    private enum Attribute {
+        HALAL, VEGETARIAN, DELIVERY, PARKING, WIFI, VERIFIED
+    }
+
+    private record Snapshot(Map<Long, Integer> ordinals, BitSet active, BitSet[] attributes, BitSet[] prices) {
+    }
+
+    private final ShopRepository shopRepository;
+    private final Executor executor;
+
+    private volatile Snapshot snapshot;
+    // Changes seen vs. changes the current snapshot reflects; a change during a build keeps it stale
+    private final AtomicLong changes = new AtomicLong();
+    private volatile long builtFrom;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    public ShopAttributeIndex(ShopRepository shopRepository, @Qualifier("backgroundExecutor") Executor executor) {
+        this.shopRepository = shopRepository;
+        this.executor = executor;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelay = 600000, fixedDelay = 600000)
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        long seen = changes.get();
+
+        // Rows: id, halal, vegetarian, delivery, parking, wifi, verified, price preference
+        List<Object[]> rows = shopRepository.findActiveAttributeRows();
+        Map<Long, Integer> ordinals = new HashMap<>(rows.size() * 2);
+        BitSet active = new BitSet(rows.size());
+        BitSet[] attributes = new BitSet[Attribute.values().length];
+        BitSet[] prices = new BitSet[PricePreference.values().length];
+        for (int i = 0; i < attributes.length; i++) {
+            attributes[i] = new BitSet(rows.size());
+        }
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = new BitSet(rows.size());
+        }
+
+        int ordinal = 0;
+        for (Object[] row : rows) {
+            ordinals.put((Long) row[0], ordinal);
+            active.set(ordinal);
+            for (Attribute attribute : Attribute.values()) {
+                if (Boolean.TRUE.equals(row[attribute.ordinal() + 1])) {
+                    attributes[attribute.ordinal()].set(ordinal);
+                }
+            }
+            if (row[7] != null) {
+                prices[((PricePreference) row[7]).ordinal()].set(ordinal);
+            }
+            ordinal++;
+        }
+
+        snapshot = new Snapshot(ordinals, active, attributes, prices);
+        builtFrom = seen;
+        log.debug("Shop attribute index rebuilt for {} shops in {} ms", ordinal, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Rebuild before the next lookup (call after shop attributes change)
+     */
+    public void markStale() {
+        changes.incrementAndGet();
+    }
+
+    /**
+     * Resolve a filter to its candidate set
+     */
+    public Candidates candidates(ShopFilter filter) {
+        Snapshot current = current();
+        if (filter == null || filter.isEmpty()) {
+            return new Candidates(current, null);
+        }
+
+        BitSet result = (BitSet) current.active().clone();
+        and(result, current, Attribute.HALAL, filter.halal());
+        and(result, current, Attribute.VEGETARIAN, filter.vegetarian());
+        and(result, current, Attribute.DELIVERY, filter.delivery());
+        and(result, current, Attribute.PARKING, filter.parking());
+        and(result, current, Attribute.WIFI, filter.wifi());
+        and(result, current, Attribute.VERIFIED, filter.verified());
+        if (filter.price() != null) {
+            result.and(current.prices()[filter.price().ordinal()]);
+        }
+        return new Candidates(current, result);
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            // Nothing to serve yet: build on the caller
+            rebuild();
+            return snapshot;
+        }
+        if (builtFrom != changes.get() && rebuilding.compareAndSet(false, true)) {
+            try {
+                executor.execute(() -> {
+                    try {
+                        rebuild();
+                    } catch (RuntimeException e) {
+                        log.warn("Shop attribute index rebuild failed: {}", e.getMessage());
+                    } finally {
+                        rebuilding.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                rebuilding.set(false);
+            }
+        }
+        return current;
+    }
+
+    private static void and(BitSet result, Snapshot snapshot, Attribute attribute, Boolean required) {
+        if (Boolean.TRUE.equals(required)) {
+            result.and(snapshot.attributes()[attribute.ordinal()]);
+        }
+    }
+
+    /**
+     * Shops matching a filter; an empty filter matches every shop
+     */
+    public static final class Candidates implements LongPredicate {
+
+        private final Snapshot snapshot;
+        private final BitSet matches; // null = unfiltered
+
+        private Candidates(Snapshot snapshot, BitSet matches) {
+            this.snapshot = snapshot;
+            this.matches = matches;
+        }
+
+        public boolean isUnfiltered() {
+            return matches == null;
+        }
+
+        @Override
+        public boolean test(long shopId) {
+            if (matches == null) {
+                return true;
+            }
+            Integer ordinal = snapshot.ordinals().get(shopId);
+            return ordinal != null && matches.get(ordinal);
+        }
+
+        public int cardinality() {
+            return matches == null ? snapshot.active().cardinality() : matches.cardinality();
+        }
+
+        /**
+         * Rows to fetch so that, at this filter's selectivity, about {@code pageSize}
+         * survive filtering (with 50% headroom), capped at {@code max}
+         */
+        public int fetchSize(int pageSize, int max) {
+            if (matches == null) {
+                return pageSize;
+            }
+            int matching = matches.cardinality();
+            if (matching == 0) {
+                return pageSize;
+            }
+            double selectivity = (double) matching / Math.max(1, snapshot.active().cardinality());
+            return (int) Math.min(max, Math.ceil(pageSize / selectivity * 1.5));
+        }
+    }
+}
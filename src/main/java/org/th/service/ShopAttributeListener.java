@@ -0,0 +1,42 @@
+package org.th.service;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.th.entity.shops.Shop;
+
+/**
+ * JPA listener that marks the shop attribute index stale once a shop change commits.
+ */
+@Component
+@RequiredArgsConstructor
+public class ShopAttributeListener {
+
+    // Resolved lazily: listeners are created with the EntityManagerFactory, before the repositories
+    private final ObjectProvider<ShopAttributeIndex> shopAttributeIndexProvider;
+
+    // One shared instance: the per-transaction synchronization set dedupes it, so a
+    // bulk save of every shop registers a single callback
+    private final TransactionSynchronization markStaleAfterCommit = new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+            shopAttributeIndexProvider.getObject().markStale();
+        }
+    };
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onShopChanged(Shop shop) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(markStaleAfterCommit);
+        } else {
+            shopAttributeIndexProvider.getObject().markStale();
+        }
+    }
+}
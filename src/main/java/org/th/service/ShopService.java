@@ -275,6 +275,13 @@ public class ShopService {
         return shop;
     }
 
+    /**
+     * Resolve a slug to a shop id (one index lookup, nothing loaded)
+     */
+    public Optional<Long> findShopIdBySlug(String slug) {
+        return shopRepository.findIdBySlug(slug);
+    }
+
     /**
      * Get shop details (DTO) by Slug
      * Optimized: Fetches only Top 10 reviews and caches the DTO
@@ -563,6 +570,8 @@ public class ShopService {
                                     .id(photo.getId())
                                     .url(photo.getUrl())
                                     .thumbnailUrl(photo.getThumbnailUrl())
+                                    .mediumUrl(photo.getMediumUrl())
+                                    .fullUrl(photo.getFullUrl())
                                     .photoType(photo.getPhotoType())
                                     .caption(photo.getCaption())
                                     .captionMm(photo.getCaptionMm())
@@ -689,6 +698,26 @@ public class ShopService {
         return dto;
     }
 
+    /**
+     * Convert a shop photo to its DTO
+     */
+    public org.th.dto.ShopPhotoDTO convertToPhotoDTO(org.th.entity.shops.ShopPhoto photo) {
+        return org.th.dto.ShopPhotoDTO.builder()
+                .id(photo.getId())
+                .url(photo.getUrl())
+                .thumbnailUrl(photo.getThumbnailUrl())
+                .mediumUrl(photo.getMediumUrl())
+                .fullUrl(photo.getFullUrl())
+                .photoType(photo.getPhotoType())
+                .caption(photo.getCaption())
+                .captionMm(photo.getCaptionMm())
+                .captionEn(photo.getCaptionEn())
+                .isPrimary(photo.getIsPrimary())
+                .displayOrder(photo.getDisplayOrder())
+                .uploadedAt(photo.getUploadedAt())
+                .build();
+    }
+
     /**
      * Convert to DetailDTO (with reviews)
      * 
@@ -703,18 +732,7 @@ public class ShopService {
 
         // Convert photos
         List<org.th.dto.ShopPhotoDTO> photoDTOs = shop.getPhotos().stream()
-                .map(photo -> org.th.dto.ShopPhotoDTO.builder()
-                        .id(photo.getId())
-                        .url(photo.getUrl())
-                        .thumbnailUrl(photo.getThumbnailUrl())
-                        .photoType(photo.getPhotoType())
-                        .caption(photo.getCaption())
-                        .captionMm(photo.getCaptionMm())
-                        .captionEn(photo.getCaptionEn())
-                        .isPrimary(photo.getIsPrimary())
-                        .displayOrder(photo.getDisplayOrder())
-                        .uploadedAt(photo.getUploadedAt())
-                        .build())
+                .map(this::convertToPhotoDTO)
                 .collect(Collectors.toList());
 
         // Convert menu categories ONLY if loaded (otherwise skip/return empty)
@@ -766,6 +784,8 @@ public class ShopService {
                                             .id(p.getId())
                                             .url(p.getUrl())
                                             .thumbnailUrl(p.getThumbnailUrl())
+                                            .mediumUrl(p.getMediumUrl())
+                                            .fullUrl(p.getFullUrl())
                                             .build())
                                     .collect(Collectors.toList());
                         }
@@ -0,0 +1,71 @@
+package org.th.service;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.th.entity.shops.OperatingHour;
+import org.th.entity.shops.Shop;
+import org.th.entity.shops.ShopPhoto;
+import org.th.service.mobile.CatalogSyncService;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * JPA listener that moves a shop's updatedAt once a change to the shop, its photos or hours commits,
+ * so delta sync picks the shop up. The shop's own @UpdateTimestamp is set at flush, which in a long
+ * transaction can fall behind a client's watermark. Menu changes do the same when the menu document
+ * is rebuilt.
+ */
+@Component
+@RequiredArgsConstructor
+public class ShopSyncListener {
+
+    // Resolved lazily: listeners are created with the EntityManagerFactory, before the repositories
+    private final ObjectProvider<CatalogSyncService> catalogSyncServiceProvider;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onShopChildChanged(Object entity) {
+        Shop shop = switch (entity) {
+            case Shop changed -> changed;
+            case ShopPhoto photo -> photo.getShop();
+            case OperatingHour hour -> hour.getShop();
+            default -> null;
+        };
+        Long shopId = shop != null ? shop.getId() : null;
+        if (shopId == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            catalogSyncServiceProvider.getObject().touchShops(Set.of(shopId));
+            return;
+        }
+        // One update per transaction, however many rows changed
+        @SuppressWarnings("unchecked")
+        Set<Long> shopIds = (Set<Long>) TransactionSynchronizationManager.getResource(this);
+        if (shopIds == null) {
+            Set<Long> pending = new HashSet<>();
+            shopIds = pending;
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    catalogSyncServiceProvider.getObject().touchShops(pending);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ShopSyncListener.this);
+                }
+            });
+        }
+        shopIds.add(shopId);
+    }
+}
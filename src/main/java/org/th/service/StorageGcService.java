@@ -0,0 +1,263 @@
+package org.th.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.th.util.BloomFilter;
+import org.th.util.ImageVariants;
+import org.th.util.ImageVariants.Variant;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Deletes stored objects that no row references any more
+ * Every URL column that can point into the bucket is streamed into a Bloom
+ * filter (with the variant keys of each original), then the bucket is walked
+ * page by page and objects the filter has never seen are deleted in parallel
+ * batches. A Bloom filter never forgets a member, so a referenced object is
+ * never deleted; at worst a small fraction of orphans survive until the next
+ * run. Objects younger than the grace period are left alone so in-flight
+ * uploads, unconfirmed upload tickets and fresh variants are not collected.
+ */
+@Service
+@Slf4j
+public class StorageGcService {
+
+    private static final double FALSE_POSITIVE_RATE = 0.001;
+    private static final int SAMPLE_SIZE = 50;
+
+    // Entity -> columns holding URLs of stored objects
+    private static final Map<String, List<String>> URL_COLUMNS = Map.of(
+            "ShopPhoto", List.of("url", "thumbnailUrl", "mediumUrl", "fullUrl"),
+            "ReviewPhoto", List.of("url", "thumbnailUrl", "mediumUrl", "fullUrl"),
+            "MenuItemReviewPhoto", List.of("url", "thumbnailUrl", "mediumUrl", "fullUrl"),
+            "MenuItemPhoto", List.of("url", "thumbnailUrl", "mediumUrl", "fullUrl"),
+            "MenuCategoryPhoto", List.of("url", "thumbnailUrl", "mediumUrl", "fullUrl"),
+            "MenuSubCategoryPhoto", List.of("url"),
+            "Shop", List.of("logoUrl", "coverUrl"),
+            "MenuItem", List.of("imageUrl"),
+            "MenuCategory", List.of("imageUrl"),
+            "MenuSubCategory", List.of("imageUrl"));
+
+    private final SupabaseStorageService supabaseStorageService;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor gcExecutor;
+    private final Duration gracePeriod;
+    private final int deleteBatchSize;
+    private final int deleteParallelism;
+    private final boolean scheduledDryRun;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicReference<GcReport> lastReport = new AtomicReference<>();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public StorageGcService(
+            SupabaseStorageService supabaseStorageService,
+            PlatformTransactionManager transactionManager,
+            @Qualifier("storageGcExecutor") Executor gcExecutor,
+            @Value("${app.storage.gc.grace-hours:48}") long graceHours,
+            @Value("${app.storage.gc.delete-batch-size:100}") int deleteBatchSize,
+            @Value("${app.storage.gc.delete-parallelism:4}") int deleteParallelism,
+            @Value("${app.storage.gc.dry-run:true}") boolean scheduledDryRun) {
+        this.supabaseStorageService = supabaseStorageService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.gcExecutor = gcExecutor;
+        this.gracePeriod = Duration.ofHours(graceHours);
+        this.deleteBatchSize = Math.max(1, Math.min(deleteBatchSize, 1000));
+        this.deleteParallelism = Math.max(1, deleteParallelism);
+        this.scheduledDryRun = scheduledDryRun;
+    }
+
+    /**
+     * Outcome of a collection run; in a dry run {@code deleted} stays 0 and {@code orphaned} is what would go
+     */
+    public record GcReport(boolean dryRun, long scanned, long orphaned, long orphanedBytes, long tooRecent,
+            long deleted, long failed, List<String> sample, Instant startedAt, long durationMs) {
+    }
+
+    /**
+     * Weekly collection; deletes only when {@code app.storage.gc.dry-run} is false
+     * The walk is handed to the GC executor so it never holds a scheduler thread.
+     */
+    @Scheduled(cron = "${app.storage.gc.cron:0 30 4 * * SUN}")
+    public void scheduledCollect() {
+        try {
+            gcExecutor.execute(() -> collect(scheduledDryRun));
+        } catch (RejectedExecutionException e) {
+            log.info("Storage GC already queued, skipping scheduled run");
+        }
+    }
+
+    /**
+     * Collect orphans in the background
+     */
+    @Async("storageGcExecutor")
+    public CompletableFuture<GcReport> collectAsync(boolean dryRun) {
+        return CompletableFuture.completedFuture(collect(dryRun));
+    }
+
+    /**
+     * Report of the most recent run, or null if none has finished since startup
+     */
+    public GcReport getLastReport() {
+        return lastReport.get();
+    }
+
+    public GcReport collect(boolean dryRun) {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Storage GC already running");
+            return null;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            BloomFilter referenced = referencedObjects();
+            log.info("Storage GC: loaded referenced objects in {} ms", System.currentTimeMillis() - start);
+            GcReport report = sweep(referenced, dryRun);
+            lastReport.set(report);
+            log.info("Storage GC{}: scanned {}, orphaned {} ({} bytes), too recent {}, deleted {}, failed {} in {} ms",
+                    dryRun ? " (dry run)" : "", report.scanned(), report.orphaned(), report.orphanedBytes(),
+                    report.tooRecent(), report.deleted(), report.failed(), report.durationMs());
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Walk the bucket and delete (or, in a dry run, count) objects not in {@code referenced}
+     */
+    GcReport sweep(BloomFilter referenced, boolean dryRun) {
+        Instant startedAt = Instant.now();
+        Instant cutoff = startedAt.minus(gracePeriod);
+        AtomicLong scanned = new AtomicLong();
+        AtomicLong orphaned = new AtomicLong();
+        AtomicLong orphanedBytes = new AtomicLong();
+        AtomicLong tooRecent = new AtomicLong();
+        AtomicLong deleted = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        List<String> sample = new ArrayList<>();
+
+        Semaphore permits = new Semaphore(deleteParallelism);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<String> batch = new ArrayList<>(deleteBatchSize);
+            Consumer<List<String>> submit = paths -> {
+                // Blocks the walk while deleteParallelism batches are in flight
+                permits.acquireUninterruptibly();
+                executor.execute(() -> {
+                    try {
+                        supabaseStorageService.deleteImages(paths);
+                        deleted.addAndGet(paths.size());
+                    } catch (RuntimeException e) {
+                        failed.addAndGet(paths.size());
+                        log.warn("Storage GC: failed to delete {} objects: {}", paths.size(), e.getMessage());
+                    } finally {
+                        permits.release();
+                    }
+                });
+            };
+
+            supabaseStorageService.walk("", object -> {
+                scanned.incrementAndGet();
+                if (referenced.mightContain(object.path())) {
+                    return;
+                }
+                if (object.createdAt() == null || object.createdAt().isAfter(cutoff)) {
+                    tooRecent.incrementAndGet();
+                    return;
+                }
+                orphaned.incrementAndGet();
+                orphanedBytes.addAndGet(Math.max(0, object.size()));
+                if (sample.size() < SAMPLE_SIZE) {
+                    sample.add(object.path());
+                }
+                if (!dryRun) {
+                    batch.add(object.path());
+                    if (batch.size() == deleteBatchSize) {
+                        submit.accept(List.copyOf(batch));
+                        batch.clear();
+                    }
+                }
+            });
+            if (!batch.isEmpty()) {
+                submit.accept(List.copyOf(batch));
+            }
+        } // waits for every batch
+
+        return new GcReport(dryRun, scanned.get(), orphaned.get(), orphanedBytes.get(), tooRecent.get(),
+                deleted.get(), failed.get(), List.copyOf(sample), startedAt,
+                Duration.between(startedAt, Instant.now()).toMillis());
+    }
+
+    /**
+     * Stream every referenced URL (and its variant keys) into a Bloom filter sized from the row counts
+     */
+    private BloomFilter referencedObjects() {
+        long expected = transactionTemplate.execute(status -> {
+            long total = 0;
+            for (Map.Entry<String, List<String>> entity : URL_COLUMNS.entrySet()) {
+                long rows = entityManager.createQuery("SELECT COUNT(e) FROM " + entity.getKey() + " e", Long.class)
+                        .getSingleResult();
+                // Each URL also vouches for its variant keys
+                total += rows * entity.getValue().size() * (1 + Variant.values().length);
+            }
+            return total;
+        });
+        BloomFilter filter = new BloomFilter(expected, FALSE_POSITIVE_RATE);
+        transactionTemplate.executeWithoutResult(status -> URL_COLUMNS.forEach((entity, columns) -> {
+            try (Stream<String> urls = streamUrls(entity, columns)) {
+                urls.forEach(url -> addReferenced(filter, url));
+            }
+        }));
+        return filter;
+    }
+
+    /**
+     * Rows: one value per URL column
+     */
+    @SuppressWarnings("unchecked")
+    private Stream<String> streamUrls(String entity, List<String> columns) {
+        String select = String.join(", ", columns.stream().map(column -> "e." + column).toList());
+        Stream<Object> rows = entityManager.createQuery("SELECT " + select + " FROM " + entity + " e")
+                .setHint("org.hibernate.fetchSize", 1000)
+                .setHint("org.hibernate.readOnly", true)
+                .getResultStream();
+        return rows.flatMap(row -> row instanceof Object[] values ? Stream.of(values) : Stream.of(row))
+                .map(value -> (String) value);
+    }
+
+    private void addReferenced(BloomFilter filter, String url) {
+        String path = url != null ? supabaseStorageService.extractFilePath(url) : null;
+        if (path == null) {
+            return;
+        }
+        filter.add(path);
+        for (Variant variant : Variant.values()) {
+            filter.add(ImageVariants.variantPath(path, variant));
+        }
+    }
+}
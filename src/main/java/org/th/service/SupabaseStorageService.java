@@ -2,38 +2,71 @@ package org.th.service;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import okhttp3.*;
-import org.springframework.beans.factory.annotation.Autowired;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Source;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import org.th.config.SupabaseConfig;
 import org.th.exception.SupabaseStorageException;
 
 import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
 
 /**
  * Service for managing file uploads to Supabase Storage
+ * Uploads stream straight from the multipart part into the request body, so a
+ * file is never held in heap. Every upload is an upsert to a path chosen up
+ * front, which makes retrying a failed or timed-out attempt idempotent.
  */
 @Service
 @lombok.extern.slf4j.Slf4j
 public class SupabaseStorageService {
 
     private static final long MAX_FILE_SIZE = 10 * 1024 * 1024; // 10MB
+    private static final int LIST_PAGE_SIZE = 1000;
     private static final List<String> ALLOWED_CONTENT_TYPES = List.of(
             "image/jpeg", "image/jpg", "image/png", "image/webp", "image/gif");
 
-    @Autowired
-    private SupabaseConfig supabaseConfig;
-
-    @Autowired
-    private OkHttpClient okHttpClient;
+    private final SupabaseConfig supabaseConfig;
+    private final OkHttpClient okHttpClient;
+    // Shared by every batch, so concurrent requests together stay within app.storage.upload-parallelism
+    private final Semaphore uploadPermits;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
 
     private final Gson gson = new Gson();
 
+    public SupabaseStorageService(
+            SupabaseConfig supabaseConfig,
+            OkHttpClient okHttpClient,
+            @Value("${app.storage.upload-parallelism:4}") int uploadParallelism,
+            @Value("${app.storage.upload-max-attempts:3}") int maxAttempts,
+            @Value("${app.storage.retry-backoff-ms:200}") long retryBackoffMillis) {
+        this.supabaseConfig = supabaseConfig;
+        this.okHttpClient = okHttpClient;
+        this.uploadPermits = new Semaphore(Math.max(1, uploadParallelism));
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMillis = retryBackoffMillis;
+    }
+
     /**
      * Upload an image to Supabase Storage
      *
@@ -44,45 +77,285 @@ public class SupabaseStorageService {
     public String uploadImage(MultipartFile file, String folder) {
         validateFile(file);
 
-        String fileName = generateFileName(file.getOriginalFilename());
-        String filePath = folder + "/" + fileName;
+        String filePath = folder + "/" + generateFileName(file.getOriginalFilename());
+        return upload(filePath, streamingBody(file), file.getContentType());
+    }
 
-        try {
-            // Create request body
-            RequestBody requestBody = RequestBody.create(
-                    file.getBytes(),
-                    MediaType.parse(file.getContentType()));
+    /**
+     * Upload several images to the same folder concurrently
+     * Null and empty files are skipped. Every file is validated before any is
+     * uploaded; if one upload fails the others are deleted again and the
+     * failure is rethrown.
+     *
+     * @return The public URLs, in the order of the (non-empty) files
+     */
+    public List<String> uploadImages(List<MultipartFile> files, String folder) {
+        List<MultipartFile> toUpload = files == null ? List.of()
+                : files.stream().filter(f -> f != null && !f.isEmpty()).toList();
+        if (toUpload.isEmpty()) {
+            return List.of();
+        }
+        toUpload.forEach(this::validateFile);
+        if (toUpload.size() == 1) {
+            return List.of(uploadImage(toUpload.get(0), folder));
+        }
 
-            // Build the upload URL
-            String uploadUrl = String.format("%s/storage/v1/object/%s/%s",
-                    supabaseConfig.getSupabaseUrl(),
-                    supabaseConfig.getSupabaseBucket(),
-                    filePath);
+        List<Future<String>> uploads = new ArrayList<>(toUpload.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (MultipartFile file : toUpload) {
+                uploads.add(executor.submit(() -> {
+                    uploadPermits.acquire();
+                    try {
+                        return uploadImage(file, folder);
+                    } finally {
+                        uploadPermits.release();
+                    }
+                }));
+            }
+        } // waits for every upload
+
+        List<String> urls = new ArrayList<>(uploads.size());
+        RuntimeException failure = null;
+        for (Future<String> upload : uploads) {
+            try {
+                urls.add(upload.get());
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof SupabaseStorageException storageException
+                            ? storageException
+                            : new SupabaseStorageException("Error uploading file", e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (failure == null) {
+                    failure = new SupabaseStorageException("Upload interrupted", e);
+                }
+            }
+        }
+        if (failure != null) {
+            urls.forEach(this::deleteQuietly);
+            throw failure;
+        }
+        return urls;
+    }
 
-            // Create request
-            Request request = new Request.Builder()
-                    .url(uploadUrl)
-                    .addHeader("Authorization", "Bearer " + supabaseConfig.getSupabaseKey())
-                    .addHeader("Content-Type", file.getContentType())
-                    .post(requestBody)
-                    .build();
+    /**
+     * Upload bytes to a fixed path, replacing any existing object there
+     *
+     * @param filePath    The path in the bucket
+     * @param bytes       The file content
+     * @param contentType The MIME type
+     * @return The public URL of the uploaded file
+     */
+    public String uploadBytes(String filePath, byte[] bytes, String contentType) {
+        return upload(filePath, RequestBody.create(bytes, MediaType.parse(contentType)), contentType);
+    }
 
-            // Execute request
+    /**
+     * Upsert a body to a path, retrying I/O errors, 429s and 5xx responses with exponential backoff
+     */
+    private String upload(String filePath, RequestBody body, String contentType) {
+        String uploadUrl = String.format("%s/storage/v1/object/%s/%s",
+                supabaseConfig.getSupabaseUrl(),
+                supabaseConfig.getSupabaseBucket(),
+                filePath);
+
+        Request request = new Request.Builder()
+                .url(uploadUrl)
+                .addHeader("Authorization", "Bearer " + supabaseConfig.getSupabaseKey())
+                .addHeader("Content-Type", contentType)
+                .addHeader("x-upsert", "true")
+                .post(body)
+                .build();
+
+        for (int attempt = 1;; attempt++) {
             try (Response response = okHttpClient.newCall(request).execute()) {
-                if (!response.isSuccessful()) {
-                    String errorBody = response.body() != null ? response.body().string() : "Unknown error";
+                if (response.isSuccessful()) {
+                    log.info("Successfully uploaded file to Supabase: {}", filePath);
+                    return getPublicUrl(filePath);
+                }
+                String errorBody = response.body() != null ? response.body().string() : "Unknown error";
+                boolean retryable = response.code() == 429 || response.code() >= 500;
+                if (!retryable || attempt >= maxAttempts) {
                     log.error("Failed to upload file to Supabase: {} - {}", response.code(), errorBody);
                     throw new SupabaseStorageException("Failed to upload file: " + errorBody);
                 }
+                log.warn("Upload of {} failed with {} (attempt {}/{}), retrying", filePath, response.code(),
+                        attempt, maxAttempts);
+            } catch (IOException e) {
+                if (attempt >= maxAttempts) {
+                    log.error("Error uploading file to Supabase", e);
+                    throw new SupabaseStorageException("Error uploading file", e);
+                }
+                log.warn("Upload of {} failed: {} (attempt {}/{}), retrying", filePath, e.getMessage(),
+                        attempt, maxAttempts);
+            }
+            backOff(attempt);
+        }
+    }
+
+    private void backOff(int attempt) {
+        try {
+            Thread.sleep(retryBackoffMillis << (attempt - 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SupabaseStorageException("Upload interrupted", e);
+        }
+    }
+
+    /**
+     * Request body that copies the part's stream into the socket; reopened on each retry
+     */
+    private static RequestBody streamingBody(MultipartFile file) {
+        MediaType mediaType = MediaType.parse(file.getContentType());
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return mediaType;
+            }
+
+            @Override
+            public long contentLength() {
+                return file.getSize();
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                try (Source source = Okio.source(file.getInputStream())) {
+                    sink.writeAll(source);
+                }
+            }
+        };
+    }
+
+    /**
+     * Best-effort delete of an uploaded file by its public URL (cleanup after a failed upload)
+     * Failures are logged, not thrown; storage GC removes anything left behind.
+     */
+    public void deleteQuietly(String url) {
+        String filePath = extractFilePath(url);
+        if (filePath == null) {
+            return;
+        }
+        try {
+            deleteImage(filePath);
+        } catch (SupabaseStorageException e) {
+            log.warn("Could not delete {} after a failed upload: {}", filePath, e.getMessage());
+        }
+    }
+
+    /**
+     * A signed URL a client can PUT one object to, without our credentials
+     */
+    public record SignedUpload(String path, String uploadUrl, String token) {
+    }
+
+    /**
+     * Size and type of a stored object
+     */
+    public record StoredObject(long size, String contentType) {
+    }
+
+    /**
+     * Create a signed upload URL for a path
+     * Asks for {@code expiresIn}; storage versions that fix the upload URL
+     * lifetime server-side (two hours by default) ignore it, so callers must
+     * not rely on the URL dying with their own deadline.
+     *
+     * @param filePath  The path in the bucket the client will upload to
+     * @param expiresIn How long the client needs the URL for
+     * @return The absolute upload URL and its token
+     */
+    public SignedUpload createSignedUploadUrl(String filePath, java.time.Duration expiresIn) {
+        String signUrl = String.format("%s/storage/v1/object/upload/sign/%s/%s",
+                supabaseConfig.getSupabaseUrl(),
+                supabaseConfig.getSupabaseBucket(),
+                filePath);
 
-                log.info("Successfully uploaded file to Supabase: {}", filePath);
-                return getPublicUrl(filePath);
+        Request request = new Request.Builder()
+                .url(signUrl)
+                .addHeader("Authorization", "Bearer " + supabaseConfig.getSupabaseKey())
+                .post(RequestBody.create("{\"expiresIn\":" + Math.max(1, expiresIn.toSeconds()) + "}",
+                        MediaType.parse("application/json")))
+                .build();
+
+        try (Response response = okHttpClient.newCall(request).execute()) {
+            String body = response.body() != null ? response.body().string() : "";
+            if (!response.isSuccessful()) {
+                log.error("Failed to sign upload URL: {} - {}", response.code(), body);
+                throw new SupabaseStorageException("Failed to create upload URL: " + body);
             }
+            return parseSignedUpload(filePath, body);
+        } catch (IOException e) {
+            log.error("Error signing upload URL", e);
+            throw new SupabaseStorageException("Error creating upload URL", e);
+        }
+    }
+
+    /**
+     * Body: {"url": "/object/upload/sign/<bucket>/<path>?token=..."}, relative to /storage/v1
+     */
+    private SignedUpload parseSignedUpload(String filePath, String body) {
+        try {
+            String relative = gson.fromJson(body, JsonObject.class).get("url").getAsString();
+            HttpUrl uploadUrl = HttpUrl.get(supabaseConfig.getSupabaseUrl() + "/storage/v1" + relative);
+            return new SignedUpload(filePath, uploadUrl.toString(), uploadUrl.queryParameter("token"));
+        } catch (RuntimeException e) {
+            throw new SupabaseStorageException("Unexpected upload URL response: " + body, e);
+        }
+    }
+
+    /**
+     * Look up an object's size and content type without downloading it
+     *
+     * @return The object's metadata, or empty if nothing is stored at the path
+     */
+    public Optional<StoredObject> getObjectInfo(String filePath) {
+        String objectUrl = String.format("%s/storage/v1/object/%s/%s",
+                supabaseConfig.getSupabaseUrl(),
+                supabaseConfig.getSupabaseBucket(),
+                filePath);
 
+        Request request = new Request.Builder()
+                .url(objectUrl)
+                .addHeader("Authorization", "Bearer " + supabaseConfig.getSupabaseKey())
+                .head()
+                .build();
+
+        try (Response response = okHttpClient.newCall(request).execute()) {
+            if (response.code() == 404 || response.code() == 400) {
+                return Optional.empty();
+            }
+            if (!response.isSuccessful()) {
+                throw new SupabaseStorageException("Failed to look up file: " + response.code());
+            }
+            String length = response.header("Content-Length");
+            return Optional.of(new StoredObject(
+                    length != null ? Long.parseLong(length) : -1,
+                    response.header("Content-Type")));
         } catch (IOException e) {
-            log.error("Error uploading file to Supabase", e);
-            throw new SupabaseStorageException("Error uploading file", e);
+            log.error("Error looking up file in Supabase", e);
+            throw new SupabaseStorageException("Error looking up file", e);
+        }
+    }
+
+    public static boolean isAllowedContentType(String contentType) {
+        return contentType != null && ALLOWED_CONTENT_TYPES.contains(contentType.toLowerCase());
+    }
+
+    public static long getMaxFileSize() {
+        return MAX_FILE_SIZE;
+    }
+
+    /**
+     * Path in the bucket of one of our public URLs, or null for URLs stored elsewhere
+     */
+    public String extractFilePath(String url) {
+        String prefix = getPublicUrl("");
+        if (url == null || !url.startsWith(prefix) || url.length() == prefix.length()) {
+            return null;
         }
+        return url.substring(prefix.length());
     }
 
     /**
@@ -133,60 +406,152 @@ public class SupabaseStorageService {
     }
 
     /**
-     * List all files in a folder
+     * A stored object found by walking the bucket
+     */
+    public record BucketObject(String path, long size, Instant createdAt) {
+    }
+
+    /**
+     * List all files in a folder (not its sub-folders)
      *
      * @param folder The folder path
      * @return List of file paths
      */
     public List<String> listImages(String folder) {
-        try {
-            String listUrl = String.format("%s/storage/v1/object/list/%s",
-                    supabaseConfig.getSupabaseUrl(),
-                    supabaseConfig.getSupabaseBucket());
-
-            // Create request body with folder prefix
-            JsonObject requestJson = new JsonObject();
-            requestJson.addProperty("prefix", folder);
-            requestJson.addProperty("limit", 100);
-
-            RequestBody requestBody = RequestBody.create(
-                    requestJson.toString(),
-                    MediaType.parse("application/json"));
-
-            Request request = new Request.Builder()
-                    .url(listUrl)
-                    .addHeader("Authorization", "Bearer " + supabaseConfig.getSupabaseKey())
-                    .post(requestBody)
-                    .build();
-
-            try (Response response = okHttpClient.newCall(request).execute()) {
-                if (!response.isSuccessful()) {
-                    String errorBody = response.body() != null ? response.body().string() : "Unknown error";
-                    log.error("Failed to list files from Supabase: {} - {}", response.code(), errorBody);
-                    throw new SupabaseStorageException("Failed to list files: " + errorBody);
+        List<String> filePaths = new ArrayList<>();
+        for (int offset = 0; ; offset += LIST_PAGE_SIZE) {
+            JsonArray page = listPage(folder, offset);
+            page.forEach(element -> {
+                JsonObject entry = element.getAsJsonObject();
+                if (!isFolder(entry)) {
+                    filePaths.add(folder + "/" + entry.get("name").getAsString());
                 }
+            });
+            if (page.size() < LIST_PAGE_SIZE) {
+                return filePaths;
+            }
+        }
+    }
 
-                String responseBody = response.body().string();
-                JsonArray files = gson.fromJson(responseBody, JsonArray.class);
-
-                List<String> filePaths = new ArrayList<>();
-                files.forEach(element -> {
-                    JsonObject fileObj = element.getAsJsonObject();
-                    String name = fileObj.get("name").getAsString();
-                    if (!name.endsWith("/")) { // Exclude folders
-                        filePaths.add(folder + "/" + name);
+    /**
+     * Visit every object under a prefix, a page at a time, descending into sub-folders
+     * Only the folders still to visit are kept in memory, never the whole listing.
+     *
+     * @param prefix  The folder to start from; empty for the whole bucket
+     * @param visitor Called once per object
+     */
+    public void walk(String prefix, Consumer<BucketObject> visitor) {
+        Deque<String> folders = new ArrayDeque<>();
+        folders.push(prefix);
+        while (!folders.isEmpty()) {
+            String folder = folders.pop();
+            String base = folder.isEmpty() ? "" : folder + "/";
+            for (int offset = 0; ; offset += LIST_PAGE_SIZE) {
+                JsonArray page = listPage(folder, offset);
+                for (JsonElement element : page) {
+                    JsonObject entry = element.getAsJsonObject();
+                    String path = base + entry.get("name").getAsString();
+                    if (isFolder(entry)) {
+                        folders.push(path);
+                    } else {
+                        visitor.accept(toBucketObject(path, entry));
                     }
-                });
+                }
+                if (page.size() < LIST_PAGE_SIZE) {
+                    break;
+                }
+            }
+        }
+    }
 
-                return filePaths;
+    /**
+     * Delete many files in one request
+     *
+     * @param filePaths Paths in the bucket (at most 1000)
+     */
+    public void deleteImages(Collection<String> filePaths) {
+        if (filePaths.isEmpty()) {
+            return;
+        }
+        String deleteUrl = String.format("%s/storage/v1/object/%s",
+                supabaseConfig.getSupabaseUrl(),
+                supabaseConfig.getSupabaseBucket());
+
+        JsonObject requestJson = new JsonObject();
+        JsonArray prefixes = new JsonArray();
+        filePaths.forEach(prefixes::add);
+        requestJson.add("prefixes", prefixes);
+
+        Request request = new Request.Builder()
+                .url(deleteUrl)
+                .addHeader("Authorization", "Bearer " + supabaseConfig.getSupabaseKey())
+                .delete(RequestBody.create(requestJson.toString(), MediaType.parse("application/json")))
+                .build();
+
+        try (Response response = okHttpClient.newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                String errorBody = response.body() != null ? response.body().string() : "Unknown error";
+                log.error("Failed to delete files from Supabase: {} - {}", response.code(), errorBody);
+                throw new SupabaseStorageException("Failed to delete files: " + errorBody);
             }
+        } catch (IOException e) {
+            log.error("Error deleting files from Supabase", e);
+            throw new SupabaseStorageException("Error deleting files", e);
+        }
+    }
 
+    /**
+     * One page of a folder's entries, sorted by name
+     */
+    private JsonArray listPage(String folder, int offset) {
+        String listUrl = String.format("%s/storage/v1/object/list/%s",
+                supabaseConfig.getSupabaseUrl(),
+                supabaseConfig.getSupabaseBucket());
+
+        JsonObject sortBy = new JsonObject();
+        sortBy.addProperty("column", "name");
+        sortBy.addProperty("order", "asc");
+        JsonObject requestJson = new JsonObject();
+        requestJson.addProperty("prefix", folder);
+        requestJson.addProperty("limit", LIST_PAGE_SIZE);
+        requestJson.addProperty("offset", offset);
+        requestJson.add("sortBy", sortBy);
+
+        Request request = new Request.Builder()
+                .url(listUrl)
+                .addHeader("Authorization", "Bearer " + supabaseConfig.getSupabaseKey())
+                .post(RequestBody.create(requestJson.toString(), MediaType.parse("application/json")))
+                .build();
+
+        try (Response response = okHttpClient.newCall(request).execute()) {
+            String body = response.body() != null ? response.body().string() : "";
+            if (!response.isSuccessful()) {
+                log.error("Failed to list files from Supabase: {} - {}", response.code(), body);
+                throw new SupabaseStorageException("Failed to list files: " + body);
+            }
+            return gson.fromJson(body, JsonArray.class);
         } catch (IOException e) {
             log.error("Error listing files from Supabase", e);
             throw new SupabaseStorageException("Error listing files", e);
         }
     }
 
+    // Folders are listed as entries without an object id
+    private static boolean isFolder(JsonObject entry) {
+        return !entry.has("id") || entry.get("id").isJsonNull();
+    }
+
+    private static BucketObject toBucketObject(String path, JsonObject entry) {
+        long size = -1;
+        JsonElement metadata = entry.get("metadata");
+        if (metadata != null && metadata.isJsonObject() && metadata.getAsJsonObject().has("size")) {
+            size = metadata.getAsJsonObject().get("size").getAsLong();
+        }
+        JsonElement createdAt = entry.get("created_at");
+        return new BucketObject(path, size,
+                createdAt != null && !createdAt.isJsonNull() ? Instant.parse(createdAt.getAsString()) : null);
+    }
+
     /**
      * Validate the uploaded file
      */
@@ -199,8 +564,7 @@ public class SupabaseStorageService {
             throw new SupabaseStorageException("File size exceeds maximum allowed size of 10MB");
         }
 
-        String contentType = file.getContentType();
-        if (contentType == null || !ALLOWED_CONTENT_TYPES.contains(contentType.toLowerCase())) {
+        if (!isAllowedContentType(file.getContentType())) {
             throw new SupabaseStorageException("Invalid file type. Only images are allowed (JPEG, PNG, WebP, GIF)");
         }
     }
@@ -0,0 +1,55 @@
+package org.th.service;
+
+import org.th.exception.InvalidParameterException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Delta-sync position: everything up to this shop's change time and ID has been seen
+ * Encoded as an opaque URL-safe token; no token means the client has nothing yet.
+ */
+public record SyncWatermark(LocalDateTime updatedAt, long shopId) {
+
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    public static SyncWatermark initial() {
+        return new SyncWatermark(BEGINNING, 0);
+    }
+
+    /**
+     * Past every shop changed up to {@code time}, whatever its ID
+     */
+    public static SyncWatermark through(LocalDateTime time) {
+        return new SyncWatermark(time, Long.MAX_VALUE);
+    }
+
+    /**
+     * Parse a token from a previous sync; null or blank means a first sync
+     */
+    public static SyncWatermark decode(String token) {
+        if (token == null || token.isBlank()) {
+            return initial();
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 2) {
+                throw new InvalidParameterException("since", "malformed");
+            }
+            return new SyncWatermark(LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidParameterException("since", "malformed");
+        }
+    }
+
+    public boolean isInitial() {
+        return updatedAt.equals(BEGINNING) && shopId == 0;
+    }
+
+    public String encode() {
+        String raw = updatedAt + "|" + shopId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,414 @@
+package org.th.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.th.dto.ConfirmUploadRequest;
+import org.th.dto.PhotoDTO;
+import org.th.dto.UploadTicketDTO;
+import org.th.dto.UploadTicketRequest;
+import org.th.entity.User;
+import org.th.entity.enums.Role;
+import org.th.entity.enums.UploadTarget;
+import org.th.entity.shops.MenuItem;
+import org.th.entity.shops.MenuItemPhoto;
+import org.th.entity.shops.ReviewPhoto;
+import org.th.entity.shops.Shop;
+import org.th.entity.shops.ShopPhoto;
+import org.th.entity.shops.ShopReview;
+import org.th.exception.InvalidParameterException;
+import org.th.exception.ResourceNotFoundException;
+import org.th.exception.SupabaseStorageException;
+import org.th.exception.UnauthorizedAccessException;
+import org.th.repository.MenuItemPhotoRepository;
+import org.th.repository.MenuItemRepository;
+import org.th.repository.ReviewPhotoRepository;
+import org.th.repository.ShopPhotoRepository;
+import org.th.repository.ShopRepository;
+import org.th.repository.ShopReviewRepository;
+import org.th.service.SupabaseStorageService.SignedUpload;
+import org.th.service.SupabaseStorageService.StoredObject;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Client-direct photo uploads
+ * The server authorizes an upload and hands out a signed storage URL plus a
+ * ticket; the client PUTs the bytes straight to storage and confirms the
+ * ticket, at which point the stored object is checked and attached. The
+ * ticket is HMAC-signed and carries everything confirm needs, so no upload
+ * state is kept between the two calls and file bytes never pass through here.
+ * Storage calls in confirm run outside any transaction; only the attach
+ * itself does, under a row lock on the target.
+ */
+@Service
+@Slf4j
+public class UploadTicketService {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int MIN_SECRET_LENGTH = 32;
+    private static final Map<String, String> EXTENSIONS = Map.of(
+            "image/jpeg", ".jpg",
+            "image/jpg", ".jpg",
+            "image/png", ".png",
+            "image/webp", ".webp",
+            "image/gif", ".gif");
+
+    private final SupabaseStorageService supabaseStorageService;
+    private final ImageVariantService imageVariantService;
+    private final ShopRepository shopRepository;
+    private final ShopReviewRepository shopReviewRepository;
+    private final MenuItemRepository menuItemRepository;
+    private final ShopPhotoRepository shopPhotoRepository;
+    private final ReviewPhotoRepository reviewPhotoRepository;
+    private final MenuItemPhotoRepository menuItemPhotoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final SecretKeySpec ticketKey;
+    private final Duration ticketTtl;
+
+    public UploadTicketService(
+            SupabaseStorageService supabaseStorageService,
+            ImageVariantService imageVariantService,
+            ShopRepository shopRepository,
+            ShopReviewRepository shopReviewRepository,
+            MenuItemRepository menuItemRepository,
+            ShopPhotoRepository shopPhotoRepository,
+            ReviewPhotoRepository reviewPhotoRepository,
+            MenuItemPhotoRepository menuItemPhotoRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.uploads.ticket-secret}") String ticketSecret,
+            @Value("${app.uploads.ticket-ttl-minutes:15}") long ticketTtlMinutes) {
+        this.supabaseStorageService = supabaseStorageService;
+        this.imageVariantService = imageVariantService;
+        this.shopRepository = shopRepository;
+        this.shopReviewRepository = shopReviewRepository;
+        this.menuItemRepository = menuItemRepository;
+        this.shopPhotoRepository = shopPhotoRepository;
+        this.reviewPhotoRepository = reviewPhotoRepository;
+        this.menuItemPhotoRepository = menuItemPhotoRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // A key of its own: sharing the JWT secret would let a leak of either forge both
+        if (ticketSecret == null || ticketSecret.length() < MIN_SECRET_LENGTH) {
+            throw new IllegalStateException(
+                    "app.uploads.ticket-secret must be set to at least " + MIN_SECRET_LENGTH + " characters");
+        }
+        this.ticketKey = new SecretKeySpec(ticketSecret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+        this.ticketTtl = Duration.ofMinutes(ticketTtlMinutes);
+    }
+
+    /**
+     * What a ticket grants: one object at {@code path}, of at most {@code maxSize} bytes, for one user
+     */
+    record Ticket(UploadTarget target, long targetId, long userId, String path, String contentType,
+            long maxSize, long expiresAt) {
+
+        String payload() {
+            return String.join("|", target.name(), Long.toString(targetId), Long.toString(userId), path,
+                    contentType, Long.toString(maxSize), Long.toString(expiresAt));
+        }
+
+        static Ticket parse(String payload) {
+            String[] parts = payload.split("\\|", -1);
+            if (parts.length != 7) {
+                throw new IllegalArgumentException("Expected 7 fields, got " + parts.length);
+            }
+            return new Ticket(UploadTarget.valueOf(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2]),
+                    parts[3], parts[4], Long.parseLong(parts[5]), Long.parseLong(parts[6]));
+        }
+    }
+
+    /**
+     * Authorize an upload and sign a storage URL for it
+     */
+    public UploadTicketDTO issue(UploadTicketRequest request, User user) {
+        String contentType = request.getContentType().toLowerCase();
+        if (!SupabaseStorageService.isAllowedContentType(contentType)) {
+            throw new InvalidParameterException("contentType", "only JPEG, PNG, WebP and GIF images are allowed");
+        }
+        long maxSize = SupabaseStorageService.getMaxFileSize();
+        if (request.getSize() > maxSize) {
+            throw new InvalidParameterException("size", "exceeds the maximum of " + maxSize + " bytes");
+        }
+
+        String folder = authorize(request.getTarget(), request.getTargetId(), user);
+        String path = folder + "/" + UUID.randomUUID() + EXTENSIONS.get(contentType);
+        SignedUpload signed = supabaseStorageService.createSignedUploadUrl(path, ticketTtl);
+
+        Instant expiresAt = Instant.now().plus(ticketTtl);
+        Ticket ticket = new Ticket(request.getTarget(), request.getTargetId(), user.getId(), path, contentType,
+                maxSize, expiresAt.getEpochSecond());
+        return UploadTicketDTO.builder()
+                .ticket(sign(ticket))
+                .uploadUrl(signed.uploadUrl())
+                .path(path)
+                .contentType(contentType)
+                .maxSize(maxSize)
+                .expiresAt(expiresAt)
+                .build();
+    }
+
+    /**
+     * Check the uploaded object against its ticket and attach it; confirming twice returns the same photo
+     */
+    @Caching(evict = {
+            @CacheEvict(value = "shopDetails", allEntries = true),
+            @CacheEvict(value = "shopReviews", allEntries = true)
+    })
+    public PhotoDTO confirm(ConfirmUploadRequest request, User user) {
+        Ticket ticket = decode(request.getTicket());
+        if (!user.getId().equals(ticket.userId())) {
+            throw new UnauthorizedAccessException("This upload ticket was issued to another user");
+        }
+        String url = supabaseStorageService.getPublicUrl(ticket.path());
+        if (isExpired(ticket)) {
+            discardLateUpload(ticket, url);
+            throw new InvalidParameterException("ticket", "expired");
+        }
+
+        // Ownership and roles can change between issue and confirm
+        Optional<PhotoDTO> existing = transactionTemplate.execute(status -> {
+            authorize(ticket.target(), ticket.targetId(), user);
+            return findAttached(ticket, url);
+        });
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+
+        StoredObject object = supabaseStorageService.getObjectInfo(ticket.path())
+                .orElseThrow(() -> new InvalidParameterException("ticket", "no file has been uploaded yet"));
+        if (object.size() <= 0 || object.size() > ticket.maxSize()
+                || !SupabaseStorageService.isAllowedContentType(baseType(object.contentType()))) {
+            try {
+                supabaseStorageService.deleteImage(ticket.path());
+            } catch (SupabaseStorageException e) {
+                log.warn("Could not delete rejected upload {}: {}", ticket.path(), e.getMessage());
+            }
+            throw new InvalidParameterException("ticket",
+                    "uploaded file must be a JPEG, PNG, WebP or GIF image of at most " + ticket.maxSize() + " bytes");
+        }
+
+        return transactionTemplate.execute(status -> {
+            // Concurrent confirms of one ticket queue on the target row; the loser finds the winner's photo
+            lockTarget(ticket);
+            Optional<PhotoDTO> attached = findAttached(ticket, url);
+            if (attached.isPresent()) {
+                return attached.get();
+            }
+            PhotoDTO photo = attach(ticket, url, request.getCaption(), user);
+            imageVariantService.generateAfterCommit(url);
+            log.info("Attached client upload {} to {} {}", ticket.path(), ticket.target(), ticket.targetId());
+            return photo;
+        });
+    }
+
+    /**
+     * An expired ticket can no longer attach its object, so remove it unless it was attached in time
+     */
+    private void discardLateUpload(Ticket ticket, String url) {
+        if (transactionTemplate.execute(status -> findAttached(ticket, url)).isEmpty()) {
+            supabaseStorageService.deleteQuietly(url);
+        }
+    }
+
+    private void lockTarget(Ticket ticket) {
+        boolean found = switch (ticket.target()) {
+            case SHOP_PHOTO -> shopRepository.findByIdForUpdate(ticket.targetId()).isPresent();
+            case REVIEW_PHOTO -> shopReviewRepository.findByIdForUpdate(ticket.targetId()).isPresent();
+            case MENU_ITEM_PHOTO -> menuItemRepository.findByIdForUpdate(ticket.targetId()).isPresent();
+        };
+        if (!found) {
+            throw new ResourceNotFoundException("Upload target no longer exists: " + ticket.target() + " "
+                    + ticket.targetId());
+        }
+    }
+
+    /**
+     * Check the user may add a photo to the target and return the folder it goes in
+     */
+    private String authorize(UploadTarget target, long targetId, User user) {
+        switch (target) {
+            case SHOP_PHOTO -> {
+                if (!shopRepository.existsById(targetId)) {
+                    throw new ResourceNotFoundException("Shop not found with id: " + targetId);
+                }
+                return "shops/" + targetId + "/gallery";
+            }
+            case REVIEW_PHOTO -> {
+                ShopReview review = shopReviewRepository.findById(targetId)
+                        .orElseThrow(() -> new ResourceNotFoundException("Review not found with id: " + targetId));
+                if (review.getUser() == null || !review.getUser().getId().equals(user.getId())) {
+                    throw new UnauthorizedAccessException("You can only add photos to your own reviews");
+                }
+                return "reviews/" + targetId;
+            }
+            case MENU_ITEM_PHOTO -> {
+                if (user.getRole() != Role.ADMIN) {
+                    throw new UnauthorizedAccessException("Only admins can add menu item photos");
+                }
+                MenuItem item = menuItemRepository.findById(targetId)
+                        .orElseThrow(() -> new ResourceNotFoundException("Item not found with id: " + targetId));
+                return "shops/" + item.getShop().getId() + "/items/" + targetId + "/gallery";
+            }
+            default -> throw new InvalidParameterException("target", "unsupported: " + target);
+        }
+    }
+
+    private Optional<PhotoDTO> findAttached(Ticket ticket, String url) {
+        return switch (ticket.target()) {
+            case SHOP_PHOTO -> shopPhotoRepository.findFirstByShopIdAndUrl(ticket.targetId(), url)
+                    .map(UploadTicketService::toPhotoDTO);
+            case REVIEW_PHOTO -> reviewPhotoRepository.findFirstByShopReviewIdAndUrl(ticket.targetId(), url)
+                    .map(UploadTicketService::toPhotoDTO);
+            case MENU_ITEM_PHOTO -> menuItemPhotoRepository.findFirstByItemIdAndUrl(ticket.targetId(), url)
+                    .map(UploadTicketService::toPhotoDTO);
+        };
+    }
+
+    private PhotoDTO attach(Ticket ticket, String url, String caption, User user) {
+        switch (ticket.target()) {
+            case SHOP_PHOTO -> {
+                Shop shop = shopRepository.getReferenceById(ticket.targetId());
+                ShopPhoto photo = new ShopPhoto();
+                photo.setShop(shop);
+                photo.setUrl(url);
+                photo.setThumbnailUrl(url);
+                photo.setCaption(caption);
+                photo.setDisplayOrder((int) shopPhotoRepository.countByShopId(ticket.targetId()));
+                photo.setUploadedBy(user);
+                return toPhotoDTO(shopPhotoRepository.save(photo));
+            }
+            case REVIEW_PHOTO -> {
+                ReviewPhoto photo = new ReviewPhoto();
+                photo.setShopReview(shopReviewRepository.getReferenceById(ticket.targetId()));
+                photo.setUrl(url);
+                photo.setThumbnailUrl(url);
+                return toPhotoDTO(reviewPhotoRepository.save(photo));
+            }
+            case MENU_ITEM_PHOTO -> {
+                MenuItemPhoto photo = new MenuItemPhoto();
+                photo.setItem(menuItemRepository.getReferenceById(ticket.targetId()));
+                photo.setUrl(url);
+                photo.setThumbnailUrl(url);
+                photo.setCaption(caption);
+                photo.setDisplayOrder((int) menuItemPhotoRepository.countByItemId(ticket.targetId()));
+                photo.setUploadedBy(user);
+                return toPhotoDTO(menuItemPhotoRepository.save(photo));
+            }
+            default -> throw new InvalidParameterException("target", "unsupported: " + ticket.target());
+        }
+    }
+
+    String sign(Ticket ticket) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        byte[] payload = ticket.payload().getBytes(StandardCharsets.UTF_8);
+        return encoder.encodeToString(payload) + "." + encoder.encodeToString(mac(payload));
+    }
+
+    /**
+     * Decode a ticket, rejecting it unless the signature matches and it has not expired
+     */
+    Ticket verify(String token) {
+        Ticket ticket = decode(token);
+        if (isExpired(ticket)) {
+            throw new InvalidParameterException("ticket", "expired");
+        }
+        return ticket;
+    }
+
+    /**
+     * Decode a ticket, rejecting it unless the signature matches (expiry is not checked)
+     */
+    private Ticket decode(String token) {
+        int dot = token.indexOf('.');
+        if (dot < 0) {
+            throw new InvalidParameterException("ticket", "malformed");
+        }
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            byte[] payload = decoder.decode(token.substring(0, dot));
+            if (!MessageDigest.isEqual(mac(payload), decoder.decode(token.substring(dot + 1)))) {
+                throw new InvalidParameterException("ticket", "invalid signature");
+            }
+            return Ticket.parse(new String(payload, StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidParameterException("ticket", "malformed");
+        }
+    }
+
+    private static boolean isExpired(Ticket ticket) {
+        return Instant.now().getEpochSecond() > ticket.expiresAt();
+    }
+
+    private byte[] mac(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(ticketKey);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot sign upload tickets", e);
+        }
+    }
+
+    private static String baseType(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        int semicolon = contentType.indexOf(';');
+        return (semicolon >= 0 ? contentType.substring(0, semicolon) : contentType).trim();
+    }
+
+    private static PhotoDTO toPhotoDTO(ShopPhoto photo) {
+        return PhotoDTO.builder()
+                .id(photo.getId())
+                .url(photo.getUrl())
+                .thumbnailUrl(photo.getThumbnailUrl())
+                .mediumUrl(photo.getMediumUrl())
+                .fullUrl(photo.getFullUrl())
+                .photoType(photo.getPhotoType())
+                .caption(photo.getCaption())
+                .isPrimary(photo.getIsPrimary())
+                .displayOrder(photo.getDisplayOrder())
+                .uploadedAt(photo.getUploadedAt())
+                .build();
+    }
+
+    private static PhotoDTO toPhotoDTO(ReviewPhoto photo) {
+        return PhotoDTO.builder()
+                .id(photo.getId())
+                .url(photo.getUrl())
+                .thumbnailUrl(photo.getThumbnailUrl())
+                .mediumUrl(photo.getMediumUrl())
+                .fullUrl(photo.getFullUrl())
+                .uploadedAt(photo.getUploadedAt())
+                .build();
+    }
+
+    private static PhotoDTO toPhotoDTO(MenuItemPhoto photo) {
+        return PhotoDTO.builder()
+                .id(photo.getId())
+                .url(photo.getUrl())
+                .thumbnailUrl(photo.getThumbnailUrl())
+                .mediumUrl(photo.getMediumUrl())
+                .fullUrl(photo.getFullUrl())
+                .photoType(photo.getPhotoType())
+                .caption(photo.getCaption())
+                .isPrimary(photo.getIsPrimary())
+                .displayOrder(photo.getDisplayOrder())
+                .uploadedAt(photo.getUploadedAt())
+                .build();
+    }
+}
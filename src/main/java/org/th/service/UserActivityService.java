@@ -1,10 +1,9 @@
 package org.th.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.scheduling.annotation.Async;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
@@ -12,7 +11,6 @@ import org.th.entity.User;
 import org.th.entity.UserActivity;
 import org.th.entity.enums.ActivityType;
 import org.th.repository.UserActivityRepository;
-import org.th.repository.UserRepository;
 
 import java.time.LocalDateTime;
 
@@ -22,9 +20,11 @@ import java.time.LocalDateTime;
 public class UserActivityService {
 
     private final UserActivityRepository userActivityRepository;
-    private final UserRepository userRepository;
+    private final org.th.config.security.CurrentUserResolver currentUserResolver;
     private final org.th.repository.ShopRepository shopRepository;
     private final DeviceTrackingService deviceTrackingService;
+    private final MeterRegistry meterRegistry;
+    private final org.th.service.admin.ActivitySketchService activitySketchService;
 
     /**
      * ASYNC: Log user activity without blocking the main thread
@@ -64,10 +64,13 @@ public class UserActivityService {
             UserActivity activity = builder.build();
 
             userActivityRepository.save(activity);
+            activitySketchService.record(activity);
+            meterRegistry.counter("activity.log", "type", String.valueOf(type), "outcome", "saved").increment();
 
             log.debug("Logged activity: {} by user: {}", type, user != null ? user.getUsername() : "guest");
 
         } catch (Exception e) {
+            meterRegistry.counter("activity.log", "type", String.valueOf(type), "outcome", "failed").increment();
             log.error("Failed to log user activity: {}", e.getMessage());
             // Don't rethrow - logging failure shouldn't fail the request
         }
@@ -102,15 +105,11 @@ public class UserActivityService {
     }
 
     /**
-     * Helper to get current authenticated user
+     * Helper to get current authenticated user (security context is propagated
+     * to the tracking executor)
      */
     private User getCurrentUser() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        if (auth != null && auth.isAuthenticated() && !"anonymousUser".equals(auth.getPrincipal())) {
-            String username = auth.getName();
-            return userRepository.findByUsername(username).orElse(null);
-        }
-        return null;
+        return currentUserResolver.getCurrentUser();
     }
 
     /**
@@ -0,0 +1,294 @@
+package org.th.service.admin;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.th.entity.ActivitySketch;
+import org.th.entity.UserActivity;
+import org.th.entity.enums.ActivityType;
+import org.th.entity.enums.SketchDimension;
+import org.th.entity.shops.Shop;
+import org.th.repository.ActivitySketchRepository;
+import org.th.repository.UserActivityRepository;
+import org.th.util.HyperLogLog;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Daily unique-device sketches and event counts per shop, district, category and feature
+ * Activities are folded into in-memory sketches as they are logged and
+ * merged into {@code activity_sketches} every minute; yesterday is rebuilt
+ * exactly from the activity log each night, and missing days are backfilled
+ * at startup. Range queries merge one sketch per day instead of running
+ * COUNT(DISTINCT) over raw activity, and outlive the activity retention window.
+ */
+@Service
+@Slf4j
+public class ActivitySketchService {
+
+    public static final String ALL_KEY = "*";
+
+    private final ActivitySketchRepository sketchRepository;
+    private final UserActivityRepository userActivityRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int backfillDays;
+
+    private final Map<SketchKey, Pending> pending = new ConcurrentHashMap<>();
+
+    public ActivitySketchService(
+            ActivitySketchRepository sketchRepository,
+            UserActivityRepository userActivityRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.analytics.sketches.backfill-days:90}") int backfillDays) {
+        this.sketchRepository = sketchRepository;
+        this.userActivityRepository = userActivityRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.backfillDays = backfillDays;
+    }
+
+    /**
+     * A day's merged sketch and event count for one dimension value
+     */
+    public record DailySketch(LocalDate day, long events, HyperLogLog sketch) {
+    }
+
+    /**
+     * A dimension value's sketch and event count merged over a range
+     */
+    public record RangeSketch(String key, long events, HyperLogLog sketch) {
+    }
+
+    private record SketchKey(LocalDate day, SketchDimension dimension, String key) {
+    }
+
+    private static final class Pending {
+        final HyperLogLog sketch = new HyperLogLog();
+        long events;
+    }
+
+    /**
+     * Fold a just-saved activity into today's sketches (in memory until the next flush)
+     * Activity without a device ID still counts as an event; it just adds no unique device.
+     */
+    public void record(UserActivity activity) {
+        Shop shop = activity.getShop();
+        LocalDate day = activity.getCreatedAt() != null ? activity.getCreatedAt().toLocalDate() : LocalDate.now();
+        String deviceId = activity.getDeviceId();
+        long hash = deviceId != null ? HyperLogLog.hash64(deviceId) : 0L;
+        forEachKey(activity.getActivityType(), activity.getTargetId(),
+                shop != null ? shop.getCategory() : null,
+                shop != null && shop.getDistrict() != null ? shop.getDistrict().getId() : null,
+                activity.getTargetName(),
+                (dimension, key) -> pending.compute(new SketchKey(day, dimension, key), (k, p) -> {
+                    Pending updated = p != null ? p : new Pending();
+                    if (deviceId != null) {
+                        updated.sketch.addHash(hash);
+                    }
+                    updated.events++;
+                    return updated;
+                }));
+    }
+
+    /**
+     * Merge pending in-memory sketches into the table
+     */
+    @Scheduled(initialDelay = 60000, fixedDelay = 60000)
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<SketchKey, Pending> batch = new HashMap<>();
+        for (SketchKey key : new ArrayList<>(pending.keySet())) {
+            Pending p = pending.remove(key);
+            if (p != null) {
+                batch.put(key, p);
+            }
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> batch.forEach((key, p) -> {
+                ActivitySketch row = sketchRepository.findForUpdate(key.day(), key.dimension(), key.key())
+                        .orElseGet(() -> ActivitySketch.builder()
+                                .day(key.day())
+                                .dimension(key.dimension())
+                                .dimensionKey(key.key())
+                                .build());
+                HyperLogLog merged = row.getSketch() != null
+                        ? HyperLogLog.fromBytes(row.getSketch()).merge(p.sketch)
+                        : p.sketch;
+                row.setSketch(merged.toBytes());
+                row.setEvents(row.getEvents() + p.events);
+                sketchRepository.save(row);
+            }));
+            log.debug("Flushed {} activity sketches", batch.size());
+        } catch (RuntimeException e) {
+            // Put the batch back so the next flush retries it
+            batch.forEach((key, p) -> pending.merge(key, p, (current, failed) -> {
+                current.sketch.merge(failed.sketch);
+                current.events += failed.events;
+                return current;
+            }));
+            log.warn("Activity sketch flush failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Re-derive yesterday's sketches from the activity log (exact, includes late writes)
+     */
+    @Scheduled(cron = "0 20 0 * * ?")
+    public void sealYesterday() {
+        flush();
+        rebuildDay(LocalDate.now().minusDays(1));
+    }
+
+    /**
+     * Build sketches for recent days that have none (e.g. on first deploy)
+     * Runs on the background pool: on the tracking thread it would hold up activity logging.
+     */
+    @Async("backgroundExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        LocalDate from = yesterday.minusDays(backfillDays - 1L);
+        Set<LocalDate> sketched = new HashSet<>(sketchRepository.findSketchedDays(from, yesterday));
+        for (LocalDate day = from; !day.isAfter(yesterday); day = day.plusDays(1)) {
+            if (!sketched.contains(day)) {
+                rebuildDay(day);
+            }
+        }
+    }
+
+    /**
+     * Replace a day's sketches with ones built from that day's activity
+     */
+    public void rebuildDay(LocalDate day) {
+        long start = System.currentTimeMillis();
+        Map<SketchKey, Pending> built = new HashMap<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            // Rows: device id, activity type, target id, shop category, shop district id, target name
+            try (Stream<Object[]> rows = userActivityRepository.streamSketchRows(
+                    day.atStartOfDay(), day.plusDays(1).atStartOfDay())) {
+                rows.forEach(row -> {
+                    String deviceId = (String) row[0];
+                    long hash = deviceId != null ? HyperLogLog.hash64(deviceId) : 0L;
+                    forEachKey((ActivityType) row[1], (Long) row[2], (String) row[3], (Long) row[4],
+                            (String) row[5], (dimension, key) -> {
+                                Pending p = built.computeIfAbsent(new SketchKey(day, dimension, key),
+                                        k -> new Pending());
+                                if (deviceId != null) {
+                                    p.sketch.addHash(hash);
+                                }
+                                p.events++;
+                            });
+                });
+            }
+
+            sketchRepository.deleteByDay(day);
+            List<ActivitySketch> sketches = new ArrayList<>(built.size());
+            built.forEach((key, p) -> sketches.add(ActivitySketch.builder()
+                    .day(day)
+                    .dimension(key.dimension())
+                    .dimensionKey(key.key())
+                    .events(p.events)
+                    .sketch(p.sketch.toBytes())
+                    .build()));
+            sketchRepository.saveAll(sketches);
+        });
+        log.info("Rebuilt {} activity sketches for {} in {} ms", built.size(), day, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Merged sketch for one dimension value over [start, end]
+     */
+    public RangeSketch range(SketchDimension dimension, String key, LocalDate start, LocalDate end) {
+        HyperLogLog merged = new HyperLogLog();
+        long events = 0;
+        for (DailySketch daily : daily(dimension, key, start, end)) {
+            merged.merge(daily.sketch());
+            events += daily.events();
+        }
+        return new RangeSketch(key, events, merged);
+    }
+
+    /**
+     * One sketch per day for a dimension value over [start, end]; days without activity are omitted
+     */
+    public List<DailySketch> daily(SketchDimension dimension, String key, LocalDate start, LocalDate end) {
+        List<DailySketch> days = new ArrayList<>();
+        for (ActivitySketch row : sketchRepository.findByDimensionAndDimensionKeyAndDayBetweenOrderByDay(
+                dimension, key, start, end)) {
+            days.add(new DailySketch(row.getDay(), row.getEvents(), HyperLogLog.fromBytes(row.getSketch())));
+        }
+        return days;
+    }
+
+    /**
+     * The {@code limit} dimension values with the most events over [start, end], with their merged sketches
+     */
+    public List<RangeSketch> top(SketchDimension dimension, LocalDate start, LocalDate end, int limit) {
+        Map<String, Long> events = new LinkedHashMap<>();
+        for (Object[] row : sketchRepository.findTopKeysByEvents(dimension, start, end, PageRequest.of(0, limit))) {
+            events.put((String) row[0], ((Number) row[1]).longValue());
+        }
+        if (events.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, HyperLogLog> merged = new HashMap<>();
+        for (ActivitySketch row : sketchRepository.findByDimensionAndDimensionKeyInAndDayBetween(
+                dimension, events.keySet(), start, end)) {
+            merged.computeIfAbsent(row.getDimensionKey(), k -> new HyperLogLog())
+                    .merge(HyperLogLog.fromBytes(row.getSketch()));
+        }
+
+        List<RangeSketch> result = new ArrayList<>(events.size());
+        events.forEach((key, count) -> result.add(
+                new RangeSketch(key, count, merged.getOrDefault(key, new HyperLogLog()))));
+        return result;
+    }
+
+    @FunctionalInterface
+    private interface KeyConsumer {
+        void accept(SketchDimension dimension, String key);
+    }
+
+    /**
+     * The sketches an activity counts towards
+     */
+    private static void forEachKey(ActivityType type, Long targetId, String shopCategory, Long districtId,
+            String targetName, KeyConsumer consumer) {
+        consumer.accept(SketchDimension.ALL, ALL_KEY);
+        if (type != null) {
+            consumer.accept(SketchDimension.FEATURE, type.name());
+        }
+        if (type == ActivityType.VIEW_SHOP) {
+            if (targetId != null) {
+                consumer.accept(SketchDimension.SHOP, targetId.toString());
+            }
+            if (districtId != null) {
+                consumer.accept(SketchDimension.DISTRICT, districtId.toString());
+            }
+            if (shopCategory != null) {
+                consumer.accept(SketchDimension.CATEGORY, shopCategory);
+            }
+        } else if (type == ActivityType.VIEW_CATEGORY && targetName != null) {
+            // Category views carry the category as the target name
+            consumer.accept(SketchDimension.CATEGORY, targetName);
+        }
+    }
+}
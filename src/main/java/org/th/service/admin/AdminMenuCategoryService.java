@@ -4,6 +4,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.th.dto.CreateMenuCategoryRequest;
 import org.th.dto.MenuCategoryDTO;
@@ -17,6 +18,7 @@ import org.th.entity.shops.Shop;
 import org.th.exception.ResourceNotFoundException;
 import org.th.repository.MenuCategoryRepository;
 import org.th.repository.ShopRepository;
+import org.th.service.ImageVariantService;
 import org.th.service.SupabaseStorageService;
 
 import java.util.Collections;
@@ -31,6 +33,8 @@ public class AdminMenuCategoryService {
     private final MenuCategoryRepository menuCategoryRepository;
     private final ShopRepository shopRepository;
     private final SupabaseStorageService supabaseStorageService;
+    private final ImageVariantService imageVariantService;
+    private final TransactionTemplate transactionTemplate;
 
     @Transactional(readOnly = true)
     public MenuCategoryDTO getMenuCategoryById(Long id) {
@@ -39,9 +43,31 @@ public class AdminMenuCategoryService {
         return mapToMenuCategoryDTO(category);
     }
 
-    @Transactional
+    /**
+     * Create a category, then upload its images outside any transaction and attach them
+     * If an upload fails the new category is removed again.
+     */
     public MenuCategoryDTO createMenuCategory(Long shopId, CreateMenuCategoryRequest request, MultipartFile image,
             List<MultipartFile> galleryPhotos) {
+        MenuCategory created = transactionTemplate.execute(status -> newMenuCategory(shopId, request));
+
+        UploadedImages uploaded;
+        try {
+            uploaded = upload(shopId, created.getId(), image, galleryPhotos);
+        } catch (RuntimeException e) {
+            transactionTemplate.executeWithoutResult(status -> menuCategoryRepository.deleteById(created.getId()));
+            throw e;
+        }
+
+        return transactionTemplate.execute(status -> {
+            MenuCategory category = menuCategoryRepository.findById(created.getId())
+                    .orElseThrow(() -> new ResourceNotFoundException("Category not found"));
+            attach(category, uploaded);
+            return mapToMenuCategoryDTO(menuCategoryRepository.save(category));
+        });
+    }
+
+    private MenuCategory newMenuCategory(Long shopId, CreateMenuCategoryRequest request) {
         Shop shop = shopRepository.findById(shopId)
                 .orElseThrow(() -> new ResourceNotFoundException("Shop not found"));
 
@@ -53,37 +79,27 @@ public class AdminMenuCategoryService {
         category.setDisplayOrder(request.getDisplayOrder() != null ? request.getDisplayOrder() : 0);
         category.setIsActive(request.getIsActive() != null ? request.getIsActive() : true);
 
-        category = menuCategoryRepository.save(category);
-
-        if (image != null && !image.isEmpty()) {
-            String url = supabaseStorageService.uploadImage(image,
-                    "shops/" + shopId + "/categories/" + category.getId() + "/main");
-            category.setImageUrl(url);
-            category = menuCategoryRepository.save(category);
-        }
+        return menuCategoryRepository.save(category);
+    }
 
-        if (galleryPhotos != null && !galleryPhotos.isEmpty()) {
-            for (MultipartFile photo : galleryPhotos) {
-                if (!photo.isEmpty()) {
-                    String url = supabaseStorageService.uploadImage(photo, "shops/" + shopId + "/categories/"
-                            + category.getId() + "/gallery/" + System.currentTimeMillis());
-                    MenuCategoryPhoto catPhoto = new MenuCategoryPhoto();
-                    catPhoto.setCategory(category);
-                    catPhoto.setUrl(url);
-                    catPhoto.setThumbnailUrl(url);
-                    catPhoto.setIsPrimary(false);
-                    category.getPhotos().add(catPhoto);
-                }
-            }
-            category = menuCategoryRepository.save(category);
+    /**
+     * Upload any new images outside a transaction, then apply the changes in one
+     */
+    public MenuCategoryDTO updateMenuCategory(Long id, UpdateMenuCategoryRequest request, MultipartFile image,
+            List<MultipartFile> galleryPhotos) {
+        UploadedImages uploaded = UploadedImages.NONE;
+        if ((image != null && !image.isEmpty()) || (galleryPhotos != null && !galleryPhotos.isEmpty())) {
+            Long shopId = menuCategoryRepository.findById(id)
+                    .map(category -> category.getShop().getId())
+                    .orElseThrow(() -> new ResourceNotFoundException("Category not found"));
+            uploaded = upload(shopId, id, image, galleryPhotos);
         }
 
-        return mapToMenuCategoryDTO(category);
+        UploadedImages toAttach = uploaded;
+        return transactionTemplate.execute(status -> applyUpdate(id, request, toAttach));
     }
 
-    @Transactional
-    public MenuCategoryDTO updateMenuCategory(Long id, UpdateMenuCategoryRequest request, MultipartFile image,
-            List<MultipartFile> galleryPhotos) {
+    private MenuCategoryDTO applyUpdate(Long id, UpdateMenuCategoryRequest request, UploadedImages uploaded) {
         MenuCategory category = menuCategoryRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Category not found"));
 
@@ -98,29 +114,52 @@ public class AdminMenuCategoryService {
         if (request.getIsActive() != null)
             category.setIsActive(request.getIsActive());
 
-        if (image != null && !image.isEmpty()) {
-            String url = supabaseStorageService.uploadImage(image,
-                    "shops/" + category.getShop().getId() + "/categories/" + category.getId() + "/main");
-            category.setImageUrl(url);
-        }
+        attach(category, uploaded);
+
+        MenuCategory savedCategory = menuCategoryRepository.save(category);
+        return mapToMenuCategoryDTO(savedCategory);
+    }
+
+    /**
+     * A category's newly uploaded main image and gallery photos, not yet attached
+     */
+    private record UploadedImages(String imageUrl, List<String> galleryUrls) {
+        static final UploadedImages NONE = new UploadedImages(null, List.of());
+    }
 
-        if (galleryPhotos != null && !galleryPhotos.isEmpty()) {
-            for (MultipartFile photo : galleryPhotos) {
-                if (!photo.isEmpty()) {
-                    String url = supabaseStorageService.uploadImage(photo, "shops/" + category.getShop().getId()
-                            + "/categories/" + category.getId() + "/gallery/" + System.currentTimeMillis());
-                    MenuCategoryPhoto catPhoto = new MenuCategoryPhoto();
-                    catPhoto.setCategory(category);
-                    catPhoto.setUrl(url);
-                    catPhoto.setThumbnailUrl(url);
-                    catPhoto.setIsPrimary(false);
-                    category.getPhotos().add(catPhoto);
-                }
+    private UploadedImages upload(Long shopId, Long categoryId, MultipartFile image,
+            List<MultipartFile> galleryPhotos) {
+        String folder = "shops/" + shopId + "/categories/" + categoryId;
+        String imageUrl = image != null && !image.isEmpty()
+                ? supabaseStorageService.uploadImage(image, folder + "/main")
+                : null;
+        List<String> galleryUrls;
+        try {
+            galleryUrls = supabaseStorageService.uploadImages(galleryPhotos,
+                    folder + "/gallery/" + System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            // Nothing will reference the main image now
+            if (imageUrl != null) {
+                supabaseStorageService.deleteQuietly(imageUrl);
             }
+            throw e;
         }
+        return new UploadedImages(imageUrl, galleryUrls);
+    }
 
-        MenuCategory savedCategory = menuCategoryRepository.save(category);
-        return mapToMenuCategoryDTO(savedCategory);
+    private void attach(MenuCategory category, UploadedImages uploaded) {
+        if (uploaded.imageUrl() != null) {
+            category.setImageUrl(uploaded.imageUrl());
+        }
+        for (String url : uploaded.galleryUrls()) {
+            MenuCategoryPhoto catPhoto = new MenuCategoryPhoto();
+            catPhoto.setCategory(category);
+            catPhoto.setUrl(url);
+            catPhoto.setThumbnailUrl(url);
+            catPhoto.setIsPrimary(false);
+            category.getPhotos().add(catPhoto);
+            imageVariantService.generateAfterCommit(url);
+        }
     }
 
     @Transactional
@@ -167,6 +206,8 @@ public class AdminMenuCategoryService {
                                 .id(photo.getId())
                                 .url(photo.getUrl())
                                 .thumbnailUrl(photo.getThumbnailUrl())
+                                .mediumUrl(photo.getMediumUrl())
+                                .fullUrl(photo.getFullUrl())
                                 .photoType(photo.getPhotoType())
                                 .caption(photo.getCaption())
                                 .captionMm(photo.getCaptionMm())
@@ -188,6 +229,8 @@ public class AdminMenuCategoryService {
                                                     .id(photo.getId())
                                                     .url(photo.getUrl())
                                                     .thumbnailUrl(photo.getThumbnailUrl())
+                                                    .mediumUrl(photo.getMediumUrl())
+                                                    .fullUrl(photo.getFullUrl())
                                                     .photoType(photo.getPhotoType())
                                                     .caption(photo.getCaption())
                                                     .captionMm(photo.getCaptionMm())
@@ -4,6 +4,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.th.dto.CreateMenuItemRequest;
 import org.th.dto.MenuItemDTO;
@@ -17,6 +18,7 @@ import org.th.exception.ResourceNotFoundException;
 import org.th.repository.MenuCategoryRepository;
 import org.th.repository.MenuItemRepository;
 import org.th.repository.MenuSubCategoryRepository;
+import org.th.service.ImageVariantService;
 import org.th.service.SupabaseStorageService;
 
 import java.util.Collections;
@@ -32,6 +34,8 @@ public class AdminMenuItemService {
     private final MenuCategoryRepository menuCategoryRepository;
     private final MenuSubCategoryRepository menuSubCategoryRepository;
     private final SupabaseStorageService supabaseStorageService;
+    private final ImageVariantService imageVariantService;
+    private final TransactionTemplate transactionTemplate;
 
     @Transactional(readOnly = true)
     public MenuItemDTO getMenuItemById(Long id) {
@@ -40,9 +44,31 @@ public class AdminMenuItemService {
         return mapToMenuItemDTO(item);
     }
 
-    @Transactional
+    /**
+     * Create an item, then upload its images outside any transaction and attach them
+     * If an upload fails the new item is removed again.
+     */
     public MenuItemDTO createMenuItem(Long categoryId, CreateMenuItemRequest request, MultipartFile image,
             List<MultipartFile> galleryPhotos) {
+        MenuItem created = transactionTemplate.execute(status -> newMenuItem(categoryId, request));
+
+        UploadedImages uploaded;
+        try {
+            uploaded = upload(created.getShop().getId(), created.getId(), image, galleryPhotos);
+        } catch (RuntimeException e) {
+            transactionTemplate.executeWithoutResult(status -> menuItemRepository.deleteById(created.getId()));
+            throw e;
+        }
+
+        return transactionTemplate.execute(status -> {
+            MenuItem item = menuItemRepository.findById(created.getId())
+                    .orElseThrow(() -> new ResourceNotFoundException("Item not found"));
+            attach(item, uploaded);
+            return mapToMenuItemDTO(menuItemRepository.save(item));
+        });
+    }
+
+    private MenuItem newMenuItem(Long categoryId, CreateMenuItemRequest request) {
         MenuCategory category = menuCategoryRepository.findById(categoryId)
                 .orElseThrow(() -> new ResourceNotFoundException("Category not found"));
 
@@ -70,37 +96,27 @@ public class AdminMenuItemService {
             item.setSubCategory(subCategory);
         }
 
-        item = menuItemRepository.save(item);
-
-        if (image != null && !image.isEmpty()) {
-            String url = supabaseStorageService.uploadImage(image,
-                    "shops/" + category.getShop().getId() + "/items/" + item.getId() + "/main");
-            item.setImageUrl(url);
-            item = menuItemRepository.save(item);
-        }
+        return menuItemRepository.save(item);
+    }
 
-        if (galleryPhotos != null && !galleryPhotos.isEmpty()) {
-            for (MultipartFile photo : galleryPhotos) {
-                if (!photo.isEmpty()) {
-                    String url = supabaseStorageService.uploadImage(photo, "shops/" + category.getShop().getId()
-                            + "/items/" + item.getId() + "/gallery/" + System.currentTimeMillis());
-                    MenuItemPhoto itemPhoto = new MenuItemPhoto();
-                    itemPhoto.setItem(item);
-                    itemPhoto.setUrl(url);
-                    itemPhoto.setThumbnailUrl(url);
-                    itemPhoto.setIsPrimary(false);
-                    item.getPhotos().add(itemPhoto);
-                }
-            }
-            item = menuItemRepository.save(item);
+    /**
+     * Upload any new images outside a transaction, then apply the changes in one
+     */
+    public MenuItemDTO updateMenuItem(Long id, UpdateMenuItemRequest request, MultipartFile image,
+            List<MultipartFile> galleryPhotos) {
+        UploadedImages uploaded = UploadedImages.NONE;
+        if ((image != null && !image.isEmpty()) || (galleryPhotos != null && !galleryPhotos.isEmpty())) {
+            Long shopId = menuItemRepository.findById(id)
+                    .map(item -> item.getShop().getId())
+                    .orElseThrow(() -> new ResourceNotFoundException("Item not found"));
+            uploaded = upload(shopId, id, image, galleryPhotos);
         }
 
-        return mapToMenuItemDTO(item);
+        UploadedImages toAttach = uploaded;
+        return transactionTemplate.execute(status -> applyUpdate(id, request, toAttach));
     }
 
-    @Transactional
-    public MenuItemDTO updateMenuItem(Long id, UpdateMenuItemRequest request, MultipartFile image,
-            List<MultipartFile> galleryPhotos) {
+    private MenuItemDTO applyUpdate(Long id, UpdateMenuItemRequest request, UploadedImages uploaded) {
         MenuItem item = menuItemRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Item not found"));
 
@@ -146,29 +162,51 @@ public class AdminMenuItemService {
             // For now, assume update only sets new value.
         }
 
-        if (image != null && !image.isEmpty()) {
-            String url = supabaseStorageService.uploadImage(image,
-                    "shops/" + item.getShop().getId() + "/items/" + item.getId() + "/main");
-            item.setImageUrl(url);
-        }
+        attach(item, uploaded);
+
+        MenuItem savedItem = menuItemRepository.save(item);
+        return mapToMenuItemDTO(savedItem);
+    }
 
-        if (galleryPhotos != null && !galleryPhotos.isEmpty()) {
-            for (MultipartFile photo : galleryPhotos) {
-                if (!photo.isEmpty()) {
-                    String url = supabaseStorageService.uploadImage(photo, "shops/" + item.getShop().getId() + "/items/"
-                            + item.getId() + "/gallery/" + System.currentTimeMillis());
-                    MenuItemPhoto itemPhoto = new MenuItemPhoto();
-                    itemPhoto.setItem(item);
-                    itemPhoto.setUrl(url);
-                    itemPhoto.setThumbnailUrl(url);
-                    itemPhoto.setIsPrimary(false);
-                    item.getPhotos().add(itemPhoto);
-                }
+    /**
+     * An item's newly uploaded main image and gallery photos, not yet attached
+     */
+    private record UploadedImages(String imageUrl, List<String> galleryUrls) {
+        static final UploadedImages NONE = new UploadedImages(null, List.of());
+    }
+
+    private UploadedImages upload(Long shopId, Long itemId, MultipartFile image, List<MultipartFile> galleryPhotos) {
+        String folder = "shops/" + shopId + "/items/" + itemId;
+        String imageUrl = image != null && !image.isEmpty()
+                ? supabaseStorageService.uploadImage(image, folder + "/main")
+                : null;
+        List<String> galleryUrls;
+        try {
+            galleryUrls = supabaseStorageService.uploadImages(galleryPhotos,
+                    folder + "/gallery/" + System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            // Nothing will reference the main image now
+            if (imageUrl != null) {
+                supabaseStorageService.deleteQuietly(imageUrl);
             }
+            throw e;
         }
+        return new UploadedImages(imageUrl, galleryUrls);
+    }
 
-        MenuItem savedItem = menuItemRepository.save(item);
-        return mapToMenuItemDTO(savedItem);
+    private void attach(MenuItem item, UploadedImages uploaded) {
+        if (uploaded.imageUrl() != null) {
+            item.setImageUrl(uploaded.imageUrl());
+        }
+        for (String url : uploaded.galleryUrls()) {
+            MenuItemPhoto itemPhoto = new MenuItemPhoto();
+            itemPhoto.setItem(item);
+            itemPhoto.setUrl(url);
+            itemPhoto.setThumbnailUrl(url);
+            itemPhoto.setIsPrimary(false);
+            item.getPhotos().add(itemPhoto);
+            imageVariantService.generateAfterCommit(url);
+        }
     }
 
     @Transactional
@@ -221,6 +259,8 @@ public class AdminMenuItemService {
                                 .id(photo.getId())
                                 .url(photo.getUrl())
                                 .thumbnailUrl(photo.getThumbnailUrl())
+                                .mediumUrl(photo.getMediumUrl())
+                                .fullUrl(photo.getFullUrl())
                                 .photoType(photo.getPhotoType())
                                 .caption(photo.getCaption())
                                 .captionMm(photo.getCaptionMm())
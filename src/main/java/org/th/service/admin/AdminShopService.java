@@ -7,6 +7,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.th.dto.OperatingHourDTO;
 import org.th.dto.ShopDetailDTO;
@@ -20,6 +21,7 @@ import org.th.entity.shops.Shop;
 import org.th.entity.shops.ShopPhoto;
 import org.th.exception.ResourceNotFoundException;
 import org.th.repository.ShopRepository;
+import org.th.service.ImageVariantService;
 import org.th.service.SupabaseStorageService;
 
 import java.time.LocalTime;
@@ -34,7 +36,10 @@ public class AdminShopService {
 
     private final ShopRepository shopRepository;
     private final SupabaseStorageService supabaseStorageService;
+    private final ImageVariantService imageVariantService;
     private final org.th.repository.DistrictRepository districtRepository;
+    private final org.th.service.mobile.CatalogSyncService catalogSyncService;
+    private final TransactionTemplate transactionTemplate;
 
     @Transactional(readOnly = true)
     public Page<ShopListDTO> getAllShops(int page, int size, String search) {
@@ -108,12 +113,38 @@ public class AdminShopService {
 
     /**
      * Create a new shop with optional cover and gallery photos
+     * The images are uploaded outside any transaction; if an upload fails the new shop is removed again.
      */
-    @Transactional
     public ShopDetailDTO createShop(CreateShopRequest request, MultipartFile logoPhoto, MultipartFile coverPhoto,
             List<MultipartFile> galleryPhotos) {
         log.info("Creating new shop: {}", request.getName());
+        Shop created = transactionTemplate.execute(status -> newShop(request));
+
+        UploadedImages uploaded;
+        try {
+            uploaded = upload(created.getId(), logoPhoto, coverPhoto, galleryPhotos);
+        } catch (RuntimeException e) {
+            transactionTemplate.executeWithoutResult(status -> {
+                shopRepository.deleteById(created.getId());
+                catalogSyncService.recordDeleted(created.getId());
+            });
+            throw e;
+        }
+
+        try {
+            return transactionTemplate.execute(status -> {
+                Shop shop = shopRepository.findById(created.getId())
+                        .orElseThrow(() -> new ResourceNotFoundException("Shop not found with id: " + created.getId()));
+                attach(shop, uploaded);
+                return mapToShopDetailDTO(shopRepository.save(shop));
+            });
+        } catch (RuntimeException e) {
+            discard(uploaded);
+            throw e;
+        }
+    }
 
+    private Shop newShop(CreateShopRequest request) {
         String slug = generateSlug(request.getName());
         if (shopRepository.findBySlug(slug) != null) {
             slug = slug + "-" + System.currentTimeMillis();
@@ -153,42 +184,6 @@ public class AdminShopService {
         shop.setIsActive(true);
         shop.setIsVerified(true);
 
-        shop = shopRepository.save(shop);
-
-        if (logoPhoto != null && !logoPhoto.isEmpty()) {
-            String url = supabaseStorageService.uploadImage(logoPhoto, "shops/" + shop.getId() + "/logo");
-            shop.setLogoUrl(url);
-        }
-
-        if (coverPhoto != null && !coverPhoto.isEmpty()) {
-            String url = supabaseStorageService.uploadImage(coverPhoto, "shops/" + shop.getId() + "/cover");
-            shop.setCoverUrl(url);
-
-            // Add to photos collection as primary for backward compatibility
-            ShopPhoto photo = new ShopPhoto();
-            photo.setShop(shop);
-            photo.setUrl(url);
-            photo.setThumbnailUrl(url);
-            photo.setPhotoType("cover");
-            photo.setIsPrimary(true);
-            shop.getPhotos().add(photo);
-        }
-
-        if (galleryPhotos != null && !galleryPhotos.isEmpty()) {
-            for (MultipartFile file : galleryPhotos) {
-                if (file != null && !file.isEmpty()) {
-                    String url = supabaseStorageService.uploadImage(file, "shops/" + shop.getId() + "/gallery");
-                    ShopPhoto photo = new ShopPhoto();
-                    photo.setShop(shop);
-                    photo.setUrl(url);
-                    photo.setThumbnailUrl(url);
-                    photo.setPhotoType("gallery");
-                    photo.setIsPrimary(false);
-                    shop.getPhotos().add(photo);
-                }
-            }
-        }
-
         if (request.getOperatingHours() != null) {
             for (OperatingHourRequest hr : request.getOperatingHours()) {
                 OperatingHour hour = new OperatingHour();
@@ -201,8 +196,7 @@ public class AdminShopService {
             }
         }
 
-        Shop savedShop = shopRepository.save(shop);
-        return mapToShopDetailDTO(savedShop);
+        return shopRepository.save(shop);
     }
 
     private String generateSlug(String name) {
@@ -215,10 +209,28 @@ public class AdminShopService {
 
     /**
      * Update an existing shop
+     * New images are uploaded outside a transaction, then the changes are applied in one.
      */
-    @Transactional
     public ShopDetailDTO updateShop(Long id, UpdateShopRequest request, MultipartFile logoPhoto,
             MultipartFile coverPhoto) {
+        UploadedImages uploaded = UploadedImages.NONE;
+        if ((logoPhoto != null && !logoPhoto.isEmpty()) || (coverPhoto != null && !coverPhoto.isEmpty())) {
+            if (!shopRepository.existsById(id)) {
+                throw new ResourceNotFoundException("Shop not found with id: " + id);
+            }
+            uploaded = upload(id, logoPhoto, coverPhoto, null);
+        }
+
+        UploadedImages toAttach = uploaded;
+        try {
+            return transactionTemplate.execute(status -> applyUpdate(id, request, toAttach));
+        } catch (RuntimeException e) {
+            discard(toAttach);
+            throw e;
+        }
+    }
+
+    private ShopDetailDTO applyUpdate(Long id, UpdateShopRequest request, UploadedImages uploaded) {
         Shop shop = shopRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Shop not found with id: " + id));
 
@@ -275,30 +287,6 @@ public class AdminShopService {
         if (request.getIsVerified() != null)
             shop.setIsVerified(request.getIsVerified());
 
-        if (logoPhoto != null && !logoPhoto.isEmpty()) {
-            String url = supabaseStorageService.uploadImage(logoPhoto, "shops/" + shop.getId() + "/logo");
-            shop.setLogoUrl(url);
-        }
-
-        if (coverPhoto != null && !coverPhoto.isEmpty()) {
-            // Find existing cover and remove or unset?
-            // For now just add as new cover, user can manage photos separately
-            // OR strictly replace:
-            shop.getPhotos().stream().filter(ShopPhoto::getIsPrimary).forEach(p -> p.setIsPrimary(false));
-
-            String url = supabaseStorageService.uploadImage(coverPhoto, "shops/" + shop.getId() + "/cover");
-            shop.setCoverUrl(url);
-
-            // Add to photos collection as primary for backward compatibility
-            ShopPhoto photo = new ShopPhoto();
-            photo.setShop(shop);
-            photo.setUrl(url);
-            photo.setThumbnailUrl(url);
-            photo.setPhotoType("cover");
-            photo.setIsPrimary(true);
-            shop.getPhotos().add(photo);
-        }
-
         if (request.getOperatingHours() != null) {
             shop.getOperatingHours().clear();
             for (OperatingHourRequest hr : request.getOperatingHours()) {
@@ -312,6 +300,8 @@ public class AdminShopService {
             }
         }
 
+        attach(shop, uploaded);
+
         Shop savedShop = shopRepository.save(shop);
         return mapToShopDetailDTO(savedShop);
     }
@@ -321,29 +311,114 @@ public class AdminShopService {
         Shop shop = shopRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Shop not found"));
         shopRepository.delete(shop);
+        catalogSyncService.recordDeleted(id);
     }
 
-    @Transactional
+    /**
+     * Upload a photo outside any transaction, then attach it to the shop
+     */
     public ShopPhoto uploadShopPhoto(Long shopId, MultipartFile file, boolean isPrimary) {
-        Shop shop = shopRepository.findById(shopId)
-                .orElseThrow(() -> new ResourceNotFoundException("Shop not found"));
+        if (!shopRepository.existsById(shopId)) {
+            throw new ResourceNotFoundException("Shop not found");
+        }
+        String url = supabaseStorageService.uploadImage(file, "shops/" + shopId + "/gallery");
 
-        if (isPrimary) {
-            shop.getPhotos().stream().filter(ShopPhoto::getIsPrimary).forEach(p -> p.setIsPrimary(false));
+        try {
+            return transactionTemplate.execute(status -> {
+                Shop shop = shopRepository.findById(shopId)
+                        .orElseThrow(() -> new ResourceNotFoundException("Shop not found"));
+
+                if (isPrimary) {
+                    shop.getPhotos().stream().filter(ShopPhoto::getIsPrimary).forEach(p -> p.setIsPrimary(false));
+                }
+
+                ShopPhoto photo = new ShopPhoto();
+                photo.setShop(shop);
+                photo.setUrl(url);
+                photo.setThumbnailUrl(url);
+                photo.setIsPrimary(isPrimary);
+                photo.setPhotoType(isPrimary ? "cover" : "gallery");
+
+                shop.getPhotos().add(photo);
+                shopRepository.save(shop);
+                imageVariantService.generateAfterCommit(url);
+                return photo;
+            });
+        } catch (RuntimeException e) {
+            supabaseStorageService.deleteQuietly(url);
+            throw e;
         }
+    }
 
-        String url = supabaseStorageService.uploadImage(file, "shops/" + shopId + "/gallery");
+    /**
+     * A shop's newly uploaded logo, cover and gallery photos, not yet attached
+     */
+    private record UploadedImages(String logoUrl, String coverUrl, List<String> galleryUrls) {
+        static final UploadedImages NONE = new UploadedImages(null, null, List.of());
+    }
 
-        ShopPhoto photo = new ShopPhoto();
-        photo.setShop(shop);
-        photo.setUrl(url);
-        photo.setThumbnailUrl(url);
-        photo.setIsPrimary(isPrimary);
-        photo.setPhotoType(isPrimary ? "cover" : "gallery");
+    private UploadedImages upload(Long shopId, MultipartFile logoPhoto, MultipartFile coverPhoto,
+            List<MultipartFile> galleryPhotos) {
+        String folder = "shops/" + shopId;
+        String logoUrl = null;
+        String coverUrl = null;
+        try {
+            if (logoPhoto != null && !logoPhoto.isEmpty()) {
+                logoUrl = supabaseStorageService.uploadImage(logoPhoto, folder + "/logo");
+            }
+            if (coverPhoto != null && !coverPhoto.isEmpty()) {
+                coverUrl = supabaseStorageService.uploadImage(coverPhoto, folder + "/cover");
+            }
+            List<String> galleryUrls = supabaseStorageService.uploadImages(galleryPhotos, folder + "/gallery");
+            return new UploadedImages(logoUrl, coverUrl, galleryUrls);
+        } catch (RuntimeException e) {
+            // Nothing will reference the images uploaded so far
+            discard(new UploadedImages(logoUrl, coverUrl, List.of()));
+            throw e;
+        }
+    }
 
-        shop.getPhotos().add(photo);
-        shopRepository.save(shop);
-        return photo;
+    private void attach(Shop shop, UploadedImages uploaded) {
+        if (uploaded.logoUrl() != null) {
+            shop.setLogoUrl(uploaded.logoUrl());
+        }
+
+        if (uploaded.coverUrl() != null) {
+            // The new cover replaces the current primary photo
+            shop.getPhotos().stream().filter(ShopPhoto::getIsPrimary).forEach(p -> p.setIsPrimary(false));
+            shop.setCoverUrl(uploaded.coverUrl());
+            imageVariantService.generateAfterCommit(uploaded.coverUrl());
+
+            // Add to photos collection as primary for backward compatibility
+            ShopPhoto photo = new ShopPhoto();
+            photo.setShop(shop);
+            photo.setUrl(uploaded.coverUrl());
+            photo.setThumbnailUrl(uploaded.coverUrl());
+            photo.setPhotoType("cover");
+            photo.setIsPrimary(true);
+            shop.getPhotos().add(photo);
+        }
+
+        for (String url : uploaded.galleryUrls()) {
+            imageVariantService.generateAfterCommit(url);
+            ShopPhoto photo = new ShopPhoto();
+            photo.setShop(shop);
+            photo.setUrl(url);
+            photo.setThumbnailUrl(url);
+            photo.setPhotoType("gallery");
+            photo.setIsPrimary(false);
+            shop.getPhotos().add(photo);
+        }
+    }
+
+    private void discard(UploadedImages uploaded) {
+        if (uploaded.logoUrl() != null) {
+            supabaseStorageService.deleteQuietly(uploaded.logoUrl());
+        }
+        if (uploaded.coverUrl() != null) {
+            supabaseStorageService.deleteQuietly(uploaded.coverUrl());
+        }
+        uploaded.galleryUrls().forEach(supabaseStorageService::deleteQuietly);
     }
 
     @Transactional
@@ -411,6 +486,8 @@ public class AdminShopService {
                         .id(photo.getId())
                         .url(photo.getUrl())
                         .thumbnailUrl(photo.getThumbnailUrl())
+                        .mediumUrl(photo.getMediumUrl())
+                        .fullUrl(photo.getFullUrl())
                         .photoType(photo.getPhotoType())
                         .isPrimary(photo.getIsPrimary())
                         .build())
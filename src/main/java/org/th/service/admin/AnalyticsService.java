@@ -5,12 +5,15 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.th.dto.analytics.*;
 import org.th.entity.enums.ActivityType;
+import org.th.entity.enums.SketchDimension;
 import org.th.repository.UserActivityRepository;
+import org.th.util.HyperLogLog;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -18,6 +21,8 @@ import java.util.stream.Collectors;
 public class AnalyticsService {
 
     private final UserActivityRepository userActivityRepository;
+    private final ActivitySketchService activitySketchService;
+    private final org.th.repository.ShopRepository shopRepository;
 
     /**
      * Get daily stats for a device
@@ -32,19 +37,86 @@ public class AnalyticsService {
 
     /**
      * Get most popular shops
+     * Views and unique viewers come from the daily sketches (unique viewers are
+     * HyperLogLog estimates, ~1.6% standard error)
      */
     @Transactional(readOnly = true)
     public List<ShopPopularityDTO> getPopularShops(LocalDate startDate, LocalDate endDate, int limit) {
-        LocalDateTime start = startDate.atStartOfDay();
-        LocalDateTime end = endDate.atTime(23, 59, 59);
+        List<ActivitySketchService.RangeSketch> top = activitySketchService.top(
+                SketchDimension.SHOP, startDate, endDate, limit);
+
+        List<Long> shopIds = top.stream().map(t -> Long.valueOf(t.key())).collect(Collectors.toList());
+        Map<Long, String> names = shopRepository.findAllById(shopIds).stream()
+                .collect(Collectors.toMap(org.th.entity.shops.Shop::getId, org.th.entity.shops.Shop::getName,
+                        (a, b) -> a, java.util.HashMap::new));
+
+        // Deleted shops keep the name they were viewed under
+        List<Long> missing = shopIds.stream().filter(id -> !names.containsKey(id)).collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            for (Object[] row : userActivityRepository.findViewedShopNames(missing)) {
+                names.put((Long) row[0], (String) row[1]);
+            }
+        }
 
-        List<ShopPopularityDTO> allShops = userActivityRepository.getMostPopularShops(start, end);
+        return top.stream()
+                .map(t -> ShopPopularityDTO.builder()
+                        .shopId(Long.valueOf(t.key()))
+                        .shopName(names.get(Long.valueOf(t.key())))
+                        .viewCount(t.events())
+                        .uniqueViewers(t.sketch().estimate())
+                        .build())
+                .collect(Collectors.toList());
+    }
 
-        return allShops.stream()
-                .limit(limit)
+    /**
+     * Estimated unique devices for one dimension value (e.g. a district ID) over a date range
+     */
+    @Transactional(readOnly = true)
+    public UniqueVisitorsDTO getUniqueVisitors(SketchDimension dimension, String key, LocalDate startDate,
+            LocalDate endDate) {
+        ActivitySketchService.RangeSketch range = activitySketchService.range(dimension, key, startDate, endDate);
+        return toUniqueVisitors(dimension, key, startDate, endDate, range.events(), range.sketch());
+    }
+
+    /**
+     * Estimated unique devices per day for one dimension value
+     */
+    @Transactional(readOnly = true)
+    public List<UniqueVisitorsDTO> getDailyUniqueVisitors(SketchDimension dimension, String key,
+            LocalDate startDate, LocalDate endDate) {
+        return activitySketchService.daily(dimension, key, startDate, endDate).stream()
+                .map(d -> toUniqueVisitors(dimension, key, d.day(), d.day(), d.events(), d.sketch()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * The most active values of a dimension (by events) with their unique devices
+     */
+    @Transactional(readOnly = true)
+    public List<UniqueVisitorsDTO> getTopUniqueVisitors(SketchDimension dimension, LocalDate startDate,
+            LocalDate endDate, int limit) {
+        return activitySketchService.top(dimension, startDate, endDate, limit).stream()
+                .map(t -> toUniqueVisitors(dimension, t.key(), startDate, endDate, t.events(), t.sketch()))
                 .collect(Collectors.toList());
     }
 
+    private UniqueVisitorsDTO toUniqueVisitors(SketchDimension dimension, String key, LocalDate start,
+            LocalDate end, long events, HyperLogLog sketch) {
+        long estimate = sketch.estimate();
+        double error = sketch.relativeStandardError();
+        return UniqueVisitorsDTO.builder()
+                .dimension(dimension)
+                .key(key)
+                .start(start)
+                .end(end)
+                .events(events)
+                .uniqueDevices(estimate)
+                .relativeStandardError(error)
+                .lowerBound(Math.max(0, Math.round(estimate * (1 - 2 * error))))
+                .upperBound(Math.round(estimate * (1 + 2 * error)))
+                .build();
+    }
+
     /**
      * Get feature usage statistics
      */
@@ -1,6 +1,7 @@
 package org.th.service.admin;
 
 import lombok.RequiredArgsConstructor;
+import io.micrometer.core.annotation.Timed;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
@@ -39,8 +40,11 @@ public class ExcelImportService {
     private final org.springframework.security.crypto.password.PasswordEncoder passwordEncoder;
     private final jakarta.persistence.EntityManager entityManager;
     private final org.springframework.transaction.PlatformTransactionManager transactionManager;
+    private final org.th.service.CatalogVersions catalogVersions;
+    private final org.th.service.mobile.CatalogSyncService catalogSyncService;
 
     @Transactional
+    @Timed(value = "excel.import", extraTags = { "type", "full_reset" })
     public ImportResult fullDatabaseReset(MultipartFile file) throws IOException {
         log.warn("⚠️ STARTING FULL DATABASE RESET ⚠️");
 
@@ -58,11 +62,15 @@ public class ExcelImportService {
                     .executeUpdate();
             return null;
         });
+        // TRUNCATE skips entity listeners
+        catalogVersions.invalidateAll();
+        catalogSyncService.recordWipe();
     }
 
     /**
      * Import shops from Excel file
      */
+    @Timed(value = "excel.import", extraTags = { "type", "shops" })
     public ImportResult importShopsFromExcel(MultipartFile file) throws IOException {
         ImportResult result = new ImportResult();
 
@@ -608,6 +616,7 @@ public class ExcelImportService {
     }
 
     // User Activity Import
+    @Timed(value = "excel.import", extraTags = { "type", "user_activity" })
     public ImportResult importUserActivityFromExcel(MultipartFile file) throws IOException {
         ImportResult result = new ImportResult();
         try (Workbook workbook = new XSSFWorkbook(file.getInputStream())) {
@@ -0,0 +1,280 @@
+package org.th.service.mobile;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.th.dto.OperatingHourDTO;
+import org.th.dto.mobile.CatalogSyncDTO;
+import org.th.dto.mobile.SyncShopDTO;
+import org.th.entity.CatalogDeletion;
+import org.th.entity.shops.Shop;
+import org.th.repository.CatalogDeletionRepository;
+import org.th.repository.OperatingHourRepository;
+import org.th.repository.ShopRepository;
+import org.th.service.MenuDocumentService;
+import org.th.service.MenuDocumentService.MenuDocument;
+import org.th.service.ShopService;
+import org.th.service.SyncWatermark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Incremental catalogue sync for the mobile app
+ * A shop is the unit of change: editing it, its photos, hours or menu moves
+ * its updatedAt, and a changed shop is sent whole. Clients hold a watermark
+ * (change time and shop ID of the last shop seen) and page forward in
+ * (updated_at, id) order; deletions come from a deletion log and
+ * deactivations from the shop rows themselves. Rows changed within the
+ * settle window are held back, so a transaction that commits after a
+ * later-stamped one is not skipped. Longer transactions (an import) are
+ * covered by stamping again once they commit: changed shops are touched and
+ * deletion log entries restamped, so neither can land behind the watermark
+ * of a client that synced while the transaction ran.
+ */
+@Service
+@Slf4j
+public class CatalogSyncService {
+
+    private static final int MAX_LIMIT = 200;
+    private static final int TOUCH_CHUNK = 1000;
+
+    private final ShopRepository shopRepository;
+    private final OperatingHourRepository operatingHourRepository;
+    private final CatalogDeletionRepository deletionRepository;
+    private final ShopService shopService;
+    private final MenuDocumentService menuDocumentService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate writeTemplate;
+    private final Duration settle;
+    private final Duration retention;
+
+    public CatalogSyncService(
+            ShopRepository shopRepository,
+            OperatingHourRepository operatingHourRepository,
+            CatalogDeletionRepository deletionRepository,
+            ShopService shopService,
+            MenuDocumentService menuDocumentService,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.sync.settle-seconds:10}") long settleSeconds,
+            @Value("${app.sync.deletion-retention-days:90}") long retentionDays) {
+        this.shopRepository = shopRepository;
+        this.operatingHourRepository = operatingHourRepository;
+        this.deletionRepository = deletionRepository;
+        this.shopService = shopService;
+        this.menuDocumentService = menuDocumentService;
+        this.objectMapper = objectMapper;
+        // Touches run from afterCommit callbacks, where the finished transaction is still bound
+        this.writeTemplate = new TransactionTemplate(transactionManager);
+        this.writeTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.settle = Duration.ofSeconds(settleSeconds);
+        this.retention = Duration.ofDays(retentionDays);
+    }
+
+    /**
+     * Shops changed and removed since a watermark, oldest change first
+     *
+     * @param since watermark from the previous response, or null for a first sync
+     * @param limit maximum number of changed shops in this page
+     */
+    public CatalogSyncDTO changesSince(String since, int limit) {
+        SyncWatermark from = SyncWatermark.decode(since);
+        LocalDateTime now = LocalDateTime.now();
+        if (!from.isInitial() && (from.updatedAt().isBefore(now.minus(retention))
+                || deletionRepository.existsByShopIdIsNullAndDeletedAtAfter(from.updatedAt()))) {
+            // Older than the deletion log, or the catalogue was wiped since
+            return CatalogSyncDTO.builder().shops(List.of()).removedShopIds(List.of()).resetRequired(true).build();
+        }
+        LocalDateTime until = now.minus(settle);
+        if (!from.updatedAt().isBefore(until)) {
+            return CatalogSyncDTO.builder().shops(List.of()).removedShopIds(List.of())
+                    .watermark(from.encode()).build();
+        }
+
+        int size = Math.max(1, Math.min(limit, MAX_LIMIT));
+        List<Object[]> rows = shopRepository.findChangedSince(from.updatedAt(), from.shopId(), until,
+                PageRequest.of(0, size + 1));
+        boolean hasMore = rows.size() > size;
+        if (hasMore) {
+            rows = rows.subList(0, size);
+        }
+        SyncWatermark next = hasMore
+                ? new SyncWatermark((LocalDateTime) rows.get(rows.size() - 1)[1], (Long) rows.get(rows.size() - 1)[0])
+                : SyncWatermark.through(until);
+
+        List<Long> activeIds = new ArrayList<>();
+        Set<Long> removed = new LinkedHashSet<>();
+        for (Object[] row : rows) {
+            if (Boolean.FALSE.equals(row[2])) {
+                removed.add((Long) row[0]);
+            } else {
+                activeIds.add((Long) row[0]);
+            }
+        }
+        if (from.isInitial()) {
+            // The client has nothing to remove
+            removed.clear();
+        } else {
+            removed.addAll(deletionRepository.findShopIdsDeletedBetween(from.updatedAt(), next.updatedAt()));
+        }
+
+        return CatalogSyncDTO.builder()
+                .shops(loadShops(activeIds))
+                .removedShopIds(List.copyOf(removed))
+                .watermark(next.encode())
+                .hasMore(hasMore)
+                .build();
+    }
+
+    /**
+     * Mark shops changed for sync, in a transaction of its own (call once the change has committed)
+     */
+    public void touchShops(Collection<Long> shopIds) {
+        if (shopIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(shopIds);
+        try {
+            writeTemplate.executeWithoutResult(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                // Chunked: an import touches every shop, past the driver's bind parameter limit
+                for (int from = 0; from < ids.size(); from += TOUCH_CHUNK) {
+                    shopRepository.touchUpdatedAt(ids.subList(from, Math.min(ids.size(), from + TOUCH_CHUNK)), now);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Could not mark shops {} changed for sync: {}", shopIds, e.getMessage());
+        }
+    }
+
+    /**
+     * Log a shop deletion (call inside the deleting transaction)
+     */
+    public void recordDeleted(Long shopId) {
+        restampOnCommit(deletionRepository.save(
+                CatalogDeletion.builder().shopId(shopId).deletedAt(LocalDateTime.now()).build()));
+    }
+
+    /**
+     * Log that every shop was removed at once; clients holding a watermark must resync
+     */
+    public void recordWipe() {
+        restampOnCommit(deletionRepository.save(CatalogDeletion.builder().deletedAt(LocalDateTime.now()).build()));
+    }
+
+    /**
+     * Move a log entry to its commit time; the entry is written in the transaction so it
+     * cannot be lost, but stamped at its start it could predate a watermark handed out meanwhile
+     */
+    private void restampOnCommit(CatalogDeletion entry) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    writeTemplate.executeWithoutResult(
+                            status -> deletionRepository.restamp(entry.getId(), LocalDateTime.now()));
+                } catch (RuntimeException e) {
+                    log.warn("Could not restamp catalogue deletion {}: {}", entry.getId(), e.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * Drop deletion log entries older than the retention; older watermarks get resetRequired instead
+     */
+    @Scheduled(cron = "${app.sync.prune-cron:0 15 4 * * *}")
+    public void pruneDeletions() {
+        int pruned = writeTemplate.execute(
+                status -> deletionRepository.deleteOlderThan(LocalDateTime.now().minus(retention)));
+        if (pruned > 0) {
+            log.info("Pruned {} catalogue deletion log entries", pruned);
+        }
+    }
+
+    private List<SyncShopDTO> loadShops(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, List<OperatingHourDTO>> hours = new HashMap<>();
+        for (Object[] row : operatingHourRepository.findScheduleRowsByShopIdIn(ids)) {
+            hours.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add(OperatingHourDTO.builder()
+                    .dayOfWeek((Integer) row[1])
+                    .openingTime((LocalTime) row[2])
+                    .closingTime((LocalTime) row[3])
+                    .isClosed((Boolean) row[4])
+                    .build());
+        }
+        hours.values().forEach(list -> list.sort(Comparator.comparing(OperatingHourDTO::getDayOfWeek,
+                Comparator.nullsLast(Comparator.naturalOrder()))));
+
+        // Stored documents only: a missing one is queued, never built inside this request
+        Map<Long, MenuDocument> menus = menuDocumentService.getStored(ids);
+        List<SyncShopDTO> shops = new ArrayList<>(ids.size());
+        for (Shop shop : shopRepository.findByIdInWithPhotosAndDistrict(ids)) {
+            MenuDocument menu = menus.get(shop.getId());
+            shops.add(SyncShopDTO.builder()
+                    .shop(shopService.convertToListDTO(shop))
+                    .photos(shop.getPhotos().stream().map(shopService::convertToPhotoDTO).toList())
+                    .operatingHours(hours.getOrDefault(shop.getId(), List.of()))
+                    .menu(menu != null ? menuData(menu) : null)
+                    .menuVersion(menu != null ? menu.version() : 0)
+                    .updatedAt(shop.getUpdatedAt())
+                    .build());
+        }
+        shops.sort(Comparator.comparing(SyncShopDTO::getUpdatedAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(dto -> dto.getShop().getId()));
+        return shops;
+    }
+
+    /**
+     * The categories array of a stored menu response, cut out of the stored bytes
+     * Only the tokens are scanned; the array is embedded as is rather than parsed into a tree.
+     */
+    private String menuData(MenuDocument menu) {
+        byte[] json = menu.json();
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            if (parser.nextToken() == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    parser.nextToken();
+                    if ("data".equals(field)) {
+                        int start = (int) parser.currentTokenLocation().getByteOffset();
+                        parser.skipChildren();
+                        int end = (int) parser.currentLocation().getByteOffset();
+                        return new String(json, start, end - start, StandardCharsets.UTF_8);
+                    }
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Stored menu document is not valid JSON", e);
+        }
+        throw new IllegalStateException("Stored menu document has no data");
+    }
+}
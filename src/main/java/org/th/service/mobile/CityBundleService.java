@@ -0,0 +1,229 @@
+package org.th.service.mobile;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.th.entity.City;
+import org.th.entity.enums.PricePreference;
+import org.th.repository.ShopRepository;
+import org.th.service.CityService;
+import org.th.service.OpeningHoursIndex;
+import org.th.util.CityBundleCodec;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Prebuilt offline catalogue bundles, one file per active city
+ * Each bundle holds the city's active shops in {@link CityBundleCodec} format.
+ * Shops are streamed from the database in ID order and encoded straight to a
+ * temporary file, so memory use does not depend on the city's size. The file
+ * is named after a hash of its bytes, which doubles as its ETag; an unchanged
+ * catalogue keeps its file and ETag. The previous file is kept for one more
+ * build so downloads already in flight can finish.
+ */
+@Service
+@Slf4j
+public class CityBundleService {
+
+    private static final Pattern FILE_NAME = Pattern.compile("city-(\\d+)-(\\d+)-([0-9a-f]{16})\\.bin\\.gz");
+
+    /**
+     * A built bundle; the ETag is strong, the bytes behind it never change
+     */
+    public record Bundle(Long cityId, @JsonIgnore Path path, String etag, long size, long shopCount, Instant builtAt) {
+    }
+
+    private final CityService cityService;
+    private final ShopRepository shopRepository;
+    private final OpeningHoursIndex openingHoursIndex;
+    private final TransactionTemplate readTemplate;
+    private final Path directory;
+
+    private final Map<Long, Bundle> bundles = new ConcurrentHashMap<>();
+
+    public CityBundleService(
+            CityService cityService,
+            ShopRepository shopRepository,
+            OpeningHoursIndex openingHoursIndex,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.bundles.dir:data/bundles}") String directory) {
+        this.cityService = cityService;
+        this.shopRepository = shopRepository;
+        this.openingHoursIndex = openingHoursIndex;
+        this.readTemplate = new TransactionTemplate(transactionManager);
+        this.readTemplate.setReadOnly(true);
+        this.directory = Path.of(directory);
+    }
+
+    /**
+     * Pick up bundles built before a restart
+     */
+    @PostConstruct
+    void loadExisting() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "city-*.bin.gz")) {
+            for (Path file : files) {
+                Matcher m = FILE_NAME.matcher(file.getFileName().toString());
+                if (!m.matches()) {
+                    continue;
+                }
+                Bundle bundle = new Bundle(Long.valueOf(m.group(1)), file, etagOf(m.group(3)), Files.size(file),
+                        Long.parseLong(m.group(2)), Files.getLastModifiedTime(file).toInstant());
+                bundles.merge(bundle.cityId(), bundle,
+                        (a, b) -> a.builtAt().isAfter(b.builtAt()) ? a : b);
+            }
+            log.info("Found {} city bundles in {}", bundles.size(), directory);
+        } catch (IOException e) {
+            log.warn("Could not read city bundles from {}: {}", directory, e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuild every active city's bundle
+     * Runs shortly after startup and then every few hours
+     */
+    @Scheduled(initialDelayString = "${app.bundles.initial-delay-ms:60000}",
+            fixedDelayString = "${app.bundles.rebuild-interval-ms:21600000}")
+    public void rebuildAll() {
+        long start = System.currentTimeMillis();
+        List<City> cities = cityService.getAllActiveCities();
+        for (City city : cities) {
+            try {
+                rebuild(city.getId());
+            } catch (RuntimeException e) {
+                log.warn("Failed to build bundle for city {}: {}", city.getId(), e.getMessage());
+            }
+        }
+        bundles.keySet().retainAll(cities.stream().map(City::getId).toList());
+        log.info("City bundles rebuilt for {} cities in {} ms", cities.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Build one city's bundle, replacing the current one if the content changed
+     */
+    public Bundle rebuild(Long cityId) {
+        try {
+            Files.createDirectories(directory);
+            Path tmp = Files.createTempFile(directory, "city-" + cityId + "-", ".tmp");
+            try {
+                MessageDigest digest = sha256();
+                long count;
+                try (OutputStream out = new DigestOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(tmp), 64 * 1024), digest)) {
+                    count = write(cityId, out);
+                }
+                String hash = HexFormat.of().formatHex(digest.digest(), 0, 8);
+                Bundle current = bundles.get(cityId);
+                if (current != null && current.etag().equals(etagOf(hash)) && Files.exists(current.path())) {
+                    return current;
+                }
+                Path target = directory.resolve("city-" + cityId + "-" + count + "-" + hash + ".bin.gz");
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                Bundle built = new Bundle(cityId, target, etagOf(hash), Files.size(target), count, Instant.now());
+                bundles.put(cityId, built);
+                deleteOlder(cityId, target, current != null ? current.path() : null);
+                log.info("Built bundle for city {}: {} shops, {} bytes", cityId, count, built.size());
+                return built;
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write bundle for city " + cityId, e);
+        }
+    }
+
+    public Optional<Bundle> get(Long cityId) {
+        return Optional.ofNullable(bundles.get(cityId));
+    }
+
+    public List<Bundle> list() {
+        return bundles.values().stream().sorted(Comparator.comparing(Bundle::cityId)).toList();
+    }
+
+    /**
+     * Stream the city's shops into a bundle; returns the shop count
+     */
+    long write(Long cityId, OutputStream out) {
+        return readTemplate.execute(status -> {
+            try (CityBundleCodec.Writer writer = new CityBundleCodec.Writer(out, cityId);
+                    Stream<Object[]> rows = shopRepository.streamBundleRows(cityId)) {
+                rows.forEach(row -> {
+                    try {
+                        writer.write(toEntry(row));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                return writer.getCount();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Rows: see {@link ShopRepository#streamBundleRows}
+     */
+    private CityBundleCodec.Entry toEntry(Object[] row) {
+        Long id = (Long) row[0];
+        return new CityBundleCodec.Entry(id, (String) row[1], (String) row[2], (String) row[3],
+                (String) row[4], (String) row[5], (String) row[6], (String) row[7], (String) row[8],
+                (String) row[9], (BigDecimal) row[10], (BigDecimal) row[11], (BigDecimal) row[12],
+                row[13] != null ? (Integer) row[13] : 0, (String) row[14], (String) row[15], (String) row[16],
+                Boolean.TRUE.equals(row[17]), Boolean.TRUE.equals(row[18]), Boolean.TRUE.equals(row[19]),
+                Boolean.TRUE.equals(row[20]), Boolean.TRUE.equals(row[21]), Boolean.TRUE.equals(row[22]),
+                (PricePreference) row[23], openingHoursIndex.weekBitmap(id));
+    }
+
+    private void deleteOlder(Long cityId, Path keep, Path previous) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "city-" + cityId + "-*.bin.gz")) {
+            for (Path file : files) {
+                Matcher m = FILE_NAME.matcher(file.getFileName().toString());
+                if (m.matches() && m.group(1).equals(cityId.toString())
+                        && !file.equals(keep) && !file.equals(previous)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private static String etagOf(String hash) {
+        return "\"" + hash + "\"";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package org.th.service.mobile;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongPredicate;
+
+/**
+ * Immutable sparse top-K neighbour lists for shops (item-item similarity)
+ * Stored as CSR-style primitive arrays: item i's neighbours are
+ * neighbours[offsets[i]..offsets[i+1]) with matching scores, best first.
+ */
+public final class ItemSimilarityIndex {
+
+    private static final int MAGIC = 0x49534958; // "ISIX"
+    private static final int VERSION = 1;
+
+    private static final ItemSimilarityIndex EMPTY = new ItemSimilarityIndex(new long[0], new int[] { 0 },
+            new int[0], new float[0], 0L);
+
+    private final long[] itemIds; // sorted ascending
+    private final int[] offsets;
+    private final int[] neighbours; // indexes into itemIds
+    private final float[] scores;
+    private final long builtAt;
+
+    private ItemSimilarityIndex(long[] itemIds, int[] offsets, int[] neighbours, float[] scores, long builtAt) {
+        this.itemIds = itemIds;
+        this.offsets = offsets;
+        this.neighbours = neighbours;
+        this.scores = scores;
+        this.builtAt = builtAt;
+    }
+
+    public static ItemSimilarityIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Build the index from interaction baskets (a user's or session's shops with weights)
+     * Similarity is weighted cosine over co-occurrence; only the top {@code k}
+     * neighbours per shop are kept. Oversized baskets are trimmed to their
+     * heaviest {@code maxBasketSize} items to bound the pairwise cost.
+     */
+    public static ItemSimilarityIndex build(Collection<Map<Long, Float>> baskets, int k, int maxBasketSize) {
+        long[] ids = baskets.stream()
+                .flatMap(b -> b.keySet().stream())
+                .mapToLong(Long::longValue)
+                .distinct()
+                .sorted()
+                .toArray();
+        if (ids.length == 0) {
+            return EMPTY;
+        }
+
+        double[] norms = new double[ids.length];
+        LongFloatMap coOccurrence = new LongFloatMap(ids.length * 4);
+        int[] basketItems = new int[maxBasketSize];
+        float[] basketWeights = new float[maxBasketSize];
+
+        for (Map<Long, Float> basket : baskets) {
+            List<Map.Entry<Long, Float>> entries = new ArrayList<>(basket.entrySet());
+            if (entries.size() > maxBasketSize) {
+                entries.sort(Map.Entry.<Long, Float>comparingByValue().reversed());
+                entries = entries.subList(0, maxBasketSize);
+            }
+            int n = entries.size();
+            for (int i = 0; i < n; i++) {
+                basketItems[i] = Arrays.binarySearch(ids, entries.get(i).getKey());
+                basketWeights[i] = entries.get(i).getValue();
+                norms[basketItems[i]] += (double) basketWeights[i] * basketWeights[i];
+            }
+            for (int i = 0; i < n; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    int a = Math.min(basketItems[i], basketItems[j]);
+                    int b = Math.max(basketItems[i], basketItems[j]);
+                    coOccurrence.add(((long) a << 32) | b, basketWeights[i] * basketWeights[j]);
+                }
+            }
+        }
+
+        // Count candidate neighbours per item, then lay them out contiguously
+        int[] degree = new int[ids.length];
+        coOccurrence.forEach((key, co) -> {
+            degree[(int) (key >>> 32)]++;
+            degree[(int) key]++;
+        });
+        int[] start = new int[ids.length + 1];
+        for (int i = 0; i < ids.length; i++) {
+            start[i + 1] = start[i] + degree[i];
+        }
+        int[] candidates = new int[start[ids.length]];
+        float[] candidateScores = new float[start[ids.length]];
+        int[] fill = Arrays.copyOf(start, ids.length);
+        coOccurrence.forEach((key, co) -> {
+            int a = (int) (key >>> 32);
+            int b = (int) key;
+            float sim = (float) (co / Math.sqrt(norms[a] * norms[b]));
+            candidates[fill[a]] = b;
+            candidateScores[fill[a]++] = sim;
+            candidates[fill[b]] = a;
+            candidateScores[fill[b]++] = sim;
+        });
+
+        // Keep the best k per item
+        int[] offsets = new int[ids.length + 1];
+        for (int i = 0; i < ids.length; i++) {
+            offsets[i + 1] = offsets[i] + Math.min(k, degree[i]);
+        }
+        int[] neighbours = new int[offsets[ids.length]];
+        float[] scores = new float[offsets[ids.length]];
+        for (int i = 0; i < ids.length; i++) {
+            int from = start[i];
+            int count = degree[i];
+            Integer[] order = new Integer[count];
+            for (int c = 0; c < count; c++) {
+                order[c] = from + c;
+            }
+            Arrays.sort(order, (x, y) -> Float.compare(candidateScores[y], candidateScores[x]));
+            for (int c = 0; c < offsets[i + 1] - offsets[i]; c++) {
+                neighbours[offsets[i] + c] = candidates[order[c]];
+                scores[offsets[i] + c] = candidateScores[order[c]];
+            }
+        }
+
+        return new ItemSimilarityIndex(ids, offsets, neighbours, scores, System.currentTimeMillis());
+    }
+
+    /**
+     * Merge the neighbour lists of the seed shops and return the best {@code limit} shop IDs
+     * @param seeds shop id to seed weight (e.g. favorite > view)
+     * @param excluded shop IDs never to return (seeds are always excluded)
+     */
+    public List<Long> recommend(Map<Long, Float> seeds, Set<Long> excluded, int limit) {
+        return recommend(seeds, excluded, limit, id -> true);
+    }
+
+    /**
+     * As {@link #recommend(Map, Set, int)}, keeping only shops accepted by {@code allowed}
+     * (applied before the limit)
+     */
+    public List<Long> recommend(Map<Long, Float> seeds, Set<Long> excluded, int limit, LongPredicate allowed) {
+        LongFloatMap scored = new LongFloatMap(64);
+        for (Map.Entry<Long, Float> seed : seeds.entrySet()) {
+            int item = Arrays.binarySearch(itemIds, seed.getKey());
+            if (item < 0) {
+                continue;
+            }
+            float weight = seed.getValue();
+            for (int n = offsets[item]; n < offsets[item + 1]; n++) {
+                scored.add(neighbours[n], scores[n] * weight);
+            }
+        }
+
+        int[] candidates = new int[scored.size()];
+        float[] candidateScores = new float[scored.size()];
+        int[] count = new int[1];
+        scored.forEach((item, score) -> {
+            long shopId = itemIds[(int) item];
+            if (!seeds.containsKey(shopId) && !excluded.contains(shopId) && allowed.test(shopId)) {
+                candidates[count[0]] = (int) item;
+                candidateScores[count[0]++] = score;
+            }
+        });
+        Integer[] order = new Integer[count[0]];
+        for (int c = 0; c < order.length; c++) {
+            order[c] = c;
+        }
+        Arrays.sort(order, (x, y) -> Float.compare(candidateScores[y], candidateScores[x]));
+        List<Long> result = new ArrayList<>(Math.min(limit, order.length));
+        for (int c = 0; c < order.length && c < limit; c++) {
+            result.add(itemIds[candidates[order[c]]]);
+        }
+        return result;
+    }
+
+    /**
+     * Neighbours of a single shop, best first
+     */
+    public List<Long> neighboursOf(long shopId) {
+        int item = Arrays.binarySearch(itemIds, shopId);
+        if (item < 0) {
+            return List.of();
+        }
+        List<Long> result = new ArrayList<>(offsets[item + 1] - offsets[item]);
+        for (int n = offsets[item]; n < offsets[item + 1]; n++) {
+            result.add(itemIds[neighbours[n]]);
+        }
+        return result;
+    }
+
+    public int size() {
+        return itemIds.length;
+    }
+
+    public int edgeCount() {
+        return neighbours.length;
+    }
+
+    public long getBuiltAt() {
+        return builtAt;
+    }
+
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(builtAt);
+        out.writeInt(itemIds.length);
+        out.writeInt(neighbours.length);
+        for (long id : itemIds) {
+            out.writeLong(id);
+        }
+        for (int offset : offsets) {
+            out.writeInt(offset);
+        }
+        for (int n : neighbours) {
+            out.writeInt(n);
+        }
+        for (float score : scores) {
+            out.writeFloat(score);
+        }
+    }
+
+    public static ItemSimilarityIndex readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Not an item similarity snapshot (or unsupported version)");
+        }
+        long builtAt = in.readLong();
+        int items = in.readInt();
+        int edges = in.readInt();
+        long[] itemIds = new long[items];
+        for (int i = 0; i < items; i++) {
+            itemIds[i] = in.readLong();
+        }
+        int[] offsets = new int[items + 1];
+        for (int i = 0; i <= items; i++) {
+            offsets[i] = in.readInt();
+        }
+        int[] neighbours = new int[edges];
+        for (int i = 0; i < edges; i++) {
+            neighbours[i] = in.readInt();
+        }
+        float[] scores = new float[edges];
+        for (int i = 0; i < edges; i++) {
+            scores[i] = in.readFloat();
+        }
+        return new ItemSimilarityIndex(itemIds, offsets, neighbours, scores, builtAt);
+    }
+
+    /**
+     * Open-addressing long to float accumulator, so pair and candidate scores stay unboxed
+     */
+    private static final class LongFloatMap {
+
+        interface Entry {
+            void accept(long key, float value);
+        }
+
+        private long[] keys;
+        private float[] values;
+        private boolean[] used;
+        private int size;
+
+        LongFloatMap(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(16, expected * 2) - 1) << 1;
+            keys = new long[capacity];
+            values = new float[capacity];
+            used = new boolean[capacity];
+        }
+
+        void add(long key, float delta) {
+            int slot = slot(key, keys.length);
+            while (used[slot] && keys[slot] != key) {
+                slot = (slot + 1) & (keys.length - 1);
+            }
+            if (used[slot]) {
+                values[slot] += delta;
+                return;
+            }
+            used[slot] = true;
+            keys[slot] = key;
+            values[slot] = delta;
+            if (++size * 2 > keys.length) {
+                grow();
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        void forEach(Entry action) {
+            for (int i = 0; i < keys.length; i++) {
+                if (used[i]) {
+                    action.accept(keys[i], values[i]);
+                }
+            }
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            float[] oldValues = values;
+            boolean[] oldUsed = used;
+            keys = new long[oldKeys.length * 2];
+            values = new float[oldKeys.length * 2];
+            used = new boolean[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldUsed[i]) {
+                    int slot = slot(oldKeys[i], keys.length);
+                    while (used[slot]) {
+                        slot = (slot + 1) & (keys.length - 1);
+                    }
+                    used[slot] = true;
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        private static int slot(long key, int capacity) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & (capacity - 1);
+        }
+    }
+}
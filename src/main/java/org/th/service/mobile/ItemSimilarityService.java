@@ -0,0 +1,171 @@
+package org.th.service.mobile;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.th.repository.ShopReviewRepository;
+import org.th.repository.UserActivityRepository;
+import org.th.repository.UserFavoriteRepository;
+import org.th.repository.UserMenuFavoriteRepository;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Maintains the item-item similarity index used for recommendations
+ * Rebuilt periodically from favorites, dish favorites, positive reviews and
+ * shop-view sessions; the latest index is snapshotted to disk so a restart
+ * serves recommendations immediately instead of waiting for the next rebuild.
+ */
+@Service
+@Slf4j
+public class ItemSimilarityService {
+
+    // Signal weights (a favorite says more than a view)
+    private static final float FAVORITE_WEIGHT = 3.0f;
+    private static final float POSITIVE_REVIEW_WEIGHT = 3.0f;
+    private static final float MENU_FAVORITE_WEIGHT = 2.0f;
+    private static final float VIEW_WEIGHT = 1.0f;
+    private static final int POSITIVE_RATING = 4;
+
+    private final UserFavoriteRepository userFavoriteRepository;
+    private final UserMenuFavoriteRepository userMenuFavoriteRepository;
+    private final ShopReviewRepository shopReviewRepository;
+    private final UserActivityRepository userActivityRepository;
+
+    private final int neighbours;
+    private final int maxBasketSize;
+    private final int viewWindowDays;
+    private final Path snapshotPath;
+
+    private volatile ItemSimilarityIndex index = ItemSimilarityIndex.empty();
+
+    public ItemSimilarityService(
+            UserFavoriteRepository userFavoriteRepository,
+            UserMenuFavoriteRepository userMenuFavoriteRepository,
+            ShopReviewRepository shopReviewRepository,
+            UserActivityRepository userActivityRepository,
+            @Value("${app.recommendations.similarity.neighbours:50}") int neighbours,
+            @Value("${app.recommendations.similarity.max-basket-size:100}") int maxBasketSize,
+            @Value("${app.recommendations.similarity.view-window-days:30}") int viewWindowDays,
+            @Value("${app.recommendations.similarity.snapshot-path:data/item-similarity.bin}") String snapshotPath) {
+        this.userFavoriteRepository = userFavoriteRepository;
+        this.userMenuFavoriteRepository = userMenuFavoriteRepository;
+        this.shopReviewRepository = shopReviewRepository;
+        this.userActivityRepository = userActivityRepository;
+        this.neighbours = neighbours;
+        this.maxBasketSize = maxBasketSize;
+        this.viewWindowDays = viewWindowDays;
+        this.snapshotPath = Path.of(snapshotPath);
+    }
+
+    /**
+     * Load the last snapshot, if any
+     */
+    @PostConstruct
+    void loadSnapshot() {
+        if (!Files.isReadable(snapshotPath)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath)))) {
+            index = ItemSimilarityIndex.readFrom(in);
+            log.info("Loaded item similarity snapshot: {} shops, {} edges", index.size(), index.edgeCount());
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable item similarity snapshot {}: {}", snapshotPath, e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuild the index from interaction data
+     * Runs shortly after startup and then every few hours
+     */
+    @Scheduled(initialDelayString = "${app.recommendations.similarity.initial-delay-ms:60000}",
+            fixedDelayString = "${app.recommendations.similarity.rebuild-interval-ms:21600000}")
+    @Transactional(readOnly = true)
+    @io.micrometer.core.annotation.Timed(value = "recommendations.similarity.rebuild", description = "Item similarity rebuild")
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        Map<String, Map<Long, Float>> baskets = new HashMap<>();
+
+        addPairs(baskets, userFavoriteRepository.findUserShopPairs(), FAVORITE_WEIGHT);
+        addPairs(baskets, shopReviewRepository.findPositiveUserShopPairs(POSITIVE_RATING), POSITIVE_REVIEW_WEIGHT);
+        addPairs(baskets, userMenuFavoriteRepository.findUserShopPairs(), MENU_FAVORITE_WEIGHT);
+
+        // Views: a session is the explicit session id, else one device's views on one day
+        try (Stream<Object[]> views = userActivityRepository
+                .streamShopViewsSince(LocalDateTime.now().minusDays(viewWindowDays))) {
+            views.forEach(row -> {
+                String session = row[0] != null
+                        ? "s:" + row[0]
+                        : "d:" + row[1] + "/" + ((LocalDateTime) row[3]).toLocalDate();
+                add(baskets, session, (Long) row[2], VIEW_WEIGHT);
+            });
+        }
+
+        // A basket with a single shop carries no co-occurrence
+        baskets.values().removeIf(b -> b.size() < 2);
+
+        ItemSimilarityIndex built = ItemSimilarityIndex.build(baskets.values(), neighbours, maxBasketSize);
+        index = built;
+        writeSnapshot(built);
+
+        log.info("Item similarity rebuilt from {} baskets: {} shops, {} edges in {} ms",
+                baskets.size(), built.size(), built.edgeCount(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Top-K merge of the seed shops' neighbour lists (no database access)
+     */
+    public List<Long> recommend(Map<Long, Float> seeds, Set<Long> excluded, int limit,
+            java.util.function.LongPredicate allowed) {
+        if (seeds.isEmpty()) {
+            return List.of();
+        }
+        return index.recommend(seeds, excluded, limit, allowed);
+    }
+
+    public ItemSimilarityIndex getIndex() {
+        return index;
+    }
+
+    private void addPairs(Map<String, Map<Long, Float>> baskets, List<Object[]> pairs, float weight) {
+        for (Object[] row : pairs) {
+            add(baskets, "u:" + row[0], (Long) row[1], weight);
+        }
+    }
+
+    private void add(Map<String, Map<Long, Float>> baskets, String basket, Long shopId, float weight) {
+        if (shopId != null) {
+            baskets.computeIfAbsent(basket, k -> new HashMap<>()).merge(shopId, weight, Math::max);
+        }
+    }
+
+    private void writeSnapshot(ItemSimilarityIndex built) {
+        try {
+            Path parent = snapshotPath.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path tmp = Files.createTempFile(parent, "item-similarity", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                built.writeTo(out);
+            }
+            Files.move(tmp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to write item similarity snapshot {}: {}", snapshotPath, e.getMessage());
+        }
+    }
+}
@@ -9,6 +9,7 @@ import org.th.service.TimeContextService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.th.dto.ShopFilter;
 import org.th.dto.feed.*;
 import org.th.entity.User;
 import org.th.entity.enums.*;
@@ -31,15 +32,20 @@ import java.util.stream.Collectors;
 public class PersonalizedFeedService {
 
     private final ShopRepository shopRepository;
-    private final UserRepository userRepository;
+    private final org.th.config.security.CurrentUserResolver currentUserResolver;
     private final UserFavoriteRepository userFavoriteRepository;
     private final org.th.repository.UserMenuFavoriteRepository userMenuFavoriteRepository; // Injected
     private final TimeContextService timeContextService;
     private final UserSegmentationService userSegmentationService;
     private final UserActivityRepository userActivityRepository;
     private final RecommendationService recommendationService;
+    private final TrendingService trendingService;
+    private final org.th.service.OpeningHoursIndex openingHoursIndex;
+    private final org.th.service.ShopAttributeIndex shopAttributeIndex;
 
     private static final int SECTION_LIMIT = 10;
+    private static final double OPEN_NOW_BOOST = 15.0;
+    private static final int MAX_FILTERED_FETCH = 200;
     private static final double DEFAULT_RADIUS_KM = 5.0;
 
     /**
@@ -52,7 +58,7 @@ public class PersonalizedFeedService {
 
         User user = null;
         if (username != null && !username.equals("guest")) {
-            user = userRepository.findByUsername(username).orElse(null);
+            user = currentUserResolver.resolve(username);
         }
 
         // Use default radius if not provided
@@ -165,28 +171,24 @@ public class PersonalizedFeedService {
         // Get time-relevant categories
         List<String> timeCategories = timeContextService.getRelevantCategoriesForTime(timeContext);
 
+        // Dietary constraints are applied before the limit so strict users still get a full section
+        org.th.service.ShopAttributeIndex.Candidates dietary = shopAttributeIndex.candidates(ShopFilter.forUser(user));
+
         if (hasLocation) {
             // Get nearby shops in relevant categories (optimized - filtering in database)
             double[] bounds = ShopService.calculateBoundingBox(latitude, longitude, radius);
             shops = shopRepository.findNearbyShopsByCategories(
-                    latitude, longitude, radius, timeCategories, SECTION_LIMIT,
+                    latitude, longitude, radius, timeCategories,
+                    dietary.fetchSize(SECTION_LIMIT, MAX_FILTERED_FETCH),
                     bounds[0], bounds[1], bounds[2], bounds[3]);
         } else if (districtId != null) {
             // Filter by District
-            shops = shopRepository.findByDistrict_IdAndCategoryIn(districtId, timeCategories).stream()
-                    .limit(SECTION_LIMIT)
-                    .collect(Collectors.toList());
+            shops = shopRepository.findByDistrict_IdAndCategoryIn(districtId, timeCategories);
         } else {
             // Fallback: get shops by time-relevant categories
-            shops = shopRepository.findByCategoryIn(timeCategories).stream()
-                    .limit(SECTION_LIMIT)
-                    .collect(Collectors.toList());
-        }
-
-        // Apply Dietary Safety Net
-        if (user != null) {
-            shops = applyDietarySafetyNet(shops, user);
+            shops = shopRepository.findByCategoryIn(timeCategories);
         }
+        shops = limitTo(shops, dietary);
 
         List<ShopFeedItemDTO> feedItems = shops.stream()
                 .map(shop -> convertToFeedItem(shop, latitude, longitude,
@@ -194,6 +196,9 @@ public class PersonalizedFeedService {
                         timeContext.getLabelMm() + " အတွက် အထူးသင့်တော်သည်", shopRelevanceReasons))
                 .collect(Collectors.toList());
 
+        // Shops open right now come first (stable, so distance order is kept within each group)
+        feedItems.sort(Comparator.comparing(item -> !item.getBadges().contains(ShopBadge.OPEN_NOW)));
+
         return FeedSectionDTO.builder()
                 .title("For You Now")
                 .titleMm("သင့်အတွက် ယခုအချိန်က")
@@ -211,13 +216,12 @@ public class PersonalizedFeedService {
             double radius, boolean hasLocation, Long districtId) {
         List<Shop> shops = new ArrayList<>();
 
-        // 1. Hierarchical Fallback: Try District First
+        // 1. Hierarchical Fallback: Try District First (from the district leaderboard)
+        org.th.service.ShopAttributeIndex.Candidates dietary = shopAttributeIndex.candidates(ShopFilter.forUser(user));
         if (districtId != null) {
-            shops = shopRepository.findByDistrict_Id(districtId);
-            // Sort by trending score desc
-            shops.sort(Comparator.comparing(Shop::getTrendingScore, Comparator.nullsLast(Comparator.reverseOrder())));
-            if (shops.size() > SECTION_LIMIT) {
-                shops = shops.subList(0, SECTION_LIMIT);
+            List<Long> ids = trendingIds(districtId, dietary);
+            if (!ids.isEmpty()) {
+                shops = TrendingService.orderByIds(shopRepository.findActiveByIdInWithPhotos(ids), ids);
             }
         }
 
@@ -228,11 +232,14 @@ public class PersonalizedFeedService {
         if (shops.isEmpty()) {
             if (hasLocation) {
                 double[] bounds = ShopService.calculateBoundingBox(latitude, longitude, radius);
-                shops = shopRepository.findNearbyTrendingShops(
-                        latitude, longitude, radius, SECTION_LIMIT,
-                        bounds[0], bounds[1], bounds[2], bounds[3]);
+                shops = limitTo(shopRepository.findNearbyTrendingShops(
+                        latitude, longitude, radius, dietary.fetchSize(SECTION_LIMIT, MAX_FILTERED_FETCH),
+                        bounds[0], bounds[1], bounds[2], bounds[3]), dietary);
             } else {
-                shops = shopRepository.findTop10ByOrderByTrendingScoreDesc();
+                List<Long> ids = trendingIds(null, dietary);
+                if (!ids.isEmpty()) {
+                    shops = TrendingService.orderByIds(shopRepository.findActiveByIdInWithPhotos(ids), ids);
+                }
             }
         }
 
@@ -298,6 +305,7 @@ public class PersonalizedFeedService {
             double radius, boolean hasLocation, Long districtId) {
         LocalDateTime thirtyDaysAgo = LocalDateTime.now().minusDays(30);
         List<Shop> shops;
+        org.th.service.ShopAttributeIndex.Candidates dietary = shopAttributeIndex.candidates(ShopFilter.forUser(user));
 
         if (hasLocation) {
             // 1. Priority: Discovery (Nearby New Shops) - Show EVERYTHING new around me
@@ -305,23 +313,22 @@ public class PersonalizedFeedService {
             // discovery.
             double[] bounds = ShopService.calculateBoundingBox(latitude, longitude, radius);
             shops = shopRepository.findNearbyRecentShops(
-                    latitude, longitude, radius, thirtyDaysAgo, SECTION_LIMIT,
+                    latitude, longitude, radius, thirtyDaysAgo, dietary.fetchSize(SECTION_LIMIT, MAX_FILTERED_FETCH),
                     bounds[0], bounds[1], bounds[2], bounds[3]);
         } else if (districtId != null) {
             // 2. Fallback: District New Shops
             shops = shopRepository.findByDistrict_IdAndCreatedAtAfter(districtId, thirtyDaysAgo);
-            shops = shops.stream().limit(SECTION_LIMIT).collect(Collectors.toList());
         } else {
             // 3. Fallback: Global New Shops
             shops = shopRepository.findRecentShops(
                     thirtyDaysAgo,
-                    org.springframework.data.domain.PageRequest.of(0, SECTION_LIMIT)).getContent();
+                    org.springframework.data.domain.PageRequest.of(0, dietary.fetchSize(SECTION_LIMIT,
+                            MAX_FILTERED_FETCH)))
+                    .getContent();
         }
 
-        // Apply Dietary Safety Net
-        if (user != null) {
-            shops = applyDietarySafetyNet(shops, user);
-        }
+        // Apply Dietary Safety Net before the limit
+        shops = limitTo(shops, dietary);
 
         List<ShopFeedItemDTO> feedItems = shops.stream()
                 .map(shop -> convertToFeedItem(shop, latitude, longitude, "Recently added",
@@ -345,6 +352,13 @@ public class PersonalizedFeedService {
             String matchReasonMm, Map<Long, String> shopRelevanceReasons) {
         List<ShopBadge> badges = calculateShopBadges(shop);
 
+        // Open-now boost (O(1) bitmap lookup)
+        double openNowBoost = 0.0;
+        if (openingHoursIndex.isOpenNow(shop.getId())) {
+            badges.add(ShopBadge.OPEN_NOW);
+            openNowBoost = OPEN_NOW_BOOST;
+        }
+
         // Boost for Menu Favorites
         boolean hasRelevanceMatch = shopRelevanceReasons != null && shopRelevanceReasons.containsKey(shop.getId());
         double relevanceBoost = 0.0;
@@ -385,7 +399,7 @@ public class PersonalizedFeedService {
                 .distanceKm(distance)
                 .badges(badges)
                 .badgeLabelsMm(badgeLabelsMm)
-                .relevanceScore(calculateRelevanceScore(shop) + relevanceBoost)
+                .relevanceScore(calculateRelevanceScore(shop) + relevanceBoost + openNowBoost)
                 .matchReason(matchReason)
                 .matchReasonMm(matchReasonMm)
                 .hasDelivery(shop.getHasDelivery())
@@ -398,7 +412,7 @@ public class PersonalizedFeedService {
     /**
      * Calculate dynamic badges for a shop
      */
-    private List<ShopBadge> calculateShopBadges(Shop shop) {
+    List<ShopBadge> calculateShopBadges(Shop shop) {
         List<ShopBadge> badges = new ArrayList<>();
 
         // TRENDING_NOW: High trending score
@@ -439,7 +453,7 @@ public class PersonalizedFeedService {
     /**
      * Calculate relevance score (0-100)
      */
-    private Double calculateRelevanceScore(Shop shop) {
+    Double calculateRelevanceScore(Shop shop) {
         double score = 0.0;
 
         // Rating contribution (40%)
@@ -478,11 +492,31 @@ public class PersonalizedFeedService {
         return EARTH_RADIUS_KM * c;
     }
 
+    /**
+     * Keep shops matching the candidate set, then cut to the section size
+     */
+    private List<Shop> limitTo(List<Shop> shops, org.th.service.ShopAttributeIndex.Candidates candidates) {
+        return shops.stream()
+                .filter(shop -> candidates.test(shop.getId()))
+                .limit(SECTION_LIMIT)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Trending IDs for a district (or globally), filtered before the section limit
+     */
+    private List<Long> trendingIds(Long districtId, org.th.service.ShopAttributeIndex.Candidates candidates) {
+        return trendingService.getTrendingShopIds(districtId, null, null, Integer.MAX_VALUE).stream()
+                .filter(candidates::test)
+                .limit(SECTION_LIMIT)
+                .collect(Collectors.toList());
+    }
+
     /**
      * Apply Dietary Safety Net
      * Filters shops based on User's Veg/Halal preferences
      */
-    private List<Shop> applyDietarySafetyNet(List<Shop> shops, User user) {
+    List<Shop> applyDietarySafetyNet(List<Shop> shops, User user) {
         if (user == null)
             return shops;
 
@@ -0,0 +1,287 @@
+package org.th.service.mobile;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.th.dto.mobile.PopularSearchDTO;
+import org.th.util.CountMinSketch;
+import org.th.util.HyperLogLog;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.regex.Pattern;
+
+/**
+ * Popular searches over a sliding window, kept in memory
+ * Each query is counted in a Count-Min sketch per time bucket; the window
+ * sketch is the sum of the live buckets (an expiring bucket is subtracted).
+ * A bounded candidate set holds the heaviest queries seen in the window and
+ * serves both the popular list and typeahead completions, so nothing scans
+ * {@code user_activities}. Counts are per instance and reset on restart.
+ * <p>
+ * Queries are public once listed, so a candidate is only shown after a
+ * minimum number of searches from several distinct devices within the
+ * window, and queries that look like contact details, links or keyboard
+ * spam are never counted.
+ */
+@Service
+public class PopularSearchService {
+
+    private static final int MAX_QUERY_LENGTH = 100;
+
+    // Phone numbers, IDs and card numbers: six or more digits, allowing separators
+    private static final Pattern LONG_NUMBER = Pattern.compile("\\d(?:[\\s\\-.()]*\\d){5,}");
+    private static final Pattern CONTACT_OR_LINK = Pattern.compile("@|https?:|www\\.|\\.(?:com|net|org|me|io)\\b");
+    // The same character five or more times in a row ("aaaaa", "!!!!!")
+    private static final Pattern REPEATED_CHARACTER = Pattern.compile("(.)\\1{4,}");
+    private static final int MAX_WORDS = 8;
+
+    private final long bucketMillis;
+    private final CountMinSketch[] buckets;
+    private final CountMinSketch window = new CountMinSketch();
+    private final int capacity;
+    private final long minCount;
+    private final int minDevices;
+
+    // Heavy-hitter candidates by query, plus a min-heap on the count they were last queued with
+    private final Map<String, Candidate> candidates = new HashMap<>();
+    private final PriorityQueue<Candidate> lightest = new PriorityQueue<>(
+            Comparator.comparingLong((Candidate c) -> c.queuedCount));
+    private long currentBucket = -1;
+
+    public PopularSearchService(
+            @Value("${app.search.popular.window-minutes:60}") int windowMinutes,
+            @Value("${app.search.popular.buckets:12}") int bucketCount,
+            @Value("${app.search.popular.capacity:500}") int capacity,
+            @Value("${app.search.popular.min-count:3}") long minCount,
+            @Value("${app.search.popular.min-devices:3}") int minDevices) {
+        this.bucketMillis = windowMinutes * 60_000L / bucketCount;
+        this.buckets = new CountMinSketch[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new CountMinSketch();
+        }
+        this.capacity = capacity;
+        this.minCount = minCount;
+        this.minDevices = minDevices;
+    }
+
+    /**
+     * A window candidate; remembers up to {@code minDevices} recent distinct
+     * devices with the bucket each was last seen in
+     */
+    private final class Candidate {
+        final String query;
+        long count;
+        long queuedCount;
+        final long[] devices = new long[minDevices];
+        final long[] seenBucket = new long[minDevices];
+        int deviceSlots;
+
+        Candidate(String query) {
+            this.query = query;
+        }
+
+        void seen(long device, long bucket) {
+            int reusable = -1;
+            for (int i = 0; i < deviceSlots; i++) {
+                if (devices[i] == device) {
+                    seenBucket[i] = bucket;
+                    return;
+                }
+                if (reusable < 0 && !live(seenBucket[i], bucket)) {
+                    reusable = i;
+                }
+            }
+            if (deviceSlots < devices.length) {
+                reusable = deviceSlots++;
+            }
+            if (reusable >= 0) {
+                devices[reusable] = device;
+                seenBucket[reusable] = bucket;
+            }
+        }
+
+        boolean shown(long bucket) {
+            if (count < minCount) {
+                return false;
+            }
+            int live = 0;
+            for (int i = 0; i < deviceSlots; i++) {
+                if (live(seenBucket[i], bucket)) {
+                    live++;
+                }
+            }
+            return live >= minDevices;
+        }
+
+        private boolean live(long seen, long bucket) {
+            return bucket - seen < buckets.length;
+        }
+    }
+
+    /**
+     * @param deviceId the searching device; searches without one are counted
+     *                 but do not help a query reach the distinct-device minimum
+     */
+    public void record(String query, String deviceId) {
+        record(query, deviceId, System.currentTimeMillis());
+    }
+
+    public List<PopularSearchDTO> popular(int limit) {
+        return popular(limit, System.currentTimeMillis());
+    }
+
+    public List<PopularSearchDTO> suggest(String prefix, int limit) {
+        return suggest(prefix, limit, System.currentTimeMillis());
+    }
+
+    synchronized void record(String query, String deviceId, long now) {
+        String normalized = normalize(query, 2);
+        if (normalized == null || !publishable(normalized)) {
+            return;
+        }
+        advance(now);
+        long hash = HyperLogLog.hash64(normalized);
+        buckets[slot(currentBucket)].add(hash);
+        window.add(hash);
+        Candidate candidate = offer(normalized, window.estimate(hash));
+        if (candidate != null && deviceId != null && minDevices > 0) {
+            candidate.seen(HyperLogLog.hash64(deviceId), currentBucket);
+        }
+    }
+
+    synchronized List<PopularSearchDTO> popular(int limit, long now) {
+        advance(now);
+        return candidates.values().stream()
+                .filter(c -> c.shown(currentBucket))
+                .sorted(Comparator.comparingLong((Candidate c) -> c.count).reversed())
+                .limit(limit)
+                .map(c -> new PopularSearchDTO(c.query, c.count))
+                .toList();
+    }
+
+    /**
+     * Queries starting with (or with a word starting with) the prefix, by volume
+     */
+    synchronized List<PopularSearchDTO> suggest(String prefix, int limit, long now) {
+        String normalized = normalize(prefix, 1);
+        if (normalized == null) {
+            return List.of();
+        }
+        advance(now);
+        String wordPrefix = " " + normalized;
+        return candidates.values().stream()
+                .filter(c -> c.query.startsWith(normalized) || c.query.contains(wordPrefix))
+                .filter(c -> c.shown(currentBucket))
+                .sorted(Comparator.comparingLong((Candidate c) -> c.count).reversed()
+                        .thenComparing(c -> c.query.length()))
+                .limit(limit)
+                .map(c -> new PopularSearchDTO(c.query, c.count))
+                .toList();
+    }
+
+    /**
+     * Keep the query if there is room or it outweighs the lightest candidate
+     * Counts only grow between bucket advances, so a heap entry can only
+     * under-state its candidate: a stale root is re-queued at its current
+     * count until the root is accurate, which keeps eviction O(log n).
+     *
+     * @return the candidate for the query, or null if it did not make the set
+     */
+    private Candidate offer(String query, long estimate) {
+        Candidate existing = candidates.get(query);
+        if (existing != null) {
+            existing.count = estimate;
+            return existing;
+        }
+        if (candidates.size() >= capacity) {
+            Candidate root = lightest.peek();
+            while (root != null && root.queuedCount != root.count) {
+                lightest.poll();
+                root.queuedCount = root.count;
+                lightest.add(root);
+                root = lightest.peek();
+            }
+            if (root == null || estimate <= root.count) {
+                return null;
+            }
+            lightest.poll();
+            candidates.remove(root.query);
+        }
+        Candidate candidate = new Candidate(query);
+        candidate.count = estimate;
+        candidate.queuedCount = estimate;
+        candidates.put(query, candidate);
+        lightest.add(candidate);
+        return candidate;
+    }
+
+    /**
+     * Expire buckets that slid out of the window and rescore the candidates
+     */
+    private void advance(long now) {
+        long bucket = now / bucketMillis;
+        if (currentBucket < 0 || bucket - currentBucket >= buckets.length) {
+            // First use, or idle for longer than the window: start empty
+            if (currentBucket >= 0) {
+                for (CountMinSketch b : buckets) {
+                    b.clear();
+                }
+                window.clear();
+                candidates.clear();
+                lightest.clear();
+            }
+            currentBucket = bucket;
+            return;
+        }
+        if (bucket <= currentBucket) {
+            return;
+        }
+        while (currentBucket < bucket) {
+            currentBucket++;
+            CountMinSketch expired = buckets[slot(currentBucket)];
+            window.subtract(expired);
+            expired.clear();
+        }
+        // Counts may have dropped: rescore and re-heap once per advance
+        lightest.clear();
+        candidates.values().removeIf(c -> {
+            c.count = window.estimate(HyperLogLog.hash64(c.query));
+            c.queuedCount = c.count;
+            return c.count <= 0;
+        });
+        lightest.addAll(candidates.values());
+    }
+
+    private int slot(long bucket) {
+        return (int) Math.floorMod(bucket, (long) buckets.length);
+    }
+
+    /**
+     * Lower-case, trim and collapse whitespace; null if shorter than {@code minLength} characters
+     */
+    static String normalize(String query, int minLength) {
+        if (query == null) {
+            return null;
+        }
+        String normalized = query.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        if (normalized.codePointCount(0, normalized.length()) < minLength) {
+            return null;
+        }
+        return normalized.length() > MAX_QUERY_LENGTH ? normalized.substring(0, MAX_QUERY_LENGTH) : normalized;
+    }
+
+    /**
+     * Whether a normalized query may be shown to other users: no phone or ID
+     * numbers, e-mail addresses or links, and nothing that looks like spam
+     */
+    static boolean publishable(String normalized) {
+        return !LONG_NUMBER.matcher(normalized).find()
+                && !CONTACT_OR_LINK.matcher(normalized).find()
+                && !REPEATED_CHARACTER.matcher(normalized).find()
+                && normalized.split(" ").length <= MAX_WORDS;
+    }
+}
@@ -0,0 +1,103 @@
+package org.th.service.mobile;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable preference snapshot for one user or device
+ * Category and keyword weights are interaction counts; seeds are shop IDs
+ * weighted for the item-similarity lookup; excluded shops are never recommended.
+ * Each map is capped so a profile stays a few hundred bytes however long the history.
+ */
+public record RecommendationProfile(
+        Map<String, Float> categories,
+        Map<String, Float> keywords,
+        Map<Long, Float> seeds,
+        Set<Long> excludedShopIds) {
+
+    static final int MAX_TERMS = 20;
+    static final int MAX_SEEDS = 50;
+
+    public static final RecommendationProfile EMPTY = new RecommendationProfile(Map.of(), Map.of(), Map.of(),
+            Set.of());
+
+    public RecommendationProfile {
+        categories = Collections.unmodifiableMap(categories);
+        keywords = Collections.unmodifiableMap(keywords);
+        seeds = Collections.unmodifiableMap(seeds);
+        excludedShopIds = Collections.unmodifiableSet(excludedShopIds);
+    }
+
+    public boolean isEmpty() {
+        return categories.isEmpty() && keywords.isEmpty() && seeds.isEmpty() && excludedShopIds.isEmpty();
+    }
+
+    /**
+     * Highest-weighted categories, best first
+     */
+    public List<String> topCategories(int limit) {
+        return top(categories, limit);
+    }
+
+    public List<String> topKeywords(int limit) {
+        return top(keywords, limit);
+    }
+
+    public RecommendationProfile withCategory(String category, float weight) {
+        if (category == null) {
+            return this;
+        }
+        return new RecommendationProfile(add(categories, category, weight, MAX_TERMS), keywords, seeds,
+                excludedShopIds);
+    }
+
+    public RecommendationProfile withKeyword(String keyword, float weight) {
+        if (keyword == null) {
+            return this;
+        }
+        return new RecommendationProfile(categories, add(keywords, keyword, weight, MAX_TERMS), seeds,
+                excludedShopIds);
+    }
+
+    public RecommendationProfile withSeed(Long shopId, float weight) {
+        if (shopId == null) {
+            return this;
+        }
+        return new RecommendationProfile(categories, keywords, add(seeds, shopId, weight, MAX_SEEDS),
+                excludedShopIds);
+    }
+
+    public RecommendationProfile withExcluded(Long shopId) {
+        if (shopId == null || excludedShopIds.contains(shopId)) {
+            return this;
+        }
+        Set<Long> excluded = new HashSet<>(excludedShopIds);
+        excluded.add(shopId);
+        return new RecommendationProfile(categories, keywords, seeds, excluded);
+    }
+
+    private static <K> Map<K, Float> add(Map<K, Float> source, K key, float weight, int cap) {
+        Map<K, Float> copy = new HashMap<>(source);
+        copy.merge(key, weight, Float::sum);
+        if (copy.size() > cap) {
+            // Drop the weakest entry to stay within the cap
+            copy.entrySet().stream()
+                    .min(Map.Entry.comparingByValue())
+                    .map(Map.Entry::getKey)
+                    .ifPresent(copy::remove);
+        }
+        return copy;
+    }
+
+    private static <K> List<K> top(Map<K, Float> weights, int limit) {
+        return weights.entrySet().stream()
+                .sorted(Map.Entry.<K, Float>comparingByValue().reversed())
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+}
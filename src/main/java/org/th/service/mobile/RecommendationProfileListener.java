@@ -0,0 +1,75 @@
+package org.th.service.mobile;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.th.entity.User;
+import org.th.entity.UserActivity;
+import org.th.entity.UserFavorite;
+import org.th.entity.enums.ActivityType;
+import org.th.entity.shops.Shop;
+import org.th.entity.shops.ShopReview;
+
+/**
+ * JPA listener that keeps cached recommendation profiles in step with
+ * favorites, reviews and activity writes.
+ */
+@Component
+@RequiredArgsConstructor
+public class RecommendationProfileListener {
+
+    // Resolved lazily: listeners are created with the EntityManagerFactory, before the repositories
+    private final ObjectProvider<RecommendationProfileStore> profileStoreProvider;
+
+    @PostPersist
+    public void onCreated(Object entity) {
+        RecommendationProfileStore profileStore = profileStoreProvider.getObject();
+        switch (entity) {
+            case UserFavorite favorite -> profileStore.onFavoriteAdded(
+                    userId(favorite.getUser()), favorite.getShop().getId(), category(favorite.getShop()));
+            case ShopReview review -> profileStore.onReviewAdded(
+                    userId(review.getUser()), review.getShop().getId(), category(review.getShop()),
+                    review.getRating());
+            case UserActivity activity -> onActivity(profileStore, activity);
+            default -> {
+            }
+        }
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void onChanged(Object entity) {
+        RecommendationProfileStore profileStore = profileStoreProvider.getObject();
+        switch (entity) {
+            case UserFavorite favorite -> profileStore.evictUser(userId(favorite.getUser()));
+            case ShopReview review -> profileStore.evictUser(userId(review.getUser()));
+            default -> {
+            }
+        }
+    }
+
+    private void onActivity(RecommendationProfileStore profileStore, UserActivity activity) {
+        ActivityType type = activity.getActivityType();
+        if (type == ActivityType.SEARCH_QUERY && activity.getSearchQuery() != null) {
+            profileStore.onSearch(userId(activity.getUser()), activity.getDeviceId(), activity.getSearchQuery());
+        } else if (type == ActivityType.VIEW_SHOP || type == ActivityType.VIEW_CATEGORY) {
+            Long shopId = type == ActivityType.VIEW_SHOP ? activity.getTargetId() : null;
+            profileStore.onView(activity.getDeviceId(), activity.getTargetName(), shopId);
+        }
+    }
+
+    private static Long userId(User user) {
+        return user != null ? user.getId() : null;
+    }
+
+    /**
+     * Category only if the shop is already loaded; never trigger a fetch mid-flush
+     */
+    private static String category(Shop shop) {
+        return Hibernate.isInitialized(shop) ? shop.getCategory() : null;
+    }
+}
@@ -0,0 +1,211 @@
+package org.th.service.mobile;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.th.repository.ShopReviewRepository;
+import org.th.repository.UserActivityRepository;
+import org.th.repository.UserFavoriteRepository;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+/**
+ * Per-user and per-device recommendation profiles
+ * A profile is aggregated from the database once, then kept current by
+ * applying favorites, reviews and activities as they are written (see
+ * {@link RecommendationProfileListener}). Changes that can't be applied
+ * incrementally (removals, rating edits) evict the profile instead.
+ */
+@Component
+@Slf4j
+public class RecommendationProfileStore {
+
+    static final float FAVORITE_SEED_WEIGHT = 3.0f;
+    static final float REVIEW_SEED_WEIGHT = 2.0f;
+    static final float VIEW_SEED_WEIGHT = 0.5f;
+    private static final int RECENT_VIEW_SEEDS = 20;
+
+    private final UserFavoriteRepository userFavoriteRepository;
+    private final ShopReviewRepository shopReviewRepository;
+    private final UserActivityRepository userActivityRepository;
+    private final Cache<String, RecommendationProfile> cache;
+
+    public RecommendationProfileStore(
+            UserFavoriteRepository userFavoriteRepository,
+            ShopReviewRepository shopReviewRepository,
+            UserActivityRepository userActivityRepository,
+            @Value("${app.recommendations.profiles.ttl-minutes:360}") long ttlMinutes,
+            @Value("${app.recommendations.profiles.max-size:50000}") long maxSize) {
+        this.userFavoriteRepository = userFavoriteRepository;
+        this.shopReviewRepository = shopReviewRepository;
+        this.userActivityRepository = userActivityRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+    }
+
+    public RecommendationProfile getUserProfile(Long userId) {
+        if (userId == null) {
+            return RecommendationProfile.EMPTY;
+        }
+        return cache.get(userKey(userId), k -> loadUserProfile(userId));
+    }
+
+    public RecommendationProfile getDeviceProfile(String deviceId) {
+        if (deviceId == null) {
+            return RecommendationProfile.EMPTY;
+        }
+        return cache.get(deviceKey(deviceId), k -> loadDeviceProfile(deviceId));
+    }
+
+    public void onFavoriteAdded(Long userId, Long shopId, String category) {
+        updateUser(userId, p -> p.withExcluded(shopId)
+                .withSeed(shopId, FAVORITE_SEED_WEIGHT)
+                .withCategory(category, 1f));
+    }
+
+    public void onReviewAdded(Long userId, Long shopId, String category, Integer rating) {
+        updateUser(userId, p -> {
+            RecommendationProfile updated = p.withExcluded(shopId);
+            if (rating != null && rating >= 3) {
+                updated = updated.withCategory(category, 1f);
+            }
+            if (rating != null && rating >= 4) {
+                updated = updated.withSeed(shopId, REVIEW_SEED_WEIGHT);
+            }
+            return updated;
+        });
+    }
+
+    public void onSearch(Long userId, String deviceId, String query) {
+        updateUser(userId, p -> p.withKeyword(query, 1f));
+        updateDevice(deviceId, p -> p.withKeyword(query, 1f));
+    }
+
+    /**
+     * A shop or category view from a device; {@code targetName} is counted as the
+     * category, matching how device categories are aggregated on load
+     */
+    public void onView(String deviceId, String targetName, Long shopId) {
+        updateDevice(deviceId, p -> p.withCategory(targetName, 1f).withSeed(shopId, VIEW_SEED_WEIGHT));
+    }
+
+    public void evictUser(Long userId) {
+        if (userId != null) {
+            afterCommit(() -> cache.invalidate(userKey(userId)));
+        }
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    public Cache<String, RecommendationProfile> getNativeCache() {
+        return cache;
+    }
+
+    private void updateUser(Long userId, UnaryOperator<RecommendationProfile> change) {
+        if (userId != null) {
+            update(userKey(userId), change);
+        }
+    }
+
+    private void updateDevice(String deviceId, UnaryOperator<RecommendationProfile> change) {
+        if (deviceId != null) {
+            update(deviceKey(deviceId), change);
+        }
+    }
+
+    /**
+     * Only profiles already in memory are updated; absent ones load fresh on next read
+     */
+    private void update(String key, UnaryOperator<RecommendationProfile> change) {
+        afterCommit(() -> cache.asMap().computeIfPresent(key, (k, profile) -> change.apply(profile)));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private RecommendationProfile loadUserProfile(Long userId) {
+        Map<String, Float> categories = new HashMap<>();
+        Map<String, Float> keywords = new HashMap<>();
+        Map<Long, Float> seeds = new HashMap<>();
+        Set<Long> excluded = new HashSet<>();
+
+        for (Object[] row : userFavoriteRepository.findShopIdAndCategoryByUserId(userId)) {
+            Long shopId = (Long) row[0];
+            excluded.add(shopId);
+            seeds.merge(shopId, FAVORITE_SEED_WEIGHT, Math::max);
+            if (row[1] != null) {
+                categories.merge((String) row[1], 1f, Float::sum);
+            }
+        }
+
+        for (Object[] row : shopReviewRepository.findShopIdCategoryAndRatingByUserId(userId)) {
+            Long shopId = (Long) row[0];
+            Integer rating = (Integer) row[2];
+            excluded.add(shopId);
+            if (rating != null && rating >= 3 && row[1] != null) {
+                categories.merge((String) row[1], 1f, Float::sum);
+            }
+            if (rating != null && rating >= 4) {
+                seeds.merge(shopId, REVIEW_SEED_WEIGHT, Math::max);
+            }
+        }
+
+        userActivityRepository.findTopSearchQueriesByUser(userId).stream()
+                .limit(RecommendationProfile.MAX_TERMS)
+                .forEach(row -> keywords.put((String) row[0], ((Number) row[1]).floatValue()));
+
+        return new RecommendationProfile(categories, keywords, seeds, excluded);
+    }
+
+    private RecommendationProfile loadDeviceProfile(String deviceId) {
+        Map<String, Float> categories = new HashMap<>();
+        Map<String, Float> keywords = new HashMap<>();
+        Map<Long, Float> seeds = new HashMap<>();
+
+        userActivityRepository.findTopCategoriesByDevice(deviceId).stream()
+                .limit(RecommendationProfile.MAX_TERMS)
+                .forEach(row -> categories.put((String) row[0], ((Number) row[1]).floatValue()));
+
+        userActivityRepository.findTopSearchQueriesByDevice(deviceId).stream()
+                .limit(RecommendationProfile.MAX_TERMS)
+                .forEach(row -> keywords.put((String) row[0], ((Number) row[1]).floatValue()));
+
+        userActivityRepository.findRecentViewedShopIdsByDevice(deviceId, PageRequest.of(0, RECENT_VIEW_SEEDS))
+                .forEach(id -> seeds.merge(id, VIEW_SEED_WEIGHT, Float::sum));
+
+        return new RecommendationProfile(categories, keywords, seeds, Set.of());
+    }
+
+    private static String userKey(Long userId) {
+        return "u:" + userId;
+    }
+
+    private static String deviceKey(String deviceId) {
+        return "d:" + deviceId;
+    }
+}
@@ -1,25 +1,21 @@
 package org.th.service.mobile;
 
-import org.th.repository.*;
-import org.th.entity.*;
-import org.th.entity.shops.*;
-
 import lombok.RequiredArgsConstructor;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.th.entity.UserFavorite;
+import org.th.entity.User;
 import org.th.entity.shops.Shop;
-import org.th.entity.shops.ShopReview;
-import org.th.repository.UserFavoriteRepository;
 import org.th.repository.ShopRepository;
-import org.th.repository.ShopReviewRepository;
-import org.th.repository.UserRepository;
-import org.th.entity.User;
+
+import org.springframework.data.domain.PageRequest;
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -28,28 +24,30 @@ import java.util.stream.Collectors;
 public class RecommendationService {
 
     private final ShopRepository shopRepository;
-    private final UserFavoriteRepository userFavoriteRepository;
-    private final ShopReviewRepository shopReviewRepository;
-    private final UserRepository userRepository;
-    private final org.th.repository.UserActivityRepository userActivityRepository;
+    private final org.th.config.security.CurrentUserResolver currentUserResolver;
+    private final ItemSimilarityService itemSimilarityService;
+    private final RecommendationProfileStore profileStore;
+    private final org.th.service.OpeningHoursIndex openingHoursIndex;
+    private final org.th.service.ShopAttributeIndex shopAttributeIndex;
+
+    private static final int PERSONALIZED_COUNT = 7;
+    private static final int WILDCARD_COUNT = 3;
+    private static final int FALLBACK_COUNT = 10;
+    private static final int MAX_FILTERED_FETCH = 100;
 
     /**
      * Get personalized recommendations for a user or device
+     * Signals come from the precomputed user/device profiles (no history scans).
+     * Seeds (favorites, positive reviews, recent views) are expanded through the
+     * item-item similarity index; preferred categories only fill in on cold start,
+     * and a few wildcard shops from other categories keep the list diverse.
      */
     @Cacheable("recommendations")
-    /**
-     * Get personalized recommendations for a user or device using Weighted Scoring
-     * Scoring:
-     * - Favorite: 5 points
-     * - Positive Review (>3): 4 points
-     * - Search Query Match: 3 points
-     * - Frequent View (>2): 2 points
-     */
     @Transactional(readOnly = true)
     public List<Shop> getRecommendedShops(String username, String deviceId) {
         User user = null;
         if (username != null) {
-            user = userRepository.findByUsername(username).orElse(null);
+            user = currentUserResolver.resolve(username);
         }
 
         if (user == null && deviceId == null) {
@@ -61,70 +59,51 @@ public class RecommendationService {
         // 1. Gather Signals
         Set<Long> excludedIds = new HashSet<>();
         Set<String> preferredCategories = new HashSet<>();
-        Set<String> searchKeywords = new HashSet<>();
 
-        // 1a. User Signals
+        // 1a. User Signals (favorites and reviews are excluded from results)
+        Map<Long, Float> seeds = new HashMap<>();
         if (userId != null) {
-            List<UserFavorite> favorites = userFavoriteRepository.findByUserIdOrderByCreatedAtDesc(userId);
-            favorites.forEach(f -> {
-                excludedIds.add(f.getShop().getId()); // Don't recommend what they already favorited
-                preferredCategories.add(f.getShop().getCategory());
-            });
-
-            List<ShopReview> reviews = shopReviewRepository.findByUserIdOrderByCreatedAtDesc(userId);
-            reviews.forEach(r -> {
-                excludedIds.add(r.getShop().getId()); // Don't recommend what they already reviewed
-                if (r.getRating() >= 3)
-                    preferredCategories.add(r.getShop().getCategory());
-            });
-
-            // Top Search Queries
-            List<Object[]> topSearches = userActivityRepository.findTopSearchQueriesByUser(userId);
-            topSearches.stream().limit(5).forEach(obj -> searchKeywords.add((String) obj[0]));
+            RecommendationProfile profile = profileStore.getUserProfile(userId);
+            excludedIds.addAll(profile.excludedShopIds());
+            preferredCategories.addAll(profile.categories().keySet());
+            profile.seeds().forEach((id, weight) -> seeds.merge(id, weight, Math::max));
         }
 
         // 1b. Device Signals (for both guest and user)
         if (deviceId != null) {
-            // Top Categories by View
-            // Note: We don't exclude viewed shops because we might want to re-recommend
-            // them if not favorited yet?
-            // Actually, for "Fresh" recommendations, let's exclusion viewed shops if viewed
-            // VERY recently?
-            // For now, let's keep it simple and NOT exclude views, only Favorites/Reviews.
-
-            List<Object[]> topCategories = userActivityRepository.findTopCategoriesByDevice(deviceId);
-            topCategories.stream().limit(5).forEach(obj -> preferredCategories.add((String) obj[0]));
-
-            List<Object[]> topSearches = userActivityRepository.findTopSearchQueriesByDevice(deviceId);
-            topSearches.stream().limit(5).forEach(obj -> searchKeywords.add((String) obj[0]));
+            // Views are seeds but not exclusions: a viewed shop may still be worth recommending
+            RecommendationProfile profile = profileStore.getDeviceProfile(deviceId);
+            preferredCategories.addAll(profile.topCategories(5));
+            profile.seeds().forEach((id, weight) -> seeds.merge(id, weight, Float::sum));
         }
 
-        if (excludedIds.isEmpty())
-            excludedIds.add(-1L);
-        if (preferredCategories.isEmpty() && searchKeywords.isEmpty()) {
-            return shopRepository
-                    .findTop10ByIsActiveTrueAndIdNotInOrderByTrendingScoreDesc(new ArrayList<>(excludedIds));
-        }
+        // Dietary preferences are hard constraints, applied to candidates before any limit
+        org.th.service.ShopAttributeIndex.Candidates dietary = shopAttributeIndex
+                .candidates(org.th.dto.ShopFilter.forUser(user));
 
-        // 2. Fetch Candidates (Optimized Single Query)
-        // We look for shops in preferred categories OR matching search keywords
-        // This is a bit complex for a single JPA query if we want to mix both.
-        // Strategy: Fetch candidates from categories, then filter/sort in memory.
+        // 2. Collaborative candidates: "people who liked your shops also liked"
+        List<Long> personalizedIds = new ArrayList<>(
+                itemSimilarityService.recommend(seeds, excludedIds, PERSONALIZED_COUNT, dietary));
 
-        // 2. Fetch Candidates (Optimized for Performance)
-        // We fetch only IDs first to avoid loading unnecessary entity data (and large
-        // blobs/relations)
-        List<Long> candidateIds = new ArrayList<>();
-        if (!preferredCategories.isEmpty()) {
-            candidateIds.addAll(shopRepository.findIdsByCategoryInAndIdNotIn(
-                    new ArrayList<>(preferredCategories), new ArrayList<>(excludedIds)));
+        if (personalizedIds.isEmpty() && preferredCategories.isEmpty()) {
+            return trendingFallback(excludedIds, dietary);
         }
 
-        // 2a. Personalized Candidates (Target: 70% or 7 items)
-        List<Long> personalizedIds = candidateIds.stream()
-                .distinct()
-                .limit(7)
-                .collect(Collectors.toList());
+        // 2a. Cold start: top up from preferred categories (bounded query)
+        Set<Long> taken = new HashSet<>(excludedIds);
+        taken.addAll(personalizedIds);
+        taken.add(-1L);
+        if (personalizedIds.size() < PERSONALIZED_COUNT && !preferredCategories.isEmpty()) {
+            int missing = PERSONALIZED_COUNT - personalizedIds.size();
+            shopRepository.findIdsByCategoryInAndIdNotIn(
+                    new ArrayList<>(preferredCategories), new ArrayList<>(taken),
+                    PageRequest.of(0, dietary.fetchSize(missing, MAX_FILTERED_FETCH)))
+                    .stream()
+                    .filter(dietary::test)
+                    .limit(missing)
+                    .forEach(personalizedIds::add);
+            taken.addAll(personalizedIds);
+        }
 
         // 2b. Diversity Injection (Target: 30% or 3 Wildcard items)
         List<Long> wildcardIds = new ArrayList<>();
@@ -132,8 +111,11 @@ public class RecommendationService {
             // Find high-quality shops NOT in my bubbles
             wildcardIds = shopRepository.findIdsByCategoryNotInAndIdNotIn(
                     new ArrayList<>(preferredCategories),
-                    new ArrayList<>(excludedIds)).stream()
-                    .limit(3)
+                    new ArrayList<>(taken),
+                    PageRequest.of(0, dietary.fetchSize(WILDCARD_COUNT, MAX_FILTERED_FETCH)))
+                    .stream()
+                    .filter(dietary::test)
+                    .limit(WILDCARD_COUNT)
                     .collect(Collectors.toList());
         }
 
@@ -146,11 +128,35 @@ public class RecommendationService {
 
         if (finalIds.isEmpty()) {
             // Fallback: Use trending shops optimization
-            return shopRepository
-                    .findTop10ByIsActiveTrueAndIdNotInOrderByTrendingScoreDesc(new ArrayList<>(excludedIds));
+            return trendingFallback(excludedIds, dietary);
+        }
+
+        // 3. Final Fetch: Load only what we need with Photos to prevent N+1, keeping rank order
+        Map<Long, Integer> rank = new HashMap<>();
+        for (int i = 0; i < finalIds.size(); i++) {
+            rank.put(finalIds.get(i), i);
         }
+        List<Shop> shops = new ArrayList<>(shopRepository.findActiveByIdInWithPhotos(finalIds));
+        shops.sort(Comparator.comparingInt(s -> rank.getOrDefault(s.getId(), Integer.MAX_VALUE)));
+        // Boost: shops open right now move ahead, keeping rank order within each group
+        shops.sort(Comparator.comparing(s -> !openingHoursIndex.isOpenNow(s.getId())));
+        return shops;
+    }
 
-        // 3. Final Fetch: Load only what we need with Photos to prevent N+1
-        return shopRepository.findByIdInWithPhotos(finalIds);
+    /**
+     * Top trending shops the user may eat at, for when there is nothing to personalize from
+     */
+    private List<Shop> trendingFallback(Set<Long> excludedIds, org.th.service.ShopAttributeIndex.Candidates dietary) {
+        excludedIds.add(-1L);
+        List<Long> ids = shopRepository.findTrendingIdsByIdNotIn(new ArrayList<>(excludedIds),
+                PageRequest.of(0, dietary.fetchSize(FALLBACK_COUNT, MAX_FILTERED_FETCH)))
+                .stream()
+                .filter(dietary::test)
+                .limit(FALLBACK_COUNT)
+                .toList();
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return TrendingService.orderByIds(shopRepository.findActiveByIdInWithPhotos(ids), ids);
     }
 }
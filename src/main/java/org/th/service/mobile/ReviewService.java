@@ -9,6 +9,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.th.dto.CreateReviewRequest;
+import org.th.dto.CursorPage;
 import org.th.dto.OwnerResponseRequest;
 import org.th.dto.ReviewSummaryDTO;
 import org.th.dto.ReviewCommentDTO;
@@ -21,6 +22,9 @@ import org.th.entity.shops.ReviewPhoto;
 import org.th.repository.ShopReviewRepository;
 import org.th.repository.ShopRepository;
 import org.th.repository.ReviewCommentRepository;
+import org.th.service.ReviewCursor;
+import org.th.entity.enums.ReviewSort;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.Caching;
@@ -39,21 +43,53 @@ public class ReviewService {
         private final ShopReviewRepository shopReviewRepository;
         private final ShopRepository shopRepository;
         private final ReviewCommentRepository reviewCommentRepository;
+        private final org.th.service.ReviewBatchLoader reviewBatchLoader;
+        private final org.th.service.ImageVariantService imageVariantService;
 
         /**
-         * Get all reviews for a shop
+         * Get one page of a shop's reviews (keyset pagination)
+         * Three queries per page: the reviews, their photos, and all their comment
+         * trees. Only first pages are cached.
          */
-        @Cacheable(value = "shopReviews", key = "#shopId + '-' + #onlyVisible")
-        public List<ReviewSummaryDTO> getShopReviews(Long shopId, boolean onlyVisible) {
-                log.info("Fetching reviews for shop ID: {}", shopId);
-
-                List<ShopReview> reviews = onlyVisible
-                                ? shopReviewRepository.findByShopIdAndIsVisibleTrueOrderByCreatedAtDesc(shopId)
-                                : shopReviewRepository.findByShopIdOrderByCreatedAtDesc(shopId);
+        @Cacheable(value = "shopReviews", key = "#shopId + '-' + #onlyVisible + '-' + #sort + '-' + #size", condition = "#cursor == null")
+        @Transactional(readOnly = true)
+        public CursorPage<ReviewSummaryDTO> getShopReviews(Long shopId, boolean onlyVisible, ReviewSort sort,
+                        String cursor, int size) {
+                log.debug("Fetching reviews for shop ID: {} ({}, cursor={})", shopId, sort, cursor);
+
+                ReviewCursor after = ReviewCursor.decode(cursor, sort);
+                PageRequest page = PageRequest.of(0, size + 1);
+                List<ShopReview> reviews = switch (sort) {
+                        case NEWEST -> shopReviewRepository.findPageNewest(
+                                        shopId, onlyVisible, after.createdAt(), after.id(), page);
+                        case HELPFUL -> shopReviewRepository.findPageMostHelpful(
+                                        shopId, onlyVisible, after.sortValue(), after.createdAt(), after.id(), page);
+                        case HIGHEST_RATED -> shopReviewRepository.findPageHighestRated(
+                                        shopId, onlyVisible, after.sortValue(), after.createdAt(), after.id(), page);
+                        case LOWEST_RATED -> shopReviewRepository.findPageLowestRated(
+                                        shopId, onlyVisible, after.sortValue(), after.createdAt(), after.id(), page);
+                };
+
+                boolean hasNext = reviews.size() > size;
+                if (hasNext) {
+                        reviews = reviews.subList(0, size);
+                }
+                String nextCursor = null;
+                if (hasNext) {
+                        ShopReview last = reviews.get(reviews.size() - 1);
+                        Integer sortValue = switch (sort) {
+                                case NEWEST -> 0;
+                                case HELPFUL -> last.getHelpfulCount() != null ? last.getHelpfulCount() : 0;
+                                case HIGHEST_RATED, LOWEST_RATED -> last.getRating();
+                        };
+                        nextCursor = ReviewCursor.after(sort, sortValue, last.getCreatedAt(), last.getId()).encode();
+                }
 
-                return reviews.stream()
-                                .map(this::convertToDTO)
-                                .collect(Collectors.toList());
+                return CursorPage.<ReviewSummaryDTO>builder()
+                                .items(toSummaries(reviews))
+                                .nextCursor(nextCursor)
+                                .hasNext(hasNext)
+                                .build();
         }
 
         /**
@@ -90,9 +126,10 @@ public class ReviewService {
                         for (String url : request.getPhotoUrls()) {
                                 org.th.entity.shops.ReviewPhoto photo = new org.th.entity.shops.ReviewPhoto();
                                 photo.setUrl(url);
-                                photo.setThumbnailUrl(url); // Can be optimized later
+                                photo.setThumbnailUrl(url); // Replaced by the thumbnail variant once generated
                                 photo.setShopReview(review);
                                 review.getPhotos().add(photo);
+                                imageVariantService.generateAfterCommit(url);
                         }
                 }
 
@@ -194,13 +231,12 @@ public class ReviewService {
         /**
          * Get user's reviews
          */
+        @Transactional(readOnly = true)
         public List<ReviewSummaryDTO> getUserReviews(Long userId) {
                 log.info("Fetching reviews for user ID: {}", userId);
 
                 List<ShopReview> reviews = shopReviewRepository.findByUserIdOrderByCreatedAtDesc(userId);
-                return reviews.stream()
-                                .map(this::convertToDTO)
-                                .collect(Collectors.toList());
+                return toSummaries(reviews);
         }
 
         /**
@@ -296,6 +332,20 @@ public class ReviewService {
                 log.info("Updated shop {} rating: {} ({} reviews)", shopId, avgRating, count);
         }
 
+        /**
+         * Convert a list of reviews, batch-loading photos and comment trees
+         */
+        private List<ReviewSummaryDTO> toSummaries(List<ShopReview> reviews) {
+                List<Long> ids = reviews.stream().map(ShopReview::getId).collect(Collectors.toList());
+                java.util.Map<Long, List<ReviewPhotoDTO>> photos = reviewBatchLoader.shopReviewPhotos(ids);
+                java.util.Map<Long, List<ReviewCommentDTO>> comments = reviewBatchLoader.shopReviewComments(ids);
+
+                return reviews.stream()
+                                .map(r -> toSummary(r, photos.getOrDefault(r.getId(), List.of()),
+                                                comments.getOrDefault(r.getId(), List.of())))
+                                .collect(Collectors.toList());
+        }
+
         /**
          * Convert ShopReview entity to DTO
          */
@@ -305,6 +355,8 @@ public class ReviewService {
                                                 .id(p.getId())
                                                 .url(p.getUrl())
                                                 .thumbnailUrl(p.getThumbnailUrl())
+                                                .mediumUrl(p.getMediumUrl())
+                                                .fullUrl(p.getFullUrl())
                                                 .build())
                                 .collect(Collectors.toList());
 
@@ -313,6 +365,11 @@ public class ReviewService {
                                 .map(this::convertToCommentDTO)
                                 .collect(Collectors.toList());
 
+                return toSummary(review, photos, comments);
+        }
+
+        private ReviewSummaryDTO toSummary(ShopReview review, List<ReviewPhotoDTO> photos,
+                        List<ReviewCommentDTO> comments) {
                 return ReviewSummaryDTO.builder()
                                 .id(review.getId())
                                 .rating(review.getRating())
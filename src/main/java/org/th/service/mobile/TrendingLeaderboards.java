@@ -0,0 +1,150 @@
+package org.th.service.mobile;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.th.repository.ShopRepository;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * In-memory trending leaderboards (top-K active shop IDs) per scope:
+ * global, city, district and category, plus city/district x category.
+ * Rebuilt from a lightweight projection whenever trending scores change;
+ * reads never touch the database.
+ */
+@Component
+@Slf4j
+public class TrendingLeaderboards {
+
+    private static final String GLOBAL = "all";
+
+    private final ShopRepository shopRepository;
+    private final int capacity;
+
+    private volatile Map<String, long[]> boards = Map.of();
+    private volatile long builtAt;
+
+    public TrendingLeaderboards(ShopRepository shopRepository,
+            @Value("${app.trending.leaderboard-size:50}") int capacity) {
+        this.shopRepository = shopRepository;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Rebuild every board from current trending scores
+     * Serialized, so a request-time build never overlaps the scheduled one
+     */
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        Map<String, PriorityQueue<Entry>> heaps = new HashMap<>();
+
+        // Rows: shop id, district id, city id, category, trending score
+        for (Object[] row : shopRepository.findActiveTrendingRows()) {
+            Entry entry = new Entry((Long) row[0], row[4] != null ? ((Number) row[4]).doubleValue() : 0.0);
+            Long districtId = (Long) row[1];
+            Long cityId = (Long) row[2];
+            String category = (String) row[3];
+
+            offer(heaps, GLOBAL, entry);
+            if (districtId != null) {
+                offer(heaps, key(districtId, null, null), entry);
+            }
+            if (cityId != null) {
+                offer(heaps, key(null, cityId, null), entry);
+            }
+            if (category != null) {
+                offer(heaps, key(null, null, category), entry);
+                if (districtId != null) {
+                    offer(heaps, key(districtId, null, category), entry);
+                }
+                if (cityId != null) {
+                    offer(heaps, key(null, cityId, category), entry);
+                }
+            }
+        }
+
+        Map<String, long[]> built = new HashMap<>(heaps.size() * 2);
+        heaps.forEach((key, heap) -> {
+            Entry[] entries = heap.toArray(new Entry[0]);
+            Arrays.sort(entries, (a, b) -> Double.compare(b.score, a.score));
+            built.put(key, Arrays.stream(entries).mapToLong(e -> e.shopId).toArray());
+        });
+        boards = built;
+        builtAt = System.currentTimeMillis();
+
+        log.info("Trending leaderboards rebuilt: {} boards in {} ms", built.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Top shop IDs for the narrowest scope given (district beats city); any
+     * argument may be null
+     */
+    public List<Long> top(Long districtId, Long cityId, String category, int limit) {
+        long[] board = boards.get(districtId != null ? key(districtId, null, category)
+                : key(null, cityId, category));
+        if (board == null) {
+            return List.of();
+        }
+        return Arrays.stream(board).limit(limit).boxed().toList();
+    }
+
+    /**
+     * Build the boards once if nothing has built them yet
+     * Concurrent first requests wait for a single build; a build that found no
+     * shops still counts, so an empty catalogue is not re-queried per request.
+     */
+    public void ensureBuilt() {
+        if (builtAt == 0) {
+            synchronized (this) {
+                if (builtAt == 0) {
+                    rebuild();
+                }
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return boards.isEmpty();
+    }
+
+    /**
+     * When the boards were last built (epoch millis), or 0 if never
+     */
+    public long getBuiltAt() {
+        return builtAt;
+    }
+
+    private void offer(Map<String, PriorityQueue<Entry>> heaps, String key, Entry entry) {
+        // Min-heap of size K: the root is the weakest entry on the board
+        PriorityQueue<Entry> heap = heaps.computeIfAbsent(key,
+                k -> new PriorityQueue<>((a, b) -> Double.compare(a.score, b.score)));
+        if (heap.size() < capacity) {
+            heap.add(entry);
+        } else if (entry.score > heap.peek().score) {
+            heap.poll();
+            heap.add(entry);
+        }
+    }
+
+    private static String key(Long districtId, Long cityId, String category) {
+        StringBuilder key = new StringBuilder();
+        if (districtId != null) {
+            key.append("d:").append(districtId);
+        } else if (cityId != null) {
+            key.append("c:").append(cityId);
+        }
+        if (category != null) {
+            key.append(key.isEmpty() ? "" : "|").append("cat:").append(category.toLowerCase(Locale.ROOT));
+        }
+        return key.isEmpty() ? GLOBAL : key.toString();
+    }
+
+    private record Entry(long shopId, double score) {
+    }
+}
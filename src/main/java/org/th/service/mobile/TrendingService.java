@@ -27,6 +27,10 @@ public class TrendingService {
         private final UserActivityRepository userActivityRepository;
         private final ShopReviewRepository shopReviewRepository;
         private final UserFavoriteRepository userFavoriteRepository;
+        private final TrendingLeaderboards leaderboards;
+        private final org.springframework.cache.CacheManager cacheManager;
+
+        private static final int TRENDING_LIMIT = 10;
 
         // Weights for scoring (Updated for Quality > Quantity)
         private static final double VIEW_WEIGHT = 1.0;
@@ -34,18 +38,15 @@ public class TrendingService {
         private static final double REVIEW_WEIGHT = 20.0; // Increased from 10.0
         private static final double CONVERSION_WEIGHT = 100.0; // Increased from 50.0 (High intent actions)
 
-        /**
-         * Calculate trending scores for all shops
-         * Runs every hour
-         */
         /**
          * Calculate trending scores for all shops
          * Optimized: Uses aggregate queries to avoid N+5 problem
+         * Leaderboards are rebuilt (and cached lists dropped) once the scores commit
          * Runs every hour
          */
         @Scheduled(fixedRate = 3600000) // 1 hour in milliseconds
         @Transactional
-        @org.springframework.cache.annotation.CacheEvict(value = "trendingShops", allEntries = true)
+        @io.micrometer.core.annotation.Timed(value = "trending.update", description = "Trending score recalculation")
         public void updateTrendingScores() {
                 log.info("Starting optimized trending score calculation...");
                 long start = System.currentTimeMillis();
@@ -78,8 +79,11 @@ public class TrendingService {
                                                                 ActivityType.CLICK_SHARE),
                                                 sevenDaysAgo));
 
-                // 2. Calculate Scores in Memory
+                // 2. Calculate Scores in Memory, writing only the ones that moved
+                // (bulk updates: an entity save would stamp updated_at and send every shop to delta sync)
+                int updated = 0;
                 for (Shop shop : allShops) {
+                        double finalScore;
                         try {
                                 long freshViews = freshViewsMap.getOrDefault(shop.getId(), 0L);
                                 long weeklyViews = weeklyViewsMap.getOrDefault(shop.getId(), 0L);
@@ -97,20 +101,28 @@ public class TrendingService {
 
                                 // Velocity Scoring: Apply Newness Boost
                                 double multiplier = calculateNewnessMultiplier(shop.getCreatedAt());
-                                double finalScore = baseScore * multiplier;
-
-                                shop.setTrendingScore(finalScore);
+                                finalScore = baseScore * multiplier;
 
                         } catch (Exception e) {
                                 log.error("Error calculating score for shop {}: {}", shop.getId(), e.getMessage());
+                                continue;
+                        }
+                        if (shop.getTrendingScore() == null || shop.getTrendingScore() != finalScore) {
+                                updated += shopRepository.updateTrendingScore(shop.getId(), finalScore);
                         }
                 }
 
-                // 3. Batch Update
-                shopRepository.saveAll(allShops);
+                org.springframework.transaction.support.TransactionSynchronizationManager.registerSynchronization(
+                                new org.springframework.transaction.support.TransactionSynchronization() {
+                                        @Override
+                                        public void afterCommit() {
+                                                refreshLeaderboards();
+                                        }
+                                });
 
                 long duration = System.currentTimeMillis() - start;
-                log.info("Trending score calculation completed for {} shops in {} ms.", allShops.size(), duration);
+                log.info("Trending score calculation completed for {} shops ({} changed) in {} ms.", allShops.size(),
+                                updated, duration);
         }
 
         /**
@@ -129,20 +141,52 @@ public class TrendingService {
         }
 
         /**
-         * Get top trending shops (cached for 5 minutes)
+         * Rebuild leaderboards and drop cached trending lists
          */
-        @org.springframework.cache.annotation.Cacheable(value = "trendingShops", key = "'top10'")
-        public List<Shop> getTopTrendingShops() {
-                log.debug("Fetching top trending shops from database");
-                List<Shop> trendingShops = shopRepository.findTop10ByOrderByTrendingScoreDesc();
+        public void refreshLeaderboards() {
+                leaderboards.rebuild();
+                org.springframework.cache.Cache cache = cacheManager.getCache("trendingShops");
+                if (cache != null) {
+                        cache.clear();
+                }
+        }
 
-                if (trendingShops.isEmpty()) {
-                        return trendingShops;
+        /**
+         * Top trending shop IDs for a scope (district beats city; all optional)
+         * Served from the in-memory leaderboards; shops deactivated since the last
+         * rebuild may still be listed, so callers load them with an active filter
+         */
+        public List<Long> getTrendingShopIds(Long districtId, Long cityId, String category, int limit) {
+                leaderboards.ensureBuilt();
+                return leaderboards.top(districtId, cityId, category, limit);
+        }
+
+        /**
+         * Get top trending shops for a scope (cached for 5 minutes)
+         */
+        @org.springframework.cache.annotation.Cacheable(value = "trendingShops",
+                        key = "'top10:' + #districtId + ':' + #cityId + ':' + #category")
+        public List<Shop> getTrendingShops(Long districtId, Long cityId, String category) {
+                List<Long> ids = getTrendingShopIds(districtId, cityId, category, TRENDING_LIMIT);
+                if (ids.isEmpty()) {
+                        return List.of();
                 }
 
-                // Fetch with photos to ensure no LazyInitializationException in Controller
-                List<Long> ids = trendingShops.stream().map(Shop::getId).collect(java.util.stream.Collectors.toList());
-                return shopRepository.findByIdInWithPhotos(ids);
+                // Fetch with photos and district so the cached list renders outside a session
+                // Skipping shops deactivated since the boards were built
+                return orderByIds(shopRepository.findByIdInWithPhotosAndDistrict(ids).stream()
+                                .filter(s -> Boolean.TRUE.equals(s.getIsActive()))
+                                .toList(), ids);
+        }
+
+        /**
+         * Restore leaderboard order after an IN (...) fetch
+         */
+        static List<Shop> orderByIds(List<Shop> shops, List<Long> ids) {
+                java.util.Map<Long, Shop> byId = new java.util.HashMap<>();
+                shops.forEach(s -> byId.put(s.getId(), s));
+                return ids.stream().map(byId::get).filter(java.util.Objects::nonNull)
+                                .collect(java.util.stream.Collectors.toList());
         }
 
         /**
@@ -23,6 +23,7 @@ import java.time.temporal.ChronoUnit;
 public class UserSegmentationService {
 
     private final UserRepository userRepository;
+    private final org.th.config.security.CurrentUserResolver currentUserResolver;
     private final UserActivityRepository userActivityRepository;
     private final org.th.repository.UserMenuFavoriteRepository userMenuFavoriteRepository; // Injected
     // Removed unused FavoriteRepository
@@ -32,7 +33,7 @@ public class UserSegmentationService {
      * Classify user based on activity patterns (RFM-style scoring)
      */
     public UserSegment classifyUser(String username) {
-        User user = userRepository.findByUsername(username).orElse(null);
+        User user = currentUserResolver.resolve(username);
         if (user == null) {
             return UserSegment.CASUAL;
         }
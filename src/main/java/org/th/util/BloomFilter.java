@@ -0,0 +1,71 @@
+package org.th.util;
+
+/**
+ * Bloom filter: set membership in fixed memory
+ * Never reports a member as absent; reports a non-member as present with
+ * roughly the false-positive rate it was sized for, provided no more than
+ * the expected number of items are added. Sized for n items at rate p it
+ * takes -n ln p / (ln 2)^2 bits, about 1.8 MB for a million items at 0.1%.
+ */
+public final class BloomFilter {
+
+    private final long[] bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    public BloomFilter(long expectedItems, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False-positive rate must be between 0 and 1: " + falsePositiveRate);
+        }
+        long n = Math.max(1, expectedItems);
+        long m = Math.max(64, (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+        this.bits = new long[(int) ((m + 63) / 64)];
+        this.bitCount = bits.length * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+    }
+
+    public void add(String value) {
+        addHash(HyperLogLog.hash64(value));
+    }
+
+    /**
+     * Add an item by its 64-bit hash (see {@link HyperLogLog#hash64})
+     */
+    public void addHash(long hash) {
+        for (int i = 0; i < hashCount; i++) {
+            long index = index(hash, i);
+            bits[(int) (index >>> 6)] |= 1L << index;
+        }
+    }
+
+    public boolean mightContain(String value) {
+        return mightContainHash(HyperLogLog.hash64(value));
+    }
+
+    public boolean mightContainHash(long hash) {
+        for (int i = 0; i < hashCount; i++) {
+            long index = index(hash, i);
+            if ((bits[(int) (index >>> 6)] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    /**
+     * i-th probe position, from the two halves of the hash (Kirsch-Mitzenmacher double hashing)
+     */
+    private long index(long hash, int i) {
+        long h1 = hash >>> 32;
+        long h2 = hash & 0xffffffffL;
+        return Long.remainderUnsigned(h1 + i * (h2 | 1), bitCount);
+    }
+}
@@ -0,0 +1,335 @@
+package org.th.util;
+
+import org.th.entity.enums.PricePreference;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Binary format of offline city bundles
+ * A gzip stream of: magic "MTCB", format version (1 byte), city ID, then
+ * one record per shop in ascending ID order, then a 0 and the shop count.
+ * Integers are unsigned LEB128 varints; signed deltas are zigzag-encoded.
+ * A record is:
+ * <ul>
+ * <li>ID delta from the previous shop (always at least 1)</li>
+ * <li>strings name, nameMm, nameEn, slug, address, addressMm, logoUrl,
+ * coverUrl, primaryPhotoUrl: UTF-8 length + 1, or 0 for null</li>
+ * <li>category, subCategory, district: 0 null, 1 a new string (as above)
+ * that joins the bundle's dictionary, n &gt;= 2 dictionary entry n - 2</li>
+ * <li>latitude and longitude in micro-degrees, signed delta from the previous shop</li>
+ * <li>rating average in hundredths + 1 (0 for none), rating count</li>
+ * <li>flags byte: delivery, parking, wifi, verified, halal, vegetarian, has hours (bits 0-6)</li>
+ * <li>price preference ordinal + 1 (0 for none)</li>
+ * <li>with hours: run count, then alternating closed/open run lengths over the
+ * 672 quarter-hours from Sunday 00:00, starting with a closed run</li>
+ * </ul>
+ * Identical input gives identical bytes, so a hash of the file is a stable ETag.
+ */
+public final class CityBundleCodec {
+
+    private static final byte[] MAGIC = { 'M', 'T', 'C', 'B' };
+    private static final int VERSION = 1;
+    private static final int SLOTS_PER_WEEK = 7 * 96;
+
+    private static final int DELIVERY = 1;
+    private static final int PARKING = 1 << 1;
+    private static final int WIFI = 1 << 2;
+    private static final int VERIFIED = 1 << 3;
+    private static final int HALAL = 1 << 4;
+    private static final int VEGETARIAN = 1 << 5;
+    private static final int HAS_HOURS = 1 << 6;
+
+    private CityBundleCodec() {
+    }
+
+    /**
+     * One shop in a bundle
+     *
+     * @param hours weekly quarter-hour bitmap (bit i = slot i from Sunday 00:00), or null without hours
+     */
+    public record Entry(long id, String name, String nameMm, String nameEn, String slug,
+            String category, String subCategory, String district, String address, String addressMm,
+            BigDecimal latitude, BigDecimal longitude, BigDecimal ratingAvg, int ratingCount,
+            String logoUrl, String coverUrl, String primaryPhotoUrl,
+            boolean hasDelivery, boolean hasParking, boolean hasWifi, boolean isVerified,
+            boolean isHalal, boolean isVegetarian, PricePreference pricePreference, long[] hours) {
+    }
+
+    /**
+     * A decoded bundle
+     */
+    public record Contents(long cityId, List<Entry> entries) {
+    }
+
+    /**
+     * Streams entries into a bundle; memory use does not grow with the number of shops
+     */
+    public static final class Writer implements Closeable {
+
+        private final GZIPOutputStream gzip;
+        private final DataOutputStream out;
+        private final Dictionary dictionary = new Dictionary();
+        private long previousId;
+        private long previousLat;
+        private long previousLon;
+        private long count;
+
+        public Writer(OutputStream target, long cityId) throws IOException {
+            this.gzip = new GZIPOutputStream(target, 64 * 1024);
+            this.out = new DataOutputStream(new BufferedOutputStream(gzip, 64 * 1024));
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            writeVarLong(out, cityId);
+        }
+
+        public void write(Entry entry) throws IOException {
+            if (entry.id() <= previousId) {
+                throw new IllegalArgumentException("Entries must be in ascending ID order: " + entry.id());
+            }
+            writeVarLong(out, entry.id() - previousId);
+            previousId = entry.id();
+            writeString(out, entry.name());
+            writeString(out, entry.nameMm());
+            writeString(out, entry.nameEn());
+            writeString(out, entry.slug());
+            writeString(out, entry.address());
+            writeString(out, entry.addressMm());
+            writeString(out, entry.logoUrl());
+            writeString(out, entry.coverUrl());
+            writeString(out, entry.primaryPhotoUrl());
+            dictionary.write(out, entry.category());
+            dictionary.write(out, entry.subCategory());
+            dictionary.write(out, entry.district());
+
+            long lat = microDegrees(entry.latitude());
+            long lon = microDegrees(entry.longitude());
+            writeVarLong(out, zigzag(lat - previousLat));
+            writeVarLong(out, zigzag(lon - previousLon));
+            previousLat = lat;
+            previousLon = lon;
+
+            writeVarLong(out, entry.ratingAvg() != null
+                    ? entry.ratingAvg().movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue() + 1 : 0);
+            writeVarLong(out, Math.max(0, entry.ratingCount()));
+
+            int flags = (entry.hasDelivery() ? DELIVERY : 0) | (entry.hasParking() ? PARKING : 0)
+                    | (entry.hasWifi() ? WIFI : 0) | (entry.isVerified() ? VERIFIED : 0)
+                    | (entry.isHalal() ? HALAL : 0) | (entry.isVegetarian() ? VEGETARIAN : 0)
+                    | (entry.hours() != null ? HAS_HOURS : 0);
+            out.writeByte(flags);
+            out.writeByte(entry.pricePreference() != null ? entry.pricePreference().ordinal() + 1 : 0);
+            if (entry.hours() != null) {
+                writeHours(out, entry.hours());
+            }
+            count++;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            writeVarLong(out, 0);
+            writeVarLong(out, count);
+            out.flush();
+            gzip.finish();
+            gzip.close();
+        }
+    }
+
+    /**
+     * Decode a whole bundle (reference decoder; clients should stream)
+     */
+    public static Contents read(InputStream source) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(source)));
+        byte[] magic = in.readNBytes(MAGIC.length);
+        if (!Arrays.equals(magic, MAGIC) || in.readUnsignedByte() != VERSION) {
+            throw new IOException("Not a version " + VERSION + " city bundle");
+        }
+        long cityId = readVarLong(in);
+        List<String> dictionary = new ArrayList<>();
+        List<Entry> entries = new ArrayList<>();
+        long id = 0;
+        long lat = 0;
+        long lon = 0;
+        for (long delta = readVarLong(in); delta != 0; delta = readVarLong(in)) {
+            id += delta;
+            String name = readString(in);
+            String nameMm = readString(in);
+            String nameEn = readString(in);
+            String slug = readString(in);
+            String address = readString(in);
+            String addressMm = readString(in);
+            String logoUrl = readString(in);
+            String coverUrl = readString(in);
+            String photoUrl = readString(in);
+            String category = readDictionary(in, dictionary);
+            String subCategory = readDictionary(in, dictionary);
+            String district = readDictionary(in, dictionary);
+            lat += unzigzag(readVarLong(in));
+            lon += unzigzag(readVarLong(in));
+            long rating = readVarLong(in);
+            int ratingCount = (int) readVarLong(in);
+            int flags = in.readUnsignedByte();
+            int price = in.readUnsignedByte();
+            long[] hours = (flags & HAS_HOURS) != 0 ? readHours(in) : null;
+            entries.add(new Entry(id, name, nameMm, nameEn, slug, category, subCategory, district,
+                    address, addressMm, BigDecimal.valueOf(lat, 6), BigDecimal.valueOf(lon, 6),
+                    rating > 0 ? BigDecimal.valueOf(rating - 1, 2) : null, ratingCount,
+                    logoUrl, coverUrl, photoUrl,
+                    (flags & DELIVERY) != 0, (flags & PARKING) != 0, (flags & WIFI) != 0,
+                    (flags & VERIFIED) != 0, (flags & HALAL) != 0, (flags & VEGETARIAN) != 0,
+                    price > 0 ? PricePreference.values()[price - 1] : null, hours));
+        }
+        if (readVarLong(in) != entries.size()) {
+            throw new IOException("Truncated city bundle");
+        }
+        return new Contents(cityId, entries);
+    }
+
+    /**
+     * Strings seen earlier in the bundle are written as their index
+     */
+    private static final class Dictionary {
+
+        private final Map<String, Integer> indexes = new HashMap<>();
+
+        void write(DataOutputStream out, String value) throws IOException {
+            if (value == null) {
+                writeVarLong(out, 0);
+                return;
+            }
+            Integer index = indexes.get(value);
+            if (index != null) {
+                writeVarLong(out, index + 2L);
+            } else {
+                writeVarLong(out, 1);
+                writeString(out, value);
+                indexes.put(value, indexes.size());
+            }
+        }
+    }
+
+    private static String readDictionary(DataInputStream in, List<String> dictionary) throws IOException {
+        long code = readVarLong(in);
+        if (code == 0) {
+            return null;
+        }
+        if (code == 1) {
+            String value = readString(in);
+            dictionary.add(value);
+            return value;
+        }
+        return dictionary.get((int) (code - 2));
+    }
+
+    private static void writeHours(DataOutputStream out, long[] bits) throws IOException {
+        List<Integer> runs = new ArrayList<>();
+        boolean open = false;
+        int run = 0;
+        for (int slot = 0; slot < SLOTS_PER_WEEK; slot++) {
+            boolean set = slot >>> 6 < bits.length && (bits[slot >>> 6] & (1L << (slot & 63))) != 0;
+            if (set != open) {
+                runs.add(run);
+                open = set;
+                run = 0;
+            }
+            run++;
+        }
+        runs.add(run);
+        writeVarLong(out, runs.size());
+        for (int length : runs) {
+            writeVarLong(out, length);
+        }
+    }
+
+    private static long[] readHours(DataInputStream in) throws IOException {
+        long[] bits = new long[(SLOTS_PER_WEEK + 63) / 64];
+        long runs = readVarLong(in);
+        int slot = 0;
+        for (int i = 0; i < runs; i++) {
+            int length = (int) readVarLong(in);
+            if (i % 2 == 1) {
+                for (int s = slot; s < slot + length; s++) {
+                    bits[s >>> 6] |= 1L << (s & 63);
+                }
+            }
+            slot += length;
+        }
+        return bits;
+    }
+
+    private static long microDegrees(BigDecimal degrees) {
+        return degrees != null ? degrees.movePointRight(6).setScale(0, RoundingMode.HALF_UP).longValue() : 0;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length + 1L);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        long length = readVarLong(in);
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[(int) (length - 1)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Truncated city bundle");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
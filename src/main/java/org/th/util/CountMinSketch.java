@@ -0,0 +1,95 @@
+package org.th.util;
+
+/**
+ * Count-Min sketch: approximate per-item counts in fixed memory
+ * Estimates never undercount; with width w and depth d they overcount by at
+ * most e/w of the total count with probability 1 - e^-d (about 0.13% of the
+ * total, 98% of the time, at the defaults). Sketches of the same shape add
+ * and subtract cell-wise, which is what sliding windows use.
+ */
+public final class CountMinSketch {
+
+    public static final int DEFAULT_WIDTH = 2048;
+    public static final int DEFAULT_DEPTH = 4;
+
+    private final int width;
+    private final int depth;
+    private final long[] counts;
+    private long total;
+
+    public CountMinSketch() {
+        this(DEFAULT_WIDTH, DEFAULT_DEPTH);
+    }
+
+    public CountMinSketch(int width, int depth) {
+        if (width < 1 || depth < 1) {
+            throw new IllegalArgumentException("Width and depth must be positive");
+        }
+        this.width = width;
+        this.depth = depth;
+        this.counts = new long[width * depth];
+    }
+
+    /**
+     * Count one occurrence of an item, by its 64-bit hash (see {@link HyperLogLog#hash64})
+     */
+    public void add(long hash) {
+        add(hash, 1);
+    }
+
+    public void add(long hash, long count) {
+        for (int row = 0; row < depth; row++) {
+            counts[row * width + column(hash, row)] += count;
+        }
+        total += count;
+    }
+
+    public long estimate(long hash) {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counts[row * width + column(hash, row)]);
+        }
+        return min;
+    }
+
+    /**
+     * Remove another sketch's counts (e.g. an expired window bucket) from this one
+     */
+    public void subtract(CountMinSketch other) {
+        checkShape(other);
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] -= other.counts[i];
+        }
+        total -= other.total;
+    }
+
+    public void merge(CountMinSketch other) {
+        checkShape(other);
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+    }
+
+    public void clear() {
+        java.util.Arrays.fill(counts, 0);
+        total = 0;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    private int column(long hash, int row) {
+        // Double hashing: row i uses h1 + i * h2
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        return Math.floorMod(h1 + row * h2, width);
+    }
+
+    private void checkShape(CountMinSketch other) {
+        if (other.width != width || other.depth != depth) {
+            throw new IllegalArgumentException("Sketch shapes differ");
+        }
+    }
+}
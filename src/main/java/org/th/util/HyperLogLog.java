@@ -0,0 +1,170 @@
+package org.th.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * HyperLogLog distinct-count sketch
+ * With precision p the sketch keeps 2^p one-byte registers and estimates
+ * cardinality with a relative standard error of 1.04 / sqrt(2^p): about 1.6%
+ * at the default p = 12, so ~95% of estimates fall within +/-3.3%. Small
+ * counts (below 2.5 x 2^p) use linear counting and are near-exact. Sketches
+ * of the same precision merge losslessly (register-wise max), so daily
+ * sketches combine into any date range.
+ */
+public final class HyperLogLog {
+
+    public static final int DEFAULT_PRECISION = 12;
+
+    private static final byte DENSE = 1;
+    private static final byte SPARSE = 2;
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("Precision must be between 4 and 16: " + precision);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    public void add(String value) {
+        if (value != null) {
+            addHash(hash64(value));
+        }
+    }
+
+    public void addHash(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // Sentinel bit caps the rank at 64 - p + 1 when the remaining bits are all zero
+        long remaining = (hash << precision) | (1L << (precision - 1));
+        int rank = Long.numberOfLeadingZeros(remaining) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    /**
+     * Fold another sketch into this one; both must have the same precision
+     */
+    public HyperLogLog merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException(
+                    "Cannot merge sketches of precision " + other.precision + " into " + precision);
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+        return this;
+    }
+
+    public long estimate() {
+        double m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += Math.scalb(1.0, -register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double alpha = 0.7213 / (1 + 1.079 / m);
+        double estimate = alpha * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log(m / zeros); // linear counting
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Relative standard error of {@link #estimate()} (one sigma)
+     */
+    public double relativeStandardError() {
+        return relativeStandardError(precision);
+    }
+
+    public static double relativeStandardError(int precision) {
+        return 1.04 / Math.sqrt(1 << precision);
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    public boolean isEmpty() {
+        for (byte register : registers) {
+            if (register != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Serialize, as (index, value) pairs while few registers are set, else as the raw registers
+     */
+    public byte[] toBytes() {
+        int set = 0;
+        for (byte register : registers) {
+            if (register != 0) {
+                set++;
+            }
+        }
+        int sparseSize = 2 + 4 + set * 3;
+        if (sparseSize >= 2 + registers.length) {
+            ByteBuffer buffer = ByteBuffer.allocate(2 + registers.length);
+            buffer.put(DENSE).put((byte) precision).put(registers);
+            return buffer.array();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(sparseSize);
+        buffer.put(SPARSE).put((byte) precision).putInt(set);
+        for (int i = 0; i < registers.length; i++) {
+            if (registers[i] != 0) {
+                buffer.putShort((short) i).put(registers[i]);
+            }
+        }
+        return buffer.array();
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        byte format = buffer.get();
+        HyperLogLog sketch = new HyperLogLog(buffer.get());
+        if (format == DENSE) {
+            buffer.get(sketch.registers);
+        } else if (format == SPARSE) {
+            int set = buffer.getInt();
+            for (int i = 0; i < set; i++) {
+                sketch.registers[Short.toUnsignedInt(buffer.getShort())] = buffer.get();
+            }
+        } else {
+            throw new IllegalArgumentException("Unknown sketch format: " + format);
+        }
+        return sketch;
+    }
+
+    /**
+     * 64-bit hash of a string (FNV-1a over UTF-8, then a murmur3 finalizer to spread the bits)
+     */
+    public static long hash64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,264 @@
+package org.th.util;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Responsive JPEG variants of an uploaded photo
+ * The original is decoded once (subsampled on read when it is much larger than
+ * the biggest variant) and each smaller variant is scaled from the previous
+ * one, halving in steps so downscales stay sharp without a costly filter.
+ * Images are never upscaled; transparency is flattened onto white. JPEG EXIF
+ * orientation is applied before scaling, since the variants carry no EXIF.
+ */
+public final class ImageVariants {
+
+    public static final String CONTENT_TYPE = "image/jpeg";
+
+    public enum Variant {
+        FULL("full", 2048, 0.85f),
+        MEDIUM("medium", 1080, 0.80f),
+        THUMBNAIL("thumb", 320, 0.75f);
+
+        private final String suffix;
+        private final int maxEdge;
+        private final float quality;
+
+        Variant(String suffix, int maxEdge, float quality) {
+            this.suffix = suffix;
+            this.maxEdge = maxEdge;
+            this.quality = quality;
+        }
+
+        public String getSuffix() {
+            return suffix;
+        }
+
+        public int getMaxEdge() {
+            return maxEdge;
+        }
+    }
+
+    private ImageVariants() {
+    }
+
+    /**
+     * Encode every variant, largest first
+     *
+     * @throws IOException if the bytes are not an image ImageIO can decode
+     */
+    public static Map<Variant, byte[]> generate(byte[] original) throws IOException {
+        BufferedImage image = decode(original, Variant.FULL.maxEdge);
+        Map<Variant, byte[]> variants = new EnumMap<>(Variant.class);
+        for (Variant variant : Variant.values()) {
+            image = scale(image, variant.maxEdge);
+            variants.put(variant, encodeJpeg(image, variant.quality));
+        }
+        return variants;
+    }
+
+    /**
+     * Storage key of a variant, next to the original: {@code dir/name.png -> dir/name_thumb.jpg}
+     */
+    public static String variantPath(String originalPath, Variant variant) {
+        int slash = originalPath.lastIndexOf('/');
+        int dot = originalPath.lastIndexOf('.');
+        String base = dot > slash ? originalPath.substring(0, dot) : originalPath;
+        return base + "_" + variant.suffix + ".jpg";
+    }
+
+    /**
+     * Decode as RGB, upright per EXIF orientation, reading every n-th pixel when
+     * the image is at least twice {@code targetEdge}
+     */
+    static BufferedImage decode(byte[] bytes, int targetEdge) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(bytes))) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int longEdge = Math.max(reader.getWidth(0), reader.getHeight(0));
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, longEdge / targetEdge);
+                if (step > 1) {
+                    param.setSourceSubsampling(step, step, 0, 0);
+                }
+                return orient(toRgb(reader.read(0, param)), exifOrientation(bytes));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Fit within {@code maxEdge} x {@code maxEdge}, keeping the aspect ratio
+     */
+    static BufferedImage scale(BufferedImage image, int maxEdge) {
+        int longEdge = Math.max(image.getWidth(), image.getHeight());
+        if (longEdge <= maxEdge) {
+            return image;
+        }
+        double ratio = (double) maxEdge / longEdge;
+        int targetWidth = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+
+        BufferedImage current = image;
+        int width = image.getWidth();
+        int height = image.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            current = draw(current, width, height);
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    /**
+     * Rotate or flip into display orientation (EXIF values 2-8; 1 or unknown is a no-op)
+     */
+    static BufferedImage orient(BufferedImage image, int orientation) {
+        int w = image.getWidth();
+        int h = image.getHeight();
+        // AffineTransform(m00, m10, m01, m11, m02, m12)
+        AffineTransform transform = switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, w, 0);
+            case 3 -> new AffineTransform(-1, 0, 0, -1, w, h);
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, h);
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);
+            case 6 -> new AffineTransform(0, 1, -1, 0, h, 0);
+            case 7 -> new AffineTransform(0, -1, -1, 0, h, w);
+            case 8 -> new AffineTransform(0, -1, 1, 0, 0, w);
+            default -> null;
+        };
+        if (transform == null) {
+            return image;
+        }
+        boolean swap = orientation >= 5;
+        BufferedImage target = new BufferedImage(swap ? h : w, swap ? w : h, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.drawImage(image, transform, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    /**
+     * The Orientation tag (0x0112) of a JPEG's EXIF block; 1 when absent or not a JPEG
+     */
+    static int exifOrientation(byte[] bytes) {
+        if (bytes.length < 4 || (bytes[0] & 0xFF) != 0xFF || (bytes[1] & 0xFF) != 0xD8) {
+            return 1;
+        }
+        int pos = 2;
+        while (pos + 4 <= bytes.length && (bytes[pos] & 0xFF) == 0xFF) {
+            int marker = bytes[pos + 1] & 0xFF;
+            if (marker == 0xDA || marker == 0xD9) {
+                break; // image data starts; EXIF comes before it
+            }
+            int length = u16(bytes, pos + 2, true);
+            int end = Math.min(bytes.length, pos + 2 + length);
+            if (marker == 0xE1 && pos + 10 <= end && new String(bytes, pos + 4, 6, StandardCharsets.ISO_8859_1)
+                    .equals("Exif\0\0")) {
+                return tiffOrientation(bytes, pos + 10, end);
+            }
+            pos += 2 + length;
+        }
+        return 1;
+    }
+
+    private static int tiffOrientation(byte[] bytes, int tiff, int end) {
+        if (tiff + 8 > end) {
+            return 1;
+        }
+        boolean bigEndian = bytes[tiff] == 'M';
+        long ifd = tiff + u32(bytes, tiff + 4, bigEndian);
+        if (ifd + 2 > end) {
+            return 1;
+        }
+        int entries = u16(bytes, (int) ifd, bigEndian);
+        for (int i = 0; i < entries; i++) {
+            int entry = (int) ifd + 2 + i * 12;
+            if (entry + 12 > end) {
+                break;
+            }
+            if (u16(bytes, entry, bigEndian) == 0x0112) {
+                int value = u16(bytes, entry + 8, bigEndian);
+                return value >= 1 && value <= 8 ? value : 1;
+            }
+        }
+        return 1;
+    }
+
+    private static int u16(byte[] b, int at, boolean bigEndian) {
+        int hi = b[bigEndian ? at : at + 1] & 0xFF;
+        int lo = b[bigEndian ? at + 1 : at] & 0xFF;
+        return (hi << 8) | lo;
+    }
+
+    private static long u32(byte[] b, int at, boolean bigEndian) {
+        return bigEndian
+                ? ((long) u16(b, at, true) << 16) | u16(b, at + 2, true)
+                : ((long) u16(b, at + 2, false) << 16) | u16(b, at, false);
+    }
+
+    private static BufferedImage toRgb(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_INT_RGB) {
+            return image;
+        }
+        return draw(image, image.getWidth(), image.getHeight());
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    private static byte[] encodeJpeg(BufferedImage image, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,13 @@
+-- Delta sync reads shops in (updated_at, id) order past a client's watermark
+UPDATE shops SET updated_at = COALESCE(created_at, CURRENT_TIMESTAMP) WHERE updated_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_shops_updated_at_id ON shops (updated_at, id);
+
+-- Shops removed from the catalogue; a NULL shop_id records a wipe (clients resync from scratch)
+CREATE TABLE IF NOT EXISTS catalog_deletions (
+    id BIGSERIAL PRIMARY KEY,
+    shop_id BIGINT,
+    deleted_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX IF NOT EXISTS idx_catalog_deletions_deleted_at ON catalog_deletions (deleted_at);
+
+ALTER TABLE catalog_deletions ENABLE ROW LEVEL SECURITY;
@@ -0,0 +1,5 @@
+-- Menu changes mark the document stale in their own transaction, so a restart cannot lose a pending rebuild
+ALTER TABLE shop_menu_documents ADD COLUMN IF NOT EXISTS stale BOOLEAN NOT NULL DEFAULT FALSE;
+-- Serializer format the body was written with; rows from an older format are rebuilt at startup
+ALTER TABLE shop_menu_documents ADD COLUMN IF NOT EXISTS format_version INTEGER NOT NULL DEFAULT 1;
+CREATE INDEX IF NOT EXISTS idx_shop_menu_documents_stale ON shop_menu_documents (shop_id) WHERE stale;
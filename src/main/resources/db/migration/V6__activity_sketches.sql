@@ -0,0 +1,15 @@
+-- Daily HyperLogLog sketches of device IDs per shop, district, category and feature
+CREATE TABLE IF NOT EXISTS activity_sketches (
+    id BIGSERIAL PRIMARY KEY,
+    sketch_day DATE NOT NULL,
+    dimension VARCHAR(20) NOT NULL,
+    dimension_key VARCHAR(255) NOT NULL,
+    events BIGINT NOT NULL DEFAULT 0,
+    sketch BYTEA NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_sketch_day_dimension_key UNIQUE (sketch_day, dimension, dimension_key)
+);
+
+CREATE INDEX IF NOT EXISTS idx_sketch_dimension_day ON activity_sketches(dimension, sketch_day);
+
+ALTER TABLE activity_sketches ENABLE ROW LEVEL SECURITY;
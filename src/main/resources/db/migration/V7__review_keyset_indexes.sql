@@ -0,0 +1,9 @@
+-- Keyset pagination over reviews: (scope, sort value, created_at, id)
+CREATE INDEX IF NOT EXISTS idx_review_shop_created ON shop_reviews(shop_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_review_shop_rating ON shop_reviews(shop_id, rating, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_item_review_item_created ON menu_item_reviews(menu_item_id, created_at DESC, id DESC);
+
+-- Batched comment-tree loading walks parent links from a page of reviews
+CREATE INDEX IF NOT EXISTS idx_review_comment_shop_review ON review_comments(shop_review_id);
+CREATE INDEX IF NOT EXISTS idx_review_comment_item_review ON review_comments(menu_item_review_id);
+CREATE INDEX IF NOT EXISTS idx_review_comment_parent ON review_comments(parent_comment_id);
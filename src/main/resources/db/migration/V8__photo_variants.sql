@@ -0,0 +1,15 @@
+-- Medium and full-size JPEG variants generated next to each original photo
+ALTER TABLE shop_photos ADD COLUMN IF NOT EXISTS medium_url VARCHAR(500);
+ALTER TABLE shop_photos ADD COLUMN IF NOT EXISTS full_url VARCHAR(500);
+
+ALTER TABLE review_photos ADD COLUMN IF NOT EXISTS medium_url VARCHAR(500);
+ALTER TABLE review_photos ADD COLUMN IF NOT EXISTS full_url VARCHAR(500);
+
+ALTER TABLE menu_item_review_photos ADD COLUMN IF NOT EXISTS medium_url VARCHAR(1000);
+ALTER TABLE menu_item_review_photos ADD COLUMN IF NOT EXISTS full_url VARCHAR(1000);
+
+ALTER TABLE menu_item_photos ADD COLUMN IF NOT EXISTS medium_url VARCHAR(500);
+ALTER TABLE menu_item_photos ADD COLUMN IF NOT EXISTS full_url VARCHAR(500);
+
+ALTER TABLE menu_category_photos ADD COLUMN IF NOT EXISTS medium_url VARCHAR(500);
+ALTER TABLE menu_category_photos ADD COLUMN IF NOT EXISTS full_url VARCHAR(500);
@@ -0,0 +1,11 @@
+-- Pre-serialized (and pre-compressed) menu response per shop, rebuilt when the menu changes
+CREATE TABLE IF NOT EXISTS shop_menu_documents (
+    shop_id BIGINT PRIMARY KEY REFERENCES shops(id) ON DELETE CASCADE,
+    version BIGINT NOT NULL DEFAULT 1,
+    content_hash VARCHAR(64) NOT NULL,
+    body BYTEA NOT NULL,
+    body_gzip BYTEA,
+    built_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+ALTER TABLE shop_menu_documents ENABLE ROW LEVEL SECURITY;
@@ -0,0 +1,81 @@
+package org.th.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.th.dto.ApiResponse;
+import org.th.dto.ShopListDTO;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+public class BinaryFormatConfigTest {
+
+    private MockMvc mockMvc;
+
+    @RestController
+    static class ShopsController {
+        @GetMapping("/api/mobile/shops")
+        ApiResponse<List<ShopListDTO>> shops() {
+            return ApiResponse.success(List.of(ShopListDTO.builder()
+                    .id(7L).name("Tea House").nameMm("လက်ဖက်ရည်ဆိုင်").latitude(new BigDecimal("16.8")).build()));
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        BinaryFormatConfig config = new BinaryFormatConfig();
+        mockMvc = MockMvcBuilders.standaloneSetup(new ShopsController())
+                .setMessageConverters(new MappingJackson2HttpMessageConverter(builder().build()),
+                        config.cborHttpMessageConverter(builder()),
+                        config.smileHttpMessageConverter(builder()))
+                .addMappedInterceptors(new String[] { "/api/**" }, new BinaryFormatConfig.VaryAcceptInterceptor())
+                .build();
+    }
+
+    @Test
+    void jsonStaysTheDefault() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/mobile/shops")).andReturn();
+
+        assertThat(result.getResponse().getContentType()).startsWith("application/json");
+        assertThat(result.getResponse().getContentAsString()).doesNotContain("\n");
+        assertThat(result.getResponse().getHeaders("Vary")).contains("Accept");
+    }
+
+    @Test
+    void binaryFormatsCarryTheSameDocument() throws Exception {
+        // Compared as text: CBOR keeps BigDecimals as decimals where JSON reads them back as doubles
+        JsonNode json = new ObjectMapper().readTree(
+                mockMvc.perform(get("/api/mobile/shops")).andReturn().getResponse().getContentAsByteArray());
+
+        MvcResult cbor = mockMvc.perform(get("/api/mobile/shops").accept("application/cbor")).andReturn();
+        MvcResult smile = mockMvc.perform(get("/api/mobile/shops").accept("application/x-jackson-smile"))
+                .andReturn();
+
+        assertThat(cbor.getResponse().getContentType()).isEqualTo("application/cbor");
+        assertThat(new ObjectMapper(new CBORFactory()).readTree(cbor.getResponse().getContentAsByteArray()))
+                .hasToString(json.toString());
+        assertThat(new ObjectMapper(new SmileFactory()).readTree(smile.getResponse().getContentAsByteArray()))
+                .hasToString(json.toString());
+        assertThat(cbor.getResponse().getContentAsByteArray().length)
+                .isLessThan(json.toString().getBytes().length);
+    }
+
+    private static Jackson2ObjectMapperBuilder builder() {
+        return Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+}
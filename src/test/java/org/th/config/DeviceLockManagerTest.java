@@ -0,0 +1,60 @@
+package org.th.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class DeviceLockManagerTest {
+
+    @Test
+    public void stripeCountIsRoundedUpToPowerOfTwo() {
+        DeviceLockManager manager = new DeviceLockManager(100, new SimpleMeterRegistry());
+        assertEquals(128, manager.getLockCount());
+    }
+
+    @Test
+    public void sameDeviceAlwaysMapsToSameLock() {
+        DeviceLockManager manager = new DeviceLockManager(64, new SimpleMeterRegistry());
+        for (int i = 0; i < 10_000; i++) {
+            String deviceId = "device-" + i;
+            assertSame(manager.getLock(deviceId), manager.getLock(new String(deviceId)));
+        }
+        assertEquals(64, manager.getLockCount());
+    }
+
+    @Test
+    public void queueGaugeReportsWaitingThreads() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        DeviceLockManager manager = new DeviceLockManager(16, registry);
+
+        manager.getLock("abc").lock();
+        try {
+            assertEquals(0, manager.getQueueLength());
+            assertEquals(0.0, registry.get("device.lock.queue").gauge().value());
+        } finally {
+            manager.getLock("abc").unlock();
+        }
+    }
+
+    @Test
+    public void withLockRecordsTheWait() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        DeviceLockManager manager = new DeviceLockManager(16, registry);
+
+        assertEquals("done", manager.withLock("abc", () -> "done"));
+        assertEquals(1, registry.get("device.lock.wait").timer().count());
+        assertFalse(manager.getLock("abc").isLocked());
+    }
+
+    @Test
+    public void rejectsStripeCountsAboveTheMaximum() {
+        assertThrows(IllegalStateException.class,
+                () -> new DeviceLockManager(DeviceLockManager.MAX_STRIPES + 1, new SimpleMeterRegistry()));
+        assertEquals(DeviceLockManager.MAX_STRIPES,
+                new DeviceLockManager(DeviceLockManager.MAX_STRIPES, new SimpleMeterRegistry()).getLockCount());
+    }
+}
@@ -0,0 +1,35 @@
+package org.th.config.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.th.config.metrics.EndpointMetrics.RateWindow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class EndpointMetricsTest {
+
+    @Test
+    public void rateCoversOnlyTheLastCompleteSeconds() {
+        RateWindow window = new RateWindow(10);
+        for (long second = 100; second < 110; second++) {
+            for (int i = 0; i < 5; i++) {
+                window.record(second);
+            }
+        }
+        window.record(110); // current second, not yet counted
+
+        assertEquals(5.0, window.perSecond(110));
+        // Seconds 100-104 have aged out; 105-109 and the single request at 110 remain
+        assertEquals(2.6, window.perSecond(115));
+        assertEquals(0.0, window.perSecond(200));
+    }
+
+    @Test
+    public void reusedBucketsStartFromZero() {
+        RateWindow window = new RateWindow(10);
+        window.record(3);
+        window.record(3);
+        window.record(14); // same bucket as second 3
+
+        assertEquals(0.1, window.perSecond(15));
+    }
+}
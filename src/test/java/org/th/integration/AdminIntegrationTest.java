@@ -11,6 +11,7 @@ import org.springframework.http.MediaType;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.th.config.metrics.QueryStatsRegistry;
 import org.th.entity.User;
 import org.th.entity.enums.Role;
 import org.th.repository.UserRepository;
@@ -20,6 +21,7 @@ import org.th.dto.mobile.AuthResponse;
 import java.util.Map;
 import java.util.UUID;
 
+import static org.th.integration.QueryBudget.expectQueries;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -41,6 +43,9 @@ public class AdminIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private QueryStatsRegistry queryStatsRegistry;
+
     private User adminUser;
     private String adminToken;
 
@@ -90,6 +95,9 @@ public class AdminIntegrationTest {
                 .andExpect(jsonPath("$.data.totalUsers").exists())
                 .andExpect(jsonPath("$.data.totalShops").exists())
                 .andExpect(jsonPath("$.data.totalReviews").exists());
+
+        // Principal lookup + three counts
+        expectQueries(queryStatsRegistry, "GET /api/admin/dashboard/stats").isLessThanOrEqualTo(4);
     }
 
     @Test
@@ -98,5 +106,8 @@ public class AdminIntegrationTest {
                 .header("Authorization", "Bearer " + adminToken))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.data.content").isArray());
+
+        // Principal lookup + page + count
+        expectQueries(queryStatsRegistry, "GET /api/admin/users").isLessThanOrEqualTo(3);
     }
 }
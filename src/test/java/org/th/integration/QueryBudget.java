@@ -0,0 +1,24 @@
+package org.th.integration;
+
+import org.assertj.core.api.AbstractIntegerAssert;
+import org.th.config.metrics.QueryStatsRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Query budget assertions for integration tests, e.g.
+ * {@code expectQueries(registry, "GET /api/mobile/shops/{id}").isLessThanOrEqualTo(5)}.
+ * Endpoints use the handler's request mapping pattern.
+ */
+public final class QueryBudget {
+
+    private QueryBudget() {
+    }
+
+    public static AbstractIntegerAssert<?> expectQueries(QueryStatsRegistry registry, String endpoint) {
+        int count = registry.getLastQueryCount(endpoint);
+        return assertThat(count)
+                .as("JDBC statements for %s", endpoint)
+                .isNotNegative();
+    }
+}
@@ -0,0 +1,141 @@
+package org.th.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.th.entity.City;
+import org.th.entity.shops.Shop;
+import org.th.entity.shops.ShopReview;
+import org.th.service.CatalogVersions.Key;
+import org.th.service.CatalogVersions.Scope;
+import org.th.util.HttpCaching;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CatalogVersionsTest {
+
+    private ConcurrentMapCacheManager cacheManager;
+    private CatalogVersions versions;
+    private CatalogVersionListener listener;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        cacheManager = new ConcurrentMapCacheManager("trendingShops", "shopReviews");
+        versions = new CatalogVersions(cacheManager);
+        ObjectProvider<CatalogVersions> provider = mock(ObjectProvider.class);
+        when(provider.getObject()).thenReturn(versions);
+        listener = new CatalogVersionListener(provider, mock(ObjectProvider.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void etagIsStableUntilTheResourceChanges() {
+        String etag = versions.etag("shop", 1L, versions.version(Scope.SHOP, 1L));
+
+        assertThat(etag).startsWith("W/\"").endsWith("\"");
+        assertThat(versions.etag("shop", 1L, versions.version(Scope.SHOP, 1L))).isEqualTo(etag);
+        assertThat(HttpCaching.matches(etag, etag)).isTrue();
+
+        versions.bump(Scope.SHOP, 2L);
+        assertThat(versions.etag("shop", 1L, versions.version(Scope.SHOP, 1L))).isEqualTo(etag);
+
+        versions.bump(Scope.SHOP, 1L);
+        String changed = versions.etag("shop", 1L, versions.version(Scope.SHOP, 1L));
+        assertThat(changed).isNotEqualTo(etag);
+        assertThat(HttpCaching.matches(etag, changed)).isFalse();
+    }
+
+    @Test
+    void bumpClearsCachesDerivedFromTheScope() {
+        Cache trending = cacheManager.getCache("trendingShops");
+        Cache reviews = cacheManager.getCache("shopReviews");
+        trending.put("top10", "stale");
+        reviews.put("1-true-NEWEST-20", "page");
+
+        versions.bump(Scope.SHOP, 1L);
+
+        assertThat(trending.get("top10")).isNull();
+        assertThat(reviews.get("1-true-NEWEST-20")).isNotNull();
+    }
+
+    @Test
+    void invalidateAllRetiresEveryTag() {
+        String etag = versions.etag("categories", versions.version(Scope.CATEGORIES, null));
+
+        versions.invalidateAll();
+
+        assertThat(versions.etag("categories", versions.version(Scope.CATEGORIES, null))).isNotEqualTo(etag);
+    }
+
+    @Test
+    void listenerBumpsOncePerResourceAfterCommit() {
+        Shop shop = new Shop();
+        shop.setId(5L);
+        ShopReview first = new ShopReview();
+        first.setShop(shop);
+        ShopReview second = new ShopReview();
+        second.setShop(shop);
+
+        TransactionSynchronizationManager.initSynchronization();
+        listener.onCatalogChanged(first);
+        listener.onCatalogChanged(second);
+        assertThat(versions.version(Scope.SHOP_REVIEWS, 5L)).isZero();
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        assertThat(versions.version(Scope.SHOP_REVIEWS, 5L)).isEqualTo(1);
+        assertThat(versions.version(Scope.SHOP, 5L)).isEqualTo(1);
+        assertThat(versions.version(Scope.CATEGORIES, null)).isZero();
+        assertThat(TransactionSynchronizationManager.getResource(listener)).isNull();
+    }
+
+    @Test
+    void listenerBumpsImmediatelyOutsideATransaction() {
+        listener.onCatalogChanged(new City());
+
+        assertThat(versions.version(Scope.LOCATIONS, null)).isEqualTo(1);
+    }
+
+    @Test
+    void shopUpdatesMoveOnlyWhatTheChangedColumnsShow() {
+        Shop shop = new Shop();
+        shop.setId(5L);
+
+        assertThat(CatalogVersionListener.keysOfUpdate(shop, Set.of("trendingScore", "updatedAt"))).isEmpty();
+        assertThat(CatalogVersionListener.keysOfUpdate(shop, Set.of("name", "updatedAt")))
+                .containsExactly(new Key(Scope.SHOP, 5L));
+        assertThat(CatalogVersionListener.keysOfUpdate(shop, Set.of("isActive")))
+                .containsExactly(new Key(Scope.SHOP, 5L), new Key(Scope.CATEGORIES, null));
+        assertThat(CatalogVersionListener.keysOfUpdate(shop, null))
+                .containsExactly(new Key(Scope.SHOP, 5L), new Key(Scope.CATEGORIES, null));
+    }
+
+    @Test
+    void ifNoneMatchUsesWeakComparison() {
+        String etag = "W/\"abc-1\"";
+
+        assertThat(HttpCaching.matches("\"abc-1\"", etag)).isTrue();
+        assertThat(HttpCaching.matches("\"x\", W/\"abc-1\"", etag)).isTrue();
+        assertThat(HttpCaching.matches("*", etag)).isTrue();
+        assertThat(HttpCaching.matches("\"abc-2\"", etag)).isFalse();
+        assertThat(HttpCaching.matches(null, etag)).isFalse();
+    }
+}
@@ -0,0 +1,206 @@
+package org.th.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.th.dto.MenuCategoryDTO;
+import org.th.dto.MenuItemDTO;
+import org.th.entity.ShopMenuDocument;
+import org.th.repository.ShopMenuDocumentRepository;
+import org.th.repository.ShopRepository;
+import org.th.service.MenuDocumentService.MenuDocument;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MenuDocumentServiceTest {
+
+    private static final long SHOP_ID = 7L;
+
+    private final Map<Long, ShopMenuDocument> rows = new HashMap<>();
+    private final List<Runnable> drains = new ArrayList<>();
+    private MenuCategoryService menuCategoryService;
+    private ShopMenuDocumentRepository documentRepository;
+    private MenuDocumentService service;
+
+    @BeforeEach
+    void setUp() {
+        menuCategoryService = mock(MenuCategoryService.class);
+        ShopRepository shopRepository = mock(ShopRepository.class);
+        when(shopRepository.existsById(SHOP_ID)).thenReturn(true);
+        documentRepository = mock(ShopMenuDocumentRepository.class);
+        when(documentRepository.findById(anyLong()))
+                .thenAnswer(invocation -> Optional.ofNullable(rows.get((Long) invocation.getArgument(0))));
+        when(documentRepository.findByIdForUpdate(anyLong()))
+                .thenAnswer(invocation -> Optional.ofNullable(rows.get((Long) invocation.getArgument(0))));
+        when(documentRepository.save(any())).thenAnswer(invocation -> {
+            ShopMenuDocument row = invocation.getArgument(0);
+            rows.put(row.getShopId(), row);
+            return row;
+        });
+        service = new MenuDocumentService(menuCategoryService, shopRepository, documentRepository,
+                new ObjectMapper().findAndRegisterModules(), new ConcurrentMapCacheManager("shopMenu"),
+                mock(PlatformTransactionManager.class), mock(JdbcTemplate.class), drains::add);
+    }
+
+    @Test
+    void buildsOnceAndServesFromCache() {
+        when(menuCategoryService.getMenuCategoriesByShopId(SHOP_ID)).thenReturn(menu(3));
+
+        MenuDocument first = service.get(SHOP_ID);
+        MenuDocument second = service.get(SHOP_ID);
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.version()).isEqualTo(1);
+        assertThat(first.etag()).startsWith("\"7-1-").endsWith("\"");
+        assertThat(new String(first.json(), StandardCharsets.UTF_8))
+                .startsWith("{\"success\":true,\"message\":\"Shop menu retrieved\"")
+                .contains("\"name\":\"Item 2\"");
+        verify(menuCategoryService, times(1)).getMenuCategoriesByShopId(SHOP_ID);
+    }
+
+    @Test
+    void precompressesLargeMenusOnly() throws IOException {
+        when(menuCategoryService.getMenuCategoriesByShopId(SHOP_ID)).thenReturn(menu(1));
+        assertThat(service.rebuild(SHOP_ID).gzip()).isNull();
+
+        when(menuCategoryService.getMenuCategoriesByShopId(SHOP_ID)).thenReturn(menu(200));
+        MenuDocument large = service.rebuild(SHOP_ID);
+
+        assertThat(large.gzip()).isNotNull().hasSizeLessThan(large.json().length);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(large.gzip()))) {
+            assertThat(in.readAllBytes()).isEqualTo(large.json());
+        }
+        assertThat(large.etag(true)).isNotEqualTo(large.etag(false)).endsWith("-gzip\"");
+    }
+
+    @Test
+    void versionMovesOnlyWhenTheContentChanges() {
+        when(menuCategoryService.getMenuCategoriesByShopId(SHOP_ID)).thenReturn(menu(3));
+        MenuDocument original = service.rebuild(SHOP_ID);
+        MenuDocument unchanged = service.rebuild(SHOP_ID);
+
+        when(menuCategoryService.getMenuCategoriesByShopId(SHOP_ID)).thenReturn(menu(4));
+        MenuDocument changed = service.rebuild(SHOP_ID);
+
+        assertThat(unchanged.etag()).isEqualTo(original.etag());
+        assertThat(changed.version()).isEqualTo(2);
+        assertThat(changed.etag()).isNotEqualTo(original.etag());
+    }
+
+    @Test
+    void dirtyShopsAreRebuiltInTheBackgroundPass() {
+        when(menuCategoryService.getMenuCategoriesByShopId(SHOP_ID)).thenReturn(menu(3));
+        MenuDocument before = service.get(SHOP_ID);
+        when(menuCategoryService.getMenuCategoriesByShopId(SHOP_ID)).thenReturn(menu(5));
+
+        service.markDirty(SHOP_ID);
+        assertThat(service.get(SHOP_ID)).isSameAs(before); // still the old version until the pass runs
+        service.rebuildDirty();
+
+        assertThat(service.get(SHOP_ID).version()).isEqualTo(2);
+    }
+
+    @Test
+    void markingDirtyQueuesOneDrainForABurstOfChanges() {
+        when(menuCategoryService.getMenuCategoriesByShopId(SHOP_ID)).thenReturn(menu(3));
+        service.get(SHOP_ID);
+        when(menuCategoryService.getMenuCategoriesByShopId(SHOP_ID)).thenReturn(menu(5));
+
+        service.markDirty(SHOP_ID);
+        service.markDirty(SHOP_ID);
+        assertThat(drains).hasSize(1);
+        drains.remove(0).run();
+
+        assertThat(service.get(SHOP_ID).version()).isEqualTo(2);
+        verify(menuCategoryService, times(2)).getMenuCategoriesByShopId(SHOP_ID);
+
+        // The finished drain no longer holds the guard
+        service.markDirty(SHOP_ID);
+        assertThat(drains).hasSize(1);
+    }
+
+    @Test
+    void staleRowsLeftByAPreviousRunAreRebuiltAfterTheSweep() {
+        when(menuCategoryService.getMenuCategoriesByShopId(SHOP_ID)).thenReturn(menu(3));
+        MenuDocument before = service.rebuild(SHOP_ID);
+        rows.get(SHOP_ID).setStale(true);
+        when(documentRepository.findShopIdsToRebuild(MenuDocumentService.FORMAT_VERSION)).thenReturn(List.of(SHOP_ID));
+        when(menuCategoryService.getMenuCategoriesByShopId(SHOP_ID)).thenReturn(menu(5));
+
+        service.sweepStale();
+        service.rebuildDirty();
+
+        assertThat(rows.get(SHOP_ID).isStale()).isFalse();
+        assertThat(service.get(SHOP_ID).version()).isEqualTo(before.version() + 1);
+    }
+
+    @Test
+    void rowsFromAnotherFormatAreServedUntilRebuilt() {
+        when(menuCategoryService.getMenuCategoriesByShopId(SHOP_ID)).thenReturn(menu(3));
+        MenuDocument built = service.rebuild(SHOP_ID);
+        rows.get(SHOP_ID).setFormatVersion(MenuDocumentService.FORMAT_VERSION - 1);
+
+        assertThat(service.get(SHOP_ID).etag()).isEqualTo(built.etag());
+        service.rebuildDirty();
+
+        // Same bytes, so the stamp is updated without moving the version
+        assertThat(rows.get(SHOP_ID).getFormatVersion()).isEqualTo(MenuDocumentService.FORMAT_VERSION);
+        assertThat(service.get(SHOP_ID).etag()).isEqualTo(built.etag());
+    }
+
+    @Test
+    void unknownShopsGetAnEmptyMenuThatIsNotStored() {
+        MenuDocument document = service.get(99L);
+
+        assertThat(document.version()).isZero();
+        assertThat(new String(document.json(), StandardCharsets.UTF_8)).contains("\"data\":[]");
+        assertThat(rows).isEmpty();
+    }
+
+    @Test
+    void matchesEitherRepresentationInIfNoneMatch() {
+        MenuDocument document = new MenuDocument(3, "\"7-3-abc\"", new byte[0], new byte[0]);
+
+        assertThat(document.matches("\"7-3-abc\"")).isTrue();
+        assertThat(document.matches("W/\"7-3-abc-gzip\"")).isTrue();
+        assertThat(document.matches("\"other\", \"7-3-abc\"")).isTrue();
+        assertThat(document.matches("*")).isTrue();
+        assertThat(document.matches("\"7-2-abc\"")).isFalse();
+        assertThat(document.matches(null)).isFalse();
+    }
+
+    private static List<MenuCategoryDTO> menu(int items) {
+        List<MenuItemDTO> dtos = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            dtos.add(MenuItemDTO.builder()
+                    .id((long) i)
+                    .name("Item " + i)
+                    .price(BigDecimal.valueOf(1000 + i))
+                    .currency("MMK")
+                    .isAvailable(true)
+                    .photos(List.of())
+                    .build());
+        }
+        return List.of(MenuCategoryDTO.builder().id(1L).name("Noodles").items(dtos).photos(List.of()).build());
+    }
+}
@@ -0,0 +1,79 @@
+package org.th.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.th.repository.OperatingHourRepository;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class OpeningHoursIndexTest {
+
+    // 2025-01-05 is a Sunday
+    private static final LocalDateTime SUNDAY = LocalDateTime.of(2025, 1, 5, 0, 0);
+
+    private OperatingHourRepository operatingHourRepository;
+    private OpeningHoursIndex index;
+
+    @BeforeEach
+    void setUp() {
+        operatingHourRepository = mock(OperatingHourRepository.class);
+        when(operatingHourRepository.findAllScheduleRows()).thenReturn(List.of(
+                // Shop 1: Monday 09:00-17:30
+                new Object[] { 1L, 1, LocalTime.of(9, 0), LocalTime.of(17, 30), false },
+                // Shop 2: Saturday 18:00-02:00 (runs into Sunday)
+                new Object[] { 2L, 6, LocalTime.of(18, 0), LocalTime.of(2, 0), false },
+                // Shop 3: closed on Monday
+                new Object[] { 3L, 1, LocalTime.of(9, 0), LocalTime.of(17, 0), true }));
+        index = new OpeningHoursIndex(operatingHourRepository, "UTC");
+        index.rebuild();
+    }
+
+    @Test
+    void daytimeSpan() {
+        LocalDateTime monday = SUNDAY.plusDays(1);
+        assertThat(index.isOpenAt(1L, monday.withHour(8).withMinute(59))).isFalse();
+        assertThat(index.isOpenAt(1L, monday.withHour(9))).isTrue();
+        assertThat(index.isOpenAt(1L, monday.withHour(17).withMinute(29))).isTrue();
+        assertThat(index.isOpenAt(1L, monday.withHour(17).withMinute(30))).isFalse();
+        assertThat(index.isOpenAt(1L, SUNDAY.withHour(12))).isFalse();
+    }
+
+    @Test
+    void overnightSpanWrapsFromSaturdayIntoSunday() {
+        LocalDateTime saturday = SUNDAY.plusDays(6);
+        assertThat(index.isOpenAt(2L, saturday.withHour(23))).isTrue();
+        assertThat(index.isOpenAt(2L, SUNDAY.withHour(1).withMinute(45))).isTrue();
+        assertThat(index.isOpenAt(2L, SUNDAY.withHour(2))).isFalse();
+    }
+
+    @Test
+    void closedDaysAndUnknownShopsAreNotOpen() {
+        assertThat(index.hasSchedule(3L)).isTrue();
+        assertThat(index.isOpenAt(3L, SUNDAY.plusDays(1).withHour(10))).isFalse();
+        assertThat(index.hasSchedule(99L)).isFalse();
+        assertThat(index.isOpenAt(99L, SUNDAY.plusDays(1).withHour(10))).isFalse();
+    }
+
+    @Test
+    void dirtyShopsAreRecompiledOnNextLookup() {
+        when(operatingHourRepository.findScheduleRowsByShopIdIn(List.of(3L))).thenReturn(List.<Object[]>of(
+                new Object[] { 3L, 1, LocalTime.of(9, 0), LocalTime.of(17, 0), false }));
+
+        index.markDirty(3L);
+
+        assertThat(index.isOpenAt(3L, SUNDAY.plusDays(1).withHour(10))).isTrue();
+    }
+
+    @Test
+    void blankTimeZoneFailsFast() {
+        assertThatThrownBy(() -> new OpeningHoursIndex(operatingHourRepository, " "))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
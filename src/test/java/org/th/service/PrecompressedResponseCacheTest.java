@@ -0,0 +1,84 @@
+package org.th.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.th.util.HttpCaching;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PrecompressedResponseCacheTest {
+
+    private static final CacheControl CACHE = CacheControl.noCache();
+
+    private PrecompressedResponseCache cache;
+    private final AtomicInteger builds = new AtomicInteger();
+    private final List<String> large = IntStream.range(0, 200).mapToObj(i -> "category-" + i).toList();
+
+    @BeforeEach
+    void setUp() {
+        cache = new PrecompressedResponseCache(new ObjectMapper(), new ConcurrentMapCacheManager("responseBodies"));
+    }
+
+    @Test
+    void servesStoredGzipToClientsThatAcceptIt() throws IOException {
+        ResponseEntity<byte[]> first = cache.json("W/\"1\"", CACHE, null, "gzip, br", this::body);
+        ResponseEntity<byte[]> second = cache.json("W/\"1\"", CACHE, "*/*", "gzip", this::body);
+
+        assertThat(builds).hasValue(1);
+        assertThat(second.getBody()).isSameAs(first.getBody());
+        assertThat(first.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(first.getHeaders().getETag()).isEqualTo("W/\"1\"");
+        byte[] json = new GZIPInputStream(new ByteArrayInputStream(first.getBody())).readAllBytes();
+        assertThat(new ObjectMapper().readValue(json, new TypeReference<List<String>>() {})).isEqualTo(large);
+
+        ResponseEntity<byte[]> identity = cache.json("W/\"1\"", CACHE, null, "gzip;q=0", this::body);
+        assertThat(identity.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+        assertThat(identity.getBody()).isEqualTo(json);
+        assertThat(builds).hasValue(1);
+    }
+
+    @Test
+    void aNewVersionTagRebuildsTheBody() {
+        cache.json("W/\"1\"", CACHE, null, null, this::body);
+        cache.json("W/\"2\"", CACHE, null, null, this::body);
+
+        assertThat(builds).hasValue(2);
+    }
+
+    @Test
+    void smallBodiesAreNotCompressed() {
+        ResponseEntity<byte[]> response = cache.json("W/\"s\"", CACHE, null, "gzip", () -> List.of("a"));
+
+        assertThat(response.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+        assertThat(new String(response.getBody(), StandardCharsets.UTF_8)).isEqualTo("[\"a\"]");
+    }
+
+    @Test
+    void leavesBinaryFormatsToTheCaller() {
+        assertThat(cache.json("W/\"1\"", CACHE, "application/cbor, application/json;q=0.5", null, this::body))
+                .isNull();
+        assertThat(builds).hasValue(0);
+        assertThat(HttpCaching.prefersJson("application/json, application/cbor;q=0.5")).isTrue();
+        assertThat(HttpCaching.prefersJson("application/x-jackson-smile")).isFalse();
+        assertThat(HttpCaching.prefersJson("text/html, */*;q=0.8")).isTrue();
+    }
+
+    private List<String> body() {
+        builds.incrementAndGet();
+        return large;
+    }
+}
@@ -0,0 +1,70 @@
+package org.th.service;
+
+import org.junit.jupiter.api.Test;
+import org.th.dto.ReviewCommentDTO;
+import org.th.dto.ReviewPhotoDTO;
+import org.th.entity.enums.ReviewSort;
+import org.th.exception.InvalidParameterException;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ReviewBatchLoaderTest {
+
+    private static final LocalDateTime T = LocalDateTime.of(2025, 3, 1, 12, 0);
+
+    @Test
+    void assemblesNestedThreadsPerReview() {
+        List<Object[]> rows = List.of(
+                // A reply listed before its parent still lands under it
+                comment(3L, 1L, 10L, "reply to first", 2),
+                comment(1L, null, 10L, "first", 0),
+                comment(2L, null, 10L, "second", 1),
+                comment(4L, 3L, 10L, "reply to reply", 3),
+                comment(5L, null, 11L, "other review", 0));
+
+        Map<Long, List<ReviewCommentDTO>> trees = ReviewBatchLoader.assembleTrees(rows);
+
+        assertThat(trees.get(10L)).extracting(ReviewCommentDTO::getId).containsExactly(1L, 2L);
+        ReviewCommentDTO first = trees.get(10L).get(0);
+        assertThat(first.getReplies()).extracting(ReviewCommentDTO::getId).containsExactly(3L);
+        assertThat(first.getReplies().get(0).getReplies()).extracting(ReviewCommentDTO::getId).containsExactly(4L);
+        assertThat(first.getCreatedAt()).isEqualTo(T);
+        assertThat(trees.get(11L)).extracting(ReviewCommentDTO::getContent).containsExactly("other review");
+    }
+
+    @Test
+    void groupsPhotosByReview() {
+        Map<Long, List<ReviewPhotoDTO>> photos = ReviewBatchLoader.groupPhotos(List.of(
+                new Object[] { 10L, 100L, "a.jpg", "a_thumb.jpg", "a_medium.jpg", "a_full.jpg" },
+                new Object[] { 10L, 101L, "b.jpg", null, null, null },
+                new Object[] { 11L, 102L, "c.jpg", "c_thumb.jpg", "c_medium.jpg", "c_full.jpg" }));
+
+        assertThat(photos.get(10L)).extracting(ReviewPhotoDTO::getId).containsExactly(100L, 101L);
+        assertThat(photos.get(11L).get(0).getThumbnailUrl()).isEqualTo("c_thumb.jpg");
+        assertThat(photos.get(11L).get(0).getMediumUrl()).isEqualTo("c_medium.jpg");
+    }
+
+    @Test
+    void cursorRoundTripsAndRejectsOtherSorts() {
+        ReviewCursor cursor = ReviewCursor.after(ReviewSort.HIGHEST_RATED, 4, T, 42L);
+
+        assertThat(ReviewCursor.decode(cursor.encode(), ReviewSort.HIGHEST_RATED)).isEqualTo(cursor);
+        assertThat(ReviewCursor.decode(null, ReviewSort.NEWEST).id()).isEqualTo(Long.MAX_VALUE);
+        assertThatThrownBy(() -> ReviewCursor.decode(cursor.encode(), ReviewSort.NEWEST))
+                .isInstanceOf(InvalidParameterException.class)
+                .hasMessageContaining("does not match sort NEWEST");
+        assertThatThrownBy(() -> ReviewCursor.decode("not-a-cursor", ReviewSort.NEWEST))
+                .isInstanceOf(InvalidParameterException.class)
+                .hasMessageContaining("malformed");
+    }
+
+    private static Object[] comment(Long id, Long parentId, Long reviewId, String content, int minutes) {
+        return new Object[] { id, parentId, reviewId, content, "user", Timestamp.valueOf(T.plusMinutes(minutes)) };
+    }
+}
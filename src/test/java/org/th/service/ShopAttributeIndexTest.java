@@ -0,0 +1,112 @@
+package org.th.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.th.dto.ShopFilter;
+import org.th.entity.enums.PricePreference;
+import org.th.repository.ShopRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ShopAttributeIndexTest {
+
+    private ShopRepository shopRepository;
+    private ShopAttributeIndex index;
+    private final List<Runnable> background = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // Rows: id, halal, vegetarian, delivery, parking, wifi, verified, price
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] { 1L, true, false, true, false, true, true, PricePreference.LOW });
+        rows.add(new Object[] { 2L, true, true, false, false, false, false, PricePreference.MEDIUM });
+        rows.add(new Object[] { 3L, false, true, true, true, false, null, null });
+        rows.add(new Object[] { 4L, false, false, false, false, false, false, PricePreference.LOW });
+        shopRepository = mock(ShopRepository.class);
+        when(shopRepository.findActiveAttributeRows()).thenReturn(rows);
+        index = new ShopAttributeIndex(shopRepository, background::add);
+        index.rebuild();
+    }
+
+    @Test
+    void emptyFilterMatchesEverything() {
+        ShopAttributeIndex.Candidates candidates = index.candidates(ShopFilter.NONE);
+
+        assertThat(candidates.isUnfiltered()).isTrue();
+        assertThat(candidates.test(99L)).isTrue();
+        assertThat(candidates.fetchSize(10, 100)).isEqualTo(10);
+    }
+
+    @Test
+    void constraintsAreCombined() {
+        ShopAttributeIndex.Candidates halal = index.candidates(
+                new ShopFilter(true, null, null, null, null, null, null));
+        assertThat(halal.cardinality()).isEqualTo(2);
+        assertThat(halal.test(1L)).isTrue();
+        assertThat(halal.test(3L)).isFalse();
+
+        ShopAttributeIndex.Candidates halalVegetarian = index.candidates(
+                new ShopFilter(true, true, null, null, null, null, null));
+        assertThat(halalVegetarian.test(2L)).isTrue();
+        assertThat(halalVegetarian.test(1L)).isFalse();
+
+        ShopAttributeIndex.Candidates low = index.candidates(
+                new ShopFilter(null, null, null, null, null, null, PricePreference.LOW));
+        assertThat(low.test(1L)).isTrue();
+        assertThat(low.test(4L)).isTrue();
+        assertThat(low.test(2L)).isFalse();
+    }
+
+    @Test
+    void unknownShopsDoNotMatchAFilter() {
+        assertThat(index.candidates(new ShopFilter(true, null, null, null, null, null, null)).test(99L)).isFalse();
+    }
+
+    @Test
+    void fetchSizeScalesWithSelectivity() {
+        // 1 of 4 shops is verified: fetch 4x the page, plus headroom, capped
+        ShopAttributeIndex.Candidates verified = index.candidates(
+                new ShopFilter(null, null, null, null, null, true, null));
+        assertThat(verified.fetchSize(10, 100)).isEqualTo(60);
+        assertThat(verified.fetchSize(10, 50)).isEqualTo(50);
+    }
+
+    @Test
+    void markStaleRebuildsInBackgroundWhileServingTheOldSnapshot() {
+        index.markStale();
+        ShopAttributeIndex.Candidates halal = index.candidates(
+                new ShopFilter(true, null, null, null, null, null, null));
+        index.candidates(ShopFilter.NONE);
+
+        // One rebuild queued; lookups meanwhile answer from the old snapshot
+        assertThat(background).hasSize(1);
+        assertThat(halal.cardinality()).isEqualTo(2);
+        background.remove(0).run();
+        index.candidates(ShopFilter.NONE);
+
+        assertThat(background).isEmpty();
+        verify(shopRepository, times(2)).findActiveAttributeRows();
+    }
+
+    @Test
+    void changeDuringRebuildKeepsTheIndexStale() {
+        when(shopRepository.findActiveAttributeRows()).thenAnswer(invocation -> {
+            index.markStale();
+            return List.of();
+        });
+        index.markStale();
+        index.candidates(ShopFilter.NONE);
+        background.remove(0).run();
+
+        index.candidates(ShopFilter.NONE);
+
+        assertThat(background).hasSize(1);
+    }
+}
@@ -0,0 +1,188 @@
+package org.th.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.th.config.SupabaseConfig;
+import org.th.service.StorageGcService.GcReport;
+import org.th.util.BloomFilter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class StorageGcServiceTest {
+
+    private static final Gson GSON = new Gson();
+    private static final int GALLERY_SIZE = 1500; // more than one listing page
+
+    private MockWebServer server;
+    private SupabaseStorageService storage;
+    private final Map<String, JsonArray> folders = new LinkedHashMap<>();
+    private final Set<String> deleted = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger deleteRequests = new AtomicInteger();
+    private final AtomicInteger maxBatch = new AtomicInteger();
+    private volatile int deleteStatus = 200;
+
+    private final Set<String> referenced = new HashSet<>();
+    private final Set<String> orphans = new HashSet<>();
+    private BloomFilter filter;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new FakeBucket());
+        server.start();
+        SupabaseConfig config = mock(SupabaseConfig.class);
+        when(config.getSupabaseUrl()).thenReturn(server.url("").toString().replaceAll("/$", ""));
+        when(config.getSupabaseKey()).thenReturn("key");
+        when(config.getSupabaseBucket()).thenReturn("bucket");
+        storage = new SupabaseStorageService(config, new OkHttpClient(), 2, 1, 1);
+
+        Instant old = Instant.now().minus(10, ChronoUnit.DAYS);
+        folder("", folderEntry("shops"), folderEntry("reviews"));
+        folder("shops", folderEntry("1"));
+        JsonArray gallery = new JsonArray();
+        for (int i = 0; i < GALLERY_SIZE; i++) {
+            String name = String.format("f%04d.jpg", i);
+            gallery.add(fileEntry(name, 100, old));
+            (i % 3 == 0 ? referenced : orphans).add("shops/1/" + name);
+        }
+        gallery.add(fileEntry("fresh.jpg", 100, Instant.now()));
+        folders.put("shops/1", gallery);
+        folder("reviews", fileEntry("r.jpg", 50, old));
+        orphans.add("reviews/r.jpg");
+
+        filter = new BloomFilter(referenced.size(), 1e-9);
+        referenced.forEach(filter::add);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    void walksEveryPageOfEveryFolder() {
+        List<String> paths = new ArrayList<>();
+        storage.walk("", object -> paths.add(object.path()));
+
+        assertThat(paths).hasSize(GALLERY_SIZE + 2).doesNotHaveDuplicates()
+                .contains("shops/1/f1499.jpg", "shops/1/fresh.jpg", "reviews/r.jpg");
+        assertThat(storage.listImages("shops/1")).hasSize(GALLERY_SIZE + 1);
+    }
+
+    @Test
+    void dryRunReportsOrphansWithoutDeleting() {
+        GcReport report = gc(50).sweep(filter, true);
+
+        assertThat(report.scanned()).isEqualTo(GALLERY_SIZE + 2);
+        assertThat(report.orphaned()).isEqualTo(orphans.size());
+        assertThat(report.orphanedBytes()).isEqualTo((orphans.size() - 1) * 100L + 50);
+        assertThat(report.tooRecent()).isEqualTo(1);
+        assertThat(report.deleted()).isZero();
+        assertThat(report.sample()).hasSize(50).allSatisfy(path -> assertThat(orphans).contains(path));
+        assertThat(deleteRequests.get()).isZero();
+    }
+
+    @Test
+    void deletesExactlyTheOldOrphansInBoundedBatches() {
+        GcReport report = gc(100).sweep(filter, false);
+
+        assertThat(deleted).isEqualTo(orphans);
+        assertThat(report.deleted()).isEqualTo(orphans.size());
+        assertThat(report.failed()).isZero();
+        assertThat(maxBatch.get()).isLessThanOrEqualTo(100);
+        assertThat(deleteRequests.get()).isEqualTo((orphans.size() + 99) / 100);
+    }
+
+    @Test
+    void countsFailedBatchesAndCarriesOn() {
+        deleteStatus = 500;
+
+        GcReport report = gc(100).sweep(filter, false);
+
+        assertThat(report.deleted()).isZero();
+        assertThat(report.failed()).isEqualTo(orphans.size());
+        assertThat(deleteRequests.get()).isEqualTo((orphans.size() + 99) / 100);
+    }
+
+    private StorageGcService gc(int batchSize) {
+        return new StorageGcService(storage, mock(PlatformTransactionManager.class), Runnable::run, 48, batchSize, 3, true);
+    }
+
+    private void folder(String prefix, JsonObject... entries) {
+        JsonArray array = new JsonArray();
+        for (JsonObject entry : entries) {
+            array.add(entry);
+        }
+        folders.put(prefix, array);
+    }
+
+    private static JsonObject folderEntry(String name) {
+        JsonObject entry = new JsonObject();
+        entry.addProperty("name", name);
+        entry.add("id", null);
+        return entry;
+    }
+
+    private static JsonObject fileEntry(String name, long size, Instant createdAt) {
+        JsonObject metadata = new JsonObject();
+        metadata.addProperty("size", size);
+        JsonObject entry = new JsonObject();
+        entry.addProperty("name", name);
+        entry.addProperty("id", name.hashCode());
+        entry.addProperty("created_at", createdAt.toString());
+        entry.add("metadata", metadata);
+        return entry;
+    }
+
+    /**
+     * Serves Supabase's list and bulk-delete endpoints from {@link #folders}
+     */
+    private class FakeBucket extends Dispatcher {
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            JsonObject body = GSON.fromJson(request.getBody().readUtf8(), JsonObject.class);
+            if ("DELETE".equals(request.getMethod())) {
+                deleteRequests.incrementAndGet();
+                JsonArray prefixes = body.getAsJsonArray("prefixes");
+                maxBatch.accumulateAndGet(prefixes.size(), Math::max);
+                if (deleteStatus != 200) {
+                    return new MockResponse().setResponseCode(deleteStatus);
+                }
+                prefixes.forEach(path -> deleted.add(path.getAsString()));
+                return new MockResponse().setBody("[]");
+            }
+            JsonArray entries = folders.getOrDefault(body.get("prefix").getAsString(), new JsonArray());
+            int offset = body.get("offset").getAsInt();
+            int limit = body.get("limit").getAsInt();
+            JsonArray page = new JsonArray();
+            for (int i = offset; i < Math.min(entries.size(), offset + limit); i++) {
+                page.add(entries.get(i));
+            }
+            return new MockResponse().setBody(page.toString());
+        }
+    }
+}
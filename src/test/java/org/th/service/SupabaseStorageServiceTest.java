@@ -0,0 +1,145 @@
+package org.th.service;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.th.config.SupabaseConfig;
+import org.th.exception.SupabaseStorageException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SupabaseStorageServiceTest {
+
+    private MockWebServer server;
+    private SupabaseStorageService storage;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        SupabaseConfig config = mock(SupabaseConfig.class);
+        when(config.getSupabaseUrl()).thenReturn(server.url("").toString().replaceAll("/$", ""));
+        when(config.getSupabaseKey()).thenReturn("key");
+        when(config.getSupabaseBucket()).thenReturn("bucket");
+        storage = new SupabaseStorageService(config, new OkHttpClient(), 2, 3, 1);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    void streamsTheFileAndRetriesServerErrorsToTheSamePath() throws InterruptedException {
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setResponseCode(200));
+        byte[] content = new byte[256 * 1024];
+
+        String url = storage.uploadImage(image("a.jpg", content), "shops/1/gallery");
+
+        RecordedRequest first = server.takeRequest();
+        RecordedRequest second = server.takeRequest();
+        assertThat(server.getRequestCount()).isEqualTo(2);
+        assertThat(second.getPath()).isEqualTo(first.getPath()).startsWith("/storage/v1/object/bucket/shops/1/gallery/");
+        assertThat(second.getHeader("x-upsert")).isEqualTo("true");
+        assertThat(second.getBodySize()).isEqualTo(content.length);
+        assertThat(storage.extractFilePath(url)).isEqualTo(second.getPath().substring("/storage/v1/object/bucket/".length()));
+    }
+
+    @Test
+    void doesNotRetryClientErrors() {
+        server.enqueue(new MockResponse().setResponseCode(400).setBody("bad request"));
+
+        assertThatThrownBy(() -> storage.uploadImage(image("a.jpg", new byte[10]), "shops/1"))
+                .isInstanceOf(SupabaseStorageException.class)
+                .hasMessageContaining("bad request");
+        assertThat(server.getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() {
+        for (int i = 0; i < 3; i++) {
+            server.enqueue(new MockResponse().setResponseCode(500));
+        }
+
+        assertThatThrownBy(() -> storage.uploadImage(image("a.jpg", new byte[10]), "shops/1"))
+                .isInstanceOf(SupabaseStorageException.class);
+        assertThat(server.getRequestCount()).isEqualTo(3);
+    }
+
+    @Test
+    void uploadsSeveralFilesConcurrentlyInOrder() {
+        server.setDispatcher(respond(path -> 200));
+
+        List<String> urls = storage.uploadImages(List.of(
+                image("a.jpg", new byte[10]), image("b.jpg", new byte[20]), image("c.jpg", new byte[30])),
+                "shops/1/gallery");
+
+        assertThat(urls).hasSize(3).doesNotHaveDuplicates()
+                .allSatisfy(url -> assertThat(url).contains("/storage/v1/object/public/bucket/shops/1/gallery/"));
+        assertThat(server.getRequestCount()).isEqualTo(3);
+    }
+
+    @Test
+    void deletesTheRestWhenOneUploadFails() throws InterruptedException {
+        server.setDispatcher(respond(path -> path.endsWith(".png") ? 400 : 200));
+
+        assertThatThrownBy(() -> storage.uploadImages(List.of(
+                image("a.jpg", new byte[10]), image("bad.png", new byte[10]), image("c.jpg", new byte[10])),
+                "shops/1/gallery"))
+                .isInstanceOf(SupabaseStorageException.class);
+
+        List<String> deleted = new ArrayList<>();
+        RecordedRequest request;
+        while ((request = server.takeRequest(100, TimeUnit.MILLISECONDS)) != null) {
+            if ("DELETE".equals(request.getMethod())) {
+                deleted.add(request.getPath());
+            }
+        }
+        assertThat(deleted).hasSize(2).allSatisfy(path -> assertThat(path).endsWith(".jpg"));
+    }
+
+    @Test
+    void validatesEveryFileBeforeUploadingAny() {
+        assertThatThrownBy(() -> storage.uploadImages(List.of(
+                image("a.jpg", new byte[10]),
+                new MockMultipartFile("file", "notes.txt", "text/plain", new byte[10])),
+                "shops/1"))
+                .isInstanceOf(SupabaseStorageException.class);
+        assertThat(server.getRequestCount()).isZero();
+    }
+
+    private static MockMultipartFile image(String name, byte[] content) {
+        return new MockMultipartFile("file", name, name.endsWith(".png") ? "image/png" : "image/jpeg", content);
+    }
+
+    private interface Status {
+        int forPath(String path);
+    }
+
+    private static Dispatcher respond(Status status) {
+        return new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                if ("DELETE".equals(request.getMethod())) {
+                    return new MockResponse().setResponseCode(200);
+                }
+                return new MockResponse().setResponseCode(status.forPath(request.getPath()));
+            }
+        };
+    }
+}
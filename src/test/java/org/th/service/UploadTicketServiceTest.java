@@ -0,0 +1,234 @@
+package org.th.service;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.th.config.SupabaseConfig;
+import org.th.dto.ConfirmUploadRequest;
+import org.th.dto.PhotoDTO;
+import org.th.dto.UploadTicketDTO;
+import org.th.dto.UploadTicketRequest;
+import org.th.entity.User;
+import org.th.entity.enums.Role;
+import org.th.entity.enums.UploadTarget;
+import org.th.entity.shops.Shop;
+import org.th.entity.shops.ShopPhoto;
+import org.th.entity.shops.ShopReview;
+import org.th.exception.InvalidParameterException;
+import org.th.exception.UnauthorizedAccessException;
+import org.th.repository.MenuItemPhotoRepository;
+import org.th.repository.MenuItemRepository;
+import org.th.repository.ReviewPhotoRepository;
+import org.th.repository.ShopPhotoRepository;
+import org.th.repository.ShopRepository;
+import org.th.repository.ShopReviewRepository;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class UploadTicketServiceTest {
+
+    private static final long SHOP_ID = 5L;
+
+    private MockWebServer server;
+    private SupabaseStorageService storage;
+    private ImageVariantService imageVariantService;
+    private ShopRepository shopRepository;
+    private ShopReviewRepository shopReviewRepository;
+    private ShopPhotoRepository shopPhotoRepository;
+    private UploadTicketService service;
+    private User user;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        SupabaseConfig config = mock(SupabaseConfig.class);
+        when(config.getSupabaseUrl()).thenReturn(server.url("").toString().replaceAll("/$", ""));
+        when(config.getSupabaseKey()).thenReturn("key");
+        when(config.getSupabaseBucket()).thenReturn("bucket");
+        storage = new SupabaseStorageService(config, new OkHttpClient(), 2, 1, 1);
+
+        imageVariantService = mock(ImageVariantService.class);
+        shopRepository = mock(ShopRepository.class);
+        shopReviewRepository = mock(ShopReviewRepository.class);
+        shopPhotoRepository = mock(ShopPhotoRepository.class);
+        when(shopRepository.existsById(SHOP_ID)).thenReturn(true);
+        when(shopRepository.getReferenceById(SHOP_ID)).thenReturn(new Shop());
+        when(shopRepository.findByIdForUpdate(SHOP_ID)).thenReturn(Optional.of(new Shop()));
+        when(shopPhotoRepository.findFirstByShopIdAndUrl(any(), any())).thenReturn(Optional.empty());
+        when(shopPhotoRepository.save(any())).thenAnswer(invocation -> {
+            ShopPhoto photo = invocation.getArgument(0);
+            photo.setId(42L);
+            return photo;
+        });
+        service = service(15);
+        user = user(7L, Role.USER);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    void issuesASignedUrlUnderTheTargetsFolder() throws InterruptedException {
+        enqueueSignedUrl();
+
+        UploadTicketDTO ticket = service.issue(request(UploadTarget.SHOP_PHOTO, SHOP_ID, "image/PNG", 1000), user);
+
+        RecordedRequest sign = server.takeRequest();
+        assertThat(sign.getMethod()).isEqualTo("POST");
+        assertThat(sign.getPath()).isEqualTo("/storage/v1/object/upload/sign/bucket/" + ticket.getPath());
+        assertThat(ticket.getPath()).startsWith("shops/5/gallery/").endsWith(".png");
+        assertThat(ticket.getUploadUrl()).startsWith(server.url("/storage/v1/object/upload/sign/").toString())
+                .contains("token=abc");
+        assertThat(ticket.getContentType()).isEqualTo("image/png");
+        assertThat(service.verify(ticket.getTicket()).path()).isEqualTo(ticket.getPath());
+    }
+
+    @Test
+    void rejectsDisallowedTypesAndOversizedFilesBeforeSigning() {
+        assertThatThrownBy(() -> service.issue(request(UploadTarget.SHOP_PHOTO, SHOP_ID, "application/pdf", 10), user))
+                .isInstanceOf(InvalidParameterException.class);
+        assertThatThrownBy(() -> service.issue(
+                request(UploadTarget.SHOP_PHOTO, SHOP_ID, "image/jpeg", SupabaseStorageService.getMaxFileSize() + 1), user))
+                .isInstanceOf(InvalidParameterException.class);
+        assertThat(server.getRequestCount()).isZero();
+    }
+
+    @Test
+    void onlyTheReviewAuthorCanUploadReviewPhotosAndOnlyAdminsMenuItemPhotos() {
+        ShopReview review = new ShopReview();
+        review.setUser(user(8L, Role.USER));
+        when(shopReviewRepository.findById(3L)).thenReturn(Optional.of(review));
+
+        assertThatThrownBy(() -> service.issue(request(UploadTarget.REVIEW_PHOTO, 3L, "image/jpeg", 10), user))
+                .isInstanceOf(UnauthorizedAccessException.class);
+        assertThatThrownBy(() -> service.issue(request(UploadTarget.MENU_ITEM_PHOTO, 9L, "image/jpeg", 10), user))
+                .isInstanceOf(UnauthorizedAccessException.class);
+        assertThat(server.getRequestCount()).isZero();
+    }
+
+    @Test
+    void confirmAttachesTheStoredObjectAndSchedulesVariants() {
+        enqueueSignedUrl();
+        UploadTicketDTO ticket = service.issue(request(UploadTarget.SHOP_PHOTO, SHOP_ID, "image/jpeg", 1000), user);
+        server.enqueue(new MockResponse().setHeader("Content-Length", "1000").setHeader("Content-Type", "image/jpeg"));
+
+        PhotoDTO photo = service.confirm(new ConfirmUploadRequest(ticket.getTicket(), "Storefront"), user);
+
+        String url = storage.getPublicUrl(ticket.getPath());
+        assertThat(photo.getId()).isEqualTo(42L);
+        assertThat(photo.getUrl()).isEqualTo(url);
+        assertThat(photo.getCaption()).isEqualTo("Storefront");
+        verify(imageVariantService).generateAfterCommit(url);
+    }
+
+    @Test
+    void confirmRejectsAndDeletesObjectsLargerThanTheTicketAllows() throws InterruptedException {
+        enqueueSignedUrl();
+        UploadTicketDTO ticket = service.issue(request(UploadTarget.SHOP_PHOTO, SHOP_ID, "image/jpeg", 1000), user);
+        long tooBig = SupabaseStorageService.getMaxFileSize() + 1;
+        server.enqueue(new MockResponse().setHeader("Content-Length", Long.toString(tooBig))
+                .setHeader("Content-Type", "image/jpeg"));
+        server.enqueue(new MockResponse().setResponseCode(200));
+
+        assertThatThrownBy(() -> service.confirm(new ConfirmUploadRequest(ticket.getTicket(), null), user))
+                .isInstanceOf(InvalidParameterException.class);
+
+        server.takeRequest(); // sign
+        assertThat(server.takeRequest().getMethod()).isEqualTo("HEAD");
+        RecordedRequest delete = server.takeRequest();
+        assertThat(delete.getMethod()).isEqualTo("DELETE");
+        assertThat(delete.getPath()).isEqualTo("/storage/v1/object/bucket/" + ticket.getPath());
+        verify(shopPhotoRepository, never()).save(any());
+    }
+
+    @Test
+    void confirmRejectsMissingUploadsTamperedExpiredAndForeignTickets() {
+        enqueueSignedUrl();
+        UploadTicketDTO ticket = service.issue(request(UploadTarget.SHOP_PHOTO, SHOP_ID, "image/jpeg", 1000), user);
+        server.enqueue(new MockResponse().setResponseCode(404));
+
+        assertThatThrownBy(() -> service.confirm(new ConfirmUploadRequest(ticket.getTicket(), null), user))
+                .isInstanceOf(InvalidParameterException.class)
+                .hasMessageContaining("no file");
+
+        String token = ticket.getTicket();
+        String tampered = (token.charAt(0) == 'A' ? "B" : "A") + token.substring(1);
+        assertThatThrownBy(() -> service.confirm(new ConfirmUploadRequest(tampered, null), user))
+                .isInstanceOf(InvalidParameterException.class);
+        assertThatThrownBy(() -> service.confirm(new ConfirmUploadRequest(token, null), user(8L, Role.USER)))
+                .isInstanceOf(UnauthorizedAccessException.class);
+
+        enqueueSignedUrl();
+        UploadTicketDTO expired = service(-1).issue(request(UploadTarget.SHOP_PHOTO, SHOP_ID, "image/jpeg", 1000), user);
+        server.enqueue(new MockResponse().setResponseCode(200));
+        assertThatThrownBy(() -> service.confirm(new ConfirmUploadRequest(expired.getTicket(), null), user))
+                .isInstanceOf(InvalidParameterException.class)
+                .hasMessageContaining("expired");
+        verify(shopPhotoRepository, never()).save(any());
+    }
+
+    @Test
+    void expiredTicketsRemoveTheirLateUpload() throws InterruptedException {
+        enqueueSignedUrl();
+        UploadTicketDTO expired = service(-1).issue(request(UploadTarget.SHOP_PHOTO, SHOP_ID, "image/jpeg", 1000), user);
+        server.enqueue(new MockResponse().setResponseCode(200));
+
+        assertThatThrownBy(() -> service.confirm(new ConfirmUploadRequest(expired.getTicket(), null), user))
+                .hasMessageContaining("expired");
+
+        RecordedRequest sign = server.takeRequest();
+        assertThat(sign.getBody().readUtf8()).isEqualTo("{\"expiresIn\":1}");
+        RecordedRequest delete = server.takeRequest();
+        assertThat(delete.getMethod()).isEqualTo("DELETE");
+        assertThat(delete.getPath()).isEqualTo("/storage/v1/object/bucket/" + expired.getPath());
+    }
+
+    @Test
+    void refusesAShortTicketSecret() {
+        assertThatThrownBy(() -> new UploadTicketService(storage, imageVariantService, shopRepository,
+                shopReviewRepository, mock(MenuItemRepository.class), shopPhotoRepository,
+                mock(ReviewPhotoRepository.class), mock(MenuItemPhotoRepository.class),
+                mock(PlatformTransactionManager.class), "short", 15))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private UploadTicketService service(long ttlMinutes) {
+        return new UploadTicketService(storage, imageVariantService, shopRepository, shopReviewRepository,
+                mock(MenuItemRepository.class), shopPhotoRepository, mock(ReviewPhotoRepository.class),
+                mock(MenuItemPhotoRepository.class), mock(PlatformTransactionManager.class),
+                "test-secret-at-least-32-characters", ttlMinutes);
+    }
+
+    private void enqueueSignedUrl() {
+        server.enqueue(new MockResponse().setBody(
+                "{\"url\": \"/object/upload/sign/bucket/some/path.jpg?token=abc\"}"));
+    }
+
+    private static UploadTicketRequest request(UploadTarget target, long targetId, String contentType, long size) {
+        return new UploadTicketRequest(target, targetId, contentType, size);
+    }
+
+    private static User user(long id, Role role) {
+        User user = new User();
+        user.setId(id);
+        user.setRole(role);
+        return user;
+    }
+}
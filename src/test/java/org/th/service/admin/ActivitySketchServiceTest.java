@@ -0,0 +1,68 @@
+package org.th.service.admin;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.th.entity.ActivitySketch;
+import org.th.entity.UserActivity;
+import org.th.entity.enums.ActivityType;
+import org.th.entity.enums.SketchDimension;
+import org.th.repository.ActivitySketchRepository;
+import org.th.repository.UserActivityRepository;
+import org.th.util.HyperLogLog;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ActivitySketchServiceTest {
+
+    private ActivitySketchRepository sketchRepository;
+    private ActivitySketchService service;
+
+    @BeforeEach
+    void setUp() {
+        sketchRepository = mock(ActivitySketchRepository.class);
+        when(sketchRepository.findForUpdate(any(), any(), any())).thenReturn(Optional.empty());
+        service = new ActivitySketchService(sketchRepository, mock(UserActivityRepository.class),
+                mock(PlatformTransactionManager.class), 90);
+    }
+
+    @Test
+    void activityWithoutDeviceCountsAsAnEventButNotAUniqueDevice() {
+        service.record(view("device-1"));
+        service.record(view(null));
+        service.record(view(null));
+
+        service.flush();
+
+        ArgumentCaptor<ActivitySketch> saved = ArgumentCaptor.forClass(ActivitySketch.class);
+        verify(sketchRepository, atLeastOnce()).save(saved.capture());
+        Map<SketchDimension, ActivitySketch> byDimension = saved.getAllValues().stream()
+                .collect(Collectors.toMap(ActivitySketch::getDimension, s -> s, (a, b) -> a));
+        ActivitySketch shop = byDimension.get(SketchDimension.SHOP);
+        assertThat(shop.getDimensionKey()).isEqualTo("7");
+        assertThat(shop.getDay()).isEqualTo(LocalDate.of(2025, 3, 1));
+        assertThat(shop.getEvents()).isEqualTo(3);
+        assertThat(HyperLogLog.fromBytes(shop.getSketch()).estimate()).isEqualTo(1);
+    }
+
+    private static UserActivity view(String deviceId) {
+        UserActivity activity = new UserActivity();
+        activity.setDeviceId(deviceId);
+        activity.setActivityType(ActivityType.VIEW_SHOP);
+        activity.setTargetId(7L);
+        activity.setCreatedAt(LocalDateTime.of(2025, 3, 1, 12, 0));
+        return activity;
+    }
+}
@@ -0,0 +1,202 @@
+package org.th.service.mobile;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.th.dto.mobile.CatalogSyncDTO;
+import org.th.dto.mobile.SyncShopDTO;
+import org.th.entity.CatalogDeletion;
+import org.th.entity.shops.Shop;
+import org.th.exception.InvalidParameterException;
+import org.th.repository.CatalogDeletionRepository;
+import org.th.repository.OperatingHourRepository;
+import org.th.repository.ShopRepository;
+import org.th.service.MenuDocumentService;
+import org.th.service.MenuDocumentService.MenuDocument;
+import org.th.service.ShopService;
+import org.th.service.SyncWatermark;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CatalogSyncServiceTest {
+
+    private static final LocalDateTime T1 = LocalDateTime.now().minusHours(3);
+    private static final LocalDateTime T2 = LocalDateTime.now().minusHours(2);
+    private static final LocalDateTime T3 = LocalDateTime.now().minusHours(1);
+
+    private ShopRepository shopRepository;
+    private CatalogDeletionRepository deletionRepository;
+    private MenuDocumentService menuDocumentService;
+    private CatalogSyncService service;
+    private final List<Object[]> changed = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        shopRepository = mock(ShopRepository.class);
+        deletionRepository = mock(CatalogDeletionRepository.class);
+        OperatingHourRepository operatingHourRepository = mock(OperatingHourRepository.class);
+        when(operatingHourRepository.findScheduleRowsByShopIdIn(anyList())).thenReturn(List.<Object[]>of(
+                new Object[] { 1L, 1, LocalTime.of(9, 0), LocalTime.of(17, 0), false }));
+        when(shopRepository.findChangedSince(any(), anyLong(), any(), any(Pageable.class))).thenAnswer(invocation -> {
+            LocalDateTime after = invocation.getArgument(0);
+            long afterId = invocation.getArgument(1);
+            Pageable page = invocation.getArgument(3);
+            return changed.stream()
+                    .filter(row -> ((LocalDateTime) row[1]).isAfter(after)
+                            || (row[1].equals(after) && (Long) row[0] > afterId))
+                    .limit(page.getPageSize())
+                    .toList();
+        });
+        when(shopRepository.findByIdInWithPhotosAndDistrict(anyList())).thenAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(id -> {
+                Shop shop = new Shop();
+                shop.setId(id);
+                shop.setName("Shop " + id);
+                shop.setUpdatedAt(changed.stream().filter(row -> row[0].equals(id))
+                        .map(row -> (LocalDateTime) row[1]).findFirst().orElse(null));
+                return shop;
+            }).toList();
+        });
+        menuDocumentService = mock(MenuDocumentService.class);
+        MenuDocument menu = new MenuDocument(3, "\"m\"",
+                ("{\"success\":true,\"message\":\"Shop menu retrieved\","
+                        + "\"data\":[{\"id\":9,\"items\":[]}],\"error\":null}").getBytes(StandardCharsets.UTF_8), null);
+        // Shop 1 has a stored menu document, the rest have none yet
+        when(menuDocumentService.getStored(anyList())).thenReturn(Map.of(1L, menu));
+        ShopService shopService = new ShopService(shopRepository, null, null, null, operatingHourRepository);
+
+        service = new CatalogSyncService(shopRepository, operatingHourRepository, deletionRepository, shopService,
+                menuDocumentService, new ObjectMapper(), mock(PlatformTransactionManager.class), 10, 90);
+    }
+
+    @Test
+    void firstSyncSendsActiveShopsOnly() {
+        changed.add(new Object[] { 1L, T1, true });
+        changed.add(new Object[] { 2L, T2, false });
+
+        CatalogSyncDTO sync = service.changesSince(null, 100);
+
+        assertThat(sync.getShops()).extracting(dto -> dto.getShop().getId()).containsExactly(1L);
+        SyncShopDTO shop = sync.getShops().get(0);
+        assertThat(shop.getOperatingHours()).hasSize(1);
+        assertThat(shop.getMenu()).isEqualTo("[{\"id\":9,\"items\":[]}]");
+        assertThat(shop.getMenuVersion()).isEqualTo(3);
+        assertThat(sync.getRemovedShopIds()).isEmpty();
+        assertThat(sync.isHasMore()).isFalse();
+        verify(deletionRepository, never()).findShopIdsDeletedBetween(any(), any());
+    }
+
+    @Test
+    void embedsStoredMenusWithoutBuildingMissingOnes() throws Exception {
+        changed.add(new Object[] { 1L, T1, true });
+        changed.add(new Object[] { 2L, T2, true });
+
+        CatalogSyncDTO sync = service.changesSince(null, 100);
+
+        SyncShopDTO missing = sync.getShops().get(1);
+        assertThat(missing.getMenu()).isNull();
+        assertThat(missing.getMenuVersion()).isZero();
+        verify(menuDocumentService, never()).get(anyLong());
+        verify(menuDocumentService, never()).rebuild(anyLong());
+        assertThat(new ObjectMapper().findAndRegisterModules().writeValueAsString(sync.getShops().get(0)))
+                .contains("\"menu\":[{\"id\":9,\"items\":[]}]");
+    }
+
+    @Test
+    void pagesForwardFromTheLastShopSeen() {
+        changed.add(new Object[] { 1L, T1, true });
+        changed.add(new Object[] { 2L, T1, true });
+        changed.add(new Object[] { 3L, T2, true });
+
+        CatalogSyncDTO first = service.changesSince(null, 2);
+        assertThat(first.isHasMore()).isTrue();
+        assertThat(SyncWatermark.decode(first.getWatermark())).isEqualTo(new SyncWatermark(T1, 2L));
+
+        CatalogSyncDTO second = service.changesSince(first.getWatermark(), 2);
+        assertThat(second.getShops()).extracting(dto -> dto.getShop().getId()).containsExactly(3L);
+        assertThat(second.isHasMore()).isFalse();
+
+        CatalogSyncDTO third = service.changesSince(second.getWatermark(), 2);
+        assertThat(third.getShops()).isEmpty();
+    }
+
+    @Test
+    void incrementalSyncReportsDeactivatedAndDeletedShops() {
+        changed.add(new Object[] { 4L, T3, false });
+        when(deletionRepository.findShopIdsDeletedBetween(eq(T2), any())).thenReturn(List.of(5L));
+
+        CatalogSyncDTO sync = service.changesSince(new SyncWatermark(T2, 0).encode(), 100);
+
+        assertThat(sync.getShops()).isEmpty();
+        assertThat(sync.getRemovedShopIds()).containsExactly(4L, 5L);
+        assertThat(sync.isResetRequired()).isFalse();
+    }
+
+    @Test
+    void wipedOrExpiredWatermarksRequireAResync() {
+        when(deletionRepository.existsByShopIdIsNullAndDeletedAtAfter(T2)).thenReturn(true);
+
+        assertThat(service.changesSince(new SyncWatermark(T2, 1).encode(), 100).isResetRequired()).isTrue();
+        assertThat(service.changesSince(new SyncWatermark(T3.minusDays(91), 1).encode(), 100).isResetRequired())
+                .isTrue();
+        assertThat(service.changesSince(new SyncWatermark(T3, 1).encode(), 100).isResetRequired()).isFalse();
+    }
+
+    @Test
+    void deletionLogEntriesAreRestampedWhenTheirTransactionCommits() {
+        when(deletionRepository.save(any())).thenAnswer(invocation -> {
+            CatalogDeletion entry = invocation.getArgument(0);
+            entry.setId(4L);
+            return entry;
+        });
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.recordWipe();
+            verify(deletionRepository, never()).restamp(anyLong(), any());
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(deletionRepository).restamp(eq(4L), any());
+    }
+
+    @Test
+    void touchesLargeBatchesInChunks() {
+        List<Long> ids = LongStream.rangeClosed(1, 2500).boxed().toList();
+
+        service.touchShops(ids);
+
+        verify(shopRepository, times(3)).touchUpdatedAt(anyList(), any());
+    }
+
+    @Test
+    void rejectsMalformedWatermarks() {
+        assertThatThrownBy(() -> service.changesSince("not-a-watermark", 100))
+                .isInstanceOf(InvalidParameterException.class);
+    }
+}
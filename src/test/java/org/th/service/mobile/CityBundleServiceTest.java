@@ -0,0 +1,108 @@
+package org.th.service.mobile;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.th.entity.City;
+import org.th.entity.enums.PricePreference;
+import org.th.repository.ShopRepository;
+import org.th.service.CityService;
+import org.th.service.OpeningHoursIndex;
+import org.th.util.CityBundleCodec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CityBundleServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private final List<Object[]> rows = new ArrayList<>();
+    private CityBundleService service;
+
+    @BeforeEach
+    void setUp() {
+        ShopRepository shopRepository = mock(ShopRepository.class);
+        when(shopRepository.streamBundleRows(1L)).thenAnswer(invocation -> rows.stream());
+        CityService cityService = mock(CityService.class);
+        City city = new City();
+        city.setId(1L);
+        when(cityService.getAllActiveCities()).thenReturn(List.of(city));
+        OpeningHoursIndex openingHoursIndex = mock(OpeningHoursIndex.class);
+        when(openingHoursIndex.weekBitmap(2L)).thenReturn(new long[] { 0xFF00L, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0 });
+
+        service = new CityBundleService(cityService, shopRepository, openingHoursIndex,
+                mock(PlatformTransactionManager.class), dir.toString());
+    }
+
+    @Test
+    void buildsADecodableBundleFromTheRows() throws IOException {
+        rows.add(row(2L, "Tea House"));
+        rows.add(row(5L, "Noodle Bar"));
+
+        service.rebuildAll();
+
+        CityBundleService.Bundle bundle = service.get(1L).orElseThrow();
+        assertThat(bundle.shopCount()).isEqualTo(2);
+        assertThat(bundle.size()).isEqualTo(Files.size(bundle.path()));
+        try (InputStream in = Files.newInputStream(bundle.path())) {
+            CityBundleCodec.Contents contents = CityBundleCodec.read(in);
+            assertThat(contents.entries()).extracting(CityBundleCodec.Entry::name)
+                    .containsExactly("Tea House", "Noodle Bar");
+            assertThat(contents.entries().get(0).hours()[0]).isEqualTo(0xFF00L);
+            assertThat(contents.entries().get(1).pricePreference()).isEqualTo(PricePreference.MEDIUM);
+        }
+    }
+
+    @Test
+    void unchangedCatalogueKeepsItsFileAndETag() {
+        rows.add(row(2L, "Tea House"));
+
+        CityBundleService.Bundle first = service.rebuild(1L);
+        CityBundleService.Bundle second = service.rebuild(1L);
+
+        assertThat(second).isSameAs(first);
+        assertThat(dir.toFile().list()).containsExactly(first.path().getFileName().toString());
+    }
+
+    @Test
+    void changesReplaceTheBundleAndKeepOnlyThePreviousFile() throws IOException {
+        rows.add(row(2L, "Tea House"));
+        CityBundleService.Bundle first = service.rebuild(1L);
+        rows.add(row(5L, "Noodle Bar"));
+        CityBundleService.Bundle second = service.rebuild(1L);
+        rows.add(row(9L, "Dumplings"));
+        CityBundleService.Bundle third = service.rebuild(1L);
+
+        assertThat(List.of(first.etag(), second.etag(), third.etag())).doesNotHaveDuplicates();
+        assertThat(service.get(1L)).contains(third);
+        assertThat(Files.exists(first.path())).isFalse();
+        assertThat(Files.exists(second.path())).isTrue();
+
+        // A restart picks the newest file back up
+        Files.setLastModifiedTime(second.path(), java.nio.file.attribute.FileTime.fromMillis(0));
+        CityBundleService restarted = new CityBundleService(null, null, null,
+                mock(PlatformTransactionManager.class), dir.toString());
+        restarted.loadExisting();
+        assertThat(restarted.get(1L).orElseThrow().etag()).isEqualTo(third.etag());
+        assertThat(restarted.get(1L).orElseThrow().shopCount()).isEqualTo(3);
+    }
+
+    private static Object[] row(Long id, String name) {
+        return new Object[] { id, name, name, null, "shop-" + id, "Cafe", null, "Bahan", "1 Main Rd", null,
+                new BigDecimal("16.80000000"), new BigDecimal("96.15000000"), new BigDecimal("4.50"), 3,
+                null, null, null, true, null, false, true, false, false, PricePreference.MEDIUM };
+    }
+}
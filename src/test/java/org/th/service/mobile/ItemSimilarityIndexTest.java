@@ -0,0 +1,63 @@
+package org.th.service.mobile;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ItemSimilarityIndexTest {
+
+    private final List<Map<Long, Float>> baskets = List.of(
+            Map.of(1L, 3f, 2L, 3f),
+            Map.of(1L, 3f, 2L, 1f, 3L, 1f),
+            Map.of(2L, 1f, 3L, 1f),
+            Map.of(4L, 3f, 5L, 3f));
+
+    @Test
+    void ranksStrongerCoOccurrenceFirst() {
+        ItemSimilarityIndex index = ItemSimilarityIndex.build(baskets, 10, 100);
+
+        assertThat(index.size()).isEqualTo(5);
+        assertThat(index.neighboursOf(1L)).containsExactly(2L, 3L);
+        assertThat(index.neighboursOf(4L)).containsExactly(5L);
+        assertThat(index.neighboursOf(99L)).isEmpty();
+    }
+
+    @Test
+    void recommendExcludesSeedsAndExcludedShops() {
+        ItemSimilarityIndex index = ItemSimilarityIndex.build(baskets, 10, 100);
+
+        assertThat(index.recommend(Map.of(1L, 1f), Set.of(), 5)).containsExactly(2L, 3L);
+        assertThat(index.recommend(Map.of(1L, 1f), Set.of(2L), 5)).containsExactly(3L);
+        assertThat(index.recommend(Map.of(1L, 1f, 2L, 1f), Set.of(), 5)).containsExactly(3L);
+    }
+
+    @Test
+    void keepsOnlyTopKNeighbours() {
+        ItemSimilarityIndex index = ItemSimilarityIndex.build(baskets, 1, 100);
+
+        assertThat(index.neighboursOf(1L)).containsExactly(2L);
+        assertThat(index.edgeCount()).isEqualTo(5);
+    }
+
+    @Test
+    void snapshotRoundTrips() throws Exception {
+        ItemSimilarityIndex index = ItemSimilarityIndex.build(baskets, 10, 100);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.writeTo(new DataOutputStream(bytes));
+
+        ItemSimilarityIndex restored = ItemSimilarityIndex
+                .readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertThat(restored.size()).isEqualTo(index.size());
+        assertThat(restored.getBuiltAt()).isEqualTo(index.getBuiltAt());
+        assertThat(restored.neighboursOf(2L)).isEqualTo(index.neighboursOf(2L));
+    }
+}
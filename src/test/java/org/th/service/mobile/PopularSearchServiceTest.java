@@ -0,0 +1,132 @@
+package org.th.service.mobile;
+
+import org.junit.jupiter.api.Test;
+import org.th.dto.mobile.PopularSearchDTO;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PopularSearchServiceTest {
+
+    private static final long MINUTE = 60_000L;
+
+    @Test
+    void ranksQueriesByVolume() {
+        PopularSearchService service = new PopularSearchService(60, 12, 100, 1, 0);
+        long now = 1_000 * MINUTE;
+        for (int i = 0; i < 5; i++) {
+            service.record("Mohinga", null, now);
+        }
+        service.record("  shan   noodles ", null, now);
+        service.record("shan noodles", null, now);
+        service.record("tea", null, now);
+
+        List<PopularSearchDTO> popular = service.popular(2, now);
+        assertThat(popular).extracting(PopularSearchDTO::getQuery).containsExactly("mohinga", "shan noodles");
+        assertThat(popular.get(0).getCount()).isEqualTo(5);
+    }
+
+    @Test
+    void oldSearchesSlideOutOfTheWindow() {
+        PopularSearchService service = new PopularSearchService(60, 12, 100, 1, 0);
+        long now = 1_000 * MINUTE;
+        service.record("mohinga", null, now);
+        service.record("mohinga", null, now);
+        service.record("biryani", null, now + 30 * MINUTE);
+
+        assertThat(service.popular(10, now + 40 * MINUTE)).extracting(PopularSearchDTO::getQuery)
+                .containsExactly("mohinga", "biryani");
+        assertThat(service.popular(10, now + 70 * MINUTE)).extracting(PopularSearchDTO::getQuery)
+                .containsExactly("biryani");
+        assertThat(service.popular(10, now + 200 * MINUTE)).isEmpty();
+    }
+
+    @Test
+    void suggestsCompletionsByVolume() {
+        PopularSearchService service = new PopularSearchService(60, 12, 100, 1, 0);
+        long now = 1_000 * MINUTE;
+        service.record("shan noodles", null, now);
+        service.record("noodle soup", null, now);
+        service.record("noodle soup", null, now);
+        service.record("tea", null, now);
+
+        assertThat(service.suggest("Noo", 5, now)).extracting(PopularSearchDTO::getQuery)
+                .containsExactly("noodle soup", "shan noodles");
+        assertThat(service.suggest("x", 5, now)).isEmpty();
+    }
+
+    @Test
+    void heavyQueriesDisplaceLightCandidatesWhenFull() {
+        PopularSearchService service = new PopularSearchService(60, 12, 2, 1, 0);
+        long now = 1_000 * MINUTE;
+        service.record("aa", null, now);
+        service.record("bb", null, now);
+        service.record("bb", null, now);
+        service.record("cc", null, now);
+        service.record("cc", null, now);
+
+        assertThat(service.popular(10, now)).extracting(PopularSearchDTO::getQuery)
+                .containsExactlyInAnyOrder("bb", "cc");
+    }
+
+    @Test
+    void listsQueriesOnlyOnceEnoughDevicesSearchedThem() {
+        PopularSearchService service = new PopularSearchService(60, 12, 100, 3, 2);
+        long now = 1_000 * MINUTE;
+        for (int i = 0; i < 5; i++) {
+            service.record("mohinga", "device-1", now);
+        }
+        assertThat(service.popular(10, now)).isEmpty();
+        assertThat(service.suggest("mo", 10, now)).isEmpty();
+
+        service.record("mohinga", "device-2", now);
+
+        assertThat(service.popular(10, now)).extracting(PopularSearchDTO::getQuery).containsExactly("mohinga");
+        assertThat(service.suggest("mo", 10, now)).extracting(PopularSearchDTO::getQuery).containsExactly("mohinga");
+    }
+
+    @Test
+    void devicesOutsideTheWindowNoLongerCount() {
+        PopularSearchService service = new PopularSearchService(60, 12, 100, 1, 2);
+        long now = 1_000 * MINUTE;
+        service.record("mohinga", "device-1", now);
+        for (int i = 0; i < 3; i++) {
+            service.record("mohinga", "device-2", now + 50 * MINUTE);
+        }
+
+        assertThat(service.popular(10, now + 55 * MINUTE)).hasSize(1);
+        assertThat(service.popular(10, now + 65 * MINUTE)).isEmpty();
+    }
+
+    @Test
+    void neverCountsContactDetailsLinksOrSpam() {
+        PopularSearchService service = new PopularSearchService(60, 12, 100, 1, 0);
+        long now = 1_000 * MINUTE;
+        service.record("call 09 450 123 456", null, now);
+        service.record("me@example.com", null, now);
+        service.record("www.spam-shop.com deals", null, now);
+        service.record("aaaaaaaa", null, now);
+        service.record("tea leaf salad", null, now);
+
+        assertThat(service.popular(10, now)).extracting(PopularSearchDTO::getQuery)
+                .containsExactly("tea leaf salad");
+        assertThat(PopularSearchService.publishable("7 eleven")).isTrue();
+    }
+
+    @Test
+    void growingCandidatesAreNotEvictedByStaleHeapOrder() {
+        PopularSearchService service = new PopularSearchService(60, 12, 2, 1, 0);
+        long now = 1_000 * MINUTE;
+        service.record("aa", null, now);
+        service.record("bb", null, now);
+        for (int i = 0; i < 5; i++) {
+            service.record("aa", null, now);
+        }
+        service.record("cc", null, now);
+        service.record("cc", null, now);
+
+        assertThat(service.popular(10, now)).extracting(PopularSearchDTO::getQuery)
+                .containsExactly("aa", "cc");
+    }
+}
@@ -0,0 +1,93 @@
+package org.th.service.mobile;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.th.repository.ShopReviewRepository;
+import org.th.repository.UserActivityRepository;
+import org.th.repository.UserFavoriteRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RecommendationProfileStoreTest {
+
+    private UserFavoriteRepository userFavoriteRepository;
+    private ShopReviewRepository shopReviewRepository;
+    private UserActivityRepository userActivityRepository;
+    private RecommendationProfileStore store;
+
+    @BeforeEach
+    void setUp() {
+        userFavoriteRepository = mock(UserFavoriteRepository.class);
+        shopReviewRepository = mock(ShopReviewRepository.class);
+        userActivityRepository = mock(UserActivityRepository.class);
+        store = new RecommendationProfileStore(userFavoriteRepository, shopReviewRepository,
+                userActivityRepository, 60, 100);
+
+        when(userFavoriteRepository.findShopIdAndCategoryByUserId(1L))
+                .thenReturn(List.<Object[]>of(new Object[] { 10L, "Cafe" }));
+        when(shopReviewRepository.findShopIdCategoryAndRatingByUserId(1L))
+                .thenReturn(List.<Object[]>of(new Object[] { 11L, "Noodles", 5 }));
+        when(userActivityRepository.findTopSearchQueriesByUser(1L))
+                .thenReturn(List.<Object[]>of(new Object[] { "tea", 4L }));
+        when(userActivityRepository.findTopCategoriesByDevice(anyString()))
+                .thenReturn(List.<Object[]>of(new Object[] { "Bakery", 2L }));
+        when(userActivityRepository.findRecentViewedShopIdsByDevice(anyString(), any(Pageable.class)))
+                .thenReturn(List.of(20L));
+    }
+
+    @Test
+    void loadsUserProfileOnce() {
+        RecommendationProfile profile = store.getUserProfile(1L);
+        store.getUserProfile(1L);
+
+        assertThat(profile.excludedShopIds()).containsExactlyInAnyOrder(10L, 11L);
+        assertThat(profile.seeds()).containsKeys(10L, 11L);
+        assertThat(profile.categories()).containsKeys("Cafe", "Noodles");
+        assertThat(profile.topKeywords(5)).containsExactly("tea");
+        verify(userFavoriteRepository, times(1)).findShopIdAndCategoryByUserId(1L);
+    }
+
+    @Test
+    void appliesWritesToCachedProfilesWithoutReloading() {
+        store.getUserProfile(1L);
+        store.getDeviceProfile("device-1");
+
+        store.onFavoriteAdded(1L, 12L, "Bar");
+        store.onSearch(1L, "device-1", "noodle");
+        store.onView("device-1", "Bakery", 21L);
+
+        RecommendationProfile user = store.getUserProfile(1L);
+        RecommendationProfile device = store.getDeviceProfile("device-1");
+        assertThat(user.excludedShopIds()).contains(12L);
+        assertThat(user.categories()).containsKey("Bar");
+        assertThat(user.keywords()).containsKey("noodle");
+        assertThat(device.seeds()).containsKeys(20L, 21L);
+        assertThat(device.categories()).containsEntry("Bakery", 3f);
+        verify(userFavoriteRepository, times(1)).findShopIdAndCategoryByUserId(1L);
+    }
+
+    @Test
+    void ignoresWritesForProfilesNotInMemory() {
+        store.onFavoriteAdded(2L, 12L, "Bar");
+
+        assertThat(store.getNativeCache().asMap()).isEmpty();
+    }
+
+    @Test
+    void evictionForcesReload() {
+        store.getUserProfile(1L);
+        store.evictUser(1L);
+        store.getUserProfile(1L);
+
+        verify(userFavoriteRepository, times(2)).findShopIdAndCategoryByUserId(1L);
+    }
+}
@@ -0,0 +1,61 @@
+package org.th.service.mobile;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.th.repository.ShopRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TrendingLeaderboardsTest {
+
+    private TrendingLeaderboards leaderboards;
+
+    @BeforeEach
+    void setUp() {
+        ShopRepository shopRepository = mock(ShopRepository.class);
+        // shop id, district id, city id, category, trending score
+        when(shopRepository.findActiveTrendingRows()).thenReturn(List.of(
+                new Object[] { 1L, 10L, 100L, "Cafe", 5.0 },
+                new Object[] { 2L, 10L, 100L, "Noodles", 9.0 },
+                new Object[] { 3L, 11L, 100L, "Cafe", 7.0 },
+                new Object[] { 4L, 11L, 100L, "Cafe", null },
+                new Object[] { 5L, null, null, "Cafe", 8.0 }));
+        leaderboards = new TrendingLeaderboards(shopRepository, 3);
+        leaderboards.rebuild();
+    }
+
+    @Test
+    void keepsTopKPerScopeBestFirst() {
+        assertThat(leaderboards.top(null, null, null, 10)).containsExactly(2L, 5L, 3L);
+        assertThat(leaderboards.top(10L, null, null, 10)).containsExactly(2L, 1L);
+        assertThat(leaderboards.top(null, 100L, null, 2)).containsExactly(2L, 3L);
+    }
+
+    @Test
+    void combinesScopeWithCategory() {
+        assertThat(leaderboards.top(null, null, "cafe", 10)).containsExactly(5L, 3L, 1L);
+        assertThat(leaderboards.top(11L, null, "Cafe", 10)).containsExactly(3L, 4L);
+        assertThat(leaderboards.top(null, 100L, "Noodles", 10)).containsExactly(2L);
+        assertThat(leaderboards.top(12L, null, null, 10)).isEmpty();
+    }
+
+    @Test
+    void ensureBuiltQueriesOnceEvenWhenNothingTrends() {
+        ShopRepository shopRepository = mock(ShopRepository.class);
+        when(shopRepository.findActiveTrendingRows()).thenReturn(List.of());
+        TrendingLeaderboards empty = new TrendingLeaderboards(shopRepository, 3);
+
+        empty.ensureBuilt();
+        empty.ensureBuilt();
+
+        assertThat(empty.isEmpty()).isTrue();
+        assertThat(empty.getBuiltAt()).isPositive();
+        verify(shopRepository, times(1)).findActiveTrendingRows();
+    }
+}
@@ -0,0 +1,96 @@
+package org.th.util;
+
+import org.junit.jupiter.api.Test;
+import org.th.entity.enums.PricePreference;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CityBundleCodecTest {
+
+    @Test
+    void roundTripsEveryField() throws IOException {
+        long[] hours = new long[11];
+        for (int slot = 96 + 36; slot < 96 + 72; slot++) { // Monday 09:00-18:00
+            hours[slot >>> 6] |= 1L << (slot & 63);
+        }
+        hours[10] |= 1L << ((7 * 96 - 1) & 63); // Saturday 23:45
+        CityBundleCodec.Entry first = entry(3, "Tea House", "Cafe", new BigDecimal("16.80000000"),
+                new BigDecimal("4.25"), PricePreference.LOW, hours);
+        CityBundleCodec.Entry second = entry(10, "မုန့်ဟင်းခါး", "Cafe", new BigDecimal("16.779999"),
+                null, null, null);
+
+        CityBundleCodec.Contents contents = CityBundleCodec.read(
+                new ByteArrayInputStream(encode(7, List.of(first, second))));
+
+        assertThat(contents.cityId()).isEqualTo(7);
+        assertThat(contents.entries()).hasSize(2);
+        CityBundleCodec.Entry a = contents.entries().get(0);
+        assertThat(a).usingRecursiveComparison().ignoringFields("latitude", "longitude").isEqualTo(first);
+        assertThat(a.latitude()).isEqualByComparingTo("16.8");
+        assertThat(a.longitude()).isEqualByComparingTo("96.15");
+        CityBundleCodec.Entry b = contents.entries().get(1);
+        assertThat(b.name()).isEqualTo("မုန့်ဟင်းခါး");
+        assertThat(b.category()).isEqualTo("Cafe");
+        assertThat(b.latitude()).isEqualByComparingTo("16.779999");
+        assertThat(b.ratingAvg()).isNull();
+        assertThat(b.pricePreference()).isNull();
+        assertThat(b.hours()).isNull();
+    }
+
+    @Test
+    void identicalInputGivesIdenticalBytes() throws IOException {
+        List<CityBundleCodec.Entry> entries = List.of(
+                entry(1, "A", "Cafe", BigDecimal.ONE, null, null, null),
+                entry(2, "B", "Bar", BigDecimal.TEN, null, null, null));
+
+        assertThat(encode(1, entries)).isEqualTo(encode(1, entries));
+    }
+
+    @Test
+    void repeatedStringsAreWrittenOnce() throws IOException {
+        List<CityBundleCodec.Entry> same = new java.util.ArrayList<>();
+        List<CityBundleCodec.Entry> distinct = new java.util.ArrayList<>();
+        for (int i = 1; i <= 500; i++) {
+            same.add(entry(i, "Shop", "Restaurant", BigDecimal.ONE, null, null, null));
+            distinct.add(entry(i, "Shop", "Restaurant " + i, BigDecimal.ONE, null, null, null));
+        }
+
+        assertThat(CityBundleCodec.read(new ByteArrayInputStream(encode(1, same))).entries())
+                .allSatisfy(e -> assertThat(e.category()).isEqualTo("Restaurant"));
+        assertThat(encode(1, same).length).isLessThan(encode(1, distinct).length);
+    }
+
+    @Test
+    void rejectsEntriesOutOfOrder() throws IOException {
+        CityBundleCodec.Writer writer = new CityBundleCodec.Writer(new ByteArrayOutputStream(), 1);
+        writer.write(entry(5, "A", "Cafe", BigDecimal.ONE, null, null, null));
+
+        assertThatThrownBy(() -> writer.write(entry(5, "B", "Cafe", BigDecimal.ONE, null, null, null)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static byte[] encode(long cityId, List<CityBundleCodec.Entry> entries) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (CityBundleCodec.Writer writer = new CityBundleCodec.Writer(out, cityId)) {
+            for (CityBundleCodec.Entry entry : entries) {
+                writer.write(entry);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static CityBundleCodec.Entry entry(long id, String name, String category, BigDecimal latitude,
+            BigDecimal rating, PricePreference price, long[] hours) {
+        return new CityBundleCodec.Entry(id, name, name + " mm", null, "shop-" + id, category, null, "Bahan",
+                "1 Main Rd", null, latitude, new BigDecimal("96.150000"), rating, rating != null ? 12 : 0,
+                "https://cdn/logo.png", null, "https://cdn/photo.jpg",
+                true, false, true, false, true, false, price, hours);
+    }
+}
@@ -0,0 +1,73 @@
+package org.th.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+public class HyperLogLogTest {
+
+    @Test
+    void smallCountsAreNearExact() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = 0; i < 100; i++) {
+            sketch.add("device-" + i);
+            sketch.add("device-" + i); // duplicates don't count
+        }
+
+        assertThat(sketch.estimate()).isCloseTo(100L, within(2L));
+    }
+
+    @Test
+    void largeCountsStayWithinErrorBound() {
+        HyperLogLog sketch = new HyperLogLog();
+        int n = 200_000;
+        for (int i = 0; i < n; i++) {
+            sketch.add("device-" + i);
+        }
+
+        // 3 sigma
+        long tolerance = Math.round(n * 3 * sketch.relativeStandardError());
+        assertThat(sketch.estimate()).isCloseTo((long) n, within(tolerance));
+    }
+
+    @Test
+    void mergeCountsTheUnion() {
+        HyperLogLog monday = new HyperLogLog();
+        HyperLogLog tuesday = new HyperLogLog();
+        for (int i = 0; i < 30_000; i++) {
+            monday.add("device-" + i);
+        }
+        for (int i = 20_000; i < 50_000; i++) {
+            tuesday.add("device-" + i);
+        }
+
+        long union = monday.merge(tuesday).estimate();
+        assertThat(union).isCloseTo(50_000L, within(Math.round(50_000 * 3 * monday.relativeStandardError())));
+    }
+
+    @Test
+    void roundTripsSparseAndDense() {
+        HyperLogLog small = new HyperLogLog();
+        small.add("a");
+        small.add("b");
+        byte[] sparse = small.toBytes();
+        assertThat(sparse.length).isLessThan(20);
+        assertThat(HyperLogLog.fromBytes(sparse).estimate()).isEqualTo(small.estimate());
+
+        HyperLogLog large = new HyperLogLog();
+        for (int i = 0; i < 50_000; i++) {
+            large.add("device-" + i);
+        }
+        byte[] dense = large.toBytes();
+        assertThat(dense.length).isEqualTo(2 + (1 << HyperLogLog.DEFAULT_PRECISION));
+        assertThat(HyperLogLog.fromBytes(dense).estimate()).isEqualTo(large.estimate());
+    }
+
+    @Test
+    void rejectsMismatchedPrecision() {
+        assertThatThrownBy(() -> new HyperLogLog(12).merge(new HyperLogLog(10)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,114 @@
+package org.th.util;
+
+import org.junit.jupiter.api.Test;
+import org.th.util.ImageVariants.Variant;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ImageVariantsTest {
+
+    @Test
+    void fitsEachVariantWithinItsEdgeKeepingAspectRatio() throws IOException {
+        Map<Variant, byte[]> variants = ImageVariants.generate(png(4800, 3200, BufferedImage.TYPE_INT_ARGB));
+
+        assertThat(variants).containsOnlyKeys(Variant.values());
+        assertDimensions(variants.get(Variant.FULL), 2048, 1365);
+        assertDimensions(variants.get(Variant.MEDIUM), 1080, 720);
+        assertDimensions(variants.get(Variant.THUMBNAIL), 320, 213);
+        assertThat(variants.get(Variant.THUMBNAIL).length).isLessThan(variants.get(Variant.MEDIUM).length);
+    }
+
+    @Test
+    void neverUpscalesSmallImages() throws IOException {
+        Map<Variant, byte[]> variants = ImageVariants.generate(png(200, 400, BufferedImage.TYPE_INT_RGB));
+
+        assertDimensions(variants.get(Variant.FULL), 200, 400);
+        assertDimensions(variants.get(Variant.THUMBNAIL), 160, 320);
+    }
+
+    @Test
+    void appliesExifOrientationBeforeScaling() throws IOException {
+        // Stored landscape with the left half red; orientation 6 means "rotate 90 degrees clockwise to display"
+        BufferedImage image = new BufferedImage(400, 200, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < 200; y++) {
+            for (int x = 0; x < 400; x++) {
+                image.setRGB(x, y, x < 200 ? 0xFF0000 : 0x0000FF);
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", out);
+        byte[] jpeg = withExifOrientation(out.toByteArray(), 6);
+        assertThat(ImageVariants.exifOrientation(jpeg)).isEqualTo(6);
+
+        Map<Variant, byte[]> variants = ImageVariants.generate(jpeg);
+
+        assertDimensions(variants.get(Variant.FULL), 200, 400);
+        BufferedImage upright = ImageIO.read(new ByteArrayInputStream(variants.get(Variant.FULL)));
+        assertThat((upright.getRGB(100, 50) >> 16) & 0xFF).isGreaterThan(200);
+        assertThat(upright.getRGB(100, 350) & 0xFF).isGreaterThan(200);
+    }
+
+    @Test
+    void rejectsNonImages() {
+        assertThatThrownBy(() -> ImageVariants.generate("not an image".getBytes()))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void storesVariantsNextToTheOriginal() {
+        assertThat(ImageVariants.variantPath("shops/1/gallery/abc.png", Variant.THUMBNAIL))
+                .isEqualTo("shops/1/gallery/abc_thumb.jpg");
+        assertThat(ImageVariants.variantPath("shops/1/items/2/gallery/1700000000/x.y.jpeg", Variant.MEDIUM))
+                .isEqualTo("shops/1/items/2/gallery/1700000000/x.y_medium.jpg");
+        assertThat(ImageVariants.variantPath("shops/1.d/noext", Variant.FULL))
+                .isEqualTo("shops/1.d/noext_full.jpg");
+    }
+
+    private static byte[] png(int width, int height, int type) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, type);
+        for (int y = 0; y < height; y += 7) {
+            for (int x = 0; x < width; x += 5) {
+                image.setRGB(x, y, (x * 31 + y * 17) | 0x80000000);
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Insert a big-endian EXIF APP1 segment holding only an Orientation tag after SOI
+     */
+    private static byte[] withExifOrientation(byte[] jpeg, int orientation) {
+        byte[] tiff = {
+                'M', 'M', 0, 42, 0, 0, 0, 8, // header, IFD0 at offset 8
+                0, 1, // one entry
+                0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, (byte) orientation, 0, 0, // Orientation, SHORT, count 1
+                0, 0, 0, 0 }; // no next IFD
+        int length = 2 + 6 + tiff.length;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(jpeg, 0, 2);
+        out.write(0xFF);
+        out.write(0xE1);
+        out.write(length >> 8);
+        out.write(length & 0xFF);
+        out.writeBytes("Exif\0\0".getBytes());
+        out.writeBytes(tiff);
+        out.write(jpeg, 2, jpeg.length - 2);
+        return out.toByteArray();
+    }
+
+    private static void assertDimensions(byte[] jpeg, int width, int height) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(jpeg));
+        assertThat(image.getWidth()).isEqualTo(width);
+        assertThat(image.getHeight()).isEqualTo(height);
+    }
+}